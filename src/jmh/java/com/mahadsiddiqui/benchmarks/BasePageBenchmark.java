@@ -0,0 +1,133 @@
+package com.mahadsiddiqui.benchmarks;
+
+import com.mahadsiddiqui.config.WebDriverConfig;
+import com.mahadsiddiqui.pages.BasePage;
+import com.mahadsiddiqui.waits.ReadinessReport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the core BasePage operations against a local copy of the home page markup
+ * Runs one headless Chrome per fork with artifacts, video, tracing, request filtering,
+ * the HTTP cache and performance history off so only the operation is measured
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 3)
+@Fork(value = 1, jvmArgsAppend = {
+        "-Dbrowser.name=chrome",
+        "-Dbrowser.headless=true",
+        "-Dbrowser.window.maximize=false",
+        "-Dartifacts.enabled=false",
+        "-Dartifacts.store.enabled=false",
+        "-Dvideo.recording=false",
+        "-Dtrace.enabled=false",
+        "-Dnetwork.filter.enabled=false",
+        "-Dhttp.cache.enabled=false",
+        "-Dperf.history.enabled=false",
+        "-Dscreenshot.path=target/jmh-screenshots/"})
+public class BasePageBenchmark {
+    
+    private static final By LOGO = By.cssSelector(".logo");
+    private static final By SEARCH_BOX = By.id("search");
+    private static final By SEARCH_BUTTON = By.cssSelector(".search-button");
+    private static final By SORT = By.id("sort");
+    private static final By FOOTER = By.cssSelector(".footer");
+    private static final By MISSING = By.cssSelector(".does-not-exist");
+    private static final String[] SORT_OPTIONS = {"Name", "Price", "Rating"};
+    
+    private FixtureServer server;
+    private WebDriver driver;
+    private BasePage page;
+    private int sortIndex;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = FixtureServer.start();
+        driver = WebDriverConfig.createDriver();
+        page = new BasePage(driver);
+        page.navigateTo(server.url("home.html"));
+        page.waitForPageLoad();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        WebDriverConfig.shutdownScreenshotPipeline();
+        if (driver != null) {
+            driver.quit();
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+    
+    @Benchmark
+    public void click() {
+        page.click(SEARCH_BUTTON);
+    }
+    
+    @Benchmark
+    public void sendKeys() {
+        page.sendKeys(SEARCH_BOX, "laptop");
+    }
+    
+    @Benchmark
+    public String getText() {
+        return page.getText(LOGO);
+    }
+    
+    @Benchmark
+    public boolean isElementDisplayedHit() {
+        return page.isElementDisplayed(LOGO);
+    }
+    
+    @Benchmark
+    public boolean isElementDisplayedMiss() {
+        return page.isElementDisplayed(MISSING);
+    }
+    
+    @Benchmark
+    public WebElement waitForElementVisible() {
+        return page.waitForElementVisible(FOOTER);
+    }
+    
+    @Benchmark
+    public WebElement waitForElementClickable() {
+        return page.waitForElementClickable(SEARCH_BUTTON);
+    }
+    
+    @Benchmark
+    public ReadinessReport waitForPageLoad() {
+        return page.waitForPageLoad();
+    }
+    
+    @Benchmark
+    public void selectByVisibleText() {
+        // Cycle the options so every call changes the selection
+        sortIndex = (sortIndex + 1) % SORT_OPTIONS.length;
+        page.selectByVisibleText(SORT, SORT_OPTIONS[sortIndex]);
+    }
+    
+    @Benchmark
+    public String takeScreenshot() {
+        return page.takeScreenshot("benchmark").join();
+    }
+}
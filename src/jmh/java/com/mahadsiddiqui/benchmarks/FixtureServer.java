@@ -0,0 +1,89 @@
+package com.mahadsiddiqui.benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Embedded static HTTP server for benchmark fixtures
+ * Serves the files under /fixtures on the classpath from memory on a free loopback port
+ */
+public class FixtureServer implements AutoCloseable {
+    
+    private final HttpServer server;
+    private final Map<String, byte[]> cache = new HashMap<>();
+    
+    private FixtureServer(HttpServer server) {
+        this.server = server;
+    }
+    
+    /**
+     * Start a server on a free loopback port
+     */
+    public static FixtureServer start() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        FixtureServer fixtures = new FixtureServer(server);
+        server.createContext("/", fixtures::handle);
+        server.start();
+        return fixtures;
+    }
+    
+    /**
+     * Get the URL of a fixture file
+     */
+    public String url(String fixture) {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/" + fixture;
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        byte[] body = load(exchange.getRequestURI().getPath());
+        if (body == null) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", contentType(exchange.getRequestURI().getPath()));
+        exchange.getResponseHeaders().set("Cache-Control", "no-store");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+    
+    private synchronized byte[] load(String path) throws IOException {
+        if (path.contains("..")) {
+            return null;
+        }
+        if (!cache.containsKey(path)) {
+            try (InputStream in = FixtureServer.class.getResourceAsStream("/fixtures" + path)) {
+                cache.put(path, in == null ? null : in.readAllBytes());
+            }
+        }
+        return cache.get(path);
+    }
+    
+    private static String contentType(String path) {
+        if (path.endsWith(".html")) {
+            return "text/html; charset=utf-8";
+        }
+        if (path.endsWith(".css")) {
+            return "text/css";
+        }
+        if (path.endsWith(".js")) {
+            return "application/javascript";
+        }
+        return "application/octet-stream";
+    }
+    
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,263 @@
+package com.mahadsiddiqui.artifacts;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mahadsiddiqui.config.WebDriverConfig;
+import com.mahadsiddiqui.drivers.DevToolsSession;
+import com.mahadsiddiqui.screenshots.ScreenshotCapture;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-session ring buffer of the last page interactions of a test
+ * Page state each action left is captured in the background over DevTools and only written to disk
+ * when the test fails
+ */
+public class ArtifactRecorder {
+    
+    private static final Logger LOG = LoggerFactory.getLogger(ArtifactRecorder.class);
+    private static final Map<WebDriver, ArtifactRecorder> RECORDERS = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private static final int MAX_LOG_ENTRIES = 200;
+    // Node and text counts rather than a hash of the markup, so the page's main thread does next to no work
+    private static final String DOM_DIGEST_EXPRESSION = "(function () {"
+            + "  var nodes = document.getElementsByTagName('*').length;"
+            + "  var text = document.body ? document.body.textContent.length : 0;"
+            + "  return {url: location.href, title: document.title, nodes: nodes, digest: nodes + '-' + text};"
+            + "})()";
+    
+    private final WeakReference<WebDriver> driver;
+    private final int capacity;
+    private final int jpegQuality;
+    private final boolean devTools;
+    private final Deque<RecordedStep> steps = new ArrayDeque<>();
+    private final Deque<Map<String, Object>> console = new ArrayDeque<>();
+    private final Deque<Map<String, Object>> network = new ArrayDeque<>();
+    private final ThreadPoolExecutor capturer;
+    private int stepCount;
+    
+    private ArtifactRecorder(WebDriver driver, int capacity, int jpegQuality) {
+        this.driver = new WeakReference<>(driver);
+        this.capacity = capacity;
+        this.jpegQuality = jpegQuality;
+        this.devTools = DevToolsSession.isSupported(driver);
+        // One capture in flight and one waiting; anything beyond that is dropped rather than slowing the test
+        this.capturer = new ThreadPoolExecutor(1, 1, 30L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "artifact-recorder");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+        this.capturer.allowCoreThreadTimeOut(true);
+    }
+    
+    /**
+     * Get the recorder of a session, attaching it on first use
+     */
+    public static ArtifactRecorder of(WebDriver driver) {
+        synchronized (RECORDERS) {
+            ArtifactRecorder recorder = RECORDERS.get(driver);
+            if (recorder == null) {
+                recorder = new ArtifactRecorder(driver,
+                        Integer.parseInt(WebDriverConfig.getProperty("artifacts.steps", "10")),
+                        Integer.parseInt(WebDriverConfig.getProperty("artifacts.jpeg.quality", "50")));
+                recorder.attach(driver);
+                RECORDERS.put(driver, recorder);
+            }
+            return recorder;
+        }
+    }
+    
+    /**
+     * Get the recorder of a session if one has been attached
+     */
+    public static ArtifactRecorder find(WebDriver driver) {
+        return RECORDERS.get(driver);
+    }
+    
+    private void attach(WebDriver driver) {
+        if (!devTools) {
+            return;
+        }
+        try {
+            DevToolsSession.addListener(driver, "Runtime.consoleAPICalled", event -> log(console, event));
+            DevToolsSession.addListener(driver, "Runtime.exceptionThrown", event -> log(console, event));
+            DevToolsSession.addListener(driver, "Log.entryAdded", event -> log(console, event));
+            DevToolsSession.addListener(driver, "Network.loadingFailed", event -> log(network, event));
+            DevToolsSession.addListener(driver, "Network.responseReceived", this::responseReceived);
+            DevToolsSession.send(driver, "Runtime.enable");
+            DevToolsSession.send(driver, "Log.enable");
+            DevToolsSession.send(driver, "Network.enable");
+        } catch (RuntimeException e) {
+            LOG.debug("Console and network recording unavailable: {}", e.getMessage());
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private void responseReceived(Map<String, Object> event) {
+        Object response = event.get("response");
+        if (response instanceof Map) {
+            Object status = ((Map<String, Object>) response).get("status");
+            if (status instanceof Number && ((Number) status).intValue() >= 400) {
+                log(network, event);
+            }
+        }
+    }
+    
+    private void log(Deque<Map<String, Object>> entries, Map<String, Object> event) {
+        Map<String, Object> entry = new LinkedHashMap<>(event);
+        entry.put("recordedAt", System.currentTimeMillis());
+        synchronized (entries) {
+            if (entries.size() >= MAX_LOG_ENTRIES) {
+                entries.pollFirst();
+            }
+            entries.addLast(entry);
+        }
+    }
+    
+    /**
+     * Record a page action as it starts; its page state is captured once it finishes, see captureAfter
+     */
+    public RecordedStep step(String action) {
+        RecordedStep step;
+        synchronized (steps) {
+            step = new RecordedStep(++stepCount, action, System.currentTimeMillis());
+            if (steps.size() >= capacity) {
+                steps.pollFirst();
+            }
+            steps.addLast(step);
+        }
+        return step;
+    }
+    
+    /**
+     * Capture in the background the page state a finished action left
+     */
+    public void captureAfter(RecordedStep step) {
+        if (devTools) {
+            capturer.execute(() -> capture(step));
+        }
+    }
+    
+    private boolean isLatest(RecordedStep step) {
+        synchronized (steps) {
+            return step.getIndex() == stepCount;
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private void capture(RecordedStep step) {
+        WebDriver driver = this.driver.get();
+        if (driver == null || !isLatest(step)) {
+            // The next action has started, so the page no longer shows what this one left
+            return;
+        }
+        try {
+            Map<String, Object> params = new HashMap<>();
+            params.put("expression", DOM_DIGEST_EXPRESSION);
+            params.put("returnByValue", true);
+            Map<String, Object> result = (Map<String, Object>) DevToolsSession.send(driver, "Runtime.evaluate", params)
+                    .get("result");
+            Map<String, Object> state = (Map<String, Object>) result.get("value");
+            if (state != null) {
+                step.setPageState((String) state.get("url"), (String) state.get("title"),
+                        (String) state.get("digest"), ((Number) state.get("nodes")).longValue());
+            }
+            step.setScreenshot(ScreenshotCapture.captureViewportJpeg(driver, jpegQuality));
+        } catch (RuntimeException e) {
+            // Best effort; the step is still kept without page state
+        }
+    }
+    
+    /**
+     * Write the recorded trail of the current test to a directory and return it
+     */
+    public Path flush(String testName) throws IOException {
+        List<RecordedStep> recorded;
+        synchronized (steps) {
+            recorded = new ArrayList<>(steps);
+        }
+        awaitCaptures();
+        
+        Path directory = Paths.get(WebDriverConfig.getProperty("artifacts.path", "target/artifacts/"),
+                testName.replaceAll("[^A-Za-z0-9._-]", "_") + "-" + System.currentTimeMillis());
+        Files.createDirectories(directory);
+        
+        List<Map<String, Object>> trail = new ArrayList<>();
+        for (RecordedStep step : recorded) {
+            String screenshotFile = null;
+            if (step.getScreenshotBase64() != null) {
+                screenshotFile = String.format("step-%03d.jpg", step.getIndex());
+                WebDriverConfig.getScreenshotPipeline().write(step.getScreenshotBase64(),
+                        directory.resolve(screenshotFile));
+            }
+            trail.add(step.asMap(screenshotFile));
+        }
+        WebDriver driver = this.driver.get();
+        if (driver != null) {
+            WebDriverConfig.getScreenshotPipeline().capture(driver, false, directory.resolve("final.png"));
+        }
+        
+        MAPPER.writeValue(directory.resolve("steps.json").toFile(), trail);
+        MAPPER.writeValue(directory.resolve("console.json").toFile(), snapshot(console));
+        MAPPER.writeValue(directory.resolve("network.json").toFile(), snapshot(network));
+        return directory;
+    }
+    
+    /**
+     * Drop everything recorded so far, for example when a test passed
+     */
+    public void clear() {
+        synchronized (steps) {
+            steps.clear();
+            stepCount = 0;
+        }
+        synchronized (console) {
+            console.clear();
+        }
+        synchronized (network) {
+            network.clear();
+        }
+    }
+    
+    /**
+     * Wait briefly for background captures to finish, for example before page metrics are read
+     */
+    public void awaitCaptures() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while ((capturer.getActiveCount() > 0 || !capturer.getQueue().isEmpty()) && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+    
+    private static List<Map<String, Object>> snapshot(Deque<Map<String, Object>> entries) {
+        synchronized (entries) {
+            return new ArrayList<>(entries);
+        }
+    }
+}
@@ -0,0 +1,459 @@
+package com.mahadsiddiqui.artifacts;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Content-addressed artifact storage
+ * Blobs are keyed by SHA-256 and stored once; small blobs are packed into append-only segment files,
+ * large ones get a file of their own. Runs record name to key manifests and old runs are pruned by retention
+ * Several JVMs may share a store: writes, manifests and garbage collection take a file lock and re-read the index
+ * first, and blobs stored within the grace period are never collected, so a put is safe until its run records it
+ */
+public class ArtifactStore {
+    
+    private static final String INDEX_FILE = "index.log";
+    private static final String LOCK_FILE = "store.lock";
+    private static final String MANIFEST_SUFFIX = ".manifest";
+    private static final int BLOB = -1;
+    private static final long DEFAULT_GRACE_MILLIS = 10 * 60 * 1000L;
+    
+    private final Path root;
+    private final Path segments;
+    private final Path blobs;
+    private final Path runs;
+    private final int packThreshold;
+    private final long segmentMaxBytes;
+    private final long graceMillis;
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    private int currentSegment;
+    private Object indexFileKey;
+    private long indexOffset;
+    
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder bytesStored = new LongAdder();
+    private final LongAdder bytesDeduplicated = new LongAdder();
+    
+    /**
+     * Open a store, creating its directories and loading the index
+     * Blobs up to packThreshold bytes are packed into segments of at most segmentMaxBytes
+     */
+    public ArtifactStore(Path root, int packThreshold, long segmentMaxBytes) throws IOException {
+        this(root, packThreshold, segmentMaxBytes, DEFAULT_GRACE_MILLIS);
+    }
+    
+    /**
+     * Open a store whose garbage collection spares blobs stored or deduplicated within the last graceMillis
+     */
+    public ArtifactStore(Path root, int packThreshold, long segmentMaxBytes, long graceMillis) throws IOException {
+        this.root = root;
+        this.segments = root.resolve("segments");
+        this.blobs = root.resolve("blobs");
+        this.runs = root.resolve("runs");
+        this.packThreshold = packThreshold;
+        this.segmentMaxBytes = segmentMaxBytes;
+        this.graceMillis = graceMillis;
+        Files.createDirectories(segments);
+        Files.createDirectories(blobs);
+        Files.createDirectories(runs);
+        refreshIndex();
+    }
+    
+    /**
+     * Store content and return its key; identical content is stored only once
+     */
+    public String put(byte[] content) throws IOException {
+        String key = sha256(content);
+        puts.increment();
+        synchronized (this) {
+            try (FileChannel lockChannel = openLock(); FileLock lock = lockChannel.lock()) {
+                // Another JVM may have stored the content, or collected it, since this one last looked
+                refreshIndex();
+                long now = System.currentTimeMillis();
+                Location existing = index.get(key);
+                if (existing != null) {
+                    duplicates.increment();
+                    bytesDeduplicated.add(content.length);
+                    if (now - existing.storedAt > graceMillis / 2) {
+                        // The stored copy may be unreferenced by now; renew its grace period until this run records it
+                        Location renewed = existing.storedAt(now);
+                        appendIndex(key, renewed);
+                        index.put(key, renewed);
+                    }
+                    return key;
+                }
+                Location location = (content.length <= packThreshold ? append(content) : writeBlob(key, content))
+                        .storedAt(now);
+                appendIndex(key, location);
+                index.put(key, location);
+                bytesStored.add(content.length);
+            }
+        }
+        return key;
+    }
+    
+    /**
+     * Read content by key, or null if the store does not hold it
+     */
+    public byte[] get(String key) throws IOException {
+        Location location = index.get(key);
+        if (location == null) {
+            return null;
+        }
+        if (location.segment == BLOB) {
+            return Files.readAllBytes(blobPath(key));
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(location.length);
+        try (FileChannel channel = FileChannel.open(segmentPath(location.segment), StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, location.offset + buffer.position()) < 0) {
+                    throw new IOException("Segment " + location.segment + " is truncated at key " + key);
+                }
+            }
+        }
+        return buffer.array();
+    }
+    
+    /**
+     * Check if the store holds a key
+     */
+    public boolean contains(String key) {
+        return index.containsKey(key);
+    }
+    
+    /**
+     * Record that a run produced an artifact under a name
+     */
+    public synchronized void record(String runId, String name, String key) throws IOException {
+        String line = name.replace('\t', ' ').replace('\n', ' ') + "\t" + key + "\n";
+        try (FileChannel lockChannel = openLock(); FileLock lock = lockChannel.lock()) {
+            // Garbage collection in another JVM reads manifests under the same lock
+            Files.write(runs.resolve(runId + MANIFEST_SUFFIX), line.getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+    }
+    
+    /**
+     * Get the artifacts of a run by name; later records of a name win
+     */
+    public Map<String, String> readRun(String runId) throws IOException {
+        Map<String, String> manifest = new LinkedHashMap<>();
+        Path file = runs.resolve(runId + MANIFEST_SUFFIX);
+        if (!Files.exists(file)) {
+            return manifest;
+        }
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            int tab = line.lastIndexOf('\t');
+            if (tab > 0) {
+                manifest.put(line.substring(0, tab), line.substring(tab + 1));
+            }
+        }
+        return manifest;
+    }
+    
+    /**
+     * List run ids, newest first
+     */
+    public List<String> listRuns() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(runs, "*" + MANIFEST_SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        files.sort(Comparator.comparingLong(ArtifactStore::lastModified).reversed());
+        List<String> ids = new ArrayList<>();
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            ids.add(name.substring(0, name.length() - MANIFEST_SUFFIX.length()));
+        }
+        return ids;
+    }
+    
+    /**
+     * Delete runs beyond the newest keepRuns or older than maxAgeMillis, then reclaim unreferenced blobs
+     * Returns the number of bytes reclaimed
+     */
+    public synchronized long prune(int keepRuns, long maxAgeMillis) throws IOException {
+        try (FileChannel lockChannel = openLock(); FileLock lock = lockChannel.lock()) {
+            long now = System.currentTimeMillis();
+            List<String> ids = listRuns();
+            for (int i = 0; i < ids.size(); i++) {
+                Path manifest = runs.resolve(ids.get(i) + MANIFEST_SUFFIX);
+                boolean expired = maxAgeMillis > 0 && now - lastModified(manifest) > maxAgeMillis;
+                if (i >= keepRuns || expired) {
+                    Files.deleteIfExists(manifest);
+                }
+            }
+            return collectUnreferenced();
+        }
+    }
+    
+    /**
+     * Remove blobs no run refers to; segments that are mostly garbage are compacted
+     * Returns the number of bytes reclaimed
+     */
+    public synchronized long collectGarbage() throws IOException {
+        try (FileChannel lockChannel = openLock(); FileLock lock = lockChannel.lock()) {
+            return collectUnreferenced();
+        }
+    }
+    
+    /**
+     * Garbage collection proper; the caller holds the file lock
+     */
+    private long collectUnreferenced() throws IOException {
+        long reclaimed = 0;
+        // Blobs other JVMs stored since this one opened must be seen, or the rewritten index would lose them
+        refreshIndex();
+        Set<String> live = new HashSet<>();
+        for (String runId : listRuns()) {
+            live.addAll(readRun(runId).values());
+        }
+        // Blobs put but not yet recorded in a manifest are kept through the grace period
+        long graceStart = System.currentTimeMillis() - graceMillis;
+        Map<Integer, List<String>> liveBySegment = new HashMap<>();
+        for (Map.Entry<String, Location> entry : new ArrayList<>(index.entrySet())) {
+            String key = entry.getKey();
+            Location location = entry.getValue();
+            boolean keep = live.contains(key) || location.storedAt > graceStart;
+            if (location.segment == BLOB) {
+                if (!keep) {
+                    reclaimed += location.length;
+                    Files.deleteIfExists(blobPath(key));
+                    index.remove(key);
+                }
+            } else if (keep) {
+                liveBySegment.computeIfAbsent(location.segment, segment -> new ArrayList<>()).add(key);
+            } else {
+                index.remove(key);
+            }
+        }
+        for (int segment : listSegments()) {
+            Path path = segmentPath(segment);
+            long size = Files.size(path);
+            List<String> keys = liveBySegment.getOrDefault(segment, new ArrayList<>());
+            long liveBytes = 0;
+            for (String key : keys) {
+                liveBytes += index.get(key).length;
+            }
+            if (liveBytes * 2 >= size) {
+                continue;
+            }
+            // Copy the few live entries into a fresh segment and drop the old one
+            currentSegment = Math.max(currentSegment, segment) + 1;
+            for (String key : keys) {
+                Location moved = append(get(key)).storedAt(index.get(key).storedAt);
+                index.put(key, moved);
+            }
+            Files.deleteIfExists(path);
+            reclaimed += size - liveBytes;
+        }
+        rewriteIndex();
+        return reclaimed;
+    }
+    
+    /**
+     * Get the number of stored blobs
+     */
+    public int size() {
+        return index.size();
+    }
+    
+    /**
+     * Get a summary of storage and deduplication for the suite log
+     */
+    public String summary() {
+        return String.format("Artifact store: puts=%d duplicates=%d storedBytes=%d deduplicatedBytes=%d blobs=%d",
+                puts.sum(), duplicates.sum(), bytesStored.sum(), bytesDeduplicated.sum(), index.size());
+    }
+    
+    private Location append(byte[] content) throws IOException {
+        Path path = segmentPath(currentSegment);
+        if (Files.exists(path) && Files.size(path) + content.length > segmentMaxBytes) {
+            currentSegment++;
+            path = segmentPath(currentSegment);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long offset = channel.size();
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, offset + buffer.position());
+            }
+            return new Location(currentSegment, offset, content.length, 0);
+        }
+    }
+    
+    private Location writeBlob(String key, byte[] content) throws IOException {
+        Path path = blobPath(key);
+        Files.createDirectories(path.getParent());
+        Path temp = path.resolveSibling(key + ".tmp");
+        Files.write(temp, content);
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new Location(BLOB, 0, content.length, 0);
+    }
+    
+    private void appendIndex(String key, Location location) throws IOException {
+        Files.write(root.resolve(INDEX_FILE), location.toLine(key).getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+    
+    private void rewriteIndex() throws IOException {
+        Path temp = root.resolve(INDEX_FILE + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Location> entry : index.entrySet()) {
+                writer.write(entry.getValue().toLine(entry.getKey()));
+            }
+        }
+        Files.move(temp, root.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        // Read back in full on the next refresh rather than tracking the new file here
+        indexFileKey = null;
+    }
+    
+    /**
+     * Bring the in-memory index up to date with index.log
+     * Appends since the last refresh are read incrementally; a rewritten log is reloaded in full
+     */
+    private void refreshIndex() throws IOException {
+        Path file = root.resolve(INDEX_FILE);
+        if (!Files.exists(file)) {
+            index.clear();
+            indexFileKey = null;
+            indexOffset = 0;
+        } else {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            Object fileKey = attributes.fileKey();
+            if (fileKey == null || !fileKey.equals(indexFileKey) || attributes.size() < indexOffset) {
+                Map<String, Location> loaded = new HashMap<>();
+                indexOffset = readIndex(file, 0, loaded);
+                index.keySet().retainAll(loaded.keySet());
+                index.putAll(loaded);
+                indexFileKey = fileKey;
+            } else {
+                indexOffset = readIndex(file, indexOffset, index);
+            }
+        }
+        for (int segment : listSegments()) {
+            currentSegment = Math.max(currentSegment, segment);
+        }
+    }
+    
+    /**
+     * Read index lines from an offset into a map, returning the offset just past the last complete line
+     */
+    private static long readIndex(Path file, long offset, Map<String, Location> into) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = ByteBuffer.allocate((int) Math.max(0, channel.size() - offset));
+            while (buffer.hasRemaining() && channel.read(buffer, offset + buffer.position()) >= 0) {
+                continue;
+            }
+        }
+        String text = new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+        String complete = text.substring(0, text.lastIndexOf('\n') + 1);
+        for (String line : complete.split("\n")) {
+            String[] fields = line.split(" ");
+            if (fields.length == 4 || fields.length == 5) {
+                // Lines written before store times were kept have none and are past any grace period
+                into.put(fields[0], new Location(Integer.parseInt(fields[1]), Long.parseLong(fields[2]),
+                        Integer.parseInt(fields[3]), fields.length == 5 ? Long.parseLong(fields[4]) : 0));
+            }
+        }
+        return offset + complete.getBytes(StandardCharsets.UTF_8).length;
+    }
+    
+    private List<Integer> listSegments() throws IOException {
+        List<Integer> ids = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(segments, "*.pack")) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                ids.add(Integer.parseInt(name.substring(0, name.length() - ".pack".length())));
+            }
+        }
+        return ids;
+    }
+    
+    private FileChannel openLock() throws IOException {
+        return FileChannel.open(root.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+    
+    private Path segmentPath(int segment) {
+        return segments.resolve(String.format("%06d.pack", segment));
+    }
+    
+    private Path blobPath(String key) {
+        return blobs.resolve(key.substring(0, 2)).resolve(key);
+    }
+    
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private static String sha256(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    /**
+     * Position of a blob: a segment with offset, or its own file, and when it was last stored
+     */
+    private static final class Location {
+        
+        private final int segment;
+        private final long offset;
+        private final int length;
+        private final long storedAt;
+        
+        private Location(int segment, long offset, int length, long storedAt) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.storedAt = storedAt;
+        }
+        
+        private Location storedAt(long millis) {
+            return new Location(segment, offset, length, millis);
+        }
+        
+        private String toLine(String key) {
+            return key + " " + segment + " " + offset + " " + length + " " + storedAt + "\n";
+        }
+    }
+}
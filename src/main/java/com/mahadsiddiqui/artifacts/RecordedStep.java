@@ -0,0 +1,74 @@
+package com.mahadsiddiqui.artifacts;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One page interaction kept in the artifact ring buffer
+ * Page state fields are filled in by the background capture after the action and may stay empty if it was skipped
+ */
+public class RecordedStep {
+    
+    private final int index;
+    private final String action;
+    private final long timestamp;
+    private volatile String url;
+    private volatile String title;
+    private volatile String domDigest;
+    private volatile long domNodes;
+    private volatile String screenshotBase64;
+    
+    RecordedStep(int index, String action, long timestamp) {
+        this.index = index;
+        this.action = action;
+        this.timestamp = timestamp;
+    }
+    
+    void setPageState(String url, String title, String domDigest, long domNodes) {
+        this.url = url;
+        this.title = title;
+        this.domDigest = domDigest;
+        this.domNodes = domNodes;
+    }
+    
+    void setScreenshot(String screenshotBase64) {
+        this.screenshotBase64 = screenshotBase64;
+    }
+    
+    /**
+     * Get position of the step within the test
+     */
+    public int getIndex() {
+        return index;
+    }
+    
+    /**
+     * Get description of the page action
+     */
+    public String getAction() {
+        return action;
+    }
+    
+    /**
+     * Get viewport JPEG captured after the action finished, or null if none was taken
+     */
+    public String getScreenshotBase64() {
+        return screenshotBase64;
+    }
+    
+    /**
+     * Get the step as a map for the JSON trail
+     */
+    public Map<String, Object> asMap(String screenshotFile) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("index", index);
+        map.put("action", action);
+        map.put("timestamp", timestamp);
+        map.put("url", url);
+        map.put("title", title);
+        map.put("domDigest", domDigest);
+        map.put("domNodes", domNodes);
+        map.put("screenshot", screenshotFile);
+        return map;
+    }
+}
@@ -1,6 +1,25 @@
 package com.mahadsiddiqui.config;
 
-import io.github.bonigarcia.wdm.WebDriverManager;
+import com.mahadsiddiqui.artifacts.ArtifactStore;
+import com.mahadsiddiqui.drivers.DriverBinaryResolver;
+import com.mahadsiddiqui.drivers.DriverPool;
+import com.mahadsiddiqui.drivers.SessionReset;
+import com.mahadsiddiqui.drivers.StaticDriver;
+import com.mahadsiddiqui.metrics.CommandListener;
+import com.mahadsiddiqui.network.CachingProxy;
+import com.mahadsiddiqui.network.HttpCache;
+import com.mahadsiddiqui.network.NetworkArchive;
+import com.mahadsiddiqui.network.NetworkRecorder;
+import com.mahadsiddiqui.network.RequestFilter;
+import com.mahadsiddiqui.network.RequestRule;
+import com.mahadsiddiqui.network.ReplayServer;
+import com.mahadsiddiqui.performance.MetricsHistory;
+import com.mahadsiddiqui.performance.RegressionDetector;
+import com.mahadsiddiqui.performance.Throttling;
+import com.mahadsiddiqui.performance.ThrottlingProfile;
+import com.mahadsiddiqui.screenshots.ScreenshotPipeline;
+import com.mahadsiddiqui.waits.ImplicitWait;
+import com.mahadsiddiqui.waits.ReadinessSignal;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
@@ -10,11 +29,29 @@ import org.openqa.selenium.firefox.FirefoxDriver;
 import org.openqa.selenium.firefox.FirefoxOptions;
 import org.openqa.selenium.safari.SafariDriver;
 import org.openqa.selenium.safari.SafariOptions;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -23,8 +60,19 @@ import java.util.concurrent.TimeUnit;
  */
 public class WebDriverConfig {
     
+    private static final Logger LOG = LoggerFactory.getLogger(WebDriverConfig.class);
+    
     private static Properties properties;
-    private static WebDriver driver;
+    private static DriverPool driverPool;
+    private static ScreenshotPipeline screenshotPipeline;
+    private static ArtifactStore artifactStore;
+    private static MetricsHistory metricsHistory;
+    private static NetworkArchive networkArchive;
+    private static ReplayServer replayServer;
+    private static CachingProxy cachingProxy;
+    private static HttpClient staticHttpClient;
+    private static final String RUN_ID = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date())
+            + "-" + Long.toHexString(System.nanoTime() & 0xFFFFF);
     
     static {
         loadProperties();
@@ -54,20 +102,25 @@ public class WebDriverConfig {
         properties.setProperty("implicit.wait", "10");
         properties.setProperty("explicit.wait", "20");
         properties.setProperty("page.load.timeout", "30");
+        properties.setProperty("script.timeout", "45");
+        properties.setProperty("driver.pool.borrow.timeout", "120");
+        properties.setProperty("screenshot.writer.threads", "2");
+        properties.setProperty("screenshot.queue.capacity", "16");
     }
     
     /**
-     * Get property value by key
+     * Get property value by key; a -Dkey=value system property overrides config.properties
      */
     public static String getProperty(String key) {
-        return properties.getProperty(key);
+        return System.getProperty(key, properties.getProperty(key));
     }
     
     /**
      * Get property value with default
      */
     public static String getProperty(String key, String defaultValue) {
-        return properties.getProperty(key, defaultValue);
+        String value = getProperty(key);
+        return value == null ? defaultValue : value;
     }
     
     /**
@@ -85,9 +138,306 @@ public class WebDriverConfig {
     }
     
     /**
-     * Initialize WebDriver based on configuration
+     * Get comma-separated property values, trimmed and without empty entries
+     */
+    public static List<String> getListProperty(String key) {
+        List<String> values = new ArrayList<>();
+        for (String value : getProperty(key, "").split(",")) {
+            if (!value.trim().isEmpty()) {
+                values.add(value.trim());
+            }
+        }
+        return values;
+    }
+    
+    /**
+     * Lease a WebDriver from the pool for the current thread
      */
     public static WebDriver initializeDriver() {
+        DriverPool pool = getDriverPool();
+        // Spares start with the first lease, so suites without browser tests never launch one
+        pool.startWarmSpares(getIntProperty("driver.warm.spares"));
+        return pool.borrow();
+    }
+    
+    /**
+     * Get the shared driver pool, creating it on first use
+     */
+    public static synchronized DriverPool getDriverPool() {
+        if (driverPool == null) {
+            driverPool = new DriverPool(WebDriverConfig::createDriver, getDriverPoolSize(),
+                    getIntProperty("driver.pool.borrow.timeout"), getSessionMaxTests(), SessionReset::reset);
+            Runtime.getRuntime().addShutdownHook(new Thread(driverPool::shutdown));
+        }
+        return driverPool;
+    }
+    
+    /**
+     * Get the shared driver pool without creating it, or null if it was never created or has been shut down
+     */
+    public static synchronized DriverPool findDriverPool() {
+        return driverPool;
+    }
+    
+    /**
+     * Quit all pooled drivers
+     */
+    public static synchronized void shutdownDriverPool() {
+        if (driverPool != null) {
+            driverPool.shutdown();
+            driverPool = null;
+        }
+    }
+    
+    /**
+     * Get the shared screenshot pipeline, creating it on first use
+     */
+    public static synchronized ScreenshotPipeline getScreenshotPipeline() {
+        if (screenshotPipeline == null) {
+            screenshotPipeline = new ScreenshotPipeline(getIntProperty("screenshot.writer.threads"),
+                    getIntProperty("screenshot.queue.capacity"));
+        }
+        return screenshotPipeline;
+    }
+    
+    /**
+     * Get the shared screenshot pipeline without creating it, or null if no screenshot was taken
+     */
+    public static synchronized ScreenshotPipeline findScreenshotPipeline() {
+        return screenshotPipeline;
+    }
+    
+    /**
+     * Wait for queued screenshots to be written and stop the writer threads
+     */
+    public static synchronized void shutdownScreenshotPipeline() {
+        if (screenshotPipeline != null) {
+            screenshotPipeline.shutdown(getIntProperty("page.load.timeout"));
+            screenshotPipeline = null;
+        }
+    }
+    
+    /**
+     * Get the shared content-addressed artifact store, opening it on first use
+     */
+    public static synchronized ArtifactStore getArtifactStore() {
+        if (artifactStore == null) {
+            try {
+                artifactStore = new ArtifactStore(
+                        Paths.get(getProperty("artifacts.store.path", "target/artifact-store/")),
+                        Integer.parseInt(getProperty("artifacts.store.pack.threshold", "262144")),
+                        Long.parseLong(getProperty("artifacts.store.segment.max.bytes", "67108864")),
+                        TimeUnit.MINUTES.toMillis(Long.parseLong(
+                                getProperty("artifacts.store.gc.grace.minutes", "10"))));
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to open artifact store", e);
+            }
+        }
+        return artifactStore;
+    }
+    
+    /**
+     * Get the id under which this run records its artifacts
+     */
+    public static String getRunId() {
+        return getProperty("artifacts.run.id", RUN_ID);
+    }
+    
+    /**
+     * Get the shared metrics history, loading it on first use
+     */
+    public static synchronized MetricsHistory getMetricsHistory() {
+        if (metricsHistory == null) {
+            try {
+                metricsHistory = new MetricsHistory(Paths.get(
+                        getProperty("perf.history.path", "reports/perf-history/metrics-history.tsv")));
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to load metrics history", e);
+            }
+        }
+        return metricsHistory;
+    }
+    
+    /**
+     * Get a regression detector with the configured window, noise thresholds, excluded metrics and accepted commits
+     */
+    public static RegressionDetector getRegressionDetector() {
+        Map<String, Double> minDeltas = new HashMap<>();
+        for (String entry : getListProperty("perf.regression.min.delta")) {
+            int colon = entry.indexOf(':');
+            if (colon < 0) {
+                throw new IllegalArgumentException("Expected metric:delta in perf.regression.min.delta: " + entry);
+            }
+            minDeltas.put(entry.substring(0, colon).trim(), Double.parseDouble(entry.substring(colon + 1).trim()));
+        }
+        return new RegressionDetector(
+                Integer.parseInt(getProperty("perf.history.window", "10")),
+                Integer.parseInt(getProperty("perf.history.min.runs", "5")),
+                Double.parseDouble(getProperty("perf.regression.threshold", "0.15")),
+                Double.parseDouble(getProperty("perf.regression.mad.factor", "3")),
+                minDeltas,
+                new HashSet<>(getListProperty("perf.regression.exclude")),
+                new HashSet<>(getListProperty("perf.regression.accepted")));
+    }
+    
+    /**
+     * Get the commit this run was built from
+     * Uses perf.history.commit, then CI variables, then the checked-out HEAD
+     */
+    public static String getCommit() {
+        String commit = getProperty("perf.history.commit", "");
+        if (commit.isEmpty()) {
+            commit = System.getenv().getOrDefault("GIT_COMMIT", System.getenv().getOrDefault("GITHUB_SHA", ""));
+        }
+        if (commit.isEmpty()) {
+            commit = readGitHead();
+        }
+        return commit.length() > 12 ? commit.substring(0, 12) : commit;
+    }
+    
+    private static String readGitHead() {
+        try {
+            Path git = Paths.get(".git");
+            String head = new String(Files.readAllBytes(git.resolve("HEAD")), StandardCharsets.UTF_8).trim();
+            if (!head.startsWith("ref: ")) {
+                return head;
+            }
+            String ref = head.substring("ref: ".length());
+            Path loose = git.resolve(ref);
+            if (Files.exists(loose)) {
+                return new String(Files.readAllBytes(loose), StandardCharsets.UTF_8).trim();
+            }
+            for (String line : Files.readAllLines(git.resolve("packed-refs"), StandardCharsets.UTF_8)) {
+                if (line.endsWith(" " + ref)) {
+                    return line.substring(0, line.indexOf(' '));
+                }
+            }
+        } catch (IOException e) {
+            // Not a git checkout
+        }
+        return "unknown";
+    }
+    
+    /**
+     * Get the network archive mode: off, record or replay
+     */
+    public static String getNetworkArchiveMode() {
+        return getProperty("network.archive.mode", "off").trim().toLowerCase();
+    }
+    
+    /**
+     * Get the network archive, empty when recording and loaded from network.archive.path when replaying
+     */
+    public static synchronized NetworkArchive getNetworkArchive() {
+        if (networkArchive == null) {
+            if ("replay".equals(getNetworkArchiveMode())) {
+                try {
+                    networkArchive = NetworkArchive.load(getNetworkArchivePath());
+                } catch (IOException e) {
+                    throw new IllegalStateException("Failed to load network archive", e);
+                }
+            } else {
+                networkArchive = new NetworkArchive();
+            }
+        }
+        return networkArchive;
+    }
+    
+    /**
+     * Get the local server replaying the network archive in place of base.url, starting it on first use
+     */
+    public static synchronized ReplayServer getReplayServer() {
+        if (replayServer == null) {
+            try {
+                replayServer = ReplayServer.start(getNetworkArchive(), getProperty("base.url"));
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to start network replay server", e);
+            }
+        }
+        return replayServer;
+    }
+    
+    /**
+     * Write the recorded archive or stop the replay server, depending on the archive mode
+     */
+    public static synchronized void closeNetworkArchive() {
+        if ("record".equals(getNetworkArchiveMode()) && networkArchive != null) {
+            try {
+                networkArchive.save(getNetworkArchivePath());
+                LOG.info("Network archive: recorded {} responses ({} bytes) to {}",
+                        networkArchive.size(), networkArchive.getBodyBytes(), getNetworkArchivePath());
+            } catch (IOException e) {
+                LOG.warn("Failed to write network archive: {}", e.getMessage());
+            }
+        }
+        if (replayServer != null) {
+            LOG.info("{}", replayServer.summary());
+            replayServer.close();
+            replayServer = null;
+        }
+        networkArchive = null;
+    }
+    
+    private static Path getNetworkArchivePath() {
+        return Paths.get(getProperty("network.archive.path", "src/test/resources/archives/network.archive"));
+    }
+    
+    /**
+     * Get the caching proxy shared by all sessions, opening its disk cache on first use
+     * An empty http.cache.path uses ~/.cache/web-testing-automation/http-cache so runs share it
+     */
+    public static synchronized CachingProxy getCachingProxy() {
+        if (cachingProxy == null) {
+            String configured = getProperty("http.cache.path", "").trim();
+            Path path = configured.isEmpty()
+                    ? Paths.get(System.getProperty("user.home"), ".cache", "web-testing-automation", "http-cache")
+                    : Paths.get(configured);
+            long maxBytes = Long.parseLong(getProperty("http.cache.max.mb", "512")) * 1024 * 1024;
+            long aggressiveMaxAge = TimeUnit.HOURS.toMillis(
+                    Long.parseLong(getProperty("http.cache.aggressive.max.age.hours", "24")));
+            try {
+                cachingProxy = new CachingProxy(new HttpCache(path, maxBytes),
+                        Integer.parseInt(getProperty("http.cache.fetch.threads", "8")),
+                        getBooleanProperty("http.cache.aggressive"), aggressiveMaxAge);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to open HTTP cache at " + path, e);
+            }
+        }
+        return cachingProxy;
+    }
+    
+    /**
+     * Stop the caching proxy; the disk cache is kept for the next run
+     */
+    public static synchronized void shutdownCachingProxy() {
+        if (cachingProxy != null) {
+            LOG.info("{}", cachingProxy.summary());
+            cachingProxy.close();
+            cachingProxy = null;
+        }
+    }
+    
+    /**
+     * Get the throttling profile name selected for the current thread by a testng.xml parameter,
+     * falling back to throttling.profile
+     */
+    public static String getThrottlingProfileName() {
+        String selected = Throttling.getSelected();
+        return selected != null ? selected : getProperty("throttling.profile", "none");
+    }
+    
+    /**
+     * Resolve a throttling profile name against throttling.profiles.* definitions and the built-in profiles
+     */
+    public static ThrottlingProfile getThrottlingProfile(String name) {
+        return ThrottlingProfile.resolve(name, part -> getProperty("throttling.profiles." + part));
+    }
+    
+    /**
+     * Create a new WebDriver session based on configuration
+     */
+    public static WebDriver createDriver() {
+        WebDriver driver;
         String browserName = getProperty("browser.name", "chrome").toLowerCase();
         boolean headless = getBooleanProperty("browser.headless");
         boolean maximize = getBooleanProperty("browser.window.maximize");
@@ -109,22 +459,74 @@ public class WebDriverConfig {
                 throw new IllegalArgumentException("Unsupported browser: " + browserName);
         }
         
+        if (Boolean.parseBoolean(getProperty("metrics.enabled", "true"))) {
+            // Every driver, element and options call is timed into per-command histograms
+            // Decorated first so per-session registries are keyed by the driver page objects see
+            driver = new EventFiringDecorator<WebDriver>(new CommandListener()).decorate(driver);
+        }
+        
+        // Recorded from the start so the reset between leases can clear every origin the session touched
+        SessionReset.trackOrigins(driver);
+        
+        if (getBooleanProperty("network.filter.enabled")) {
+            // Installed before replay so filtered requests are never looked up in the archive
+            RequestFilter.attach(driver, RequestRule.parseAll(getProperty("network.filter.rules", "")),
+                    getProperty("base.url"));
+        }
+        
+        switch (getNetworkArchiveMode()) {
+            case "record":
+                NetworkRecorder.attach(driver, getNetworkArchive());
+                break;
+            case "replay":
+                getReplayServer().attach(driver);
+                break;
+            default:
+                // Recording needs real traffic and replay is already local, so only live runs use the cache
+                if (getBooleanProperty("http.cache.enabled")) {
+                    getCachingProxy().attach(driver);
+                }
+                break;
+        }
+        
         if (maximize) {
             driver.manage().window().maximize();
         }
         
         // Set timeouts
-        driver.manage().timeouts().implicitlyWait(getIntProperty("implicit.wait"), TimeUnit.SECONDS);
-        driver.manage().timeouts().pageLoadTimeout(getIntProperty("page.load.timeout"), TimeUnit.SECONDS);
+        ImplicitWait.apply(driver, Duration.ofSeconds(getIntProperty("implicit.wait")));
+        driver.manage().timeouts().pageLoadTimeout(Duration.ofSeconds(getIntProperty("page.load.timeout")));
+        driver.manage().timeouts().scriptTimeout(
+                Duration.ofSeconds(Integer.parseInt(getProperty("script.timeout", "45"))));
         
         return driver;
     }
     
+    /**
+     * Create a static session, which loads pages over HTTP without a browser for checks that need no JavaScript
+     * Cheap enough to create per test; all static sessions share one client and so its connection pool
+     */
+    public static WebDriver createStaticDriver() {
+        return new StaticDriver(getStaticHttpClient(),
+                Duration.ofSeconds(Integer.parseInt(getProperty("static.http.timeout", "30"))),
+                getProperty("static.http.user.agent", "Mozilla/5.0"));
+    }
+    
+    private static synchronized HttpClient getStaticHttpClient() {
+        if (staticHttpClient == null) {
+            staticHttpClient = HttpClient.newBuilder()
+                    .followRedirects(HttpClient.Redirect.NORMAL)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+        }
+        return staticHttpClient;
+    }
+    
     /**
      * Create Chrome WebDriver
      */
     private static WebDriver createChromeDriver(boolean headless) {
-        WebDriverManager.chromedriver().setup();
+        DriverBinaryResolver.setup("chrome");
         ChromeOptions options = new ChromeOptions();
         
         if (headless) {
@@ -145,7 +547,7 @@ public class WebDriverConfig {
      * Create Firefox WebDriver
      */
     private static WebDriver createFirefoxDriver(boolean headless) {
-        WebDriverManager.firefoxdriver().setup();
+        DriverBinaryResolver.setup("firefox");
         FirefoxOptions options = new FirefoxOptions();
         
         if (headless) {
@@ -162,7 +564,7 @@ public class WebDriverConfig {
      * Create Edge WebDriver
      */
     private static WebDriver createEdgeDriver(boolean headless) {
-        WebDriverManager.edgedriver().setup();
+        DriverBinaryResolver.setup("edge");
         EdgeOptions options = new EdgeOptions();
         
         if (headless) {
@@ -185,37 +587,47 @@ public class WebDriverConfig {
     }
     
     /**
-     * Get current WebDriver instance
+     * Get the WebDriver leased to the current thread
      */
     public static WebDriver getDriver() {
-        if (driver == null) {
-            driver = initializeDriver();
-        }
-        return driver;
+        return initializeDriver();
     }
     
     /**
-     * Quit WebDriver and clean up
+     * Quit the current thread's WebDriver and free its pool slot
      */
     public static void quitDriver() {
-        if (driver != null) {
-            driver.quit();
-            driver = null;
+        getDriverPool().invalidate();
+    }
+    
+    /**
+     * Hand the current thread's WebDriver back after a test
+     * Keeps the browser for the next test when session reuse is enabled, otherwise quits it
+     */
+    public static void releaseDriver() {
+        if (isSessionReuseEnabled()) {
+            getDriverPool().release();
+        } else {
+            getDriverPool().invalidate();
         }
     }
     
     /**
-     * Get base URL
+     * Get base URL, pointing at the local replay server when replaying a network archive
      */
     public static String getBaseUrl() {
-        return getProperty("base.url");
+        return replayable(getProperty("base.url"));
     }
     
     /**
      * Get test URL
      */
     public static String getTestUrl() {
-        return getProperty("test.url", getBaseUrl());
+        return replayable(getProperty("test.url", getProperty("base.url")));
+    }
+    
+    private static String replayable(String url) {
+        return "replay".equals(getNetworkArchiveMode()) ? getReplayServer().localUrl(url) : url;
     }
     
     /**
@@ -231,4 +643,52 @@ public class WebDriverConfig {
     public static int getImplicitWaitTimeout() {
         return getIntProperty("implicit.wait");
     }
+    
+    /**
+     * Get budget in milliseconds for fast element probes
+     */
+    public static long getProbeTimeoutMillis() {
+        return Long.parseLong(getProperty("probe.timeout.ms", "2000"));
+    }
+    
+    /**
+     * Get how long the DOM must stay unchanged before a probe treats it as settled
+     */
+    public static long getProbeSettleMillis() {
+        return Long.parseLong(getProperty("probe.settle.ms", "150"));
+    }
+    
+    /**
+     * Get the signals that must all hold before a page counts as loaded
+     */
+    public static Set<ReadinessSignal> getPageReadySignals() {
+        Set<ReadinessSignal> signals = EnumSet.noneOf(ReadinessSignal.class);
+        for (String name : getProperty("page.ready.strategies", "readyState").split(",")) {
+            if (!name.trim().isEmpty()) {
+                signals.add(ReadinessSignal.fromConfigName(name));
+            }
+        }
+        return signals;
+    }
+    
+    /**
+     * Get maximum number of concurrently leased drivers
+     */
+    public static int getDriverPoolSize() {
+        return Integer.parseInt(getProperty("driver.pool.size", getProperty("thread.count", "1")));
+    }
+    
+    /**
+     * Check if browser sessions are reused across tests
+     */
+    public static boolean isSessionReuseEnabled() {
+        return getBooleanProperty("session.reuse");
+    }
+    
+    /**
+     * Get number of tests a reused session serves before it is recycled
+     */
+    public static int getSessionMaxTests() {
+        return Integer.parseInt(getProperty("session.max.tests", "1"));
+    }
 }
@@ -0,0 +1,62 @@
+package com.mahadsiddiqui.drivers;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.json.Json;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Version-independent access to the Chrome DevTools Protocol of a session
+ * Commands and events are addressed by name so no browser-specific devtools classes are needed
+ */
+public final class DevToolsSession {
+    
+    private DevToolsSession() {
+    }
+    
+    /**
+     * Check if a session exposes the DevTools protocol
+     */
+    public static boolean isSupported(WebDriver driver) {
+        return driver instanceof HasDevTools;
+    }
+    
+    /**
+     * Send a CDP command and return its result
+     */
+    public static Map<String, Object> send(WebDriver driver, String method, Map<String, Object> params) {
+        return devTools(driver).send(new Command<Map<String, Object>>(method, params,
+                input -> input.read(Json.MAP_TYPE)));
+    }
+    
+    /**
+     * Send a CDP command without parameters
+     */
+    public static Map<String, Object> send(WebDriver driver, String method) {
+        return send(driver, method, Collections.emptyMap());
+    }
+    
+    /**
+     * Subscribe to a CDP event; handlers run on the DevTools connection thread
+     */
+    public static void addListener(WebDriver driver, String event, Consumer<Map<String, Object>> handler) {
+        devTools(driver).addListener(new Event<Map<String, Object>>(event,
+                input -> input.read(Json.MAP_TYPE)), handler);
+    }
+    
+    private static DevTools devTools(WebDriver driver) {
+        if (!isSupported(driver)) {
+            throw new UnsupportedOperationException("DevTools protocol not available for "
+                    + driver.getClass().getSimpleName());
+        }
+        DevTools devTools = ((HasDevTools) driver).getDevTools();
+        devTools.createSessionIfThereIsNotOne();
+        return devTools;
+    }
+}
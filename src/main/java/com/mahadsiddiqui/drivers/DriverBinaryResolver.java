@@ -0,0 +1,322 @@
+package com.mahadsiddiqui.drivers;
+
+import com.mahadsiddiqui.config.WebDriverConfig;
+import io.github.bonigarcia.wdm.WebDriverManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Resolves driver binaries once per JVM from a local, checksummed cache
+ * WebDriverManager is only consulted when the cache has no usable entry and network use is allowed
+ */
+public final class DriverBinaryResolver {
+    
+    private static final Logger LOG = LoggerFactory.getLogger(DriverBinaryResolver.class);
+    private static final String INDEX_FILE = "index.properties";
+    private static final String ANY_VERSION = "default";
+    private static final Pattern MAJOR_VERSION = Pattern.compile("(\\d+)\\.\\d+");
+    
+    private static final Map<String, Resolution> RESOLVED = new ConcurrentHashMap<>();
+    
+    private DriverBinaryResolver() {
+    }
+    
+    /**
+     * Point Selenium at the driver binary for a browser, resolving it on first use
+     */
+    public static void setup(String browser) {
+        Resolution resolution = RESOLVED.computeIfAbsent(browser, DriverBinaryResolver::resolve);
+        resolution.lookups.increment();
+        System.setProperty(systemPropertyFor(browser), resolution.path.toString());
+    }
+    
+    /**
+     * Get a per-browser summary of where drivers came from and the startup time saved
+     */
+    public static String report() {
+        StringBuilder report = new StringBuilder("Driver binaries:");
+        for (Map.Entry<String, Resolution> entry : RESOLVED.entrySet()) {
+            Resolution resolution = entry.getValue();
+            report.append(String.format("%n  %-8s version=%s source=%s resolveMs=%d sessions=%d savedMs=%s",
+                    entry.getKey(), resolution.version, resolution.source, resolution.resolveMillis,
+                    resolution.lookups.sum(), resolution.warmSetupMillis < 0 ? "unmeasured"
+                            : String.valueOf(resolution.savedMillis())));
+        }
+        return report.toString();
+    }
+    
+    private static Resolution resolve(String browser) {
+        long start = System.nanoTime();
+        String version = browserVersion(browser);
+        synchronized (DriverBinaryResolver.class) {
+            Properties index = loadIndex();
+            Path cached = verifiedEntry(index, browser, version);
+            if (cached != null) {
+                return new Resolution(cached, version, "cache", elapsedMillis(start),
+                        warmSetupMillis(index, browser, version));
+            }
+            String latest = index.getProperty(browser + ".latest");
+            Path fallback = verifiedEntry(index, browser, latest);
+            if (WebDriverConfig.getBooleanProperty("driver.offline")) {
+                if (fallback == null) {
+                    throw new IllegalStateException("No cached " + browser + " driver for version "
+                            + version + " in " + cacheDir() + " and driver.offline=true");
+                }
+                return new Resolution(fallback, latest, "cache", elapsedMillis(start),
+                        warmSetupMillis(index, browser, latest));
+            }
+            Path downloaded;
+            try {
+                downloaded = download(browser, version);
+            } catch (RuntimeException e) {
+                if (fallback == null) {
+                    throw e;
+                }
+                LOG.debug("Driver download failed, using cached {} driver {}: {}", browser, latest, e.getMessage());
+                return new Resolution(fallback, latest, "cache", elapsedMillis(start),
+                        warmSetupMillis(index, browser, latest));
+            }
+            long setupMillis = elapsedMillis(start);
+            long warmSetupMillis = measureWarmSetup(browser, version);
+            Path pinned = pin(index, browser, version, downloaded, setupMillis, warmSetupMillis);
+            return new Resolution(pinned, version, "webdrivermanager", setupMillis, warmSetupMillis);
+        }
+    }
+    
+    private static Path download(String browser, String version) {
+        WebDriverManager manager;
+        switch (browser) {
+            case "chrome":
+                manager = WebDriverManager.chromedriver();
+                break;
+            case "firefox":
+                manager = WebDriverManager.firefoxdriver();
+                break;
+            case "edge":
+                manager = WebDriverManager.edgedriver();
+                break;
+            default:
+                throw new IllegalArgumentException("No driver binary for browser: " + browser);
+        }
+        if (!ANY_VERSION.equals(version)) {
+            manager.browserVersion(version);
+        }
+        manager.setup();
+        return Paths.get(manager.getDownloadedDriverPath());
+    }
+    
+    /**
+     * Time a second setup now that WebDriverManager has the driver, which is what every session would pay
+     * without the pinned cache; -1 if it fails
+     */
+    private static long measureWarmSetup(String browser, String version) {
+        long start = System.nanoTime();
+        try {
+            download(browser, version);
+            return elapsedMillis(start);
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+    
+    private static Path pin(Properties index, String browser, String version, Path source, long setupMillis,
+            long warmSetupMillis) {
+        try {
+            Path target = cacheDir().resolve(browser).resolve(version).resolve(source.getFileName());
+            Files.createDirectories(target.getParent());
+            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+            target.toFile().setExecutable(true);
+            String key = browser + "." + version;
+            index.setProperty(key + ".path", target.toString());
+            index.setProperty(key + ".sha256", sha256(target));
+            index.setProperty(key + ".setupMillis", String.valueOf(setupMillis));
+            index.setProperty(key + ".warmSetupMillis", String.valueOf(warmSetupMillis));
+            index.setProperty(browser + ".latest", version);
+            try (OutputStream output = Files.newOutputStream(cacheDir().resolve(INDEX_FILE))) {
+                index.store(output, "Pinned driver binaries");
+            }
+            return target;
+        } catch (IOException e) {
+            LOG.warn("Failed to pin {} driver into cache: {}", browser, e.getMessage());
+            return source;
+        }
+    }
+    
+    private static Path verifiedEntry(Properties index, String browser, String version) {
+        if (version == null) {
+            return null;
+        }
+        String key = browser + "." + version;
+        String path = index.getProperty(key + ".path");
+        if (path == null || !Files.isRegularFile(Paths.get(path))) {
+            return null;
+        }
+        try {
+            if (sha256(Paths.get(path)).equals(index.getProperty(key + ".sha256"))) {
+                return Paths.get(path);
+            }
+            LOG.warn("Checksum mismatch for cached driver {}, ignoring it", path);
+        } catch (IOException e) {
+            LOG.warn("Failed to verify cached driver {}: {}", path, e.getMessage());
+        }
+        return null;
+    }
+    
+    private static Properties loadIndex() {
+        Properties index = new Properties();
+        Path file = cacheDir().resolve(INDEX_FILE);
+        if (Files.isRegularFile(file)) {
+            try (InputStream input = Files.newInputStream(file)) {
+                index.load(input);
+            } catch (IOException e) {
+                LOG.warn("Failed to read driver cache index: {}", e.getMessage());
+            }
+        }
+        return index;
+    }
+    
+    /**
+     * Get the measured warm WebDriverManager setup time of a pinned driver, -1 for entries pinned without one
+     */
+    private static long warmSetupMillis(Properties index, String browser, String version) {
+        return Long.parseLong(index.getProperty(browser + "." + version + ".warmSetupMillis", "-1"));
+    }
+    
+    /**
+     * Detect the installed browser's major version, or use the pinned one from config
+     */
+    private static String browserVersion(String browser) {
+        String pinned = WebDriverConfig.getProperty("driver.browser.version", "");
+        if (!pinned.isEmpty()) {
+            return pinned;
+        }
+        for (String command : versionCommands(browser)) {
+            try {
+                Process process = new ProcessBuilder(command, "--version").redirectErrorStream(true).start();
+                try (BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                    String line = reader.readLine();
+                    process.waitFor(5, TimeUnit.SECONDS);
+                    Matcher matcher = MAJOR_VERSION.matcher(line == null ? "" : line);
+                    if (matcher.find()) {
+                        return matcher.group(1);
+                    }
+                }
+            } catch (IOException e) {
+                // Browser not installed under this name
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return ANY_VERSION;
+    }
+    
+    private static String[] versionCommands(String browser) {
+        switch (browser) {
+            case "chrome":
+                return new String[] {"google-chrome", "google-chrome-stable", "chromium", "chromium-browser"};
+            case "firefox":
+                return new String[] {"firefox"};
+            case "edge":
+                return new String[] {"microsoft-edge", "microsoft-edge-stable"};
+            default:
+                return new String[0];
+        }
+    }
+    
+    private static String systemPropertyFor(String browser) {
+        switch (browser) {
+            case "chrome":
+                return "webdriver.chrome.driver";
+            case "firefox":
+                return "webdriver.gecko.driver";
+            case "edge":
+                return "webdriver.edge.driver";
+            default:
+                throw new IllegalArgumentException("No driver binary for browser: " + browser);
+        }
+    }
+    
+    private static Path cacheDir() {
+        String configured = WebDriverConfig.getProperty("driver.cache.path", "");
+        if (!configured.isEmpty()) {
+            return Paths.get(configured);
+        }
+        return Paths.get(System.getProperty("user.home"), ".cache", "web-testing-automation", "drivers");
+    }
+    
+    private static String sha256(Path file) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream input = Files.newInputStream(file)) {
+                byte[] buffer = new byte[64 * 1024];
+                int read;
+                while ((read = input.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+    
+    /**
+     * Driver binary resolved for one browser in this JVM
+     */
+    private static final class Resolution {
+        
+        private final Path path;
+        private final String version;
+        private final String source;
+        private final long resolveMillis;
+        private final long warmSetupMillis;
+        private final LongAdder lookups = new LongAdder();
+        
+        private Resolution(Path path, String version, String source, long resolveMillis, long warmSetupMillis) {
+            this.path = path;
+            this.version = version;
+            this.source = source;
+            this.resolveMillis = resolveMillis;
+            this.warmSetupMillis = warmSetupMillis;
+        }
+        
+        /**
+         * Startup time saved versus running a warm WebDriverManager setup for every session
+         */
+        private long savedMillis() {
+            long sessions = lookups.sum();
+            long perSessionCost = warmSetupMillis * sessions;
+            return Math.max(0, perSessionCost - resolveMillis);
+        }
+    }
+}
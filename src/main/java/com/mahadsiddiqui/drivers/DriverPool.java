@@ -0,0 +1,263 @@
+package com.mahadsiddiqui.drivers;
+
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Thread-safe pool of WebDriver sessions
+ * Leases one session per thread and bounds the number of live browsers
+ */
+public class DriverPool {
+    
+    private static final Logger LOG = LoggerFactory.getLogger(DriverPool.class);
+    
+    private final Supplier<WebDriver> factory;
+    private final int maxSize;
+    private final long borrowTimeoutSeconds;
+    private final int maxUses;
+    private final Predicate<WebDriver> resetter;
+    private final Semaphore permits;
+    private final BlockingDeque<PooledSession> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledSession> live = ConcurrentHashMap.newKeySet();
+    private final ThreadLocal<PooledSession> leases = new ThreadLocal<>();
+    private final LeaseStats stats = new LeaseStats();
+    private volatile WarmSpares spares;
+    private volatile boolean closed;
+    
+    public DriverPool(Supplier<WebDriver> factory, int maxSize, long borrowTimeoutSeconds) {
+        this(factory, maxSize, borrowTimeoutSeconds, Integer.MAX_VALUE, driver -> true);
+    }
+    
+    public DriverPool(Supplier<WebDriver> factory, int maxSize, long borrowTimeoutSeconds,
+                      int maxUses, Predicate<WebDriver> resetter) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Driver pool size must be at least 1: " + maxSize);
+        }
+        if (maxUses < 1) {
+            throw new IllegalArgumentException("Session max uses must be at least 1: " + maxUses);
+        }
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.borrowTimeoutSeconds = borrowTimeoutSeconds;
+        this.maxUses = maxUses;
+        this.resetter = resetter;
+        this.permits = new Semaphore(maxSize, true);
+    }
+    
+    /**
+     * Lease a driver to the current thread, reusing the existing lease if there is one
+     */
+    public WebDriver borrow() {
+        PooledSession leased = leases.get();
+        if (leased != null) {
+            return leased.driver;
+        }
+        ensureOpen();
+        long start = System.nanoTime();
+        acquirePermit();
+        try {
+            LeaseStats.Source source = LeaseStats.Source.REUSED;
+            PooledSession session = pollHealthyIdle();
+            if (session == null) {
+                WebDriver spare = spares == null ? null : spares.poll();
+                source = spare == null ? LeaseStats.Source.COLD : LeaseStats.Source.WARM;
+                session = register(spare == null ? factory.get() : spare);
+                if (spares != null) {
+                    spares.refill();
+                }
+            }
+            leases.set(session);
+            stats.record(source, (System.nanoTime() - start) / 1_000_000);
+            return session.driver;
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+    
+    /**
+     * Get the driver leased to the current thread, or null if there is none
+     */
+    public WebDriver current() {
+        PooledSession leased = leases.get();
+        return leased == null ? null : leased.driver;
+    }
+    
+    /**
+     * Return the current thread's driver to the pool so another test can reuse it
+     * The session is reset first and recycled once it reaches its use limit or fails to reset
+     */
+    public void release() {
+        PooledSession session = leases.get();
+        if (session == null) {
+            return;
+        }
+        leases.remove();
+        try {
+            session.uses++;
+            if (!closed && session.uses < maxUses && isHealthy(session.driver)
+                    && resetter.test(session.driver)) {
+                idle.offerFirst(session);
+            } else {
+                destroy(session);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+    
+    /**
+     * Quit the current thread's driver and free its slot in the pool
+     */
+    public void invalidate() {
+        PooledSession session = leases.get();
+        if (session == null) {
+            return;
+        }
+        leases.remove();
+        try {
+            destroy(session);
+        } finally {
+            permits.release();
+        }
+    }
+    
+    /**
+     * Keep a number of browsers starting in the background so new leases skip the cold start
+     * Spares count towards the pool size, so they only start while live sessions leave room for them
+     */
+    public synchronized void startWarmSpares(int count) {
+        ensureOpen();
+        if (spares == null && count > 0) {
+            spares = new WarmSpares(factory, count, () -> maxSize - live.size());
+            spares.start();
+        }
+    }
+    
+    /**
+     * Get lease source and time-to-first-command statistics
+     */
+    public LeaseStats getStats() {
+        return stats;
+    }
+    
+    /**
+     * Quit every driver owned by the pool and reject further leases
+     */
+    public void shutdown() {
+        closed = true;
+        if (spares != null) {
+            spares.shutdown();
+        }
+        List<PooledSession> sessions = new ArrayList<>(live);
+        idle.clear();
+        for (PooledSession session : sessions) {
+            destroy(session);
+        }
+    }
+    
+    /**
+     * Get the maximum number of live sessions
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+    
+    /**
+     * Get the number of live sessions, leased or idle
+     */
+    public int getLiveCount() {
+        return live.size();
+    }
+    
+    /**
+     * Get the number of idle sessions waiting to be leased
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+    
+    /**
+     * Check that a session still responds to commands
+     */
+    public boolean isHealthy(WebDriver driver) {
+        try {
+            driver.getWindowHandle();
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+    
+    private PooledSession pollHealthyIdle() {
+        PooledSession session;
+        while ((session = idle.pollFirst()) != null) {
+            if (isHealthy(session.driver)) {
+                return session;
+            }
+            destroy(session);
+        }
+        return null;
+    }
+    
+    private PooledSession register(WebDriver driver) {
+        PooledSession session = new PooledSession(driver);
+        live.add(session);
+        return session;
+    }
+    
+    private void destroy(PooledSession session) {
+        live.remove(session);
+        try {
+            session.driver.quit();
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to quit driver: {}", e.getMessage());
+        }
+        if (spares != null) {
+            spares.refill();
+        }
+    }
+    
+    private void acquirePermit() {
+        try {
+            if (!permits.tryAcquire(borrowTimeoutSeconds, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("No driver available in pool of " + maxSize
+                        + " after " + borrowTimeoutSeconds + " seconds");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a driver", e);
+        }
+    }
+    
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Driver pool has been shut down");
+        }
+    }
+    
+    /**
+     * Pooled driver with the number of tests it has served
+     */
+    private static final class PooledSession {
+        
+        private final WebDriver driver;
+        private int uses;
+        
+        private PooledSession(WebDriver driver) {
+            this.driver = driver;
+        }
+    }
+}
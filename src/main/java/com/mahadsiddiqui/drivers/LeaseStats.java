@@ -0,0 +1,90 @@
+package com.mahadsiddiqui.drivers;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks where leased drivers came from and how long tests waited for them
+ * The wait is the time-to-first-command a test sees after asking for a browser
+ */
+public class LeaseStats {
+    
+    /**
+     * Where a leased driver came from
+     */
+    public enum Source {
+        REUSED,
+        WARM,
+        COLD
+    }
+    
+    private final LongAdder[] counts = new LongAdder[Source.values().length];
+    private final LongAdder[] totalMillis = new LongAdder[Source.values().length];
+    private final AtomicLongArray maxMillis = new AtomicLongArray(Source.values().length);
+    private final ThreadLocal<long[]> lastLease = new ThreadLocal<>();
+    
+    public LeaseStats() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+            totalMillis[i] = new LongAdder();
+        }
+    }
+    
+    /**
+     * Record a lease and how long it took
+     */
+    public void record(Source source, long millis) {
+        int index = source.ordinal();
+        counts[index].increment();
+        totalMillis[index].add(millis);
+        maxMillis.accumulateAndGet(index, millis, Math::max);
+        lastLease.set(new long[] {index, millis});
+    }
+    
+    /**
+     * Get the time-to-first-command of the current thread's last lease, or -1 if none
+     */
+    public long getLastLeaseMillis() {
+        long[] last = lastLease.get();
+        return last == null ? -1 : last[1];
+    }
+    
+    /**
+     * Get the source of the current thread's last lease, or null if none
+     */
+    public Source getLastLeaseSource() {
+        long[] last = lastLease.get();
+        return last == null ? null : Source.values()[(int) last[0]];
+    }
+    
+    /**
+     * Get number of leases served from a source
+     */
+    public long getCount(Source source) {
+        return counts[source.ordinal()].sum();
+    }
+    
+    /**
+     * Get share of new sessions that were served by a warm spare instead of a cold start
+     */
+    public double getWarmHitRate() {
+        long warm = getCount(Source.WARM);
+        long started = warm + getCount(Source.COLD);
+        return started == 0 ? 0.0 : (double) warm / started;
+    }
+    
+    /**
+     * Get a one-line-per-source summary for the suite log
+     */
+    public String summary() {
+        StringBuilder summary = new StringBuilder("Driver leases:");
+        for (Source source : Source.values()) {
+            long count = getCount(source);
+            long mean = count == 0 ? 0 : totalMillis[source.ordinal()].sum() / count;
+            summary.append(String.format("%n  %-6s count=%d meanMs=%d maxMs=%d",
+                    source, count, mean, maxMillis.get(source.ordinal())));
+        }
+        summary.append(String.format("%n  warm hit rate=%.1f%%", getWarmHitRate() * 100));
+        return summary.toString();
+    }
+}
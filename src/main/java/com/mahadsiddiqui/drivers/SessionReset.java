@@ -0,0 +1,126 @@
+package com.mahadsiddiqui.drivers;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoAlertPresentException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.HasCdp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resets browser state between tests so a session can be reused
+ * Clears alerts, extra windows, frames, cookies, storage and navigation
+ * With DevTools, storage of every origin a session loaded is cleared, including IndexedDB,
+ * Cache Storage and service workers; other browsers only get the current origin's web storage cleared
+ */
+public final class SessionReset {
+    
+    private static final Logger LOG = LoggerFactory.getLogger(SessionReset.class);
+    private static final String BLANK_PAGE = "about:blank";
+    private static final Map<WebDriver, Set<String>> ORIGINS = Collections.synchronizedMap(new WeakHashMap<>());
+    
+    private SessionReset() {
+    }
+    
+    /**
+     * Start recording the origins a session's frames navigate to, so a reset can clear all of them
+     * Browsers without DevTools are left to the current-origin fallback
+     */
+    public static void trackOrigins(WebDriver driver) {
+        if (!DevToolsSession.isSupported(driver)) {
+            return;
+        }
+        Set<String> origins = ConcurrentHashMap.newKeySet();
+        try {
+            DevToolsSession.addListener(driver, "Page.frameNavigated", event -> {
+                Object frame = event.get("frame");
+                if (frame instanceof Map) {
+                    Object origin = ((Map<?, ?>) frame).get("securityOrigin");
+                    if (origin != null && String.valueOf(origin).startsWith("http")) {
+                        origins.add(String.valueOf(origin));
+                    }
+                }
+            });
+            DevToolsSession.send(driver, "Page.enable");
+            ORIGINS.put(driver, origins);
+        } catch (RuntimeException e) {
+            LOG.debug("Origin tracking unavailable, only current origin storage is reset: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Reset a session to a clean state, returning false if it should be recycled instead
+     */
+    public static boolean reset(WebDriver driver) {
+        try {
+            dismissAlert(driver);
+            closeExtraWindows(driver);
+            driver.switchTo().defaultContent();
+            clearStorage(driver);
+            clearCookies(driver);
+            driver.navigate().to(BLANK_PAGE);
+            return true;
+        } catch (RuntimeException e) {
+            LOG.warn("Session reset failed, recycling driver: {}", e.getMessage());
+            return false;
+        }
+    }
+    
+    private static void dismissAlert(WebDriver driver) {
+        try {
+            driver.switchTo().alert().dismiss();
+        } catch (NoAlertPresentException e) {
+            // No alert open
+        }
+    }
+    
+    private static void closeExtraWindows(WebDriver driver) {
+        Set<String> handles = driver.getWindowHandles();
+        if (handles.size() <= 1) {
+            return;
+        }
+        Iterator<String> iterator = handles.iterator();
+        String keep = iterator.next();
+        while (iterator.hasNext()) {
+            driver.switchTo().window(iterator.next());
+            driver.close();
+        }
+        driver.switchTo().window(keep);
+    }
+    
+    private static void clearStorage(WebDriver driver) {
+        Set<String> origins = ORIGINS.get(driver);
+        if (origins != null) {
+            List<String> visited = new ArrayList<>(origins);
+            origins.removeAll(visited);
+            for (String origin : visited) {
+                Map<String, Object> params = new HashMap<>();
+                params.put("origin", origin);
+                params.put("storageTypes", "all");
+                DevToolsSession.send(driver, "Storage.clearDataForOrigin", params);
+            }
+            return;
+        }
+        ((JavascriptExecutor) driver).executeScript(
+                "try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}");
+    }
+    
+    private static void clearCookies(WebDriver driver) {
+        if (driver instanceof HasCdp) {
+            // Clears cookies for every domain, not only the current one
+            ((HasCdp) driver).executeCdpCommand("Network.clearBrowserCookies", Collections.emptyMap());
+        } else {
+            driver.manage().deleteAllCookies();
+        }
+    }
+}
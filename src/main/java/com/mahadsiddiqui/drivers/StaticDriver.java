@@ -0,0 +1,288 @@
+package com.mahadsiddiqui.drivers;
+
+import com.mahadsiddiqui.pages.DomSnapshot;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Selector;
+import org.openqa.selenium.By;
+import org.openqa.selenium.InvalidSelectorException;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * WebDriver for pages as served: fetches HTML over a shared HTTP client and evaluates locators on the parsed DOM
+ * No scripts run and no styles apply, so it suits static content checks at a fraction of a browser's cost
+ * Links navigate when clicked; typing, frames, windows, alerts and JavaScript need a browser
+ * Cookies the site sets are kept per session and sent back with later navigations
+ */
+public class StaticDriver implements WebDriver {
+    
+    private static final String WINDOW_HANDLE = "static";
+    private static final Pattern CHARSET = Pattern.compile("charset=\"?([^;\"\\s]+)", Pattern.CASE_INSENSITIVE);
+    
+    private final HttpClient client;
+    private final Duration timeout;
+    private final String userAgent;
+    // The client is shared, so cookies are kept here rather than in a client-wide cookie handler
+    private final CookieManager cookies = new CookieManager();
+    private final List<String> history = new ArrayList<>();
+    private int historyIndex = -1;
+    private String currentUrl = "about:blank";
+    private String pageSource = "";
+    private int statusCode;
+    private DomSnapshot snapshot = DomSnapshot.parseServed("", "");
+    
+    /**
+     * Create a session on a client shared with other sessions, so connections to the site are pooled
+     */
+    public StaticDriver(HttpClient client, Duration timeout, String userAgent) {
+        this.client = client;
+        this.timeout = timeout;
+        this.userAgent = userAgent;
+    }
+    
+    @Override
+    public void get(String url) {
+        load(url);
+        history.subList(historyIndex + 1, history.size()).clear();
+        history.add(currentUrl);
+        historyIndex = history.size() - 1;
+    }
+    
+    private void load(String url) {
+        URI uri = "about:blank".equals(currentUrl) ? URI.create(url) : URI.create(currentUrl).resolve(url);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).GET()
+                .timeout(timeout)
+                .header("Accept", "text/html,application/xhtml+xml,*/*;q=0.8")
+                .header("Accept-Encoding", "gzip")
+                .header("User-Agent", userAgent);
+        try {
+            for (Map.Entry<String, List<String>> header : cookies.get(uri, Collections.emptyMap()).entrySet()) {
+                if (!header.getValue().isEmpty()) {
+                    builder.header(header.getKey(), String.join("; ", header.getValue()));
+                }
+            }
+            HttpResponse<byte[]> response = client.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+            storeCookies(response);
+            String contentType = response.headers().firstValue("Content-Type").orElse("");
+            byte[] body = decode(response.body(), response.headers().firstValue("Content-Encoding").orElse(""));
+            // Like a browser, error pages are shown rather than thrown
+            statusCode = response.statusCode();
+            currentUrl = response.uri().toString();
+            pageSource = new String(body, charset(contentType));
+            snapshot = DomSnapshot.parseServed(pageSource, currentUrl);
+        } catch (IOException e) {
+            throw new WebDriverException("Failed to load " + uri + ": " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WebDriverException("Interrupted loading " + uri, e);
+        }
+    }
+    
+    /**
+     * Keep the cookies set along the whole response chain, oldest redirect first so later ones win
+     */
+    private void storeCookies(HttpResponse<?> response) throws IOException {
+        List<HttpResponse<?>> chain = new ArrayList<>();
+        for (HttpResponse<?> hop = response; hop != null; hop = hop.previousResponse().orElse(null)) {
+            chain.add(0, hop);
+        }
+        for (HttpResponse<?> hop : chain) {
+            cookies.put(hop.uri(), hop.headers().map());
+        }
+    }
+    
+    /**
+     * Report a selector that does not parse as invalid, as a browser would; other failures pass through
+     */
+    static RuntimeException selectorFailure(By by, UnsupportedOperationException e) {
+        if (e.getCause() instanceof Selector.SelectorParseException) {
+            return new InvalidSelectorException("Invalid selector " + by + ": " + e.getCause().getMessage(), e);
+        }
+        return e;
+    }
+    
+    private static byte[] decode(byte[] body, String contentEncoding) throws IOException {
+        if (!"gzip".equalsIgnoreCase(contentEncoding.trim()) || body.length == 0) {
+            return body;
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return in.readAllBytes();
+        }
+    }
+    
+    private static Charset charset(String contentType) {
+        Matcher matcher = CHARSET.matcher(contentType);
+        if (matcher.find()) {
+            try {
+                return Charset.forName(matcher.group(1));
+            } catch (IllegalArgumentException e) {
+                // Unknown or malformed charset name, read it as UTF-8 like most pages are
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+    
+    /**
+     * Get the parsed DOM of the current page
+     */
+    public DomSnapshot getSnapshot() {
+        return snapshot;
+    }
+    
+    /**
+     * Get the HTTP status the current page was served with, 0 before the first navigation
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+    
+    @Override
+    public String getCurrentUrl() {
+        return currentUrl;
+    }
+    
+    @Override
+    public String getTitle() {
+        return snapshot.getTitle();
+    }
+    
+    @Override
+    public List<WebElement> findElements(By by) {
+        List<Element> matches;
+        try {
+            matches = snapshot.findAll(by);
+        } catch (UnsupportedOperationException e) {
+            throw selectorFailure(by, e);
+        }
+        List<WebElement> elements = new ArrayList<>();
+        for (Element element : matches) {
+            elements.add(new StaticElement(this, snapshot, element));
+        }
+        return elements;
+    }
+    
+    @Override
+    public WebElement findElement(By by) {
+        List<WebElement> elements = findElements(by);
+        if (elements.isEmpty()) {
+            throw new NoSuchElementException("Unable to locate element in served HTML: " + by);
+        }
+        return elements.get(0);
+    }
+    
+    @Override
+    public String getPageSource() {
+        return pageSource;
+    }
+    
+    @Override
+    public void close() {
+        quit();
+    }
+    
+    @Override
+    public void quit() {
+        // Connections belong to the shared client, so only the page and the session's cookies are dropped
+        cookies.getCookieStore().removeAll();
+        history.clear();
+        historyIndex = -1;
+        currentUrl = "about:blank";
+        pageSource = "";
+        statusCode = 0;
+        snapshot = DomSnapshot.parseServed("", "");
+    }
+    
+    @Override
+    public Set<String> getWindowHandles() {
+        return Collections.singleton(WINDOW_HANDLE);
+    }
+    
+    @Override
+    public String getWindowHandle() {
+        return WINDOW_HANDLE;
+    }
+    
+    @Override
+    public TargetLocator switchTo() {
+        throw new UnsupportedOperationException("Frames, windows and alerts need a browser, not a static session");
+    }
+    
+    @Override
+    public Navigation navigate() {
+        return new StaticNavigation();
+    }
+    
+    @Override
+    public Options manage() {
+        throw new UnsupportedOperationException("Cookies, timeouts and windows need a browser, not a static session");
+    }
+    
+    /**
+     * Check if an element was found on the page currently loaded
+     */
+    boolean isCurrent(DomSnapshot page) {
+        return page == snapshot;
+    }
+    
+    /**
+     * Session history navigation; back and forward reload the page like a browser without a page cache
+     */
+    private class StaticNavigation implements Navigation {
+        
+        @Override
+        public void back() {
+            if (historyIndex > 0) {
+                historyIndex--;
+                load(history.get(historyIndex));
+            }
+        }
+        
+        @Override
+        public void forward() {
+            if (historyIndex < history.size() - 1) {
+                historyIndex++;
+                load(history.get(historyIndex));
+            }
+        }
+        
+        @Override
+        public void to(String url) {
+            get(url);
+        }
+        
+        @Override
+        public void to(URL url) {
+            get(url.toString());
+        }
+        
+        @Override
+        public void refresh() {
+            if (historyIndex >= 0) {
+                load(history.get(historyIndex));
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.mahadsiddiqui.drivers;
+
+import com.mahadsiddiqui.pages.DomSnapshot;
+import org.jsoup.nodes.Element;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Element of a page loaded by a StaticDriver
+ * Goes stale once the session navigates away, like a browser element would
+ */
+public class StaticElement implements WebElement {
+    
+    private static final Set<String> BOOLEAN_ATTRIBUTES = Set.of("checked", "selected", "disabled", "readonly",
+            "required", "multiple", "hidden", "autofocus");
+    private static final Set<String> URL_ATTRIBUTES = Set.of("href", "src", "action");
+    
+    private final StaticDriver driver;
+    private final DomSnapshot page;
+    private final Element element;
+    
+    StaticElement(StaticDriver driver, DomSnapshot page, Element element) {
+        this.driver = driver;
+        this.page = page;
+        this.element = element;
+    }
+    
+    private Element element() {
+        if (!driver.isCurrent(page)) {
+            throw new StaleElementReferenceException("Element belongs to a page the static session has left: "
+                    + this);
+        }
+        return element;
+    }
+    
+    /**
+     * Follow a link; other clicks need scripts or form handling and so a browser
+     */
+    @Override
+    public void click() {
+        Element target = element();
+        String href = "a".equals(target.normalName()) ? target.absUrl("href") : "";
+        if (href.isEmpty() || !href.startsWith("http")) {
+            throw new UnsupportedOperationException("Clicking " + this + " needs a browser; "
+                    + "only links navigate in a static session");
+        }
+        driver.get(href);
+    }
+    
+    @Override
+    public void submit() {
+        throw new UnsupportedOperationException("Submitting forms needs a browser, not a static session");
+    }
+    
+    @Override
+    public void sendKeys(CharSequence... keysToSend) {
+        throw new UnsupportedOperationException("Typing needs a browser, not a static session");
+    }
+    
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("Editing fields needs a browser, not a static session");
+    }
+    
+    @Override
+    public String getTagName() {
+        return element().normalName();
+    }
+    
+    /**
+     * Get an attribute as served; boolean attributes read "true" or null and URLs are made absolute,
+     * as the browser's properties would be
+     */
+    @Override
+    public String getAttribute(String name) {
+        Element target = element();
+        if (BOOLEAN_ATTRIBUTES.contains(name)) {
+            return target.hasAttr(name) ? "true" : null;
+        }
+        if ("value".equals(name) && "textarea".equals(target.normalName())) {
+            return target.wholeText();
+        }
+        if (!target.hasAttr(name)) {
+            return null;
+        }
+        String absolute = URL_ATTRIBUTES.contains(name) ? target.absUrl(name) : "";
+        return absolute.isEmpty() ? target.attr(name) : absolute;
+    }
+    
+    @Override
+    public boolean isSelected() {
+        return element().hasAttr("checked") || element().hasAttr("selected");
+    }
+    
+    @Override
+    public boolean isEnabled() {
+        return !element().hasAttr("disabled");
+    }
+    
+    @Override
+    public String getText() {
+        return DomSnapshot.textOf(element());
+    }
+    
+    @Override
+    public List<WebElement> findElements(By by) {
+        List<Element> matches;
+        try {
+            matches = DomSnapshot.findAll(element(), by);
+        } catch (UnsupportedOperationException e) {
+            throw StaticDriver.selectorFailure(by, e);
+        }
+        List<WebElement> found = new ArrayList<>();
+        for (Element match : matches) {
+            if (match != element) {
+                found.add(new StaticElement(driver, page, match));
+            }
+        }
+        return found;
+    }
+    
+    @Override
+    public WebElement findElement(By by) {
+        List<WebElement> found = findElements(by);
+        if (found.isEmpty()) {
+            throw new NoSuchElementException("Unable to locate element in served HTML: " + by + " within " + this);
+        }
+        return found.get(0);
+    }
+    
+    /**
+     * Check if the element is displayed as far as markup tells; stylesheets are not applied
+     */
+    @Override
+    public boolean isDisplayed() {
+        return DomSnapshot.isVisible(element());
+    }
+    
+    @Override
+    public Point getLocation() {
+        throw new UnsupportedOperationException("Layout needs a browser, not a static session");
+    }
+    
+    @Override
+    public Dimension getSize() {
+        throw new UnsupportedOperationException("Layout needs a browser, not a static session");
+    }
+    
+    @Override
+    public Rectangle getRect() {
+        throw new UnsupportedOperationException("Layout needs a browser, not a static session");
+    }
+    
+    @Override
+    public String getCssValue(String propertyName) {
+        throw new UnsupportedOperationException("Computed styles need a browser, not a static session");
+    }
+    
+    @Override
+    public <X> X getScreenshotAs(OutputType<X> target) {
+        throw new UnsupportedOperationException("Screenshots need a browser, not a static session");
+    }
+    
+    @Override
+    public String toString() {
+        return "[static] " + element.cssSelector();
+    }
+}
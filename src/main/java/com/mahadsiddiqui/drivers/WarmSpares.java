@@ -0,0 +1,126 @@
+package com.mahadsiddiqui.drivers;
+
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Keeps pre-started browsers ready to hand out
+ * Spares are launched on background threads and refilled as they are taken, as far as the owner has room for them
+ */
+public class WarmSpares {
+    
+    private static final Logger LOG = LoggerFactory.getLogger(WarmSpares.class);
+    
+    private final Supplier<WebDriver> factory;
+    private final int target;
+    private final IntSupplier room;
+    private final ExecutorService executor;
+    private final BlockingQueue<WebDriver> ready = new LinkedBlockingQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger threadIds = new AtomicInteger();
+    private volatile boolean closed;
+    
+    public WarmSpares(Supplier<WebDriver> factory, int target) {
+        this(factory, target, () -> Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Create spares that, together, never exceed the number of browsers the owner still has room for
+     */
+    public WarmSpares(Supplier<WebDriver> factory, int target, IntSupplier room) {
+        if (target < 1) {
+            throw new IllegalArgumentException("Warm spare count must be at least 1: " + target);
+        }
+        this.factory = factory;
+        this.target = target;
+        this.room = room;
+        this.executor = Executors.newFixedThreadPool(target, runnable -> {
+            Thread thread = new Thread(runnable, "warm-spare-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Start launching spares in the background
+     */
+    public void start() {
+        refill();
+    }
+    
+    /**
+     * Take a ready spare without blocking, or null if none has finished starting
+     * The owner calls refill once the spare counts against its room, so no extra browser starts in between
+     */
+    public WebDriver poll() {
+        return ready.poll();
+    }
+    
+    /**
+     * Get the number of spares ready to hand out
+     */
+    public int getReadyCount() {
+        return ready.size();
+    }
+    
+    /**
+     * Get the number of spares still starting
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+    
+    /**
+     * Stop refilling and quit every spare that was not handed out
+     */
+    public void shutdown() {
+        closed = true;
+        executor.shutdownNow();
+        WebDriver driver;
+        while ((driver = ready.poll()) != null) {
+            quit(driver);
+        }
+    }
+    
+    /**
+     * Start spares up to the target, within the room the owner has left
+     */
+    synchronized void refill() {
+        while (!closed && ready.size() + pending.get() < Math.min(target, room.getAsInt())) {
+            pending.incrementAndGet();
+            executor.execute(this::startSpare);
+        }
+    }
+    
+    private void startSpare() {
+        try {
+            WebDriver driver = factory.get();
+            if (closed) {
+                quit(driver);
+            } else {
+                ready.offer(driver);
+            }
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to start warm spare browser: {}", e.getMessage());
+        } finally {
+            pending.decrementAndGet();
+        }
+    }
+    
+    private void quit(WebDriver driver) {
+        try {
+            driver.quit();
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to quit warm spare browser: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.mahadsiddiqui.metrics;
+
+import com.mahadsiddiqui.trace.Tracer;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Times every WebDriver, WebElement and options call of a decorated driver
+ * Start times live in a per-thread array stack so nested calls are timed without allocating
+ */
+public class CommandListener implements WebDriverListener {
+    
+    private static final int MAX_DEPTH = 32;
+    private static final ThreadLocal<CallStack> STACKS = ThreadLocal.withInitial(CallStack::new);
+    
+    @Override
+    public void beforeAnyCall(Object target, Method method, Object[] args) {
+        CallStack stack = STACKS.get();
+        if (stack.depth < MAX_DEPTH) {
+            stack.starts[stack.depth] = System.nanoTime();
+        }
+        stack.depth++;
+    }
+    
+    @Override
+    public void afterAnyCall(Object target, Method method, Object[] args, Object result) {
+        finish(method);
+    }
+    
+    @Override
+    public void onError(Object target, Method method, Object[] args, InvocationTargetException e) {
+        finish(method);
+    }
+    
+    private void finish(Method method) {
+        CallStack stack = STACKS.get();
+        if (stack.depth == 0) {
+            return;
+        }
+        stack.depth--;
+        if (stack.depth < MAX_DEPTH) {
+            long end = System.nanoTime();
+            CommandMetrics.record(method.getName(), end - stack.starts[stack.depth]);
+            Tracer.complete(method.getName(), "webdriver", stack.starts[stack.depth], end);
+        }
+    }
+    
+    /**
+     * Start times of the calls in progress on one thread
+     */
+    private static final class CallStack {
+        
+        private final long[] starts = new long[MAX_DEPTH];
+        private int depth;
+    }
+}
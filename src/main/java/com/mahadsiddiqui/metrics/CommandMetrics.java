@@ -0,0 +1,74 @@
+package com.mahadsiddiqui.metrics;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latency histograms per WebDriver command and page wait
+ * Keeps one suite-wide histogram per name and one per name for the test running on each thread
+ */
+public final class CommandMetrics {
+    
+    private static final Map<String, LatencyHistogram> SUITE = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Map<String, LatencyHistogram>> TEST = ThreadLocal.withInitial(HashMap::new);
+    
+    private CommandMetrics() {
+    }
+    
+    /**
+     * Record a duration; names should be constants so recording does not allocate
+     */
+    public static void record(String name, long nanos) {
+        histogram(SUITE, name).recordNanos(nanos);
+        histogram(TEST.get(), name).recordNanos(nanos);
+    }
+    
+    /**
+     * Start collecting a fresh per-test breakdown on the current thread
+     */
+    public static void startTest() {
+        TEST.get().clear();
+    }
+    
+    /**
+     * Get the current thread's per-test histograms by name
+     */
+    public static Map<String, LatencyHistogram> getTestHistograms() {
+        return Collections.unmodifiableMap(new TreeMap<>(TEST.get()));
+    }
+    
+    /**
+     * Get suite-wide histograms by name
+     */
+    public static Map<String, LatencyHistogram> getSuiteHistograms() {
+        return Collections.unmodifiableMap(new TreeMap<>(SUITE));
+    }
+    
+    /**
+     * Get a one-line p50/p95/p99 breakdown of the current thread's test
+     */
+    public static String testSummary() {
+        StringBuilder summary = new StringBuilder();
+        for (Map.Entry<String, LatencyHistogram> entry : getTestHistograms().entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            if (summary.length() > 0) {
+                summary.append("; ");
+            }
+            summary.append(String.format("%s n=%d p50=%.1fms p95=%.1fms p99=%.1fms", entry.getKey(),
+                    histogram.getCount(), histogram.percentileMicros(50) / 1000.0,
+                    histogram.percentileMicros(95) / 1000.0, histogram.percentileMicros(99) / 1000.0));
+        }
+        return summary.toString();
+    }
+    
+    private static LatencyHistogram histogram(Map<String, LatencyHistogram> histograms, String name) {
+        LatencyHistogram histogram = histograms.get(name);
+        if (histogram == null) {
+            histogram = histograms.computeIfAbsent(name, key -> new LatencyHistogram());
+        }
+        return histogram;
+    }
+}
@@ -0,0 +1,96 @@
+package com.mahadsiddiqui.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Exports latency histograms and plain statistics as JSON and Prometheus text exposition format
+ */
+public final class MetricsExporter {
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private static final double[] QUANTILES = {50, 90, 95, 99};
+    
+    private MetricsExporter() {
+    }
+    
+    /**
+     * Write histograms as JSON with count, sum, max and percentiles in milliseconds
+     */
+    public static void writeJson(Map<String, LatencyHistogram> histograms, Path file) throws IOException {
+        Map<String, Object> commands = new LinkedHashMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("count", histogram.getCount());
+            stats.put("sumMs", histogram.getSumMicros() / 1000.0);
+            stats.put("maxMs", histogram.getMaxMicros() / 1000.0);
+            for (double quantile : QUANTILES) {
+                stats.put("p" + (int) quantile + "Ms", histogram.percentileMicros(quantile) / 1000.0);
+            }
+            commands.put(entry.getKey(), stats);
+        }
+        createParent(file);
+        MAPPER.writeValue(file.toFile(), commands);
+    }
+    
+    /**
+     * Write histograms as a Prometheus summary in seconds
+     */
+    public static void writePrometheus(Map<String, LatencyHistogram> histograms, Path file) throws IOException {
+        String metric = "webdriver_command_duration_seconds";
+        StringBuilder text = new StringBuilder();
+        text.append("# HELP ").append(metric).append(" WebDriver command and page wait latency\n");
+        text.append("# TYPE ").append(metric).append(" summary\n");
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            String label = "command=\"" + entry.getKey().replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+            LatencyHistogram histogram = entry.getValue();
+            for (double quantile : QUANTILES) {
+                text.append(String.format(Locale.ROOT, "%s{%s,quantile=\"%s\"} %.6f\n", metric, label,
+                        quantile / 100.0, histogram.percentileMicros(quantile) / 1_000_000.0));
+            }
+            text.append(String.format(Locale.ROOT, "%s_sum{%s} %.6f\n", metric, label,
+                    histogram.getSumMicros() / 1_000_000.0));
+            text.append(String.format(Locale.ROOT, "%s_count{%s} %d\n", metric, label, histogram.getCount()));
+        }
+        createParent(file);
+        Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Write named statistics as a flat JSON object
+     */
+    public static void writeStatsJson(Map<String, Number> stats, Path file) throws IOException {
+        createParent(file);
+        MAPPER.writeValue(file.toFile(), stats);
+    }
+    
+    /**
+     * Write named statistics as Prometheus gauges called prefix_name
+     */
+    public static void writeStatsPrometheus(String prefix, Map<String, Number> stats, Path file) throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, Number> entry : stats.entrySet()) {
+            String metric = prefix + "_" + entry.getKey();
+            text.append("# TYPE ").append(metric).append(" gauge\n");
+            text.append(metric).append(' ').append(entry.getValue()).append('\n');
+        }
+        createParent(file);
+        Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static void createParent(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+    }
+}
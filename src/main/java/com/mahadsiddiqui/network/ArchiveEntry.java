@@ -0,0 +1,60 @@
+package com.mahadsiddiqui.network;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One recorded response, keyed by request method and URL
+ */
+public class ArchiveEntry {
+    
+    private final String method;
+    private final String url;
+    private final int status;
+    private final Map<String, String> headers;
+    private final byte[] body;
+    
+    public ArchiveEntry(String method, String url, int status, Map<String, String> headers, byte[] body) {
+        this.method = method;
+        this.url = url;
+        this.status = status;
+        this.headers = Collections.unmodifiableMap(new LinkedHashMap<>(headers));
+        this.body = body;
+    }
+    
+    /**
+     * Get the request method
+     */
+    public String getMethod() {
+        return method;
+    }
+    
+    /**
+     * Get the absolute request URL without fragment
+     */
+    public String getUrl() {
+        return url;
+    }
+    
+    /**
+     * Get the response status code
+     */
+    public int getStatus() {
+        return status;
+    }
+    
+    /**
+     * Get the response headers; multiple values of one header are separated by newlines
+     */
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+    
+    /**
+     * Get the decoded response body
+     */
+    public byte[] getBody() {
+        return body;
+    }
+}
@@ -0,0 +1,245 @@
+package com.mahadsiddiqui.network;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A stored HTTP response with the request headers it varies on
+ * Freshness and age follow RFC 9111 for a shared cache
+ */
+public class CachedResponse {
+    
+    private static final Set<Integer> HEURISTICALLY_CACHEABLE = Set.of(200, 203, 204, 300, 301, 308, 404, 405,
+            410, 414, 501);
+    private static final long MAX_HEURISTIC_MILLIS = TimeUnit.DAYS.toMillis(1);
+    
+    private final String url;
+    private final int status;
+    private final Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final Map<String, String> varyHeaders = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final byte[] body;
+    private final long requestTime;
+    private final long responseTime;
+    
+    /**
+     * Create a response; varyHeaders are the request header values named by its Vary header
+     * and times are epoch milliseconds of sending the request and receiving the response
+     */
+    public CachedResponse(String url, int status, Map<String, String> headers, Map<String, String> varyHeaders,
+                          byte[] body, long requestTime, long responseTime) {
+        this.url = url;
+        this.status = status;
+        this.headers.putAll(headers);
+        this.varyHeaders.putAll(varyHeaders);
+        this.body = body;
+        this.requestTime = requestTime;
+        this.responseTime = responseTime;
+    }
+    
+    /**
+     * Get the request URL without fragment
+     */
+    public String getUrl() {
+        return url;
+    }
+    
+    /**
+     * Get the response status code
+     */
+    public int getStatus() {
+        return status;
+    }
+    
+    /**
+     * Get the response headers by case-insensitive name; multiple values are separated by newlines
+     */
+    public Map<String, String> getHeaders() {
+        return Collections.unmodifiableMap(headers);
+    }
+    
+    /**
+     * Get the request header values this response was selected by
+     */
+    public Map<String, String> getVaryHeaders() {
+        return Collections.unmodifiableMap(varyHeaders);
+    }
+    
+    /**
+     * Get the decoded response body
+     */
+    public byte[] getBody() {
+        return body;
+    }
+    
+    /**
+     * Get when the request for this response was sent, in epoch milliseconds
+     */
+    public long getRequestTime() {
+        return requestTime;
+    }
+    
+    /**
+     * Get when this response was received or last revalidated, in epoch milliseconds
+     */
+    public long getResponseTime() {
+        return responseTime;
+    }
+    
+    /**
+     * Check if a request selects this response, i.e. sends the same values for every header in Vary
+     * Accept-Encoding is ignored as bodies are stored decoded
+     */
+    public boolean matches(Map<String, String> requestHeaders) {
+        for (String name : varyNames(headers)) {
+            if (!"accept-encoding".equals(name)
+                    && !String.valueOf(requestHeaders.get(name)).equals(String.valueOf(varyHeaders.get(name)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Check if the response may be used without revalidation at the given time
+     */
+    public boolean isFresh(long now) {
+        return !cacheControl(headers.get("Cache-Control")).containsKey("no-cache")
+                && getFreshnessLifetimeMillis() > getAgeMillis(now);
+    }
+    
+    /**
+     * Get how long the response stays fresh: s-maxage, max-age, Expires, or 10% of the time since
+     * Last-Modified capped at one day
+     */
+    public long getFreshnessLifetimeMillis() {
+        Map<String, String> cacheControl = cacheControl(headers.get("Cache-Control"));
+        long seconds = seconds(cacheControl.get("s-maxage"));
+        if (seconds < 0) {
+            seconds = seconds(cacheControl.get("max-age"));
+        }
+        if (seconds >= 0) {
+            return TimeUnit.SECONDS.toMillis(seconds);
+        }
+        long date = date(headers.get("Date"), responseTime);
+        if (headers.containsKey("Expires")) {
+            // An invalid Expires, such as 0, means already expired
+            return Math.max(0, date(headers.get("Expires"), date) - date);
+        }
+        long lastModified = date(headers.get("Last-Modified"), -1);
+        if (lastModified > 0 && HEURISTICALLY_CACHEABLE.contains(status)) {
+            return Math.min(MAX_HEURISTIC_MILLIS, Math.max(0, (date - lastModified) / 10));
+        }
+        return 0;
+    }
+    
+    /**
+     * Get the age of the response at the given time, including the Age reported by upstream caches
+     */
+    public long getAgeMillis(long now) {
+        long ageValue = TimeUnit.SECONDS.toMillis(Math.max(0, seconds(headers.get("Age"))));
+        long apparentAge = Math.max(0, responseTime - date(headers.get("Date"), responseTime));
+        long correctedAge = ageValue + (responseTime - requestTime);
+        return Math.max(apparentAge, correctedAge) + Math.max(0, now - responseTime);
+    }
+    
+    /**
+     * Check if the response carries an ETag or Last-Modified to revalidate with
+     */
+    public boolean hasValidators() {
+        return headers.containsKey("ETag") || headers.containsKey("Last-Modified");
+    }
+    
+    /**
+     * Get a copy refreshed by a 304 Not Modified, whose headers replace the stored ones
+     */
+    public CachedResponse revalidated(Map<String, String> notModifiedHeaders, long requestTime, long responseTime) {
+        Map<String, String> merged = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        merged.putAll(headers);
+        merged.putAll(notModifiedHeaders);
+        return new CachedResponse(url, status, merged, varyHeaders, body, requestTime, responseTime);
+    }
+    
+    /**
+     * Check if a shared cache may store a response; without validators or a freshness lifetime
+     * a stored response is only useful when stale responses are served anyway
+     */
+    public static boolean isStorable(int status, Map<String, String> headers, boolean serveStale) {
+        Map<String, String> cacheControl = cacheControl(headers.get("Cache-Control"));
+        if (cacheControl.containsKey("no-store") || cacheControl.containsKey("private")
+                || headers.containsKey("Set-Cookie") || varyNames(headers).contains("*")) {
+            return false;
+        }
+        boolean explicit = cacheControl.containsKey("max-age") || cacheControl.containsKey("s-maxage")
+                || cacheControl.containsKey("public") || headers.containsKey("Expires");
+        if (!explicit && !HEURISTICALLY_CACHEABLE.contains(status)) {
+            return false;
+        }
+        return serveStale || explicit || headers.containsKey("ETag") || headers.containsKey("Last-Modified");
+    }
+    
+    /**
+     * Get the lower-case header names listed in a response's Vary header
+     */
+    public static Set<String> varyNames(Map<String, String> headers) {
+        String vary = headers.get("Vary");
+        if (vary == null) {
+            return Collections.emptySet();
+        }
+        Set<String> names = new TreeSet<>();
+        for (String name : vary.split("[,\n]")) {
+            if (!name.trim().isEmpty()) {
+                names.add(name.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        return names;
+    }
+    
+    /**
+     * Parse Cache-Control directives into lower-case names and unquoted values
+     */
+    public static Map<String, String> cacheControl(String value) {
+        Map<String, String> directives = new HashMap<>();
+        if (value == null) {
+            return directives;
+        }
+        for (String directive : value.split("[,\n]")) {
+            String[] pair = directive.trim().split("=", 2);
+            if (!pair[0].isEmpty()) {
+                directives.put(pair[0].trim().toLowerCase(Locale.ROOT),
+                        pair.length > 1 ? pair[1].trim().replace("\"", "") : "");
+            }
+        }
+        return directives;
+    }
+    
+    private static long seconds(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    
+    private static long date(String value, long fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return fallback;
+        }
+    }
+}
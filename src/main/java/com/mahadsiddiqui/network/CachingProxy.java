@@ -0,0 +1,338 @@
+package com.mahadsiddiqui.network;
+
+import com.mahadsiddiqui.drivers.DevToolsSession;
+import com.mahadsiddiqui.performance.Throttling;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Caching proxy for static assets shared by all sessions, fed by each session's request interception
+ * Scripts, stylesheets, images and fonts are fetched once through a pooled HTTP client, stored in a disk
+ * HttpCache and answered from it while fresh, revalidated with ETag or Last-Modified once stale.
+ * Aggressive mode treats stored assets as immutable and serves them until aggressiveMaxAge.
+ * Origin fetches carry the session's cookies; responses fetched with cookies are only stored when public.
+ */
+public class CachingProxy implements AutoCloseable {
+    
+    private static final Logger LOG = LoggerFactory.getLogger(CachingProxy.class);
+    private static final Set<String> CACHEABLE_TYPES = Set.of("Script", "Stylesheet", "Image", "Font");
+    private static final Set<String> REQUEST_HEADERS_NOT_FORWARDED = Set.of("host", "connection", "content-length",
+            "expect", "upgrade", "cookie", "keep-alive", "proxy-connection", "te", "trailer", "transfer-encoding",
+            "accept-encoding", "if-none-match", "if-modified-since", "if-match", "if-unmodified-since", "if-range");
+    private static final Set<String> RESPONSE_HEADERS_NOT_STORED = Set.of("connection", "keep-alive",
+            "transfer-encoding", "content-encoding", "content-length", "trailer", "upgrade", "proxy-authenticate");
+    
+    private final HttpCache cache;
+    private final boolean aggressive;
+    private final long aggressiveMaxAgeMillis;
+    private final ExecutorService fetchers;
+    private final HttpClient client;
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder revalidated = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+    private final LongAdder bytesFetched = new LongAdder();
+    
+    public CachingProxy(HttpCache cache, int fetchThreads, boolean aggressive, long aggressiveMaxAgeMillis) {
+        this.cache = cache;
+        this.aggressive = aggressive;
+        this.aggressiveMaxAgeMillis = aggressiveMaxAgeMillis;
+        this.fetchers = Executors.newFixedThreadPool(fetchThreads, runnable -> {
+            Thread thread = new Thread(runnable, "http-cache-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // One client for all sessions so connections to the origin are pooled and reused
+        this.client = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+    
+    /**
+     * Route a session's cacheable requests through the proxy
+     * Browsers without DevTools fetch everything themselves
+     */
+    public void attach(WebDriver driver) {
+        RequestInterception interception = RequestInterception.of(driver);
+        if (interception == null) {
+            LOG.info("HTTP cache needs DevTools; {} requests are not cached", driver.getClass().getSimpleName());
+            return;
+        }
+        List<Map<String, Object>> patterns = new ArrayList<>();
+        for (String type : CACHEABLE_TYPES) {
+            patterns.add(Map.of("urlPattern", "*", "resourceType", type));
+        }
+        interception.addHandler(this::handle, patterns);
+    }
+    
+    private boolean handle(PausedRequest request) {
+        Map<String, String> headers = request.getHeaders();
+        if (!"GET".equals(request.getMethod()) || !request.isHttp()
+                || !CACHEABLE_TYPES.contains(request.getResourceType())
+                || headers.containsKey("Authorization") || headers.containsKey("Range")
+                || CachedResponse.cacheControl(headers.get("Cache-Control")).containsKey("no-store")
+                || Throttling.isNetworkThrottled(request.getDriver())) {
+            // Answers from the cache would skip the emulated network of a throttled session
+            return false;
+        }
+        String url = stripFragment(request.getUrl());
+        CachedResponse stored = cache.get(url);
+        if (stored != null && !stored.matches(headers)) {
+            stored = null;
+        }
+        if (stored != null && isUsable(stored, headers, System.currentTimeMillis())) {
+            hits.increment();
+            bytesSaved.add(stored.getBody().length);
+            request.fulfill(stored.getStatus(), stored.getHeaders(), stored.getBody());
+            return true;
+        }
+        CachedResponse previous = stored;
+        try {
+            // Off the DevTools connection thread so other sessions' events keep flowing
+            fetchers.execute(() -> fetch(request, url, previous));
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+        return true;
+    }
+    
+    private boolean isUsable(CachedResponse stored, Map<String, String> requestHeaders, long now) {
+        if (aggressive) {
+            return stored.getAgeMillis(now) < aggressiveMaxAgeMillis;
+        }
+        // A reload sends no-cache to force revalidation
+        return !CachedResponse.cacheControl(requestHeaders.get("Cache-Control")).containsKey("no-cache")
+                && stored.isFresh(now);
+    }
+    
+    private void fetch(PausedRequest request, String url, CachedResponse stored) {
+        try {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url)).GET()
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Accept-Encoding", "gzip");
+            for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+                String name = header.getKey().toLowerCase(Locale.ROOT);
+                if (!name.startsWith(":") && !REQUEST_HEADERS_NOT_FORWARDED.contains(name)) {
+                    try {
+                        builder.header(header.getKey(), header.getValue());
+                    } catch (IllegalArgumentException e) {
+                        // Header the HTTP client manages itself
+                    }
+                }
+            }
+            // Interception sees request headers before the browser adds cookies, so ask for them
+            String cookies = cookieHeader(request.getDriver(), url);
+            if (!cookies.isEmpty()) {
+                builder.header("Cookie", cookies);
+            }
+            if (stored != null && stored.getHeaders().containsKey("ETag")) {
+                builder.header("If-None-Match", stored.getHeaders().get("ETag"));
+            }
+            if (stored != null && stored.getHeaders().containsKey("Last-Modified")) {
+                builder.header("If-Modified-Since", stored.getHeaders().get("Last-Modified"));
+            }
+            long requestTime = System.currentTimeMillis();
+            HttpResponse<byte[]> response = client.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+            long responseTime = System.currentTimeMillis();
+            Map<String, String> headers = headers(response.headers());
+            if (response.statusCode() == 304 && stored != null) {
+                CachedResponse refreshed = stored.revalidated(headers, requestTime, responseTime);
+                store(refreshed);
+                revalidated.increment();
+                bytesSaved.add(stored.getBody().length);
+                request.fulfill(refreshed.getStatus(), refreshed.getHeaders(), refreshed.getBody());
+                return;
+            }
+            byte[] body = decode(response.body(), response.headers().firstValue("Content-Encoding").orElse(""));
+            misses.increment();
+            bytesFetched.add(response.body().length);
+            // Other sessions have other cookies, so a response fetched with them is shared only if marked public
+            boolean shareable = cookies.isEmpty()
+                    || CachedResponse.cacheControl(headers.get("Cache-Control")).containsKey("public");
+            if (shareable && CachedResponse.isStorable(response.statusCode(), headers, aggressive)) {
+                Map<String, String> varyHeaders = new LinkedHashMap<>();
+                for (String name : CachedResponse.varyNames(headers)) {
+                    if (request.getHeaders().containsKey(name)) {
+                        varyHeaders.put(name, request.getHeaders().get(name));
+                    }
+                }
+                store(new CachedResponse(url, response.statusCode(), headers, varyHeaders, body, requestTime,
+                        responseTime));
+            }
+            request.fulfill(response.statusCode(), headers, body);
+        } catch (IOException | RuntimeException e) {
+            errors.increment();
+            passThrough(request, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            passThrough(request, e);
+        }
+    }
+    
+    /**
+     * Get the Cookie header the browser would send with a request, empty when it has none for the URL
+     */
+    @SuppressWarnings("unchecked")
+    private static String cookieHeader(WebDriver driver, String url) {
+        Map<String, Object> result = DevToolsSession.send(driver, "Network.getCookies",
+                Collections.singletonMap("urls", Collections.singletonList(url)));
+        StringBuilder header = new StringBuilder();
+        Object cookies = result.get("cookies");
+        if (cookies instanceof List) {
+            for (Object cookie : (List<Object>) cookies) {
+                Map<String, Object> fields = (Map<String, Object>) cookie;
+                if (header.length() > 0) {
+                    header.append("; ");
+                }
+                header.append(fields.get("name")).append('=').append(fields.get("value"));
+            }
+        }
+        return header.toString();
+    }
+    
+    private void passThrough(PausedRequest request, Exception cause) {
+        try {
+            // Let the browser try the origin itself
+            request.continueRequest();
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to answer intercepted request {}: {}", request.getUrl(), cause.getMessage());
+        }
+    }
+    
+    private void store(CachedResponse response) {
+        try {
+            cache.put(response);
+        } catch (IOException e) {
+            LOG.warn("Failed to store {} in HTTP cache: {}", response.getUrl(), e.getMessage());
+        }
+    }
+    
+    private static Map<String, String> headers(HttpHeaders headers) {
+        Map<String, String> stored = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (Map.Entry<String, List<String>> header : headers.map().entrySet()) {
+            String name = header.getKey().toLowerCase(Locale.ROOT);
+            if (!name.startsWith(":") && !RESPONSE_HEADERS_NOT_STORED.contains(name)) {
+                stored.put(header.getKey(), String.join("\n", header.getValue()));
+            }
+        }
+        return stored;
+    }
+    
+    private static byte[] decode(byte[] body, String contentEncoding) throws IOException {
+        if (!"gzip".equalsIgnoreCase(contentEncoding.trim()) || body.length == 0) {
+            return body;
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return in.readAllBytes();
+        }
+    }
+    
+    private static String stripFragment(String url) {
+        int hash = url.indexOf('#');
+        return hash < 0 ? url : url.substring(0, hash);
+    }
+    
+    /**
+     * Get requests answered from the cache without contacting the origin
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+    
+    /**
+     * Get requests answered from the cache after the origin confirmed them with 304 Not Modified
+     */
+    public long getRevalidated() {
+        return revalidated.sum();
+    }
+    
+    /**
+     * Get requests the origin answered with a full response
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+    
+    /**
+     * Get the share of cacheable requests answered from the cache, revalidations included
+     */
+    public double getHitRatio() {
+        long served = getHits() + getRevalidated();
+        long total = served + getMisses();
+        return total == 0 ? 0 : (double) served / total;
+    }
+    
+    /**
+     * Get response body bytes answered from the cache instead of downloaded
+     */
+    public long getBytesSaved() {
+        return bytesSaved.sum();
+    }
+    
+    /**
+     * Get statistics for export, by metric name
+     */
+    public Map<String, Number> getStats() {
+        Map<String, Number> stats = new LinkedHashMap<>();
+        stats.put("hits", getHits());
+        stats.put("revalidated", getRevalidated());
+        stats.put("misses", getMisses());
+        stats.put("errors", errors.sum());
+        stats.put("hit_ratio", getHitRatio());
+        stats.put("bytes_saved", getBytesSaved());
+        stats.put("bytes_fetched", bytesFetched.sum());
+        stats.put("entries", cache.size());
+        stats.put("stored_bytes", cache.getTotalBytes());
+        stats.put("evictions", cache.getEvictions());
+        return stats;
+    }
+    
+    /**
+     * Get a one-line summary of the cache
+     */
+    public String summary() {
+        return String.format(Locale.ROOT, "HTTP cache: %.1f%% hit ratio (%d hits, %d revalidated, %d misses), "
+                        + "%d bytes saved, %d entries / %d bytes stored, %d evicted", getHitRatio() * 100,
+                getHits(), getRevalidated(), getMisses(), getBytesSaved(), cache.size(), cache.getTotalBytes(),
+                cache.getEvictions());
+    }
+    
+    @Override
+    public void close() {
+        fetchers.shutdown();
+        try {
+            fetchers.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
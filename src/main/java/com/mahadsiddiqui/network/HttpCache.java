@@ -0,0 +1,261 @@
+package com.mahadsiddiqui.network;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Disk store of HTTP responses, one file per URL, bounded in size by evicting the least recently used
+ * Last use is kept in file modification times so the order survives between runs
+ */
+public class HttpCache {
+    
+    private static final Logger LOG = LoggerFactory.getLogger(HttpCache.class);
+    private static final int MAGIC = 0x57544843;
+    private static final int VERSION = 1;
+    private static final String SUFFIX = ".entry";
+    
+    private final Path directory;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    private long evictions;
+    
+    /**
+     * Open a cache directory, creating it if needed and evicting down to maxBytes
+     */
+    public HttpCache(Path directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(SUFFIX)) {
+                    files.add(file);
+                } else if (name.endsWith(".tmp")) {
+                    // Left behind by a run that stopped mid-write
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        files.sort(Comparator.comparingLong(HttpCache::lastModified));
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long size = Files.size(file);
+            index.put(name.substring(0, name.length() - SUFFIX.length()), size);
+            totalBytes += size;
+        }
+        synchronized (this) {
+            evict();
+        }
+    }
+    
+    /**
+     * Get the stored response for a URL, or null if there is none
+     */
+    public CachedResponse get(String url) {
+        String key = key(url);
+        synchronized (this) {
+            if (index.get(key) == null) {
+                return null;
+            }
+        }
+        Path file = directory.resolve(key + SUFFIX);
+        try {
+            CachedResponse response = read(file);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return response.getUrl().equals(url) ? response : null;
+        } catch (NoSuchFileException e) {
+            // Evicted by another thread or process in the meantime
+            remove(key);
+            return null;
+        } catch (IOException e) {
+            LOG.warn("Discarding unreadable HTTP cache entry {}: {}", file, e.getMessage());
+            remove(key);
+            return null;
+        }
+    }
+    
+    /**
+     * Store a response, replacing the previous one for its URL; responses larger than the cache are skipped
+     */
+    public void put(CachedResponse response) throws IOException {
+        String key = key(response.getUrl());
+        Path temp = Files.createTempFile(directory, key, ".tmp");
+        try {
+            write(temp, response);
+            long size = Files.size(temp);
+            if (size > maxBytes) {
+                return;
+            }
+            synchronized (this) {
+                Files.move(temp, directory.resolve(key + SUFFIX), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+                Long previous = index.put(key, size);
+                totalBytes += size - (previous == null ? 0 : previous);
+                evict();
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+    
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> eldest = index.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            try {
+                Files.deleteIfExists(directory.resolve(entry.getKey() + SUFFIX));
+            } catch (IOException e) {
+                LOG.warn("Failed to evict HTTP cache entry {}: {}", entry.getKey(), e.getMessage());
+            }
+            totalBytes -= entry.getValue();
+            evictions++;
+            eldest.remove();
+        }
+    }
+    
+    private synchronized void remove(String key) {
+        Long size = index.remove(key);
+        if (size != null) {
+            totalBytes -= size;
+        }
+        try {
+            Files.deleteIfExists(directory.resolve(key + SUFFIX));
+        } catch (IOException e) {
+            // Already gone or locked; the next put replaces it
+        }
+    }
+    
+    /**
+     * Get the number of stored responses
+     */
+    public synchronized int size() {
+        return index.size();
+    }
+    
+    /**
+     * Get the bytes stored on disk
+     */
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+    
+    /**
+     * Get the size bound of the cache
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+    
+    /**
+     * Get the number of responses evicted to stay within the size bound
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+    
+    private static CachedResponse read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not an HTTP cache entry");
+            }
+            String url = readString(in);
+            int status = in.readInt();
+            long requestTime = in.readLong();
+            long responseTime = in.readLong();
+            Map<String, String> headers = readHeaders(in);
+            Map<String, String> varyHeaders = readHeaders(in);
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            return new CachedResponse(url, status, headers, varyHeaders, body, requestTime, responseTime);
+        }
+    }
+    
+    private static void write(Path file, CachedResponse response) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, response.getUrl());
+            out.writeInt(response.getStatus());
+            out.writeLong(response.getRequestTime());
+            out.writeLong(response.getResponseTime());
+            writeHeaders(out, response.getHeaders());
+            writeHeaders(out, response.getVaryHeaders());
+            out.writeInt(response.getBody().length);
+            out.write(response.getBody());
+        }
+    }
+    
+    private static Map<String, String> readHeaders(DataInputStream in) throws IOException {
+        Map<String, String> headers = new LinkedHashMap<>();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            headers.put(readString(in), readString(in));
+        }
+        return headers;
+    }
+    
+    private static void writeHeaders(DataOutputStream out, Map<String, String> headers) throws IOException {
+        out.writeInt(headers.size());
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            writeString(out, header.getKey());
+            writeString(out, header.getValue());
+        }
+    }
+    
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+    
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+    
+    private static String key(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
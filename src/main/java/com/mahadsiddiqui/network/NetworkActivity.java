@@ -0,0 +1,99 @@
+package com.mahadsiddiqui.network;
+
+import com.mahadsiddiqui.drivers.DevToolsSession;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks in-flight requests of a session from DevTools network events
+ * Lets waits decide when the network has gone idle without polling the browser
+ */
+public class NetworkActivity {
+    
+    private static final Logger LOG = LoggerFactory.getLogger(NetworkActivity.class);
+    private static final Map<WebDriver, NetworkActivity> TRACKERS = Collections.synchronizedMap(new WeakHashMap<>());
+    
+    private final Set<Object> inflight = ConcurrentHashMap.newKeySet();
+    private volatile long lastActivityNanos = System.nanoTime();
+    
+    private NetworkActivity() {
+    }
+    
+    /**
+     * Get the tracker of a session, attaching it on first use
+     * Returns null when the browser does not expose DevTools
+     */
+    public static NetworkActivity of(WebDriver driver) {
+        synchronized (TRACKERS) {
+            if (TRACKERS.containsKey(driver)) {
+                return TRACKERS.get(driver);
+            }
+            NetworkActivity tracker = null;
+            if (DevToolsSession.isSupported(driver)) {
+                try {
+                    tracker = new NetworkActivity();
+                    tracker.attach(driver);
+                } catch (RuntimeException e) {
+                    LOG.debug("Network tracking unavailable: {}", e.getMessage());
+                    tracker = null;
+                }
+            }
+            TRACKERS.put(driver, tracker);
+            return tracker;
+        }
+    }
+    
+    private void attach(WebDriver driver) {
+        DevToolsSession.addListener(driver, "Network.requestWillBeSent", event -> started(event.get("requestId")));
+        DevToolsSession.addListener(driver, "Network.loadingFinished", event -> finished(event.get("requestId")));
+        DevToolsSession.addListener(driver, "Network.loadingFailed", event -> finished(event.get("requestId")));
+        DevToolsSession.send(driver, "Network.enable");
+    }
+    
+    private void started(Object requestId) {
+        inflight.add(requestId);
+        lastActivityNanos = System.nanoTime();
+    }
+    
+    private void finished(Object requestId) {
+        inflight.remove(requestId);
+        lastActivityNanos = System.nanoTime();
+    }
+    
+    /**
+     * Get the number of requests still in flight
+     */
+    public int getInflightCount() {
+        return inflight.size();
+    }
+    
+    /**
+     * Wait until at most maxInflight requests have been open for the idle window
+     * Returns false if the deadline passes first
+     */
+    public boolean awaitIdle(long idleMillis, int maxInflight, long deadlineNanos) {
+        long idleNanos = idleMillis * 1_000_000;
+        while (true) {
+            long now = System.nanoTime();
+            if (inflight.size() <= maxInflight && now - lastActivityNanos >= idleNanos) {
+                return true;
+            }
+            if (now >= deadlineNanos) {
+                return false;
+            }
+            try {
+                Thread.sleep(Math.min(25, Math.max(1, (deadlineNanos - now) / 1_000_000)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+}
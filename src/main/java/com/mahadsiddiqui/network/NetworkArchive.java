@@ -0,0 +1,166 @@
+package com.mahadsiddiqui.network;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Recorded request/response pairs in a compact gzipped binary file
+ * Responses are matched by method and URL, falling back to the URL without its query. When a URL was
+ * recorded several times its responses are replayed in recorded order, repeating the last one.
+ */
+public class NetworkArchive {
+    
+    private static final int MAGIC = 0x57544141;
+    private static final int VERSION = 1;
+    
+    private final List<ArchiveEntry> entries = new ArrayList<>();
+    private final Map<String, List<ArchiveEntry>> byUrl = new HashMap<>();
+    private final Map<String, List<ArchiveEntry>> byPath = new HashMap<>();
+    private final Map<String, Integer> replayed = new HashMap<>();
+    
+    /**
+     * Load an archive written by save
+     */
+    public static NetworkArchive load(Path file) throws IOException {
+        NetworkArchive archive = new NetworkArchive();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file))))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a network archive: " + file);
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String method = readString(in);
+                String url = readString(in);
+                int status = in.readInt();
+                Map<String, String> headers = new LinkedHashMap<>();
+                int headerCount = in.readInt();
+                for (int h = 0; h < headerCount; h++) {
+                    headers.put(readString(in), readString(in));
+                }
+                byte[] body = new byte[in.readInt()];
+                in.readFully(body);
+                archive.add(new ArchiveEntry(method, url, status, headers, body));
+            }
+        }
+        return archive;
+    }
+    
+    /**
+     * Write the archive, replacing the file atomically
+     */
+    public synchronized void save(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(temp))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(entries.size());
+            for (ArchiveEntry entry : entries) {
+                writeString(out, entry.getMethod());
+                writeString(out, entry.getUrl());
+                out.writeInt(entry.getStatus());
+                out.writeInt(entry.getHeaders().size());
+                for (Map.Entry<String, String> header : entry.getHeaders().entrySet()) {
+                    writeString(out, header.getKey());
+                    writeString(out, header.getValue());
+                }
+                out.writeInt(entry.getBody().length);
+                out.write(entry.getBody());
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Add a recorded response
+     */
+    public synchronized void add(ArchiveEntry entry) {
+        entries.add(entry);
+        String url = stripFragment(entry.getUrl());
+        byUrl.computeIfAbsent(key(entry.getMethod(), url), key -> new ArrayList<>()).add(entry);
+        byPath.computeIfAbsent(key(entry.getMethod(), stripQuery(url)), key -> new ArrayList<>()).add(entry);
+    }
+    
+    /**
+     * Find the next response for a request, or null if the archive has none
+     */
+    public synchronized ArchiveEntry find(String method, String url) {
+        String exact = key(method, stripFragment(url));
+        List<ArchiveEntry> candidates = byUrl.get(exact);
+        String replayKey = exact;
+        if (candidates == null) {
+            // Cache-busting or session parameters change between runs
+            replayKey = key(method, stripQuery(stripFragment(url)));
+            candidates = byPath.get(replayKey);
+        }
+        if (candidates == null) {
+            return null;
+        }
+        int next = replayed.getOrDefault(replayKey, 0);
+        replayed.put(replayKey, next + 1);
+        return candidates.get(Math.min(next, candidates.size() - 1));
+    }
+    
+    /**
+     * Get the number of recorded responses
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+    
+    /**
+     * Get the total size of recorded response bodies
+     */
+    public synchronized long getBodyBytes() {
+        long bytes = 0;
+        for (ArchiveEntry entry : entries) {
+            bytes += entry.getBody().length;
+        }
+        return bytes;
+    }
+    
+    private static String key(String method, String url) {
+        return method.toUpperCase() + " " + url;
+    }
+    
+    private static String stripFragment(String url) {
+        int hash = url.indexOf('#');
+        return hash < 0 ? url : url.substring(0, hash);
+    }
+    
+    private static String stripQuery(String url) {
+        int query = url.indexOf('?');
+        return query < 0 ? url : url.substring(0, query);
+    }
+    
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+    
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
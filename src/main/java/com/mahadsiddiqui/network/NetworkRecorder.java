@@ -0,0 +1,132 @@
+package com.mahadsiddiqui.network;
+
+import com.mahadsiddiqui.drivers.DevToolsSession;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records every HTTP response a session receives into a network archive through DevTools network events
+ * Redirects are stored as their own responses so replay follows the same chain
+ */
+public class NetworkRecorder {
+    
+    private static final Logger LOG = LoggerFactory.getLogger(NetworkRecorder.class);
+    
+    /**
+     * Headers that describe the original transfer rather than the decoded body we store
+     */
+    private static final Set<String> TRANSFER_HEADERS = Set.of("content-encoding", "content-length",
+            "transfer-encoding", "connection", "keep-alive");
+    
+    private final NetworkArchive archive;
+    private final Map<Object, Pending> pending = new ConcurrentHashMap<>();
+    
+    private NetworkRecorder(NetworkArchive archive) {
+        this.archive = archive;
+    }
+    
+    /**
+     * Start recording a session's responses into an archive
+     * Browsers without DevTools are not recorded
+     */
+    public static void attach(WebDriver driver, NetworkArchive archive) {
+        if (!DevToolsSession.isSupported(driver)) {
+            LOG.info("Network recording needs DevTools; {} traffic is not recorded", driver.getClass().getSimpleName());
+            return;
+        }
+        NetworkRecorder recorder = new NetworkRecorder(archive);
+        DevToolsSession.addListener(driver, "Network.requestWillBeSent", recorder::requestWillBeSent);
+        DevToolsSession.addListener(driver, "Network.responseReceived", recorder::responseReceived);
+        DevToolsSession.addListener(driver, "Network.loadingFinished",
+                event -> recorder.loadingFinished(driver, event));
+        DevToolsSession.addListener(driver, "Network.loadingFailed",
+                event -> recorder.pending.remove(event.get("requestId")));
+        DevToolsSession.send(driver, "Network.enable");
+    }
+    
+    @SuppressWarnings("unchecked")
+    private void requestWillBeSent(Map<String, Object> event) {
+        Object requestId = event.get("requestId");
+        Pending previous = pending.remove(requestId);
+        if (previous != null && event.get("redirectResponse") instanceof Map) {
+            // The same request id continues after a redirect; keep the hop
+            Map<String, Object> redirect = (Map<String, Object>) event.get("redirectResponse");
+            archive.add(new ArchiveEntry(previous.method, previous.url, ((Number) redirect.get("status")).intValue(),
+                    headers(redirect), new byte[0]));
+        }
+        Map<String, Object> request = (Map<String, Object>) event.get("request");
+        String url = String.valueOf(request.get("url"));
+        if (url.startsWith("http://") || url.startsWith("https://")) {
+            pending.put(requestId, new Pending(String.valueOf(request.get("method")), url));
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private void responseReceived(Map<String, Object> event) {
+        Pending request = pending.get(event.get("requestId"));
+        if (request != null) {
+            Map<String, Object> response = (Map<String, Object>) event.get("response");
+            request.status = ((Number) response.get("status")).intValue();
+            request.headers = headers(response);
+        }
+    }
+    
+    private void loadingFinished(WebDriver driver, Map<String, Object> event) {
+        Pending request = pending.remove(event.get("requestId"));
+        if (request == null || request.status == 0) {
+            return;
+        }
+        byte[] body;
+        try {
+            Map<String, Object> result = DevToolsSession.send(driver, "Network.getResponseBody",
+                    Collections.singletonMap("requestId", event.get("requestId")));
+            String text = String.valueOf(result.get("body"));
+            body = Boolean.TRUE.equals(result.get("base64Encoded"))
+                    ? Base64.getDecoder().decode(text) : text.getBytes(StandardCharsets.UTF_8);
+        } catch (RuntimeException e) {
+            // Bodies of some responses (e.g. preflights, evicted resources) are not retained by the browser
+            body = new byte[0];
+        }
+        archive.add(new ArchiveEntry(request.method, request.url, request.status, request.headers, body));
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static Map<String, String> headers(Map<String, Object> response) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        Object reported = response.get("headers");
+        if (reported instanceof Map) {
+            for (Map.Entry<String, Object> header : ((Map<String, Object>) reported).entrySet()) {
+                if (!TRANSFER_HEADERS.contains(header.getKey().toLowerCase(Locale.ROOT))) {
+                    headers.put(header.getKey(), String.valueOf(header.getValue()));
+                }
+            }
+        }
+        return headers;
+    }
+    
+    /**
+     * Request seen on the wire whose body is not yet available
+     */
+    private static final class Pending {
+        
+        private final String method;
+        private final String url;
+        private volatile int status;
+        private volatile Map<String, String> headers = Collections.emptyMap();
+        
+        private Pending(String method, String url) {
+            this.method = method;
+            this.url = url;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.mahadsiddiqui.network;
+
+import com.mahadsiddiqui.drivers.DevToolsSession;
+import org.openqa.selenium.WebDriver;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A request held by DevTools Fetch interception until a handler answers, fails or continues it
+ */
+public class PausedRequest {
+    
+    private final WebDriver driver;
+    private final Object requestId;
+    private final String url;
+    private final String method;
+    private final String resourceType;
+    private final Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    
+    @SuppressWarnings("unchecked")
+    PausedRequest(WebDriver driver, Map<String, Object> event) {
+        Map<String, Object> request = (Map<String, Object>) event.get("request");
+        this.driver = driver;
+        this.requestId = event.get("requestId");
+        this.url = String.valueOf(request.get("url"));
+        this.method = String.valueOf(request.get("method"));
+        this.resourceType = String.valueOf(event.get("resourceType"));
+        Object requestHeaders = request.get("headers");
+        if (requestHeaders instanceof Map) {
+            for (Map.Entry<String, Object> header : ((Map<String, Object>) requestHeaders).entrySet()) {
+                headers.put(header.getKey(), String.valueOf(header.getValue()));
+            }
+        }
+    }
+    
+    /**
+     * Get the session the request belongs to
+     */
+    WebDriver getDriver() {
+        return driver;
+    }
+    
+    /**
+     * Get the request URL
+     */
+    public String getUrl() {
+        return url;
+    }
+    
+    /**
+     * Get the request method
+     */
+    public String getMethod() {
+        return method;
+    }
+    
+    /**
+     * Get the DevTools resource type, e.g. Document, Script, Image, Font, Media, XHR
+     */
+    public String getResourceType() {
+        return resourceType;
+    }
+    
+    /**
+     * Get the request headers the browser sent, by case-insensitive name
+     */
+    public Map<String, String> getHeaders() {
+        return Collections.unmodifiableMap(headers);
+    }
+    
+    /**
+     * Check if the request goes over HTTP(S) rather than data:, blob: or similar
+     */
+    public boolean isHttp() {
+        return url.startsWith("http://") || url.startsWith("https://");
+    }
+    
+    /**
+     * Answer the request without it reaching the network; multiple header values are separated by newlines
+     */
+    public void fulfill(int status, Map<String, String> headers, byte[] body) {
+        List<Map<String, Object>> responseHeaders = new ArrayList<>();
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            for (String value : header.getValue().split("\n")) {
+                Map<String, Object> pair = new LinkedHashMap<>();
+                pair.put("name", header.getKey());
+                pair.put("value", value);
+                responseHeaders.add(pair);
+            }
+        }
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("requestId", requestId);
+        params.put("responseCode", status);
+        params.put("responseHeaders", responseHeaders);
+        params.put("body", Base64.getEncoder().encodeToString(body));
+        DevToolsSession.send(driver, "Fetch.fulfillRequest", params);
+    }
+    
+    /**
+     * Fail the request with a network error reason such as BlockedByClient or InternetDisconnected
+     */
+    public void fail(String errorReason) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("requestId", requestId);
+        params.put("errorReason", errorReason);
+        DevToolsSession.send(driver, "Fetch.failRequest", params);
+    }
+    
+    /**
+     * Let the request go to the network unchanged
+     */
+    public void continueRequest() {
+        DevToolsSession.send(driver, "Fetch.continueRequest", Collections.singletonMap("requestId", requestId));
+    }
+}
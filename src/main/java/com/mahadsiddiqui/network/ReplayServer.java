@@ -0,0 +1,178 @@
+package com.mahadsiddiqui.network;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openqa.selenium.WebDriver;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serves a network archive from an embedded local HTTP server
+ * Every recorded origin gets its own loopback port, so relative and root-relative links on a replayed page
+ * resolve against the origin the page came from. Sessions with DevTools also have every other request answered
+ * from the archive, and anything that was not recorded fails as if offline, so runs never reach the network and
+ * give the same result for the same archive.
+ */
+public class ReplayServer implements AutoCloseable {
+    
+    private final NetworkArchive archive;
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "replay-server");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, HttpServer> servers = new LinkedHashMap<>();
+    private final Map<String, String> localOrigins = new LinkedHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    
+    private ReplayServer(NetworkArchive archive) {
+        this.archive = archive;
+    }
+    
+    /**
+     * Start a server on a free loopback port that replays the archive in place of the given origin
+     * Other recorded origins get their own port the first time one of their URLs is mapped
+     */
+    public static ReplayServer start(NetworkArchive archive, String originUrl) throws IOException {
+        ReplayServer replay = new ReplayServer(archive);
+        replay.localOrigin(originOf(originUrl));
+        return replay;
+    }
+    
+    /**
+     * Get the local URL that serves a recorded URL
+     */
+    public String localUrl(String url) {
+        if (!url.startsWith("http://") && !url.startsWith("https://")) {
+            return url;
+        }
+        String origin = originOf(url);
+        try {
+            return localOrigin(origin) + url.substring(origin.length());
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not start a replay server for " + origin, e);
+        }
+    }
+    
+    private synchronized String localOrigin(String origin) throws IOException {
+        String localOrigin = localOrigins.get(origin);
+        if (localOrigin == null) {
+            HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            server.createContext("/", exchange -> handle(exchange, origin));
+            server.setExecutor(executor);
+            server.start();
+            localOrigin = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+            servers.put(origin, server);
+            localOrigins.put(origin, localOrigin);
+        }
+        return localOrigin;
+    }
+    
+    private synchronized boolean isLocal(String url) {
+        return localOrigins.containsValue(originOf(url));
+    }
+    
+    /**
+     * Answer every request of a session from the archive through DevTools request interception
+     * Browsers without DevTools only get the local server
+     */
+    public void attach(WebDriver driver) {
+        RequestInterception interception = RequestInterception.of(driver);
+        if (interception != null) {
+            interception.addHandler(this::replay, RequestInterception.ALL_REQUESTS);
+        }
+    }
+    
+    private boolean replay(PausedRequest request) {
+        if (!request.isHttp() || isLocal(request.getUrl())) {
+            return false;
+        }
+        ArchiveEntry entry = archive.find(request.getMethod(), request.getUrl());
+        if (entry == null) {
+            misses.increment();
+            request.fail("InternetDisconnected");
+        } else {
+            hits.increment();
+            request.fulfill(entry.getStatus(), entry.getHeaders(), entry.getBody());
+        }
+        return true;
+    }
+    
+    private void handle(HttpExchange exchange, String origin) throws IOException {
+        String path = exchange.getRequestURI().getRawPath();
+        String query = exchange.getRequestURI().getRawQuery();
+        String url = origin + path + (query == null ? "" : "?" + query);
+        try {
+            ArchiveEntry entry = archive.find(exchange.getRequestMethod(), url);
+            if (entry == null) {
+                misses.increment();
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            hits.increment();
+            for (Map.Entry<String, String> header : entry.getHeaders().entrySet()) {
+                for (String value : header.getValue().split("\n")) {
+                    // Redirects must stay on the local server
+                    boolean location = "location".equalsIgnoreCase(header.getKey());
+                    exchange.getResponseHeaders().add(header.getKey(),
+                            location ? localUrl(URI.create(url).resolve(value).toString()) : value);
+                }
+            }
+            byte[] body = entry.getBody();
+            boolean noBody = body.length == 0 || "HEAD".equals(exchange.getRequestMethod());
+            exchange.sendResponseHeaders(entry.getStatus(), noBody ? -1 : body.length);
+            if (!noBody) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+    
+    private static String originOf(String url) {
+        URI uri = URI.create(url);
+        return uri.getScheme() + "://" + uri.getRawAuthority();
+    }
+    
+    /**
+     * Get the number of requests answered from the archive
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+    
+    /**
+     * Get the number of requests the archive had no response for
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+    
+    /**
+     * Get a one-line summary of the replay
+     */
+    public String summary() {
+        return "Network replay: " + archive.size() + " recorded responses, " + getHits() + " served, "
+                + getMisses() + " not recorded";
+    }
+    
+    @Override
+    public synchronized void close() {
+        servers.values().forEach(server -> server.stop(0));
+        servers.clear();
+        localOrigins.clear();
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,261 @@
+package com.mahadsiddiqui.network;
+
+import com.mahadsiddiqui.drivers.DevToolsSession;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Blocks, stubs or short-circuits requests of a session by URL, resource type and third-party origin
+ * Suite rules apply for the whole session; page rules add to them while their page object is in use and are
+ * checked first, and are replaced whenever another page object is created. Bytes saved are estimated from the
+ * size of the same URL, or the average size of its resource type, in traffic that was let through.
+ */
+public class RequestFilter {
+    
+    private static final Logger LOG = LoggerFactory.getLogger(RequestFilter.class);
+    private static final Map<WebDriver, RequestFilter> FILTERS = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final byte[] TRANSPARENT_GIF = Base64.getDecoder().decode(
+            "R0lGODlhAQABAIAAAAAAAP///yH5BAEAAAAALAAAAAABAAEAAAIBRAA7");
+    private static final Map<String, Long> KNOWN_SIZES = new ConcurrentHashMap<>();
+    private static final Map<String, long[]> TYPE_SIZES = new ConcurrentHashMap<>();
+    private static final LongAdder SUITE_REQUESTS = new LongAdder();
+    private static final LongAdder SUITE_BYTES = new LongAdder();
+    
+    private final List<RequestRule> suiteRules;
+    private final String siteDomain;
+    private final RequestInterception interception;
+    private final RequestInterception.Handler handler = this::filter;
+    private volatile List<RequestRule> pageRules = Collections.emptyList();
+    private final Map<Object, String> letThrough = new ConcurrentHashMap<>();
+    private final LongAdder requestsSaved = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+    
+    private RequestFilter(List<RequestRule> suiteRules, String siteUrl, RequestInterception interception) {
+        this.suiteRules = suiteRules;
+        this.siteDomain = siteDomain(host(siteUrl));
+        this.interception = interception;
+    }
+    
+    /**
+     * Filter a session's requests with suite rules; third-party means outside the site of siteUrl
+     * Browsers without DevTools are not filtered
+     */
+    public static void attach(WebDriver driver, List<RequestRule> suiteRules, String siteUrl) {
+        RequestInterception interception = RequestInterception.of(driver);
+        if (interception == null) {
+            LOG.info("Request filtering needs DevTools; {} requests are not filtered",
+                    driver.getClass().getSimpleName());
+            return;
+        }
+        RequestFilter filter = new RequestFilter(suiteRules, siteUrl, interception);
+        interception.addHandler(filter.handler, filter.fetchPatterns());
+        DevToolsSession.addListener(driver, "Network.responseReceived", filter::responseReceived);
+        DevToolsSession.addListener(driver, "Network.loadingFinished", filter::loadingFinished);
+        DevToolsSession.send(driver, "Network.enable");
+        FILTERS.put(driver, filter);
+    }
+    
+    /**
+     * Get the filter of a session, or null if it has none
+     */
+    public static RequestFilter find(WebDriver driver) {
+        return FILTERS.get(driver);
+    }
+    
+    /**
+     * Set the rules of the page object in use, replacing those of the previous one
+     * They add to the suite rules and are checked before them
+     */
+    public void setPageRules(List<RequestRule> rules) {
+        pageRules = rules;
+        interception.setPatterns(handler, fetchPatterns());
+    }
+    
+    private List<Map<String, Object>> fetchPatterns() {
+        List<Map<String, Object>> patterns = new ArrayList<>();
+        for (List<RequestRule> rules : List.of(pageRules, suiteRules)) {
+            rules.forEach(rule -> patterns.addAll(rule.getFetchPatterns()));
+        }
+        return patterns;
+    }
+    
+    private boolean filter(PausedRequest request) {
+        if (!request.isHttp() || "Document".equals(request.getResourceType())) {
+            // Navigations are never filtered so a rule cannot take the page under test away
+            return false;
+        }
+        RequestRule rule = match(request);
+        if (rule == null) {
+            return false;
+        }
+        long size = estimateSize(request.getUrl(), request.getResourceType());
+        requestsSaved.increment();
+        bytesSaved.add(size);
+        SUITE_REQUESTS.increment();
+        SUITE_BYTES.add(size);
+        switch (rule.getAction()) {
+            case BLOCK:
+                request.fail("BlockedByClient");
+                break;
+            case STUB:
+                stub(request);
+                break;
+            default:
+                request.fulfill(204, Collections.emptyMap(), new byte[0]);
+                break;
+        }
+        return true;
+    }
+    
+    private RequestRule match(PausedRequest request) {
+        boolean thirdParty = isThirdParty(request.getUrl());
+        for (List<RequestRule> rules : List.of(pageRules, suiteRules)) {
+            for (RequestRule rule : rules) {
+                if (rule.matches(request.getUrl(), request.getResourceType(), thirdParty)) {
+                    return rule;
+                }
+            }
+        }
+        return null;
+    }
+    
+    private static void stub(PausedRequest request) {
+        String contentType;
+        byte[] body = new byte[0];
+        switch (request.getResourceType()) {
+            case "Script":
+                contentType = "application/javascript";
+                break;
+            case "Stylesheet":
+                contentType = "text/css";
+                break;
+            case "Image":
+                contentType = "image/gif";
+                body = TRANSPARENT_GIF;
+                break;
+            case "XHR":
+            case "Fetch":
+                contentType = "application/json";
+                body = "{}".getBytes(StandardCharsets.UTF_8);
+                break;
+            default:
+                contentType = "text/plain";
+                break;
+        }
+        request.fulfill(200, Collections.singletonMap("Content-Type", contentType), body);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private void responseReceived(Map<String, Object> event) {
+        Map<String, Object> response = (Map<String, Object>) event.get("response");
+        letThrough.put(event.get("requestId"), event.get("type") + " " + response.get("url"));
+    }
+    
+    private void loadingFinished(Map<String, Object> event) {
+        String request = letThrough.remove(event.get("requestId"));
+        if (request == null || !(event.get("encodedDataLength") instanceof Number)) {
+            return;
+        }
+        long bytes = ((Number) event.get("encodedDataLength")).longValue();
+        int space = request.indexOf(' ');
+        KNOWN_SIZES.put(stripQuery(request.substring(space + 1)), bytes);
+        long[] total = TYPE_SIZES.computeIfAbsent(request.substring(0, space), type -> new long[2]);
+        synchronized (total) {
+            total[0] += bytes;
+            total[1]++;
+        }
+    }
+    
+    private static long estimateSize(String url, String resourceType) {
+        Long known = KNOWN_SIZES.get(stripQuery(url));
+        if (known != null) {
+            return known;
+        }
+        long[] total = TYPE_SIZES.get(resourceType);
+        if (total == null) {
+            return 0;
+        }
+        synchronized (total) {
+            return total[1] == 0 ? 0 : total[0] / total[1];
+        }
+    }
+    
+    private boolean isThirdParty(String url) {
+        String host = host(url);
+        if (host.isEmpty() || siteDomain.isEmpty() || isLoopback(host)) {
+            return false;
+        }
+        return !(host.equals(siteDomain) || host.endsWith("." + siteDomain));
+    }
+    
+    /**
+     * Approximate the registrable domain by the last two labels of the host
+     */
+    private static String siteDomain(String host) {
+        if (isLoopback(host) || host.matches("[0-9.]+")) {
+            return host;
+        }
+        String[] labels = host.split("\\.");
+        return labels.length <= 2 ? host : labels[labels.length - 2] + "." + labels[labels.length - 1];
+    }
+    
+    private static boolean isLoopback(String host) {
+        return "localhost".equals(host) || host.startsWith("127.") || "[::1]".equals(host);
+    }
+    
+    private static String host(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host == null ? "" : host.toLowerCase(Locale.ROOT);
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+    
+    private static String stripQuery(String url) {
+        int query = url.indexOf('?');
+        return query < 0 ? url : url.substring(0, query);
+    }
+    
+    /**
+     * Get requests saved since the last reset
+     */
+    public long getRequestsSaved() {
+        return requestsSaved.sum();
+    }
+    
+    /**
+     * Get estimated bytes saved since the last reset
+     */
+    public long getBytesSaved() {
+        return bytesSaved.sum();
+    }
+    
+    /**
+     * Start counting savings for the next test
+     */
+    public void reset() {
+        requestsSaved.reset();
+        bytesSaved.reset();
+    }
+    
+    /**
+     * Get suite-wide savings across all sessions
+     */
+    public static String summary() {
+        return "Request filter: " + SUITE_REQUESTS.sum() + " requests saved, ~" + SUITE_BYTES.sum() + " bytes saved";
+    }
+}
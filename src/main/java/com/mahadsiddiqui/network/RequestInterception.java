@@ -0,0 +1,132 @@
+package com.mahadsiddiqui.network;
+
+import com.mahadsiddiqui.drivers.DevToolsSession;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Single DevTools Fetch interception per session, shared by request filtering, the HTTP cache and archive replay
+ * Handlers see each request in the order they were added; the first one that answers it wins and
+ * requests nobody answers continue to the network. Only requests matching the patterns of some handler are
+ * paused, so types no handler cares about, like navigations, never wait on a DevTools round trip.
+ */
+public final class RequestInterception {
+    
+    private static final Logger LOG = LoggerFactory.getLogger(RequestInterception.class);
+    private static final Map<WebDriver, RequestInterception> SESSIONS =
+            Collections.synchronizedMap(new WeakHashMap<>());
+    
+    /**
+     * Answers, fails or continues a paused request and returns true, or returns false to pass it on
+     */
+    public interface Handler {
+        boolean handle(PausedRequest request);
+    }
+    
+    /**
+     * Pattern that pauses every request
+     */
+    public static final List<Map<String, Object>> ALL_REQUESTS =
+            Collections.singletonList(Collections.singletonMap("urlPattern", "*"));
+    
+    // Weak so the interception, a value of SESSIONS, does not keep its own key alive
+    private final WeakReference<WebDriver> driver;
+    private final List<Handler> handlers = new CopyOnWriteArrayList<>();
+    private final Map<Handler, List<Map<String, Object>>> patterns = new LinkedHashMap<>();
+    private List<Map<String, Object>> enabled = Collections.emptyList();
+    
+    private RequestInterception(WebDriver driver) {
+        this.driver = new WeakReference<>(driver);
+    }
+    
+    /**
+     * Get the interception of a session, listening for paused requests on first use
+     * Returns null when the browser does not expose DevTools
+     */
+    public static RequestInterception of(WebDriver driver) {
+        synchronized (SESSIONS) {
+            if (SESSIONS.containsKey(driver)) {
+                return SESSIONS.get(driver);
+            }
+            RequestInterception interception = null;
+            if (DevToolsSession.isSupported(driver)) {
+                try {
+                    interception = new RequestInterception(driver);
+                    RequestInterception target = interception;
+                    DevToolsSession.addListener(driver, "Fetch.requestPaused",
+                            event -> target.paused(new PausedRequest(driver, event)));
+                } catch (RuntimeException e) {
+                    LOG.debug("Request interception unavailable: {}", e.getMessage());
+                    interception = null;
+                }
+            }
+            SESSIONS.put(driver, interception);
+            return interception;
+        }
+    }
+    
+    /**
+     * Add a handler after the existing ones, pausing the requests that match its Fetch request patterns
+     */
+    public void addHandler(Handler handler, List<Map<String, Object>> requestPatterns) {
+        handlers.add(handler);
+        setPatterns(handler, requestPatterns);
+    }
+    
+    /**
+     * Replace the Fetch request patterns of a handler
+     * DevTools is only asked to change what it pauses when the combined patterns of all handlers change
+     */
+    public synchronized void setPatterns(Handler handler, List<Map<String, Object>> requestPatterns) {
+        patterns.put(handler, requestPatterns);
+        Set<Map<String, Object>> combined = new LinkedHashSet<>();
+        patterns.values().forEach(combined::addAll);
+        List<Map<String, Object>> wanted = combined.contains(ALL_REQUESTS.get(0)) ? ALL_REQUESTS
+                : new ArrayList<>(combined);
+        WebDriver session = driver.get();
+        if (session == null || wanted.equals(enabled)) {
+            return;
+        }
+        try {
+            if (wanted.isEmpty()) {
+                DevToolsSession.send(session, "Fetch.disable");
+            } else {
+                DevToolsSession.send(session, "Fetch.enable", Collections.singletonMap("patterns", wanted));
+            }
+            enabled = wanted;
+        } catch (RuntimeException e) {
+            LOG.debug("Request interception unavailable: {}", e.getMessage());
+        }
+    }
+    
+    private void paused(PausedRequest request) {
+        try {
+            for (Handler handler : handlers) {
+                if (handler.handle(request)) {
+                    return;
+                }
+            }
+            request.continueRequest();
+        } catch (RuntimeException e) {
+            // A failing handler or a page that navigated away; a request left paused would stall the page
+            LOG.warn("Failed to answer intercepted request {}: {}", request.getUrl(), e.getMessage());
+            try {
+                request.continueRequest();
+            } catch (RuntimeException ignored) {
+                // Already answered, or the session closed while the request was paused
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.mahadsiddiqui.network;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * A request filtering rule: an action and the selectors a request must all match
+ * Rules are written as "action selector..." and separated by ';', for example
+ * "block type:Image,Media,Font; stub third-party type:Script; short-circuit url:*doubleclick.net*"
+ */
+public class RequestRule {
+    
+    private static final Map<String, String> RESOURCE_TYPES = new LinkedHashMap<>();
+    
+    static {
+        for (String type : List.of("Document", "Stylesheet", "Image", "Media", "Font", "Script", "TextTrack", "XHR",
+                "Fetch", "Prefetch", "EventSource", "WebSocket", "Manifest", "SignedExchange", "Ping",
+                "CSPViolationReport", "Preflight", "Other")) {
+            RESOURCE_TYPES.put(type.toLowerCase(Locale.ROOT), type);
+        }
+    }
+    
+    /**
+     * What happens to a matching request
+     */
+    public enum Action {
+        /**
+         * Fail the request as blocked by the client
+         */
+        BLOCK,
+        /**
+         * Answer with an empty body of the resource's content type, so scripts and styles still load
+         */
+        STUB,
+        /**
+         * Answer with 204 No Content
+         */
+        SHORT_CIRCUIT
+    }
+    
+    private final Action action;
+    private final Set<String> resourceTypes;
+    private final String urlGlob;
+    private final Pattern urlPattern;
+    private final boolean thirdPartyOnly;
+    private final String text;
+    
+    private RequestRule(Action action, Set<String> resourceTypes, String urlGlob, boolean thirdPartyOnly,
+                        String text) {
+        this.action = action;
+        this.resourceTypes = resourceTypes;
+        this.urlGlob = urlGlob;
+        this.urlPattern = urlGlob == null ? null : glob(urlGlob);
+        this.thirdPartyOnly = thirdPartyOnly;
+        this.text = text;
+    }
+    
+    /**
+     * Parse ';'-separated rules; selectors are type:&lt;DevTools resource types&gt;, url:&lt;glob&gt; and third-party
+     */
+    public static List<RequestRule> parseAll(String rules) {
+        List<RequestRule> parsed = new ArrayList<>();
+        if (rules == null) {
+            return parsed;
+        }
+        for (String rule : rules.split(";")) {
+            if (!rule.trim().isEmpty()) {
+                parsed.add(parse(rule.trim()));
+            }
+        }
+        return parsed;
+    }
+    
+    /**
+     * Parse a single rule
+     */
+    public static RequestRule parse(String rule) {
+        String[] parts = rule.trim().split("\\s+");
+        Action action;
+        try {
+            action = Action.valueOf(parts[0].toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown request rule action '" + parts[0] + "' in: " + rule);
+        }
+        Set<String> types = new LinkedHashSet<>();
+        String url = null;
+        boolean thirdParty = false;
+        for (int i = 1; i < parts.length; i++) {
+            String selector = parts[i];
+            if (selector.equalsIgnoreCase("third-party")) {
+                thirdParty = true;
+            } else if (selector.startsWith("type:")) {
+                for (String type : selector.substring("type:".length()).split(",")) {
+                    String key = type.trim().toLowerCase(Locale.ROOT);
+                    if (!RESOURCE_TYPES.containsKey(key)) {
+                        throw new IllegalArgumentException("Unknown resource type '" + type + "' in: " + rule);
+                    }
+                    types.add(key);
+                }
+            } else if (selector.startsWith("url:")) {
+                url = selector.substring("url:".length());
+            } else {
+                throw new IllegalArgumentException("Unknown request rule selector '" + selector + "' in: " + rule);
+            }
+        }
+        if (types.isEmpty() && url == null && !thirdParty) {
+            throw new IllegalArgumentException("Request rule matches every request: " + rule);
+        }
+        return new RequestRule(action, types, url, thirdParty, rule);
+    }
+    
+    /**
+     * Check if a request matches every selector of the rule
+     */
+    public boolean matches(String url, String resourceType, boolean thirdParty) {
+        return (!thirdPartyOnly || thirdParty)
+                && (resourceTypes.isEmpty() || resourceTypes.contains(resourceType.toLowerCase(Locale.ROOT)))
+                && (urlPattern == null || urlPattern.matcher(url).matches());
+    }
+    
+    /**
+     * Get the DevTools Fetch request patterns that cover every request the rule can match
+     * Third-party is decided per request, so such rules pause all requests of their types
+     */
+    public List<Map<String, Object>> getFetchPatterns() {
+        String url = urlGlob == null ? "*" : urlGlob;
+        List<Map<String, Object>> patterns = new ArrayList<>();
+        if (resourceTypes.isEmpty()) {
+            patterns.add(Map.of("urlPattern", url));
+        }
+        for (String type : resourceTypes) {
+            patterns.add(Map.of("urlPattern", url, "resourceType", RESOURCE_TYPES.get(type)));
+        }
+        return patterns;
+    }
+    
+    /**
+     * Get the action for matching requests
+     */
+    public Action getAction() {
+        return action;
+    }
+    
+    private static Pattern glob(String glob) {
+        String[] literals = glob.split("\\*", -1);
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < literals.length; i++) {
+            if (i > 0) {
+                regex.append(".*");
+            }
+            regex.append(Pattern.quote(literals[i]));
+        }
+        return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE);
+    }
+    
+    @Override
+    public String toString() {
+        return text;
+    }
+}
@@ -1,20 +1,49 @@
 package com.mahadsiddiqui.pages;
 
+import com.mahadsiddiqui.artifacts.ArtifactRecorder;
+import com.mahadsiddiqui.artifacts.RecordedStep;
 import com.mahadsiddiqui.config.WebDriverConfig;
+import com.mahadsiddiqui.drivers.StaticDriver;
+import com.mahadsiddiqui.metrics.CommandMetrics;
+import com.mahadsiddiqui.network.RequestFilter;
+import com.mahadsiddiqui.network.RequestRule;
+import com.mahadsiddiqui.performance.PageMetrics;
+import com.mahadsiddiqui.performance.PageMetricsCollector;
+import com.mahadsiddiqui.performance.PerformanceBudget;
+import com.mahadsiddiqui.performance.Throttling;
+import com.mahadsiddiqui.performance.ThrottlingProfile;
+import com.mahadsiddiqui.screenshots.ScreenshotPipeline;
+import com.mahadsiddiqui.trace.TraceSpan;
+import com.mahadsiddiqui.trace.Tracer;
+import com.mahadsiddiqui.video.ScreencastRecorder;
+import com.mahadsiddiqui.visual.VisualCheck;
+import com.mahadsiddiqui.visual.VisualDiffResult;
+import com.mahadsiddiqui.waits.DomEventWait;
+import com.mahadsiddiqui.waits.ElementProbe;
+import com.mahadsiddiqui.waits.ImplicitWait;
+import com.mahadsiddiqui.waits.PageReadiness;
+import com.mahadsiddiqui.waits.ReadinessReport;
+import com.mahadsiddiqui.waits.ReadinessSignal;
 import org.openqa.selenium.*;
+import org.openqa.selenium.support.ui.ExpectedCondition;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 import org.openqa.selenium.support.ui.Select;
-import ru.yandex.qatools.ashot.AShot;
-import ru.yandex.qatools.ashot.Screenshot;
-import ru.yandex.qatools.ashot.shooting.ShootingStrategies;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import javax.imageio.ImageIO;
-import java.io.File;
-import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Base page class containing common web element interactions
@@ -22,19 +51,89 @@ import java.util.Set;
  */
 public class BasePage {
     
+    private static final Logger LOG = LoggerFactory.getLogger(BasePage.class);
+    private static final String WAIT_VISIBLE = "wait.visible";
+    private static final String WAIT_CLICKABLE = "wait.clickable";
+    private static final String WAIT_PRESENT = "wait.present";
+    private static final String WAIT_PAGE_READY = "wait.pageReady";
+    private static final String PROBE_DISPLAYED = "probe.displayed";
+    private static final StackWalker STACK = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+    
     protected WebDriver driver;
     protected WebDriverWait wait;
+    protected ElementProbe probe;
+    protected DomEventWait eventWait;
+    protected PageReadiness readiness;
+    private DomSnapshot snapshot;
+    private final ElementCache elementCache = new ElementCache();
+    private final boolean elementCacheEnabled = Boolean.parseBoolean(
+            WebDriverConfig.getProperty("element.cache.enabled", "true"));
+    private String windowContext = "";
+    private final List<String> framePath = new ArrayList<>();
+    private final ArtifactRecorder recorder;
+    private final boolean staticMode;
     
     public BasePage(WebDriver driver) {
         this.driver = driver;
+        this.staticMode = driver instanceof StaticDriver;
         this.wait = new WebDriverWait(driver, Duration.ofSeconds(WebDriverConfig.getExplicitWaitTimeout()));
+        this.probe = new ElementProbe(driver, WebDriverConfig.getProbeSettleMillis());
+        this.eventWait = !staticMode
+                && "mutation".equalsIgnoreCase(WebDriverConfig.getProperty("wait.engine", "polling"))
+                ? new DomEventWait(driver) : null;
+        this.readiness = staticMode ? null : new PageReadiness(driver, WebDriverConfig.getPageReadySignals(),
+                Long.parseLong(WebDriverConfig.getProperty("page.ready.network.idle.ms", "500")),
+                Integer.parseInt(WebDriverConfig.getProperty("page.ready.network.max.inflight", "2")),
+                Long.parseLong(WebDriverConfig.getProperty("page.ready.dom.stable.ms", "300")));
+        this.recorder = !staticMode
+                && Boolean.parseBoolean(WebDriverConfig.getProperty("artifacts.enabled", "true"))
+                ? ArtifactRecorder.of(driver) : null;
+        if (staticMode) {
+            // Served HTML has no scripts, traffic or rendering to record, throttle, measure or filter
+            return;
+        }
+        if (WebDriverConfig.getBooleanProperty("video.recording")) {
+            ScreencastRecorder.of(driver);
+        }
+        // Before navigation, and again for pooled sessions a previous test may have throttled differently
+        applyThrottling(getThrottlingProfileName());
+        if (Boolean.parseBoolean(WebDriverConfig.getProperty("page.metrics.enabled", "true"))) {
+            // Observers must be in place before navigation to see the whole page load
+            PageMetricsCollector.of(driver);
+        }
+        RequestFilter filter = RequestFilter.find(driver);
+        if (filter != null) {
+            // Rules of the page object in use add to the suite rules, replacing those of the previous page object
+            filter.setPageRules(RequestRule.parseAll(
+                    WebDriverConfig.getProperty("network.filter." + getClass().getSimpleName() + ".rules")));
+        }
+    }
+    
+    /**
+     * Check if this page object runs on a static session, reading pages as served without a browser
+     */
+    public boolean isStaticMode() {
+        return staticMode;
+    }
+    
+    /**
+     * Fail fast for helpers a static session cannot serve
+     */
+    private void requireBrowser(String action) {
+        if (staticMode) {
+            throw new UnsupportedOperationException(action + " needs a browser; " + getClass().getSimpleName()
+                    + " runs on a static session");
+        }
     }
     
     /**
      * Navigate to a specific URL
      */
     public void navigateTo(String url) {
-        driver.get(url);
+        try (ActionScope scope = beforeAction(() -> "navigateTo " + url)) {
+            elementCache.clear();
+            driver.get(url);
+        }
     }
     
     /**
@@ -55,167 +154,445 @@ public class BasePage {
      * Wait for element to be visible
      */
     public WebElement waitForElementVisible(By locator) {
-        return wait.until(ExpectedConditions.visibilityOfElementLocated(locator));
+        return waitFor(locator, DomEventWait.Condition.VISIBLE,
+                ExpectedConditions.visibilityOfElementLocated(locator));
     }
     
     /**
      * Wait for element to be clickable
      */
     public WebElement waitForElementClickable(By locator) {
-        return wait.until(ExpectedConditions.elementToBeClickable(locator));
+        return waitFor(locator, DomEventWait.Condition.CLICKABLE,
+                ExpectedConditions.elementToBeClickable(locator));
     }
     
     /**
      * Wait for element to be present
      */
     public WebElement waitForElementPresent(By locator) {
-        return wait.until(ExpectedConditions.presenceOfElementLocated(locator));
+        return waitFor(locator, DomEventWait.Condition.PRESENT,
+                ExpectedConditions.presenceOfElementLocated(locator));
+    }
+    
+    /**
+     * Wait with the event-driven engine when enabled, falling back to ExpectedConditions polling
+     */
+    private WebElement waitFor(By locator, DomEventWait.Condition condition, ExpectedCondition<WebElement> fallback) {
+        long start = System.nanoTime();
+        try (TraceSpan span = span(() -> waitMetric(condition) + " " + locator, "wait")) {
+            if (staticMode) {
+                return checkOnce(fallback);
+            }
+            if (eventWait != null) {
+                try {
+                    return eventWait.until(locator, condition,
+                            Duration.ofSeconds(WebDriverConfig.getExplicitWaitTimeout()));
+                } catch (JavascriptException | UnsupportedCommandException | ScriptTimeoutException
+                        | IllegalArgumentException e) {
+                    // Page navigated mid-wait, scripts are unavailable or cut short, or the locator has no
+                    // single strategy the wait script understands
+                    DomEventWait.recordFallback();
+                }
+            }
+            // Each poll would otherwise block for the implicit wait of the session
+            try (ImplicitWait.Scope ignored = suspendImplicitWait()) {
+                return wait.until(fallback);
+            }
+        } finally {
+            CommandMetrics.record(waitMetric(condition), System.nanoTime() - start);
+        }
+    }
+    
+    /**
+     * Disable the implicit wait for the duration of a page object call, leaving it in place for test code
+     */
+    private ImplicitWait.Scope suspendImplicitWait() {
+        return staticMode ? ImplicitWait.Scope.NONE : ImplicitWait.suspend(driver);
+    }
+    
+    /**
+     * Served HTML never changes, so a static session checks the condition once instead of polling
+     */
+    private WebElement checkOnce(ExpectedCondition<WebElement> condition) {
+        try {
+            WebElement element = condition.apply(driver);
+            if (element != null) {
+                return element;
+            }
+        } catch (NoSuchElementException e) {
+            // Reported as the timeout a browser wait would have ended in
+        }
+        throw new TimeoutException("Expected condition failed on served HTML: " + condition);
+    }
+    
+    private static String waitMetric(DomEventWait.Condition condition) {
+        switch (condition) {
+            case VISIBLE:
+                return WAIT_VISIBLE;
+            case CLICKABLE:
+                return WAIT_CLICKABLE;
+            default:
+                return WAIT_PRESENT;
+        }
+    }
+    
+    /**
+     * Resolve an element through its wait and remember it for this locator and context
+     */
+    private WebElement resolve(By locator, DomEventWait.Condition condition) {
+        WebElement element = condition == DomEventWait.Condition.CLICKABLE
+                ? waitForElementClickable(locator) : waitForElementVisible(locator);
+        if (isCacheable(condition)) {
+            elementCache.put(contextKey(), locator, element);
+        }
+        return element;
+    }
+    
+    /**
+     * Clicking a disabled element fails silently, so clickable lookups always go through their wait
+     */
+    private boolean isCacheable(DomEventWait.Condition condition) {
+        return elementCacheEnabled && condition != DomEventWait.Condition.CLICKABLE;
+    }
+    
+    /**
+     * Read from an element, trusting a cached reference without a browser round trip
+     * The read itself checks it: a reference that went stale or hidden fails, or reads as empty text,
+     * and is re-resolved through the wait
+     */
+    private <T> T readElement(By locator, DomEventWait.Condition condition, Function<WebElement, T> reader) {
+        WebElement cached = isCacheable(condition) ? elementCache.get(contextKey(), locator) : null;
+        if (cached != null) {
+            try {
+                T value = reader.apply(cached);
+                if (!"".equals(value)) {
+                    elementCache.recordHit();
+                    return value;
+                }
+            } catch (StaleElementReferenceException | ElementNotInteractableException e) {
+                // Replaced, detached or hidden since it was cached
+            }
+            elementCache.markStale(contextKey(), locator);
+        }
+        return reader.apply(resolve(locator, condition));
+    }
+    
+    /**
+     * Act on an element, re-resolving it once if the cached reference went stale
+     */
+    private void useElement(By locator, DomEventWait.Condition condition, Consumer<WebElement> action) {
+        readElement(locator, condition, element -> {
+            action.accept(element);
+            return null;
+        });
+    }
+    
+    private String contextKey() {
+        return windowContext + "/" + String.join("/", framePath);
+    }
+    
+    /**
+     * Get the element reference cache of this page
+     */
+    public ElementCache getElementCache() {
+        return elementCache;
     }
     
     /**
      * Click on element
      */
     public void click(By locator) {
-        WebElement element = waitForElementClickable(locator);
-        element.click();
+        try (ActionScope scope = beforeAction(() -> "click " + locator)) {
+            useElement(locator, DomEventWait.Condition.CLICKABLE, WebElement::click);
+        }
     }
     
     /**
      * Click on element with JavaScript
      */
     public void clickWithJS(By locator) {
-        WebElement element = waitForElementVisible(locator);
-        JavascriptExecutor js = (JavascriptExecutor) driver;
-        js.executeScript("arguments[0].click();", element);
+        try (ActionScope scope = beforeAction(() -> "clickWithJS " + locator)) {
+            requireBrowser("clickWithJS");
+            JavascriptExecutor js = (JavascriptExecutor) driver;
+            useElement(locator, DomEventWait.Condition.VISIBLE,
+                    element -> js.executeScript("arguments[0].click();", element));
+        }
     }
     
     /**
      * Send text to input field
      */
     public void sendKeys(By locator, String text) {
-        WebElement element = waitForElementVisible(locator);
-        element.clear();
-        element.sendKeys(text);
+        try (ActionScope scope = beforeAction(() -> "sendKeys " + locator)) {
+            useElement(locator, DomEventWait.Condition.VISIBLE, element -> {
+                element.clear();
+                element.sendKeys(text);
+            });
+        }
     }
     
     /**
      * Get text from element
      */
     public String getText(By locator) {
-        WebElement element = waitForElementVisible(locator);
-        return element.getText();
+        try (TraceSpan span = span(() -> "getText " + locator, "page")) {
+            return readElement(locator, DomEventWait.Condition.VISIBLE, WebElement::getText);
+        }
     }
     
     /**
      * Get attribute value from element
      */
     public String getAttribute(By locator, String attributeName) {
-        WebElement element = waitForElementVisible(locator);
-        return element.getAttribute(attributeName);
+        try (TraceSpan span = span(() -> "getAttribute " + locator + " " + attributeName, "page")) {
+            return readElement(locator, DomEventWait.Condition.VISIBLE,
+                    element -> element.getAttribute(attributeName));
+        }
     }
     
     /**
-     * Check if element is displayed
+     * Check if element is displayed, allowing the page the probe budget to settle
      */
     public boolean isElementDisplayed(By locator) {
+        return isElementDisplayedWithin(locator, Duration.ofMillis(WebDriverConfig.getProbeTimeoutMillis()));
+    }
+    
+    /**
+     * Check if element is displayed within a custom budget
+     */
+    public boolean isElementDisplayedWithin(By locator, Duration budget) {
+        try (TraceSpan span = span(() -> "isElementDisplayed " + locator, "page")) {
+            long start = System.nanoTime();
+            try {
+                // A static page cannot settle any further
+                return staticMode ? isElementDisplayedNow(locator) : probe.isDisplayedWithin(locator, budget);
+            } finally {
+                CommandMetrics.record(PROBE_DISPLAYED, System.nanoTime() - start);
+            }
+        }
+    }
+    
+    /**
+     * Check if element is displayed right now, without waiting
+     */
+    public boolean isElementDisplayedNow(By locator) {
+        if (staticMode) {
+            return driver.findElements(locator).stream().anyMatch(WebElement::isDisplayed);
+        }
+        return probe.isDisplayedNow(locator);
+    }
+    
+    /**
+     * Check if element is in the DOM right now, without waiting
+     */
+    public boolean isElementPresentNow(By locator) {
+        return staticMode ? !driver.findElements(locator).isEmpty() : probe.isPresentNow(locator);
+    }
+    
+    /**
+     * Get a snapshot of the rendered DOM, capturing it if there is no current one
+     * Mutating actions in this class discard the snapshot; it also expires after snapshot.max.age.ms
+     */
+    public DomSnapshot getSnapshot() {
+        long maxAge = Long.parseLong(WebDriverConfig.getProperty("snapshot.max.age.ms", "0"));
+        if (snapshot == null || (maxAge > 0 && snapshot.getAgeMillis() > maxAge)) {
+            snapshot = DomSnapshot.capture(driver);
+        }
+        return snapshot;
+    }
+    
+    private ActionScope beforeAction(String action) {
+        return beforeAction(() -> action);
+    }
+    
+    /**
+     * Note a page action in the artifact trail and drop state it may change
+     * The name is only built when a trace or artifact trail records it
+     */
+    private ActionScope beforeAction(Supplier<String> action) {
+        TraceSpan span = span(action, "page");
+        invalidateSnapshot();
+        return new ActionScope(span, recorder != null ? recorder.step(action.get()) : null);
+    }
+    
+    private TraceSpan span(String name, String category) {
+        return span(() -> name, category);
+    }
+    
+    /**
+     * Open a trace span for a page helper, attributing it to the page object method that called it
+     * The name is only built when a trace is being recorded
+     */
+    private TraceSpan span(Supplier<String> name, String category) {
+        if (!Tracer.isActive()) {
+            return TraceSpan.NONE;
+        }
+        if (Tracer.depth() == 0) {
+            // Only outermost helpers start a page object method; nested ones belong to it already
+            Tracer.enterPageMethod(STACK.walk(frames -> frames
+                    .filter(frame -> frame.getDeclaringClass() != BasePage.class
+                            && BasePage.class.isAssignableFrom(frame.getDeclaringClass()))
+                    .map(frame -> frame.getDeclaringClass().getSimpleName() + "." + frame.getMethodName())
+                    .findFirst()
+                    .orElse(null)));
+        }
+        return Tracer.span(name.get(), category);
+    }
+    
+    /**
+     * Discard the current DOM snapshot so the next read captures a fresh one
+     */
+    public void invalidateSnapshot() {
+        snapshot = null;
+    }
+    
+    /**
+     * Get text from the DOM snapshot, falling back to a live lookup if the snapshot has no text for it
+     * A snapshot taken before the element rendered has no match or an empty one
+     */
+    public String getTextFromSnapshot(By locator) {
         try {
-            WebElement element = waitForElementVisible(locator);
-            return element.isDisplayed();
-        } catch (TimeoutException e) {
-            return false;
+            String text = getSnapshot().getText(locator);
+            if (text != null && !text.isEmpty()) {
+                return text;
+            }
+        } catch (UnsupportedOperationException e) {
+            // Locator cannot be evaluated locally
         }
+        return getText(locator);
+    }
+    
+    /**
+     * Get number of matching elements from the DOM snapshot, falling back to a live lookup if none match
+     */
+    public int getElementCountFromSnapshot(By locator) {
+        try {
+            int count = getSnapshot().count(locator);
+            if (count > 0) {
+                return count;
+            }
+        } catch (UnsupportedOperationException e) {
+            // Locator cannot be evaluated locally
+        }
+        try (ImplicitWait.Scope ignored = suspendImplicitWait()) {
+            return driver.findElements(locator).size();
+        }
+    }
+    
+    /**
+     * Start a batched query that resolves many locators in one round trip
+     */
+    public ElementQuery query() {
+        return new ElementQuery(driver);
     }
     
     /**
      * Check if element is enabled
      */
     public boolean isElementEnabled(By locator) {
-        WebElement element = waitForElementVisible(locator);
-        return element.isEnabled();
+        try (TraceSpan span = span(() -> "isElementEnabled " + locator, "page")) {
+            return readElement(locator, DomEventWait.Condition.VISIBLE, WebElement::isEnabled);
+        }
     }
     
     /**
      * Check if element is selected
      */
     public boolean isElementSelected(By locator) {
-        WebElement element = waitForElementVisible(locator);
-        return element.isSelected();
+        try (TraceSpan span = span(() -> "isElementSelected " + locator, "page")) {
+            return readElement(locator, DomEventWait.Condition.VISIBLE, WebElement::isSelected);
+        }
     }
     
     /**
      * Select option from dropdown by visible text
      */
     public void selectByVisibleText(By locator, String visibleText) {
-        WebElement element = waitForElementVisible(locator);
-        Select select = new Select(element);
-        select.selectByVisibleText(visibleText);
+        try (ActionScope scope = beforeAction(() -> "selectByVisibleText " + locator + " " + visibleText)) {
+            useElement(locator, DomEventWait.Condition.VISIBLE,
+                    element -> new Select(element).selectByVisibleText(visibleText));
+        }
     }
     
     /**
      * Select option from dropdown by value
      */
     public void selectByValue(By locator, String value) {
-        WebElement element = waitForElementVisible(locator);
-        Select select = new Select(element);
-        select.selectByValue(value);
+        try (ActionScope scope = beforeAction(() -> "selectByValue " + locator + " " + value)) {
+            useElement(locator, DomEventWait.Condition.VISIBLE, element -> new Select(element).selectByValue(value));
+        }
     }
     
     /**
      * Select option from dropdown by index
      */
     public void selectByIndex(By locator, int index) {
-        WebElement element = waitForElementVisible(locator);
-        Select select = new Select(element);
-        select.selectByIndex(index);
+        try (ActionScope scope = beforeAction(() -> "selectByIndex " + locator + " " + index)) {
+            useElement(locator, DomEventWait.Condition.VISIBLE, element -> new Select(element).selectByIndex(index));
+        }
     }
     
     /**
      * Get all options from dropdown
      */
     public List<WebElement> getDropdownOptions(By locator) {
-        WebElement element = waitForElementVisible(locator);
-        Select select = new Select(element);
-        return select.getOptions();
+        try (TraceSpan span = span(() -> "getDropdownOptions " + locator, "page")) {
+            return readElement(locator, DomEventWait.Condition.VISIBLE, element -> new Select(element).getOptions());
+        }
     }
     
     /**
      * Switch to frame by index
      */
     public void switchToFrame(int index) {
-        driver.switchTo().frame(index);
+        try (ActionScope scope = beforeAction(() -> "switchToFrame " + index)) {
+            driver.switchTo().frame(index);
+            framePath.add("#" + index);
+        }
     }
     
     /**
      * Switch to frame by name or ID
      */
     public void switchToFrame(String nameOrId) {
-        driver.switchTo().frame(nameOrId);
+        try (ActionScope scope = beforeAction(() -> "switchToFrame " + nameOrId)) {
+            driver.switchTo().frame(nameOrId);
+            framePath.add(nameOrId);
+        }
     }
     
     /**
      * Switch to frame by element
      */
     public void switchToFrame(By locator) {
-        WebElement frameElement = waitForElementVisible(locator);
-        driver.switchTo().frame(frameElement);
+        try (ActionScope scope = beforeAction(() -> "switchToFrame " + locator)) {
+            useElement(locator, DomEventWait.Condition.VISIBLE, frameElement -> driver.switchTo().frame(frameElement));
+            framePath.add(locator.toString());
+        }
     }
     
     /**
      * Switch back to default content
      */
     public void switchToDefaultContent() {
-        driver.switchTo().defaultContent();
+        try (ActionScope scope = beforeAction("switchToDefaultContent")) {
+            driver.switchTo().defaultContent();
+            framePath.clear();
+        }
     }
     
     /**
      * Switch to new window/tab
      */
     public void switchToNewWindow() {
-        Set<String> windowHandles = driver.getWindowHandles();
-        for (String windowHandle : windowHandles) {
-            if (!windowHandle.equals(driver.getWindowHandle())) {
-                driver.switchTo().window(windowHandle);
-                break;
+        try (ActionScope scope = beforeAction("switchToNewWindow")) {
+            Set<String> windowHandles = driver.getWindowHandles();
+            for (String windowHandle : windowHandles) {
+                if (!windowHandle.equals(driver.getWindowHandle())) {
+                    driver.switchTo().window(windowHandle);
+                    switchedToWindow(windowHandle);
+                    break;
+                }
             }
         }
     }
@@ -224,11 +601,14 @@ public class BasePage {
      * Switch to specific window by title
      */
     public void switchToWindowByTitle(String title) {
-        Set<String> windowHandles = driver.getWindowHandles();
-        for (String windowHandle : windowHandles) {
-            driver.switchTo().window(windowHandle);
-            if (driver.getTitle().equals(title)) {
-                break;
+        try (ActionScope scope = beforeAction(() -> "switchToWindowByTitle " + title)) {
+            Set<String> windowHandles = driver.getWindowHandles();
+            for (String windowHandle : windowHandles) {
+                driver.switchTo().window(windowHandle);
+                switchedToWindow(windowHandle);
+                if (driver.getTitle().equals(title)) {
+                    break;
+                }
             }
         }
     }
@@ -237,78 +617,183 @@ public class BasePage {
      * Close current window and switch to parent
      */
     public void closeCurrentWindow() {
-        driver.close();
-        Set<String> windowHandles = driver.getWindowHandles();
-        if (!windowHandles.isEmpty()) {
-            driver.switchTo().window(windowHandles.iterator().next());
+        try (ActionScope scope = beforeAction("closeCurrentWindow")) {
+            driver.close();
+            Set<String> windowHandles = driver.getWindowHandles();
+            if (!windowHandles.isEmpty()) {
+                String windowHandle = windowHandles.iterator().next();
+                driver.switchTo().window(windowHandle);
+                switchedToWindow(windowHandle);
+            }
         }
     }
     
+    private void switchedToWindow(String windowHandle) {
+        windowContext = windowHandle;
+        framePath.clear();
+    }
+    
     /**
      * Scroll to element
      */
     public void scrollToElement(By locator) {
-        WebElement element = waitForElementVisible(locator);
-        JavascriptExecutor js = (JavascriptExecutor) driver;
-        js.executeScript("arguments[0].scrollIntoView(true);", element);
+        try (ActionScope scope = beforeAction(() -> "scrollToElement " + locator)) {
+            requireBrowser("scrollToElement");
+            JavascriptExecutor js = (JavascriptExecutor) driver;
+            useElement(locator, DomEventWait.Condition.VISIBLE,
+                    element -> js.executeScript("arguments[0].scrollIntoView(true);", element));
+        }
     }
     
     /**
      * Scroll to top of page
      */
     public void scrollToTop() {
-        JavascriptExecutor js = (JavascriptExecutor) driver;
-        js.executeScript("window.scrollTo(0, 0);");
+        try (ActionScope scope = beforeAction("scrollToTop")) {
+            requireBrowser("scrollToTop");
+            JavascriptExecutor js = (JavascriptExecutor) driver;
+            js.executeScript("window.scrollTo(0, 0);");
+        }
     }
     
     /**
      * Scroll to bottom of page
      */
     public void scrollToBottom() {
-        JavascriptExecutor js = (JavascriptExecutor) driver;
-        js.executeScript("window.scrollTo(0, document.body.scrollHeight);");
+        try (ActionScope scope = beforeAction("scrollToBottom")) {
+            requireBrowser("scrollToBottom");
+            JavascriptExecutor js = (JavascriptExecutor) driver;
+            js.executeScript("window.scrollTo(0, document.body.scrollHeight);");
+        }
     }
     
     /**
-     * Wait for page to load
+     * Wait for page to be ready according to the configured readiness strategies
      */
-    public void waitForPageLoad() {
-        JavascriptExecutor js = (JavascriptExecutor) driver;
-        js.executeScript("return document.readyState").equals("complete");
+    public ReadinessReport waitForPageLoad() {
+        if (staticMode) {
+            // The page was complete when the response was
+            return new ReadinessReport(new EnumMap<>(ReadinessSignal.class), true, 0);
+        }
+        Duration timeout = Duration.ofSeconds(WebDriverConfig.getIntProperty("page.load.timeout"));
+        long start = System.nanoTime();
+        ReadinessReport report;
+        try (TraceSpan span = span(WAIT_PAGE_READY, "wait")) {
+            report = readiness.await(timeout);
+        }
+        CommandMetrics.record(WAIT_PAGE_READY, System.nanoTime() - start);
+        if (!report.isReady()) {
+            LOG.warn("Page not ready after timeout: {}", report);
+        }
+        return report;
     }
     
     /**
-     * Take screenshot
+     * Collect Navigation Timing, Resource Timing, Web Vitals and DevTools metrics of the current page
+     * The metrics are also attached to the running test's result
      */
-    public void takeScreenshot(String fileName) {
-        try {
-            Screenshot screenshot = new AShot()
-                    .shootingStrategy(ShootingStrategies.viewportPasting(1000))
-                    .takeScreenshot(driver);
-            
-            File destFile = new File(WebDriverConfig.getProperty("screenshot.path", "screenshots/") + fileName + ".png");
-            ImageIO.write(screenshot.getImage(), "PNG", destFile);
-        } catch (IOException e) {
-            System.err.println("Failed to take screenshot: " + e.getMessage());
+    public PageMetrics collectPageMetrics() {
+        try (TraceSpan span = span("collectPageMetrics", "page")) {
+            requireBrowser("collectPageMetrics");
+            if (recorder != null) {
+                // A page state capture still running would be counted in the page's runtime metrics
+                recorder.awaitCaptures();
+            }
+            return PageMetricsCollector.of(driver).collect(driver, getClass().getSimpleName());
+        }
+    }
+    
+    /**
+     * Get the performance budget of this page object; page objects override it to declare their limits
+     */
+    protected PerformanceBudget getPerformanceBudget() {
+        return PerformanceBudget.none();
+    }
+    
+    /**
+     * Get the performance budget under a throttling profile; page objects override it to declare limits
+     * for throttled loads, which otherwise are not checked
+     */
+    protected PerformanceBudget getPerformanceBudget(String profile) {
+        return ThrottlingProfile.NONE.getName().equals(profile) ? getPerformanceBudget() : PerformanceBudget.none();
+    }
+    
+    /**
+     * Check page metrics against this page object's budget for the profile they were measured under,
+     * returning one message per exceeded limit
+     */
+    public List<String> checkPerformanceBudget(PageMetrics metrics) {
+        return getPerformanceBudget(metrics.getProfile()).check(metrics);
+    }
+    
+    /**
+     * Get the throttling profile this page object applies when created; page objects may override it
+     * to always load under fixed conditions
+     */
+    protected String getThrottlingProfileName() {
+        return WebDriverConfig.getThrottlingProfileName();
+    }
+    
+    /**
+     * Emulate a throttling profile, e.g. slow-3g, fast-4g, cpu-4x or fast-4g+cpu-4x, from the next request on
+     * Returns false if the browser cannot emulate it
+     */
+    public boolean applyThrottling(String profileName) {
+        return Throttling.apply(driver, WebDriverConfig.getThrottlingProfile(profileName));
+    }
+    
+    /**
+     * Take screenshot; the returned future completes with its location once written
+     * That is the artifact store key when artifacts.store.enabled is set, otherwise the file path
+     */
+    public CompletableFuture<String> takeScreenshot(String fileName) {
+        requireBrowser("takeScreenshot");
+        boolean fullPage = Boolean.parseBoolean(WebDriverConfig.getProperty("screenshot.full.page", "true"));
+        ScreenshotPipeline pipeline = WebDriverConfig.getScreenshotPipeline();
+        CompletableFuture<String> location;
+        if (WebDriverConfig.getBooleanProperty("artifacts.store.enabled")) {
+            location = pipeline.capture(driver, fullPage, WebDriverConfig.getArtifactStore(),
+                    WebDriverConfig.getRunId(), fileName + ".png");
+        } else {
+            Path destination = Paths.get(WebDriverConfig.getProperty("screenshot.path", "screenshots/"),
+                    fileName + ".png");
+            location = pipeline.capture(driver, fullPage, destination).thenApply(Path::toString);
         }
+        return location.whenComplete((stored, error) -> {
+            if (error != null) {
+                LOG.warn("Failed to take screenshot: {}", error.getMessage());
+            }
+        });
+    }
+    
+    /**
+     * Compare the page with its visual baseline for this page object, browser and viewport
+     */
+    public VisualDiffResult checkVisual(String name, By... ignoredElements) {
+        requireBrowser("checkVisual");
+        return VisualCheck.check(driver, getClass().getSimpleName(), name, Arrays.asList(ignoredElements));
     }
     
     /**
      * Wait for alert and accept it
      */
     public void acceptAlert() {
-        wait.until(ExpectedConditions.alertIsPresent());
-        Alert alert = driver.switchTo().alert();
-        alert.accept();
+        try (ActionScope scope = beforeAction("acceptAlert")) {
+            wait.until(ExpectedConditions.alertIsPresent());
+            Alert alert = driver.switchTo().alert();
+            alert.accept();
+        }
     }
     
     /**
      * Wait for alert and dismiss it
      */
     public void dismissAlert() {
-        wait.until(ExpectedConditions.alertIsPresent());
-        Alert alert = driver.switchTo().alert();
-        alert.dismiss();
+        try (ActionScope scope = beforeAction("dismissAlert")) {
+            wait.until(ExpectedConditions.alertIsPresent());
+            Alert alert = driver.switchTo().alert();
+            alert.dismiss();
+        }
     }
     
     /**
@@ -324,45 +809,78 @@ public class BasePage {
      * Send text to alert
      */
     public void sendKeysToAlert(String text) {
-        wait.until(ExpectedConditions.alertIsPresent());
-        Alert alert = driver.switchTo().alert();
-        alert.sendKeys(text);
+        try (ActionScope scope = beforeAction("sendKeysToAlert")) {
+            wait.until(ExpectedConditions.alertIsPresent());
+            Alert alert = driver.switchTo().alert();
+            alert.sendKeys(text);
+        }
     }
     
     /**
      * Double click on element
      */
     public void doubleClick(By locator) {
-        WebElement element = waitForElementVisible(locator);
-        org.openqa.selenium.interactions.Actions actions = new org.openqa.selenium.interactions.Actions(driver);
-        actions.doubleClick(element).perform();
+        try (ActionScope scope = beforeAction(() -> "doubleClick " + locator)) {
+            requireBrowser("doubleClick");
+            org.openqa.selenium.interactions.Actions actions = new org.openqa.selenium.interactions.Actions(driver);
+            useElement(locator, DomEventWait.Condition.VISIBLE, element -> actions.doubleClick(element).perform());
+        }
     }
     
     /**
      * Right click on element
      */
     public void rightClick(By locator) {
-        WebElement element = waitForElementVisible(locator);
-        org.openqa.selenium.interactions.Actions actions = new org.openqa.selenium.interactions.Actions(driver);
-        actions.contextClick(element).perform();
+        try (ActionScope scope = beforeAction(() -> "rightClick " + locator)) {
+            requireBrowser("rightClick");
+            org.openqa.selenium.interactions.Actions actions = new org.openqa.selenium.interactions.Actions(driver);
+            useElement(locator, DomEventWait.Condition.VISIBLE, element -> actions.contextClick(element).perform());
+        }
     }
     
     /**
      * Hover over element
      */
     public void hoverOverElement(By locator) {
-        WebElement element = waitForElementVisible(locator);
-        org.openqa.selenium.interactions.Actions actions = new org.openqa.selenium.interactions.Actions(driver);
-        actions.moveToElement(element).perform();
+        try (ActionScope scope = beforeAction(() -> "hoverOverElement " + locator)) {
+            requireBrowser("hoverOverElement");
+            org.openqa.selenium.interactions.Actions actions = new org.openqa.selenium.interactions.Actions(driver);
+            useElement(locator, DomEventWait.Condition.VISIBLE, element -> actions.moveToElement(element).perform());
+        }
     }
     
     /**
      * Drag and drop element
      */
     public void dragAndDrop(By sourceLocator, By targetLocator) {
-        WebElement source = waitForElementVisible(sourceLocator);
-        WebElement target = waitForElementVisible(targetLocator);
-        org.openqa.selenium.interactions.Actions actions = new org.openqa.selenium.interactions.Actions(driver);
-        actions.dragAndDrop(source, target).perform();
+        try (ActionScope scope = beforeAction(() -> "dragAndDrop " + sourceLocator + " " + targetLocator)) {
+            requireBrowser("dragAndDrop");
+            WebElement target = resolve(targetLocator, DomEventWait.Condition.VISIBLE);
+            org.openqa.selenium.interactions.Actions actions = new org.openqa.selenium.interactions.Actions(driver);
+            useElement(sourceLocator, DomEventWait.Condition.VISIBLE,
+                    source -> actions.dragAndDrop(source, target).perform());
+        }
+    }
+    
+    /**
+     * Open page action: closes its trace span and captures the page state the action left for the artifact trail
+     */
+    private final class ActionScope implements AutoCloseable {
+        
+        private final TraceSpan span;
+        private final RecordedStep step;
+        
+        private ActionScope(TraceSpan span, RecordedStep step) {
+            this.span = span;
+            this.step = step;
+        }
+        
+        @Override
+        public void close() {
+            if (step != null) {
+                recorder.captureAfter(step);
+            }
+            span.close();
+        }
     }
 }
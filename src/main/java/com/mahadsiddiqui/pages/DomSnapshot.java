@@ -0,0 +1,280 @@
+package com.mahadsiddiqui.pages;
+
+import com.mahadsiddiqui.drivers.StaticDriver;
+import com.mahadsiddiqui.utils.DomScripts;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.select.Elements;
+import org.jsoup.select.NodeFilter;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.Selector;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Read-only copy of the rendered DOM, parsed into the JVM
+ * Captured with one browser command; locators are then evaluated locally as often as needed
+ */
+public class DomSnapshot {
+    
+    /**
+     * Attribute the capture script puts on every element: 1 if it is rendered visibly, 0 otherwise
+     */
+    public static final String VISIBLE_ATTRIBUTE = "data-wta-visible";
+    
+    private static final String CAPTURE_SCRIPT =
+            "var root = document.documentElement, clone = root.cloneNode(true);"
+            + "var originals = [root].concat(Array.prototype.slice.call(root.querySelectorAll('*')));"
+            + "var copies = [clone].concat(Array.prototype.slice.call(clone.querySelectorAll('*')));"
+            + "var hiddenBranch = new Map();"
+            + "for (var i = 0; i < originals.length && i < copies.length; i++) {"
+            + "  var el = originals[i], style = window.getComputedStyle(el);"
+            + "  var hidden = (el.parentElement && hiddenBranch.get(el.parentElement)) === true"
+            + "      || style.display === 'none' || style.opacity === '0';"
+            + "  hiddenBranch.set(el, hidden);"
+            + "  var rect = el.getBoundingClientRect();"
+            + "  var visible = !hidden && style.visibility !== 'hidden' && style.visibility !== 'collapse'"
+            + "      && rect.width > 0 && rect.height > 0;"
+            + "  copies[i].setAttribute('" + VISIBLE_ATTRIBUTE + "', visible ? '1' : '0');"
+            + "  if ('value' in el && typeof el.value === 'string') { copies[i].setAttribute('value', el.value); }"
+            + "}"
+            + "Array.prototype.forEach.call(clone.querySelectorAll('script, style, noscript, template'),"
+            + "    function (node) { node.textContent = ''; });"
+            + "return '<!DOCTYPE html>' + clone.outerHTML;";
+    
+    private static final Set<String> NEVER_RENDERED = Set.of("head", "script", "style", "template", "noscript");
+    private static final Pattern HIDDEN_STYLE =
+            Pattern.compile("(^|;)\\s*(display\\s*:\\s*none|visibility\\s*:\\s*hidden)");
+    
+    private final Document document;
+    private final long capturedAtNanos;
+    
+    private DomSnapshot(Document document) {
+        this.document = document;
+        this.capturedAtNanos = System.nanoTime();
+    }
+    
+    /**
+     * Capture the current page of a session; a static session hands out the page it parsed
+     */
+    public static DomSnapshot capture(WebDriver driver) {
+        if (driver instanceof StaticDriver) {
+            return ((StaticDriver) driver).getSnapshot();
+        }
+        String html = (String) ((JavascriptExecutor) driver).executeScript(CAPTURE_SCRIPT);
+        return parse(html, driver.getCurrentUrl());
+    }
+    
+    /**
+     * Build a snapshot from serialized HTML; elements without visibility marks count as visible
+     */
+    public static DomSnapshot parse(String html, String baseUri) {
+        return new DomSnapshot(Jsoup.parse(html, baseUri));
+    }
+    
+    /**
+     * Build a snapshot from HTML as served, before any script ran
+     * Without styles applied, elements count as hidden only through markup: the hidden attribute, an inline
+     * display:none or visibility:hidden, hidden inputs, or an ancestor that is hidden or never rendered
+     */
+    public static DomSnapshot parseServed(String html, String baseUri) {
+        Document document = Jsoup.parse(html, baseUri);
+        for (Element element : document.getAllElements()) {
+            Element parent = element.parent();
+            boolean hidden = (parent != null && !isVisible(parent))
+                    || NEVER_RENDERED.contains(element.normalName())
+                    || element.hasAttr("hidden")
+                    || HIDDEN_STYLE.matcher(element.attr("style").toLowerCase(Locale.ROOT)).find()
+                    || ("input".equals(element.normalName()) && "hidden".equalsIgnoreCase(element.attr("type")));
+            if (hidden) {
+                element.attr(VISIBLE_ATTRIBUTE, "0");
+            }
+        }
+        return new DomSnapshot(document);
+    }
+    
+    /**
+     * Get the age of the snapshot in milliseconds
+     */
+    public long getAgeMillis() {
+        return (System.nanoTime() - capturedAtNanos) / 1_000_000;
+    }
+    
+    /**
+     * Get the page title
+     */
+    public String getTitle() {
+        return document.title();
+    }
+    
+    /**
+     * Find every element matching a locator
+     * Throws UnsupportedOperationException for selectors the local engine cannot evaluate
+     */
+    public List<Element> findAll(By locator) {
+        return findAll(document, locator);
+    }
+    
+    /**
+     * Find every element within a scope matching a locator
+     * Throws UnsupportedOperationException for selectors the local engine cannot evaluate
+     */
+    public static List<Element> findAll(Element scope, By locator) {
+        String[] described;
+        try {
+            described = DomScripts.describe(locator);
+        } catch (IllegalArgumentException e) {
+            throw new UnsupportedOperationException(e.getMessage(), e);
+        }
+        String value = described[1];
+        try {
+            switch (described[0]) {
+                case "id":
+                    return scope.getElementsByAttributeValue("id", value);
+                case "name":
+                    return scope.getElementsByAttributeValue("name", value);
+                case "className":
+                    return scope.getElementsByClass(value);
+                case "tagName":
+                    return scope.getElementsByTag(value);
+                case "cssSelector":
+                    return scope.select(value);
+                case "xpath":
+                    return scope.selectXpath(value);
+                case "linkText":
+                case "partialLinkText":
+                    Elements links = new Elements();
+                    for (Element link : scope.getElementsByTag("a")) {
+                        String text = renderedText(link).trim();
+                        if ("linkText".equals(described[0]) ? text.equals(value) : text.contains(value)) {
+                            links.add(link);
+                        }
+                    }
+                    return links;
+                default:
+                    throw new UnsupportedOperationException("Unsupported locator strategy: " + described[0]);
+            }
+        } catch (Selector.SelectorParseException e) {
+            throw new UnsupportedOperationException("Selector not supported in snapshots: " + value, e);
+        }
+    }
+    
+    /**
+     * Get the first element matching a locator, or null
+     */
+    public Element find(By locator) {
+        List<Element> elements = findAll(locator);
+        return elements.isEmpty() ? null : elements.get(0);
+    }
+    
+    /**
+     * Get number of elements matching a locator
+     */
+    public int count(By locator) {
+        return findAll(locator).size();
+    }
+    
+    /**
+     * Check if the first match of a locator was displayed when captured
+     */
+    public boolean isDisplayed(By locator) {
+        Element element = find(locator);
+        return element != null && isVisible(element);
+    }
+    
+    /**
+     * Get rendered text of the first match, empty if it was hidden, or null if nothing matched
+     */
+    public String getText(By locator) {
+        Element element = find(locator);
+        if (element == null) {
+            return null;
+        }
+        return textOf(element);
+    }
+    
+    /**
+     * Get an attribute of the first match, or null
+     */
+    public String getAttribute(By locator, String name) {
+        Element element = find(locator);
+        return element == null || !element.hasAttr(name) ? null : element.attr(name);
+    }
+    
+    /**
+     * Check if an element of a snapshot was displayed when captured
+     */
+    public static boolean isVisible(Element element) {
+        return !"0".equals(element.attr(VISIBLE_ATTRIBUTE));
+    }
+    
+    /**
+     * Get rendered text of an element of a snapshot, empty if it was hidden
+     */
+    public static String textOf(Element element) {
+        return isVisible(element) ? renderedText(element).trim() : "";
+    }
+    
+    /**
+     * Approximate innerText: text of visible descendants, with line breaks around block elements
+     */
+    private static String renderedText(Element root) {
+        StringBuilder text = new StringBuilder();
+        NodeTraversor.filter(new NodeFilter() {
+            @Override
+            public FilterResult head(Node node, int depth) {
+                if (node instanceof Element) {
+                    Element element = (Element) node;
+                    if (!isVisible(element)) {
+                        return FilterResult.SKIP_ENTIRELY;
+                    }
+                    if (element.isBlock() || "br".equals(element.normalName())) {
+                        newLine(text);
+                    }
+                } else if (node instanceof TextNode) {
+                    String value = ((TextNode) node).text();
+                    if (value.startsWith(" ") || value.trim().isEmpty()) {
+                        space(text);
+                    }
+                    if (!value.trim().isEmpty()) {
+                        text.append(value.trim());
+                        if (value.endsWith(" ")) {
+                            space(text);
+                        }
+                    }
+                }
+                return FilterResult.CONTINUE;
+            }
+            
+            @Override
+            public FilterResult tail(Node node, int depth) {
+                if (node instanceof Element && ((Element) node).isBlock()) {
+                    newLine(text);
+                }
+                return FilterResult.CONTINUE;
+            }
+        }, root);
+        return text.toString().replaceAll(" *\n+ *", "\n");
+    }
+    
+    private static void space(StringBuilder text) {
+        if (text.length() > 0 && text.charAt(text.length() - 1) != '\n' && text.charAt(text.length() - 1) != ' ') {
+            text.append(' ');
+        }
+    }
+    
+    private static void newLine(StringBuilder text) {
+        if (text.length() > 0 && text.charAt(text.length() - 1) != '\n') {
+            text.append('\n');
+        }
+    }
+}
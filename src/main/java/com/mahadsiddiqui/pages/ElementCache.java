@@ -0,0 +1,98 @@
+package com.mahadsiddiqui.pages;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-page cache of resolved element references
+ * Keyed by locator and window/frame context; stale entries are detected on use and re-resolved
+ * A hit is only counted once the cached reference served a read or action, saving the wait's round trip
+ */
+public class ElementCache {
+    
+    private static final LongAdder TOTAL_HITS = new LongAdder();
+    private static final LongAdder TOTAL_MISSES = new LongAdder();
+    private static final LongAdder TOTAL_STALE = new LongAdder();
+    
+    private final Map<String, WebElement> elements = new HashMap<>();
+    private long hits;
+    private long misses;
+    private long stale;
+    
+    /**
+     * Get a cached element, or null if the locator has not been resolved in this context
+     */
+    public WebElement get(String context, By locator) {
+        return elements.get(key(context, locator));
+    }
+    
+    /**
+     * Count a read or action served by a cached element
+     */
+    public void recordHit() {
+        hits++;
+        TOTAL_HITS.increment();
+    }
+    
+    /**
+     * Remember an element resolved through its wait
+     */
+    public void put(String context, By locator, WebElement element) {
+        elements.put(key(context, locator), element);
+        misses++;
+        TOTAL_MISSES.increment();
+    }
+    
+    /**
+     * Drop an entry whose element went stale or unusable
+     */
+    public void markStale(String context, By locator) {
+        elements.remove(key(context, locator));
+        stale++;
+        TOTAL_STALE.increment();
+    }
+    
+    /**
+     * Drop every entry, for example after navigation
+     */
+    public void clear() {
+        elements.clear();
+    }
+    
+    /**
+     * Get number of reads and actions served from the cache
+     */
+    public long getHits() {
+        return hits;
+    }
+    
+    /**
+     * Get number of lookups that had to wait for the locator
+     */
+    public long getMisses() {
+        return misses;
+    }
+    
+    /**
+     * Get number of cached elements found stale on use
+     */
+    public long getStale() {
+        return stale;
+    }
+    
+    /**
+     * Get cache counters across all pages for the suite log
+     */
+    public static String summary() {
+        return String.format("Element cache: hits=%d misses=%d stale=%d",
+                TOTAL_HITS.sum(), TOTAL_MISSES.sum(), TOTAL_STALE.sum());
+    }
+    
+    private static String key(String context, By locator) {
+        return context + "|" + locator;
+    }
+}
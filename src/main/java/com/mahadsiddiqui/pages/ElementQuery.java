@@ -0,0 +1,164 @@
+package com.mahadsiddiqui.pages;
+
+import com.mahadsiddiqui.drivers.StaticDriver;
+import com.mahadsiddiqui.utils.DomScripts;
+import org.jsoup.nodes.Element;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Batched element state query
+ * Collects the properties of many locators and resolves them in a single executeScript call,
+ * or against the parsed page on a static session
+ */
+public class ElementQuery {
+    
+    /**
+     * Element properties a query can collect
+     */
+    public enum Property {
+        DISPLAYED,
+        ENABLED,
+        TEXT,
+        ATTRIBUTE,
+        COUNT
+    }
+    
+    private static final String QUERY_SCRIPT =
+            DomScripts.FIND_ALL_FUNCTION
+            + DomScripts.IS_VISIBLE_FUNCTION
+            + "var specs = arguments[0], results = [];"
+            + "for (var i = 0; i < specs.length; i++) {"
+            + "  var spec = specs[i], found = findAll(spec.strategy, spec.value), el = found[0];"
+            + "  var result = {count: found.length, displayed: false, enabled: false, text: null, attributes: {}};"
+            + "  if (el) {"
+            + "    var visible = isVisible(el);"
+            + "    result.displayed = visible;"
+            + "    result.enabled = !el.disabled;"
+            + "    if (spec.text) { result.text = visible ? (el.innerText || '').trim() : ''; }"
+            + "    for (var j = 0; j < spec.attributes.length; j++) {"
+            + "      var name = spec.attributes[j];"
+            + "      var value = name in el && typeof el[name] !== 'object' && typeof el[name] !== 'function'"
+            + "          ? el[name] : el.getAttribute(name);"
+            + "      result.attributes[name] = value === null || value === undefined ? null : String(value);"
+            + "    }"
+            + "  }"
+            + "  results.push(result);"
+            + "}"
+            + "return {title: document.title, elements: results};";
+    
+    private final WebDriver driver;
+    private final Map<By, Set<Property>> properties = new LinkedHashMap<>();
+    private final Map<By, Set<String>> attributes = new HashMap<>();
+    
+    public ElementQuery(WebDriver driver) {
+        this.driver = driver;
+    }
+    
+    /**
+     * Collect whether the element is displayed
+     */
+    public ElementQuery displayed(By locator) {
+        return add(locator, Property.DISPLAYED);
+    }
+    
+    /**
+     * Collect whether the element is enabled
+     */
+    public ElementQuery enabled(By locator) {
+        return add(locator, Property.ENABLED);
+    }
+    
+    /**
+     * Collect the element's rendered text
+     */
+    public ElementQuery text(By locator) {
+        return add(locator, Property.TEXT);
+    }
+    
+    /**
+     * Collect an attribute or property of the element
+     */
+    public ElementQuery attribute(By locator, String name) {
+        attributes.computeIfAbsent(locator, key -> new LinkedHashSet<>()).add(name);
+        return add(locator, Property.ATTRIBUTE);
+    }
+    
+    /**
+     * Collect the number of matching elements
+     */
+    public ElementQuery count(By locator) {
+        return add(locator, Property.COUNT);
+    }
+    
+    /**
+     * Resolve every collected locator in one round trip
+     */
+    @SuppressWarnings("unchecked")
+    public ElementQueryResult execute() {
+        if (driver instanceof StaticDriver) {
+            return resolveLocally(DomSnapshot.capture(driver));
+        }
+        List<Map<String, Object>> specs = new ArrayList<>();
+        for (Map.Entry<By, Set<Property>> entry : properties.entrySet()) {
+            String[] described = DomScripts.describe(entry.getKey());
+            Map<String, Object> spec = new HashMap<>();
+            spec.put("strategy", described[0]);
+            spec.put("value", described[1]);
+            spec.put("text", entry.getValue().contains(Property.TEXT));
+            spec.put("attributes", new ArrayList<>(attributes.getOrDefault(entry.getKey(), Collections.emptySet())));
+            specs.add(spec);
+        }
+        JavascriptExecutor js = (JavascriptExecutor) driver;
+        Map<String, Object> response = (Map<String, Object>) js.executeScript(QUERY_SCRIPT, specs);
+        List<Map<String, Object>> elements = (List<Map<String, Object>>) response.get("elements");
+        
+        Map<By, ElementState> states = new LinkedHashMap<>();
+        int index = 0;
+        for (By locator : properties.keySet()) {
+            Map<String, Object> element = elements.get(index++);
+            Map<String, String> values = new HashMap<>();
+            Map<String, Object> returned = (Map<String, Object>) element.get("attributes");
+            for (Map.Entry<String, Object> attribute : returned.entrySet()) {
+                values.put(attribute.getKey(), attribute.getValue() == null ? null : attribute.getValue().toString());
+            }
+            states.put(locator, new ElementState(((Number) element.get("count")).intValue(),
+                    Boolean.TRUE.equals(element.get("displayed")), Boolean.TRUE.equals(element.get("enabled")),
+                    (String) element.get("text"), values));
+        }
+        return new ElementQueryResult((String) response.get("title"), states);
+    }
+    
+    private ElementQueryResult resolveLocally(DomSnapshot page) {
+        Map<By, ElementState> states = new LinkedHashMap<>();
+        for (Map.Entry<By, Set<Property>> entry : properties.entrySet()) {
+            List<Element> found = page.findAll(entry.getKey());
+            Element element = found.isEmpty() ? null : found.get(0);
+            Map<String, String> values = new HashMap<>();
+            for (String name : attributes.getOrDefault(entry.getKey(), Collections.emptySet())) {
+                values.put(name, element == null || !element.hasAttr(name) ? null : element.attr(name));
+            }
+            boolean text = element != null && entry.getValue().contains(Property.TEXT);
+            states.put(entry.getKey(), new ElementState(found.size(),
+                    element != null && DomSnapshot.isVisible(element), element != null && !element.hasAttr("disabled"),
+                    text ? DomSnapshot.textOf(element) : null, values));
+        }
+        return new ElementQueryResult(page.getTitle(), states);
+    }
+    
+    private ElementQuery add(By locator, Property property) {
+        properties.computeIfAbsent(locator, key -> EnumSet.noneOf(Property.class)).add(property);
+        return this;
+    }
+}
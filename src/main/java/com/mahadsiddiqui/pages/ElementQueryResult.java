@@ -0,0 +1,80 @@
+package com.mahadsiddiqui.pages;
+
+import org.openqa.selenium.By;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Result of an {@link ElementQuery}, keyed by locator
+ */
+public class ElementQueryResult {
+    
+    private final String title;
+    private final Map<By, ElementState> states;
+    
+    public ElementQueryResult(String title, Map<By, ElementState> states) {
+        this.title = title;
+        this.states = Collections.unmodifiableMap(states);
+    }
+    
+    /**
+     * Get the page title captured with the query
+     */
+    public String getTitle() {
+        return title;
+    }
+    
+    /**
+     * Get the state captured for a locator
+     */
+    public ElementState get(By locator) {
+        ElementState state = states.get(locator);
+        if (state == null) {
+            throw new IllegalArgumentException("Locator was not part of the query: " + locator);
+        }
+        return state;
+    }
+    
+    /**
+     * Check if the first match of a locator is displayed
+     */
+    public boolean isDisplayed(By locator) {
+        return get(locator).isDisplayed();
+    }
+    
+    /**
+     * Check if the first match of a locator is enabled
+     */
+    public boolean isEnabled(By locator) {
+        return get(locator).isEnabled();
+    }
+    
+    /**
+     * Get rendered text of the first match of a locator
+     */
+    public String getText(By locator) {
+        return get(locator).getText();
+    }
+    
+    /**
+     * Get an attribute of the first match of a locator
+     */
+    public String getAttribute(By locator, String name) {
+        return get(locator).getAttribute(name);
+    }
+    
+    /**
+     * Get number of elements matched by a locator
+     */
+    public int getCount(By locator) {
+        return get(locator).getCount();
+    }
+    
+    /**
+     * Get all captured states
+     */
+    public Map<By, ElementState> asMap() {
+        return states;
+    }
+}
@@ -0,0 +1,73 @@
+package com.mahadsiddiqui.pages;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * State of the first element matched by a locator, captured by an {@link ElementQuery}
+ * Properties that were not requested are reported as false, null or empty
+ */
+public class ElementState {
+    
+    private final int count;
+    private final boolean displayed;
+    private final boolean enabled;
+    private final String text;
+    private final Map<String, String> attributes;
+    
+    public ElementState(int count, boolean displayed, boolean enabled, String text, Map<String, String> attributes) {
+        this.count = count;
+        this.displayed = displayed;
+        this.enabled = enabled;
+        this.text = text;
+        this.attributes = Collections.unmodifiableMap(attributes);
+    }
+    
+    /**
+     * Check if the locator matched at least one element
+     */
+    public boolean isPresent() {
+        return count > 0;
+    }
+    
+    /**
+     * Get number of elements matched by the locator
+     */
+    public int getCount() {
+        return count;
+    }
+    
+    /**
+     * Check if the first match is displayed
+     */
+    public boolean isDisplayed() {
+        return displayed;
+    }
+    
+    /**
+     * Check if the first match is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Get rendered text of the first match, empty when it is hidden
+     */
+    public String getText() {
+        return text;
+    }
+    
+    /**
+     * Get an attribute of the first match
+     */
+    public String getAttribute(String name) {
+        return attributes.get(name);
+    }
+    
+    @Override
+    public String toString() {
+        return "ElementState{count=" + count + ", displayed=" + displayed + ", enabled=" + enabled
+                + ", text='" + text + "', attributes=" + attributes + "}";
+    }
+}
@@ -1,8 +1,14 @@
 package com.mahadsiddiqui.pages;
 
+import com.mahadsiddiqui.config.WebDriverConfig;
+import com.mahadsiddiqui.performance.PageMetrics;
+import com.mahadsiddiqui.performance.PerformanceBudget;
+import com.mahadsiddiqui.waits.ReadinessReport;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 
+import java.time.Duration;
+
 /**
  * Home page object class
  * Contains elements and methods for the home page
@@ -146,6 +152,21 @@ public class HomePage extends BasePage {
         click(WISHLIST_LINK);
     }
     
+    /**
+     * Check if the products, about and contact links are on the page
+     */
+    public boolean areNavigationLinksPresent() {
+        return isElementPresentNow(PRODUCTS_LINK) && isElementPresentNow(ABOUT_LINK)
+                && isElementPresentNow(CONTACT_LINK);
+    }
+    
+    /**
+     * Check if the login and register links are on the page
+     */
+    public boolean areAuthenticationLinksPresent() {
+        return isElementPresentNow(LOGIN_LINK) && isElementPresentNow(REGISTER_LINK);
+    }
+    
     /**
      * Check if navigation menu is displayed
      */
@@ -157,7 +178,7 @@ public class HomePage extends BasePage {
      * Get navigation menu text
      */
     public String getNavigationMenuText() {
-        return getText(NAVIGATION_MENU);
+        return getTextFromSnapshot(NAVIGATION_MENU);
     }
     
     /**
@@ -171,7 +192,7 @@ public class HomePage extends BasePage {
      * Get number of product cards
      */
     public int getProductCardsCount() {
-        return driver.findElements(PRODUCT_CARDS).size();
+        return getElementCountFromSnapshot(PRODUCT_CARDS);
     }
     
     /**
@@ -200,7 +221,9 @@ public class HomePage extends BasePage {
      * Check if newsletter success message is displayed
      */
     public boolean isNewsletterSuccessMessageDisplayed() {
-        return isElementDisplayed(NEWSLETTER_SUCCESS_MESSAGE);
+        // The message appears after a server round trip, so give it the element wait
+        return isElementDisplayedWithin(NEWSLETTER_SUCCESS_MESSAGE,
+                Duration.ofSeconds(WebDriverConfig.getIntProperty("element.wait")));
     }
     
     /**
@@ -249,14 +272,14 @@ public class HomePage extends BasePage {
      * Get footer text
      */
     public String getFooterText() {
-        return getText(FOOTER);
+        return getTextFromSnapshot(FOOTER);
     }
     
     /**
      * Get copyright text
      */
     public String getCopyrightText() {
-        return getText(COPYRIGHT);
+        return getTextFromSnapshot(COPYRIGHT);
     }
     
     /**
@@ -273,6 +296,30 @@ public class HomePage extends BasePage {
         scrollToElement(FEATURED_PRODUCTS);
     }
     
+    /**
+     * Get logo and navigation state in a single round trip, along with the page title every query captures
+     */
+    public ElementQueryResult getHeaderState() {
+        return query()
+                .displayed(LOGO)
+                .displayed(NAVIGATION_MENU)
+                .execute();
+    }
+    
+    /**
+     * Check if logo is displayed in a header state snapshot
+     */
+    public boolean isLogoDisplayed(ElementQueryResult headerState) {
+        return headerState.isDisplayed(LOGO);
+    }
+    
+    /**
+     * Check if navigation menu is displayed in a header state snapshot
+     */
+    public boolean isNavigationMenuDisplayed(ElementQueryResult headerState) {
+        return headerState.isDisplayed(NAVIGATION_MENU);
+    }
+    
     /**
      * Get page title
      */
@@ -280,11 +327,60 @@ public class HomePage extends BasePage {
         return getPageTitle();
     }
     
+    /**
+     * Home page budget, at the Web Vitals "good" thresholds
+     */
+    @Override
+    protected PerformanceBudget getPerformanceBudget() {
+        return new PerformanceBudget()
+                .limit(PageMetrics.TIME_TO_FIRST_BYTE, 800)
+                .limit(PageMetrics.FIRST_CONTENTFUL_PAINT, 1800)
+                .limit(PageMetrics.LARGEST_CONTENTFUL_PAINT, 2500)
+                .limit(PageMetrics.CUMULATIVE_LAYOUT_SHIFT, 0.1)
+                .limit(PageMetrics.TOTAL_BLOCKING_TIME, 200)
+                .limit(PageMetrics.LOAD, 5000);
+    }
+    
+    /**
+     * Home page budgets under throttling, scaled to each profile's bandwidth, latency and CPU
+     */
+    @Override
+    protected PerformanceBudget getPerformanceBudget(String profile) {
+        switch (profile) {
+            case "fast-4g":
+                return budget(1200, 2500, 4000, 300, 8000);
+            case "slow-4g":
+            case "fast-3g":
+                return budget(2000, 4000, 6000, 600, 15000);
+            case "slow-3g":
+                return budget(6000, 10000, 15000, 600, 40000);
+            case "cpu-4x":
+                return budget(800, 3000, 4000, 800, 10000);
+            case "mobile":
+                return budget(2000, 5000, 7500, 800, 18000);
+            default:
+                return super.getPerformanceBudget(profile);
+        }
+    }
+    
+    private static PerformanceBudget budget(double ttfb, double fcp, double lcp, double tbt, double load) {
+        return new PerformanceBudget()
+                .limit(PageMetrics.TIME_TO_FIRST_BYTE, ttfb)
+                .limit(PageMetrics.FIRST_CONTENTFUL_PAINT, fcp)
+                .limit(PageMetrics.LARGEST_CONTENTFUL_PAINT, lcp)
+                .limit(PageMetrics.CUMULATIVE_LAYOUT_SHIFT, 0.1)
+                .limit(PageMetrics.TOTAL_BLOCKING_TIME, tbt)
+                .limit(PageMetrics.LOAD, load);
+    }
+    
     /**
      * Wait for page to load completely
      */
-    public void waitForPageLoad() {
+    @Override
+    public ReadinessReport waitForPageLoad() {
+        ReadinessReport report = super.waitForPageLoad();
         waitForElementVisible(LOGO);
         waitForElementVisible(NAVIGATION_MENU);
+        return report;
     }
 }
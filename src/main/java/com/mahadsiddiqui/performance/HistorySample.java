@@ -0,0 +1,67 @@
+package com.mahadsiddiqui.performance;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Metrics of one test run, keyed by test, browser and commit
+ */
+public class HistorySample {
+    
+    private final long timestamp;
+    private final String test;
+    private final String browser;
+    private final String commit;
+    private final Map<String, Double> values;
+    
+    public HistorySample(long timestamp, String test, String browser, String commit, Map<String, Double> values) {
+        this.timestamp = timestamp;
+        this.test = test;
+        this.browser = browser;
+        this.commit = commit;
+        this.values = Collections.unmodifiableMap(new LinkedHashMap<>(values));
+    }
+    
+    /**
+     * Get when the run was recorded, in epoch milliseconds
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+    
+    /**
+     * Get the test the run belongs to
+     */
+    public String getTest() {
+        return test;
+    }
+    
+    /**
+     * Get the browser the run used
+     */
+    public String getBrowser() {
+        return browser;
+    }
+    
+    /**
+     * Get the commit the run was built from
+     */
+    public String getCommit() {
+        return commit;
+    }
+    
+    /**
+     * Get a metric, or null if the run did not record it
+     */
+    public Double get(String metric) {
+        return values.get(metric);
+    }
+    
+    /**
+     * Get all recorded metrics by name
+     */
+    public Map<String, Double> getValues() {
+        return values;
+    }
+}
@@ -0,0 +1,128 @@
+package com.mahadsiddiqui.performance;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Append-only local store of per-test metrics across runs
+ * One tab-separated line per run (time, test, browser, commit, name=value pairs), indexed in memory
+ * by test and browser in the order the runs were recorded
+ */
+public class MetricsHistory {
+    
+    private static final String HEADER = "# metrics-history v1\n";
+    
+    private final Path file;
+    private final Map<String, List<HistorySample>> index = new HashMap<>();
+    
+    public MetricsHistory(Path file) throws IOException {
+        this.file = file;
+        load();
+    }
+    
+    /**
+     * Append a run to the file and the index
+     */
+    public synchronized void append(HistorySample sample) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        String line = (Files.exists(file) ? "" : HEADER) + toLine(sample);
+        Files.write(file, line.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+        index.computeIfAbsent(key(sample.getTest(), sample.getBrowser()), key -> new ArrayList<>()).add(sample);
+    }
+    
+    /**
+     * Get all runs of a test on a browser, oldest first
+     */
+    public synchronized List<HistorySample> getSamples(String test, String browser) {
+        List<HistorySample> samples = index.get(key(test, browser));
+        return samples == null ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(samples));
+    }
+    
+    /**
+     * Get the runs of a test on a browser built from one commit, oldest first
+     */
+    public synchronized List<HistorySample> getSamples(String test, String browser, String commit) {
+        List<HistorySample> matching = new ArrayList<>();
+        for (HistorySample sample : getSamples(test, browser)) {
+            if (sample.getCommit().equals(commit)) {
+                matching.add(sample);
+            }
+        }
+        return matching;
+    }
+    
+    /**
+     * Get the number of recorded runs across all tests and browsers
+     */
+    public synchronized int size() {
+        int size = 0;
+        for (List<HistorySample> samples : index.values()) {
+            size += samples.size();
+        }
+        return size;
+    }
+    
+    private void load() throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\t", -1);
+            if (fields.length != 5) {
+                // Partial line from an interrupted run
+                continue;
+            }
+            Map<String, Double> values = new LinkedHashMap<>();
+            for (String pair : fields[4].split(" ")) {
+                int separator = pair.indexOf('=');
+                if (separator > 0) {
+                    values.put(pair.substring(0, separator), Double.parseDouble(pair.substring(separator + 1)));
+                }
+            }
+            HistorySample sample = new HistorySample(Long.parseLong(fields[0]), fields[1], fields[2], fields[3],
+                    values);
+            index.computeIfAbsent(key(sample.getTest(), sample.getBrowser()), key -> new ArrayList<>()).add(sample);
+        }
+    }
+    
+    private static String toLine(HistorySample sample) {
+        StringBuilder line = new StringBuilder();
+        line.append(sample.getTimestamp()).append('\t').append(field(sample.getTest())).append('\t')
+                .append(field(sample.getBrowser())).append('\t').append(field(sample.getCommit())).append('\t');
+        boolean first = true;
+        for (Map.Entry<String, Double> entry : sample.getValues().entrySet()) {
+            if (!first) {
+                line.append(' ');
+            }
+            first = false;
+            line.append(field(entry.getKey()).replace('=', '_')).append('=')
+                    .append(String.format(Locale.ROOT, "%.3f", entry.getValue()).replaceAll("\\.?0+$", ""));
+        }
+        return line.append('\n').toString();
+    }
+    
+    private static String field(String value) {
+        return value.replaceAll("[\\s]", "_");
+    }
+    
+    private static String key(String test, String browser) {
+        return field(test) + "\t" + field(browser);
+    }
+}
@@ -0,0 +1,164 @@
+package com.mahadsiddiqui.performance;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Page load and runtime metrics measured inside the browser
+ * Timings are milliseconds from navigation start; metrics a browser does not report are absent
+ */
+public class PageMetrics {
+    
+    public static final String TIME_TO_FIRST_BYTE = "ttfb";
+    public static final String FIRST_CONTENTFUL_PAINT = "fcp";
+    public static final String DOM_CONTENT_LOADED = "domContentLoaded";
+    public static final String LOAD = "load";
+    public static final String LARGEST_CONTENTFUL_PAINT = "lcp";
+    public static final String CUMULATIVE_LAYOUT_SHIFT = "cls";
+    public static final String INTERACTION_TO_NEXT_PAINT = "inp";
+    public static final String TOTAL_BLOCKING_TIME = "tbt";
+    public static final String RESOURCE_COUNT = "resourceCount";
+    public static final String RESOURCE_TRANSFER_BYTES = "resourceTransferBytes";
+    public static final String SLOWEST_RESOURCE = "slowestResource";
+    
+    private final String page;
+    private final String url;
+    private final String profile;
+    private final Map<String, Double> values;
+    private final Map<String, Double> browserMetrics;
+    
+    public PageMetrics(String page, String url, Map<String, Double> values, Map<String, Double> browserMetrics) {
+        this(page, url, ThrottlingProfile.NONE.getName(), values, browserMetrics);
+    }
+    
+    public PageMetrics(String page, String url, String profile, Map<String, Double> values,
+                       Map<String, Double> browserMetrics) {
+        this.page = page;
+        this.url = url;
+        this.profile = profile;
+        this.values = Collections.unmodifiableMap(new LinkedHashMap<>(values));
+        this.browserMetrics = Collections.unmodifiableMap(new TreeMap<>(browserMetrics));
+    }
+    
+    /**
+     * Get the page object the metrics were collected for
+     */
+    public String getPage() {
+        return page;
+    }
+    
+    /**
+     * Get the URL of the measured document
+     */
+    public String getUrl() {
+        return url;
+    }
+    
+    /**
+     * Get the throttling profile the page was measured under
+     */
+    public String getProfile() {
+        return profile;
+    }
+    
+    /**
+     * Check if the page was measured under network or CPU throttling
+     */
+    public boolean isThrottled() {
+        return !ThrottlingProfile.NONE.getName().equals(profile);
+    }
+    
+    /**
+     * Check if a metric was reported
+     */
+    public boolean has(String metric) {
+        return values.containsKey(metric);
+    }
+    
+    /**
+     * Get a metric, or NaN if the browser did not report it
+     */
+    public double get(String metric) {
+        Double value = values.get(metric);
+        return value == null ? Double.NaN : value;
+    }
+    
+    /**
+     * Get all reported Navigation Timing, Resource Timing and Web Vitals metrics
+     */
+    public Map<String, Double> getValues() {
+        return values;
+    }
+    
+    /**
+     * Get DevTools Performance.getMetrics counters, empty when DevTools is unavailable
+     */
+    public Map<String, Double> getBrowserMetrics() {
+        return browserMetrics;
+    }
+    
+    /**
+     * Get time to first byte of the document
+     */
+    public double getTimeToFirstByteMillis() {
+        return get(TIME_TO_FIRST_BYTE);
+    }
+    
+    /**
+     * Get first contentful paint
+     */
+    public double getFirstContentfulPaintMillis() {
+        return get(FIRST_CONTENTFUL_PAINT);
+    }
+    
+    /**
+     * Get the end of the load event
+     */
+    public double getLoadMillis() {
+        return get(LOAD);
+    }
+    
+    /**
+     * Get largest contentful paint
+     */
+    public double getLargestContentfulPaintMillis() {
+        return get(LARGEST_CONTENTFUL_PAINT);
+    }
+    
+    /**
+     * Get cumulative layout shift of the largest session window
+     */
+    public double getCumulativeLayoutShift() {
+        return get(CUMULATIVE_LAYOUT_SHIFT);
+    }
+    
+    /**
+     * Get total blocking time of long tasks after first contentful paint
+     */
+    public double getTotalBlockingTimeMillis() {
+        return get(TOTAL_BLOCKING_TIME);
+    }
+    
+    /**
+     * Get a one-line summary of the reported metrics
+     */
+    public String summary() {
+        StringBuilder summary = new StringBuilder(page);
+        if (isThrottled()) {
+            summary.append('@').append(profile);
+        }
+        for (Map.Entry<String, Double> entry : values.entrySet()) {
+            summary.append(' ').append(entry.getKey()).append('=')
+                    .append(String.format(Locale.ROOT, "%.3f", entry.getValue()).replaceAll("\\.?0+$", ""));
+        }
+        return summary.toString();
+    }
+    
+    @Override
+    public String toString() {
+        return "PageMetrics{" + summary() + ", url=" + url + "}";
+    }
+}
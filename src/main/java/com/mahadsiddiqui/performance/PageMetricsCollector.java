@@ -0,0 +1,200 @@
+package com.mahadsiddiqui.performance;
+
+import com.mahadsiddiqui.drivers.DevToolsSession;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Collects page metrics of a session from inside the browser
+ * Web Vitals come from PerformanceObservers injected into every new document, load timings from
+ * Navigation and Resource Timing, and runtime counters from DevTools Performance.getMetrics
+ */
+public class PageMetricsCollector {
+    
+    private static final Logger LOG = LoggerFactory.getLogger(PageMetricsCollector.class);
+    private static final Map<WebDriver, PageMetricsCollector> COLLECTORS =
+            Collections.synchronizedMap(new WeakHashMap<>());
+    private static final ThreadLocal<List<PageMetrics>> TEST = ThreadLocal.withInitial(ArrayList::new);
+    
+    /**
+     * Tracks LCP, CLS session windows, interaction durations and long tasks
+     * Buffered observers also pick up entries from before the script ran
+     */
+    private static final String VITALS_OBSERVER = "(function () {"
+            + "  if (window.__wtaVitals || !window.PerformanceObserver) { return; }"
+            + "  var vitals = window.__wtaVitals = {lcp: null, cls: 0, interactions: {}, longTasks: []};"
+            + "  var session = 0, sessionStart = 0, lastShift = 0;"
+            + "  function observe(type, handler, options) {"
+            + "    try {"
+            + "      var opts = options || {};"
+            + "      opts.type = type;"
+            + "      opts.buffered = true;"
+            + "      new PerformanceObserver(function (list) { list.getEntries().forEach(handler); }).observe(opts);"
+            + "    } catch (e) {}"
+            + "  }"
+            + "  observe('largest-contentful-paint', function (e) { vitals.lcp = e.startTime; });"
+            + "  observe('layout-shift', function (e) {"
+            + "    if (e.hadRecentInput) { return; }"
+            + "    if (session > 0 && e.startTime - lastShift < 1000 && e.startTime - sessionStart < 5000) {"
+            + "      session += e.value;"
+            + "    } else {"
+            + "      session = e.value;"
+            + "      sessionStart = e.startTime;"
+            + "    }"
+            + "    lastShift = e.startTime;"
+            + "    vitals.cls = Math.max(vitals.cls, session);"
+            + "  });"
+            + "  observe('event', function (e) {"
+            + "    if (e.interactionId) {"
+            + "      var id = e.interactionId;"
+            + "      vitals.interactions[id] = Math.max(vitals.interactions[id] || 0, e.duration);"
+            + "    }"
+            + "  }, {durationThreshold: 16});"
+            + "  observe('longtask', function (e) { vitals.longTasks.push([e.startTime, e.duration]); });"
+            + "})();";
+    
+    /**
+     * Reads timings relative to navigation start; INP is the 98th percentile interaction and
+     * TBT sums the part over 50 ms of each long task after first contentful paint
+     */
+    private static final String COLLECT_SCRIPT =
+            "var values = {}, nav = performance.getEntriesByType('navigation')[0];"
+            + "if (nav) {"
+            + "  values.ttfb = nav.responseStart;"
+            + "  values.domContentLoaded = nav.domContentLoadedEventEnd;"
+            + "  if (nav.loadEventEnd > 0) { values.load = nav.loadEventEnd; }"
+            + "}"
+            + "var fcp = performance.getEntriesByName('first-contentful-paint')[0];"
+            + "if (fcp) { values.fcp = fcp.startTime; }"
+            + "var resources = performance.getEntriesByType('resource'), bytes = 0, slowest = 0;"
+            + "for (var i = 0; i < resources.length; i++) {"
+            + "  bytes += resources[i].transferSize || 0;"
+            + "  slowest = Math.max(slowest, resources[i].duration);"
+            + "}"
+            + "values.resourceCount = resources.length;"
+            + "values.resourceTransferBytes = bytes;"
+            + "if (resources.length > 0) { values.slowestResource = slowest; }"
+            + "var vitals = window.__wtaVitals;"
+            + "if (vitals) {"
+            + "  if (vitals.lcp !== null) { values.lcp = vitals.lcp; }"
+            + "  values.cls = vitals.cls;"
+            + "  var durations = Object.keys(vitals.interactions)"
+            + "      .map(function (id) { return vitals.interactions[id]; })"
+            + "      .sort(function (a, b) { return b - a; });"
+            + "  if (durations.length > 0) {"
+            + "    values.inp = durations[Math.min(durations.length - 1, Math.floor(durations.length / 50))];"
+            + "  }"
+            + "  if (fcp) {"
+            + "    var tbt = 0;"
+            + "    vitals.longTasks.forEach(function (t) {"
+            + "      if (t[0] >= fcp.startTime) { tbt += Math.max(0, t[1] - 50); }"
+            + "    });"
+            + "    values.tbt = tbt;"
+            + "  }"
+            + "}"
+            + "return {url: location.href, values: values};";
+    
+    private final boolean devTools;
+    
+    private PageMetricsCollector(boolean devTools) {
+        this.devTools = devTools;
+    }
+    
+    /**
+     * Get the collector of a session, installing its observers on first use
+     * Install before navigating so the observers see the whole page load
+     */
+    public static PageMetricsCollector of(WebDriver driver) {
+        synchronized (COLLECTORS) {
+            PageMetricsCollector collector = COLLECTORS.get(driver);
+            if (collector == null) {
+                collector = new PageMetricsCollector(attach(driver));
+                COLLECTORS.put(driver, collector);
+            }
+            return collector;
+        }
+    }
+    
+    private static boolean attach(WebDriver driver) {
+        if (DevToolsSession.isSupported(driver)) {
+            try {
+                DevToolsSession.send(driver, "Performance.enable");
+                DevToolsSession.send(driver, "Page.addScriptToEvaluateOnNewDocument",
+                        Collections.singletonMap("source", VITALS_OBSERVER));
+                return true;
+            } catch (RuntimeException e) {
+                LOG.debug("DevTools page metrics unavailable: {}", e.getMessage());
+            }
+        }
+        try {
+            ((JavascriptExecutor) driver).executeScript(VITALS_OBSERVER);
+        } catch (RuntimeException e) {
+            // No document yet; buffered observers catch up when installed on the next collection
+        }
+        return false;
+    }
+    
+    /**
+     * Collect metrics of the current document and record them for the running test
+     */
+    @SuppressWarnings("unchecked")
+    public PageMetrics collect(WebDriver driver, String page) {
+        JavascriptExecutor js = (JavascriptExecutor) driver;
+        if (!devTools) {
+            // Without DevTools the observers only exist once installed into the current document
+            js.executeScript(VITALS_OBSERVER);
+        }
+        Map<String, Object> result = (Map<String, Object>) js.executeScript(COLLECT_SCRIPT);
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : ((Map<String, Object>) result.get("values")).entrySet()) {
+            if (entry.getValue() instanceof Number) {
+                values.put(entry.getKey(), ((Number) entry.getValue()).doubleValue());
+            }
+        }
+        PageMetrics metrics = new PageMetrics(page, String.valueOf(result.get("url")),
+                Throttling.current(driver).getName(), values, browserMetrics(driver));
+        TEST.get().add(metrics);
+        return metrics;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Map<String, Double> browserMetrics(WebDriver driver) {
+        Map<String, Double> metrics = new LinkedHashMap<>();
+        if (!devTools) {
+            return metrics;
+        }
+        try {
+            Object reported = DevToolsSession.send(driver, "Performance.getMetrics").get("metrics");
+            for (Object entry : (List<Object>) reported) {
+                Map<String, Object> metric = (Map<String, Object>) entry;
+                metrics.put(String.valueOf(metric.get("name")), ((Number) metric.get("value")).doubleValue());
+            }
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to read DevTools performance metrics: {}", e.getMessage());
+        }
+        return metrics;
+    }
+    
+    /**
+     * Start collecting a fresh list of page metrics on the current thread
+     */
+    public static void startTest() {
+        TEST.get().clear();
+    }
+    
+    /**
+     * Get the page metrics collected by the current thread's test
+     */
+    public static List<PageMetrics> getTestMetrics() {
+        return Collections.unmodifiableList(new ArrayList<>(TEST.get()));
+    }
+}
@@ -0,0 +1,57 @@
+package com.mahadsiddiqui.performance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Upper limits on page metrics, declared by each page object
+ * Metrics the browser did not report are not checked
+ */
+public class PerformanceBudget {
+    
+    private final Map<String, Double> limits = new LinkedHashMap<>();
+    
+    /**
+     * Get an empty budget that accepts any metrics
+     */
+    public static PerformanceBudget none() {
+        return new PerformanceBudget();
+    }
+    
+    /**
+     * Limit a metric to at most the given value
+     */
+    public PerformanceBudget limit(String metric, double max) {
+        limits.put(metric, max);
+        return this;
+    }
+    
+    /**
+     * Get the limits by metric name
+     */
+    public Map<String, Double> getLimits() {
+        return Collections.unmodifiableMap(limits);
+    }
+    
+    /**
+     * Check metrics against the budget, returning one message per exceeded limit
+     */
+    public List<String> check(PageMetrics metrics) {
+        List<String> violations = new ArrayList<>();
+        for (Map.Entry<String, Double> limit : limits.entrySet()) {
+            if (!metrics.has(limit.getKey())) {
+                continue;
+            }
+            double value = metrics.get(limit.getKey());
+            if (value > limit.getValue()) {
+                violations.add(String.format(Locale.ROOT, "%s %s=%.3f exceeds budget %.3f",
+                        metrics.getPage(), limit.getKey(), value, limit.getValue()));
+            }
+        }
+        return violations;
+    }
+}
@@ -0,0 +1,87 @@
+package com.mahadsiddiqui.performance;
+
+import java.util.Locale;
+
+/**
+ * A metric that got slower than its history
+ */
+public class Regression {
+    
+    /**
+     * How the slowdown was detected
+     */
+    public enum Kind {
+        /**
+         * This run is slower than the median of recent runs by more than the noise allows
+         */
+        SLOWDOWN,
+        /**
+         * Per-commit medians shifted upwards at a commit and stayed there
+         */
+        CHANGE_POINT
+    }
+    
+    private final String metric;
+    private final Kind kind;
+    private final double baseline;
+    private final double current;
+    private final String commit;
+    
+    public Regression(String metric, Kind kind, double baseline, double current, String commit) {
+        this.metric = metric;
+        this.kind = kind;
+        this.baseline = baseline;
+        this.current = current;
+        this.commit = commit;
+    }
+    
+    /**
+     * Get the regressed metric
+     */
+    public String getMetric() {
+        return metric;
+    }
+    
+    /**
+     * Get how the slowdown was detected
+     */
+    public Kind getKind() {
+        return kind;
+    }
+    
+    /**
+     * Get the value before the slowdown
+     */
+    public double getBaseline() {
+        return baseline;
+    }
+    
+    /**
+     * Get the value after the slowdown
+     */
+    public double getCurrent() {
+        return current;
+    }
+    
+    /**
+     * Get the relative increase over the baseline
+     */
+    public double getChange() {
+        return baseline == 0 ? Double.POSITIVE_INFINITY : (current - baseline) / baseline;
+    }
+    
+    /**
+     * Get the first commit after a change point, or null for single-run slowdowns
+     */
+    public String getCommit() {
+        return commit;
+    }
+    
+    @Override
+    public String toString() {
+        String change = baseline == 0 ? String.format(Locale.ROOT, "%+.3f", current - baseline)
+                : String.format(Locale.ROOT, "%+.1f%%", getChange() * 100);
+        String text = String.format(Locale.ROOT, "%s %s %.3f -> %.3f (%s)", metric, kind, baseline, current, change);
+        return commit == null ? text : text + " since " + commit;
+    }
+}
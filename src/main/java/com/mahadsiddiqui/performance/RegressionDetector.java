@@ -0,0 +1,209 @@
+package com.mahadsiddiqui.performance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Flags metrics that got slower than their history; judged metrics are treated as lower-is-better
+ * A run is a slowdown when it exceeds the median of the last runs by the relative threshold, by a multiple of
+ * the median absolute deviation and by the metric's minimum delta, so ordinary noise and near-zero baselines
+ * never trip it. Gradual drift is caught by a change point in the per-commit medians that is still within the
+ * window. Runs before an accepted commit are ignored, which ends reports of an intended change.
+ */
+public class RegressionDetector {
+    
+    private static final double MAD_TO_SIGMA = 1.4826;
+    private static final double CHANGE_POINT_SCORE = 4.0;
+    private static final int MIN_SEGMENT = 2;
+    
+    private final int window;
+    private final int minRuns;
+    private final double threshold;
+    private final double madFactor;
+    private final Map<String, Double> minDeltas;
+    private final Set<String> excluded;
+    private final Set<String> accepted;
+    
+    public RegressionDetector(int window, int minRuns, double threshold, double madFactor) {
+        this(window, minRuns, threshold, madFactor, Collections.emptyMap(), Collections.emptySet(),
+                Collections.emptySet());
+    }
+    
+    /**
+     * Create a detector with per-metric minimum deltas and excluded metrics, keyed by the metric name after the
+     * page or command prefix (lcp, cls, p50), and the commits accepted as a new baseline
+     */
+    public RegressionDetector(int window, int minRuns, double threshold, double madFactor,
+                              Map<String, Double> minDeltas, Set<String> excluded, Set<String> accepted) {
+        this.window = window;
+        this.minRuns = minRuns;
+        this.threshold = threshold;
+        this.madFactor = madFactor;
+        this.minDeltas = new HashMap<>(minDeltas);
+        this.excluded = new HashSet<>(excluded);
+        this.accepted = new HashSet<>(accepted);
+    }
+    
+    /**
+     * Compare a run's metrics with the earlier runs of the same test and browser
+     */
+    public List<Regression> detect(List<HistorySample> history, Map<String, Double> current, String commit) {
+        List<Regression> regressions = new ArrayList<>();
+        history = sinceAccepted(history, commit);
+        for (Map.Entry<String, Double> metric : current.entrySet()) {
+            if (excluded.contains(baseName(metric.getKey()))) {
+                continue;
+            }
+            List<Double> previous = new ArrayList<>();
+            for (HistorySample sample : history) {
+                if (sample.get(metric.getKey()) != null) {
+                    previous.add(sample.get(metric.getKey()));
+                }
+            }
+            Regression regression = slowdown(metric.getKey(), previous, metric.getValue());
+            if (regression == null) {
+                regression = changePoint(metric.getKey(), history, metric.getValue(), commit);
+            }
+            if (regression != null) {
+                regressions.add(regression);
+            }
+        }
+        return regressions;
+    }
+    
+    /**
+     * Check one value against the median and spread of the last window of earlier values
+     */
+    public Regression slowdown(String metric, List<Double> previous, double current) {
+        if (previous.size() < Math.max(1, minRuns)) {
+            return null;
+        }
+        List<Double> recent = previous.subList(Math.max(0, previous.size() - window), previous.size());
+        double baseline = median(recent);
+        List<Double> deviations = new ArrayList<>();
+        for (double value : recent) {
+            deviations.add(Math.abs(value - baseline));
+        }
+        double noise = median(deviations) * MAD_TO_SIGMA;
+        if (current > baseline * (1 + threshold)
+                && current - baseline > Math.max(madFactor * noise, minDelta(metric))) {
+            return new Regression(metric, Regression.Kind.SLOWDOWN, baseline, current, null);
+        }
+        return null;
+    }
+    
+    /**
+     * Find the commit where the per-commit medians of a metric stepped up, if it is recent
+     */
+    private Regression changePoint(String metric, List<HistorySample> history, double current, String commit) {
+        Map<String, List<Double>> byCommit = new LinkedHashMap<>();
+        for (HistorySample sample : history) {
+            Double value = sample.get(metric);
+            if (value != null) {
+                byCommit.computeIfAbsent(sample.getCommit(), key -> new ArrayList<>()).add(value);
+            }
+        }
+        byCommit.computeIfAbsent(commit, key -> new ArrayList<>()).add(current);
+        if (byCommit.size() < 2 * MIN_SEGMENT) {
+            return null;
+        }
+        List<String> commits = new ArrayList<>(byCommit.keySet());
+        List<Double> medians = new ArrayList<>();
+        for (List<Double> values : byCommit.values()) {
+            medians.add(median(values));
+        }
+        int split = changePoint(medians);
+        // Old shifts are the new normal once they leave the window
+        if (split < 0 || medians.size() - split > window) {
+            return null;
+        }
+        double before = mean(medians.subList(0, split));
+        double after = mean(medians.subList(split, medians.size()));
+        if (after <= before * (1 + threshold) || after - before <= minDelta(metric)) {
+            return null;
+        }
+        return new Regression(metric, Regression.Kind.CHANGE_POINT, before, after, commits.get(split));
+    }
+    
+    /**
+     * Drop runs before the latest accepted commit, so its level becomes the baseline
+     */
+    private List<HistorySample> sinceAccepted(List<HistorySample> history, String commit) {
+        String baseline = accepted.contains(commit) ? commit : null;
+        for (int i = history.size() - 1; baseline == null && i >= 0; i--) {
+            if (accepted.contains(history.get(i).getCommit())) {
+                baseline = history.get(i).getCommit();
+            }
+        }
+        if (baseline == null) {
+            return history;
+        }
+        for (int i = 0; i < history.size(); i++) {
+            if (baseline.equals(history.get(i).getCommit())) {
+                return history.subList(i, history.size());
+            }
+        }
+        // The accepted commit is the current one and has no earlier runs yet
+        return Collections.emptyList();
+    }
+    
+    private double minDelta(String metric) {
+        return minDeltas.getOrDefault(baseName(metric), 0.0);
+    }
+    
+    private static String baseName(String metric) {
+        return metric.substring(metric.lastIndexOf('.') + 1);
+    }
+    
+    /**
+     * Get the index that best splits a series into a lower and a higher segment, or -1 if no split
+     * separates them clearly
+     */
+    public static int changePoint(List<Double> series) {
+        int best = -1;
+        double bestScore = CHANGE_POINT_SCORE;
+        for (int split = MIN_SEGMENT; split <= series.size() - MIN_SEGMENT; split++) {
+            List<Double> left = series.subList(0, split);
+            List<Double> right = series.subList(split, series.size());
+            double leftMean = mean(left);
+            double rightMean = mean(right);
+            double squares = 0;
+            for (double value : left) {
+                squares += (value - leftMean) * (value - leftMean);
+            }
+            for (double value : right) {
+                squares += (value - rightMean) * (value - rightMean);
+            }
+            double sigma = Math.sqrt(squares / Math.max(1, series.size() - 2));
+            // Identical values would make any step infinitely significant
+            sigma = Math.max(sigma, Math.abs(leftMean) * 0.01 + 1e-9);
+            double score = (rightMean - leftMean) / (sigma * Math.sqrt(1.0 / left.size() + 1.0 / right.size()));
+            if (score > bestScore) {
+                bestScore = score;
+                best = split;
+            }
+        }
+        return best;
+    }
+    
+    static double median(List<Double> values) {
+        List<Double> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        int middle = sorted.size() / 2;
+        return sorted.size() % 2 == 1 ? sorted.get(middle) : (sorted.get(middle - 1) + sorted.get(middle)) / 2;
+    }
+    
+    private static double mean(List<Double> values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return sum / values.size();
+    }
+}
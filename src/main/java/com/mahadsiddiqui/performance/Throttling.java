@@ -0,0 +1,86 @@
+package com.mahadsiddiqui.performance;
+
+import com.mahadsiddiqui.drivers.DevToolsSession;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Applies throttling profiles to sessions through DevTools network and CPU emulation
+ * Conditions stay on a session until another profile is applied, so pooled sessions are re-applied per page object
+ */
+public final class Throttling {
+    
+    private static final Logger LOG = LoggerFactory.getLogger(Throttling.class);
+    private static final Map<WebDriver, ThrottlingProfile> APPLIED = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final ThreadLocal<String> SELECTED = new ThreadLocal<>();
+    
+    private Throttling() {
+    }
+    
+    /**
+     * Emulate a profile's conditions on a session, returning false if the browser cannot emulate them
+     */
+    public static boolean apply(WebDriver driver, ThrottlingProfile profile) {
+        ThrottlingProfile current = current(driver);
+        if (current.sameConditions(profile)) {
+            APPLIED.put(driver, profile);
+            return true;
+        }
+        if (!DevToolsSession.isSupported(driver)) {
+            LOG.info("Throttling needs DevTools; {} runs unthrottled instead of {}",
+                    driver.getClass().getSimpleName(), profile.getName());
+            return false;
+        }
+        try {
+            Map<String, Object> conditions = new LinkedHashMap<>();
+            conditions.put("offline", false);
+            conditions.put("latency", profile.getLatencyMillis());
+            conditions.put("downloadThroughput", profile.getDownloadBytesPerSecond());
+            conditions.put("uploadThroughput", profile.getUploadBytesPerSecond());
+            DevToolsSession.send(driver, "Network.enable");
+            DevToolsSession.send(driver, "Network.emulateNetworkConditions", conditions);
+            DevToolsSession.send(driver, "Emulation.setCPUThrottlingRate",
+                    Collections.singletonMap("rate", profile.getCpuSlowdown()));
+            APPLIED.put(driver, profile);
+            return true;
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to apply throttling profile {}: {}", profile.getName(), e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Get the profile applied to a session, NONE if it was never throttled
+     */
+    public static ThrottlingProfile current(WebDriver driver) {
+        ThrottlingProfile profile = APPLIED.get(driver);
+        return profile == null ? ThrottlingProfile.NONE : profile;
+    }
+    
+    /**
+     * Check if a session's network is emulated; answering its requests from a local cache would bypass that
+     */
+    public static boolean isNetworkThrottled(WebDriver driver) {
+        return current(driver).isNetworkThrottled();
+    }
+    
+    /**
+     * Select a profile name for page objects created on the current thread, or null to use the configured one
+     */
+    public static void select(String profileName) {
+        SELECTED.set(profileName);
+    }
+    
+    /**
+     * Get the profile name selected on the current thread, or null if none was selected
+     */
+    public static String getSelected() {
+        return SELECTED.get();
+    }
+}
@@ -0,0 +1,206 @@
+package com.mahadsiddiqui.performance;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Named network and CPU conditions a session is emulated under
+ * Built-in network profiles match the Chrome DevTools presets; names joined with '+' combine profiles,
+ * e.g. "fast-4g+cpu-4x"
+ */
+public class ThrottlingProfile {
+    
+    public static final ThrottlingProfile NONE = new ThrottlingProfile("none", -1, -1, 0, 1);
+    
+    private static final Map<String, ThrottlingProfile> BUILT_IN = new LinkedHashMap<>();
+    
+    static {
+        register(NONE);
+        register(network("slow-3g", 400, 400, 2000));
+        register(network("fast-3g", 1440, 675, 562.5));
+        register(network("slow-4g", 1440, 675, 562.5));
+        register(network("fast-4g", 8100, 1350, 165));
+        register(new ThrottlingProfile("cpu-2x", -1, -1, 0, 2));
+        register(new ThrottlingProfile("cpu-4x", -1, -1, 0, 4));
+        register(new ThrottlingProfile("cpu-6x", -1, -1, 0, 6));
+        // Lighthouse mobile defaults
+        register(new ThrottlingProfile("mobile", 180_000, 84_375, 562.5, 4));
+    }
+    
+    private final String name;
+    private final long downloadBytesPerSecond;
+    private final long uploadBytesPerSecond;
+    private final double latencyMillis;
+    private final double cpuSlowdown;
+    
+    /**
+     * Create a profile; throughput of -1 means unlimited and a CPU slowdown of 1 means full speed
+     */
+    public ThrottlingProfile(String name, long downloadBytesPerSecond, long uploadBytesPerSecond,
+                             double latencyMillis, double cpuSlowdown) {
+        this.name = name;
+        this.downloadBytesPerSecond = downloadBytesPerSecond;
+        this.uploadBytesPerSecond = uploadBytesPerSecond;
+        this.latencyMillis = latencyMillis;
+        this.cpuSlowdown = cpuSlowdown;
+    }
+    
+    private static ThrottlingProfile network(String name, double downloadKbps, double uploadKbps,
+                                             double latencyMillis) {
+        return new ThrottlingProfile(name, bytesPerSecond(downloadKbps), bytesPerSecond(uploadKbps),
+                latencyMillis, 1);
+    }
+    
+    private static void register(ThrottlingProfile profile) {
+        BUILT_IN.put(profile.getName(), profile);
+    }
+    
+    /**
+     * Get the built-in profiles by name
+     */
+    public static Map<String, ThrottlingProfile> builtIn() {
+        return Collections.unmodifiableMap(BUILT_IN);
+    }
+    
+    /**
+     * Resolve a profile name; each '+'-separated part is looked up in custom definitions first, then built-ins
+     * Custom definitions are written "download=&lt;kbit/s&gt;, upload=&lt;kbit/s&gt;, latency=&lt;ms&gt;,
+     * cpu=&lt;slowdown&gt;"
+     */
+    public static ThrottlingProfile resolve(String name, Function<String, String> customDefinitions) {
+        if (name == null || name.trim().isEmpty()) {
+            return NONE;
+        }
+        ThrottlingProfile resolved = null;
+        for (String part : name.trim().toLowerCase(Locale.ROOT).split("\\+")) {
+            String custom = customDefinitions.apply(part.trim());
+            ThrottlingProfile profile = custom != null && !custom.trim().isEmpty()
+                    ? parse(part.trim(), custom) : BUILT_IN.get(part.trim());
+            if (profile == null) {
+                throw new IllegalArgumentException("Unknown throttling profile '" + part.trim() + "', expected one of "
+                        + BUILT_IN.keySet() + " or a throttling.profiles." + part.trim() + " definition");
+            }
+            resolved = resolved == null ? profile : resolved.combine(profile);
+        }
+        return resolved;
+    }
+    
+    /**
+     * Parse a custom profile definition; omitted settings are not throttled
+     */
+    public static ThrottlingProfile parse(String name, String definition) {
+        long download = -1;
+        long upload = -1;
+        double latency = 0;
+        double cpu = 1;
+        for (String setting : definition.split(",")) {
+            String[] pair = setting.trim().split("=", 2);
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Invalid throttling setting '" + setting.trim() + "' in: "
+                        + definition);
+            }
+            double value = Double.parseDouble(pair[1].trim());
+            switch (pair[0].trim().toLowerCase(Locale.ROOT)) {
+                case "download":
+                    download = bytesPerSecond(value);
+                    break;
+                case "upload":
+                    upload = bytesPerSecond(value);
+                    break;
+                case "latency":
+                    latency = value;
+                    break;
+                case "cpu":
+                    cpu = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown throttling setting '" + pair[0].trim() + "' in: "
+                            + definition);
+            }
+        }
+        return new ThrottlingProfile(name, download, upload, latency, cpu);
+    }
+    
+    /**
+     * Combine with another profile; its network conditions win where set and CPU slowdowns multiply
+     */
+    public ThrottlingProfile combine(ThrottlingProfile other) {
+        boolean otherNetwork = other.isNetworkThrottled();
+        return new ThrottlingProfile(name + "+" + other.name,
+                otherNetwork ? other.downloadBytesPerSecond : downloadBytesPerSecond,
+                otherNetwork ? other.uploadBytesPerSecond : uploadBytesPerSecond,
+                otherNetwork ? other.latencyMillis : latencyMillis,
+                cpuSlowdown * other.cpuSlowdown);
+    }
+    
+    private static long bytesPerSecond(double kbps) {
+        return Math.round(kbps * 1000 / 8);
+    }
+    
+    /**
+     * Get the profile name
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Get the download throughput in bytes per second, or -1 if unlimited
+     */
+    public long getDownloadBytesPerSecond() {
+        return downloadBytesPerSecond;
+    }
+    
+    /**
+     * Get the upload throughput in bytes per second, or -1 if unlimited
+     */
+    public long getUploadBytesPerSecond() {
+        return uploadBytesPerSecond;
+    }
+    
+    /**
+     * Get the added round-trip latency
+     */
+    public double getLatencyMillis() {
+        return latencyMillis;
+    }
+    
+    /**
+     * Get the CPU slowdown factor, 1 for full speed
+     */
+    public double getCpuSlowdown() {
+        return cpuSlowdown;
+    }
+    
+    /**
+     * Check if network conditions are emulated
+     */
+    public boolean isNetworkThrottled() {
+        return downloadBytesPerSecond >= 0 || uploadBytesPerSecond >= 0 || latencyMillis > 0;
+    }
+    
+    /**
+     * Check if the CPU is slowed down
+     */
+    public boolean isCpuThrottled() {
+        return cpuSlowdown > 1;
+    }
+    
+    /**
+     * Check if this profile emulates the same conditions as another
+     */
+    public boolean sameConditions(ThrottlingProfile other) {
+        return downloadBytesPerSecond == other.downloadBytesPerSecond
+                && uploadBytesPerSecond == other.uploadBytesPerSecond
+                && latencyMillis == other.latencyMillis && cpuSlowdown == other.cpuSlowdown;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%s{download=%dB/s, upload=%dB/s, latency=%.1fms, cpu=%.1fx}", name,
+                downloadBytesPerSecond, uploadBytesPerSecond, latencyMillis, cpuSlowdown);
+    }
+}
@@ -0,0 +1,76 @@
+package com.mahadsiddiqui.screenshots;
+
+import com.mahadsiddiqui.drivers.DevToolsSession;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.firefox.HasFullPageScreenshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Screenshot capture using the cheapest full-page mechanism of the browser
+ * Returns the browser's own base64 PNG so no decoding or re-encoding happens on the test thread
+ */
+public final class ScreenshotCapture {
+    
+    private static final Logger LOG = LoggerFactory.getLogger(ScreenshotCapture.class);
+    
+    private ScreenshotCapture() {
+    }
+    
+    /**
+     * Capture the page as base64 PNG, the whole document when fullPage is set and the browser supports it
+     */
+    public static String capture(WebDriver driver, boolean fullPage) {
+        if (fullPage && DevToolsSession.isSupported(driver)) {
+            try {
+                return captureWithDevTools(driver);
+            } catch (WebDriverException | UnsupportedOperationException e) {
+                LOG.debug("DevTools screenshot failed, using viewport capture: {}", e.getMessage());
+            }
+        }
+        if (fullPage && driver instanceof HasFullPageScreenshot) {
+            return ((HasFullPageScreenshot) driver).getFullPageScreenshotAs(OutputType.BASE64);
+        }
+        return ((TakesScreenshot) driver).getScreenshotAs(OutputType.BASE64);
+    }
+    
+    /**
+     * Capture the viewport as a base64 JPEG over DevTools, much smaller than a PNG for step trails
+     */
+    public static String captureViewportJpeg(WebDriver driver, int quality) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("format", "jpeg");
+        params.put("quality", quality);
+        return (String) DevToolsSession.send(driver, "Page.captureScreenshot", params).get("data");
+    }
+    
+    /**
+     * Capture the full document in one Page.captureScreenshot call instead of scrolling and stitching
+     */
+    @SuppressWarnings("unchecked")
+    private static String captureWithDevTools(WebDriver driver) {
+        Map<String, Object> metrics = DevToolsSession.send(driver, "Page.getLayoutMetrics");
+        Object contentSize = metrics.containsKey("cssContentSize")
+                ? metrics.get("cssContentSize") : metrics.get("contentSize");
+        Map<String, Object> size = (Map<String, Object>) contentSize;
+        
+        Map<String, Object> clip = new HashMap<>();
+        clip.put("x", 0);
+        clip.put("y", 0);
+        clip.put("width", ((Number) size.get("width")).doubleValue());
+        clip.put("height", ((Number) size.get("height")).doubleValue());
+        clip.put("scale", 1);
+        
+        Map<String, Object> params = new HashMap<>();
+        params.put("format", "png");
+        params.put("captureBeyondViewport", true);
+        params.put("clip", clip);
+        return (String) DevToolsSession.send(driver, "Page.captureScreenshot", params).get("data");
+    }
+}
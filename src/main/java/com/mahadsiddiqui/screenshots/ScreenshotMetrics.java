@@ -0,0 +1,129 @@
+package com.mahadsiddiqui.screenshots;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for the screenshot pipeline
+ * Tracks capture time on the test thread, write time in the background and writer queue depth
+ */
+public class ScreenshotMetrics {
+    
+    private final LongAdder captures = new LongAdder();
+    private final LongAdder captureMillis = new LongAdder();
+    private final LongAccumulator maxCaptureMillis = new LongAccumulator(Math::max, 0);
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder writeMillis = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder callerRuns = new LongAdder();
+    private final LongAccumulator maxQueueDepth = new LongAccumulator(Math::max, 0);
+    
+    void recordCapture(long millis) {
+        captures.increment();
+        captureMillis.add(millis);
+        maxCaptureMillis.accumulate(millis);
+    }
+    
+    void recordWrite(long millis) {
+        writes.increment();
+        writeMillis.add(millis);
+    }
+    
+    void recordFailure() {
+        failures.increment();
+    }
+    
+    void recordCallerRuns() {
+        callerRuns.increment();
+    }
+    
+    void recordQueueDepth(int depth) {
+        maxQueueDepth.accumulate(depth);
+    }
+    
+    /**
+     * Get number of screenshots captured
+     */
+    public long getCaptureCount() {
+        return captures.sum();
+    }
+    
+    /**
+     * Get mean time the test thread spent capturing
+     */
+    public long getMeanCaptureMillis() {
+        long count = captures.sum();
+        return count == 0 ? 0 : captureMillis.sum() / count;
+    }
+    
+    /**
+     * Get longest single capture
+     */
+    public long getMaxCaptureMillis() {
+        return maxCaptureMillis.get();
+    }
+    
+    /**
+     * Get number of screenshots written to disk
+     */
+    public long getWriteCount() {
+        return writes.sum();
+    }
+    
+    /**
+     * Get mean background decode and write time
+     */
+    public long getMeanWriteMillis() {
+        long count = writes.sum();
+        return count == 0 ? 0 : writeMillis.sum() / count;
+    }
+    
+    /**
+     * Get number of writes that failed
+     */
+    public long getFailureCount() {
+        return failures.sum();
+    }
+    
+    /**
+     * Get number of writes run on the test thread because the queue was full
+     */
+    public long getCallerRunsCount() {
+        return callerRuns.sum();
+    }
+    
+    /**
+     * Get deepest writer queue seen
+     */
+    public long getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+    
+    /**
+     * Get counters for export, by metric name
+     */
+    public Map<String, Number> getStats() {
+        Map<String, Number> stats = new LinkedHashMap<>();
+        stats.put("captured", getCaptureCount());
+        stats.put("capture_ms_mean", getMeanCaptureMillis());
+        stats.put("capture_ms_max", getMaxCaptureMillis());
+        stats.put("written", getWriteCount());
+        stats.put("write_ms_mean", getMeanWriteMillis());
+        stats.put("failed", getFailureCount());
+        stats.put("queue_depth_max", getMaxQueueDepth());
+        stats.put("caller_runs", getCallerRunsCount());
+        return stats;
+    }
+    
+    /**
+     * Get a summary for the suite log
+     */
+    public String summary() {
+        return String.format("Screenshots: captured=%d meanCaptureMs=%d maxCaptureMs=%d written=%d meanWriteMs=%d "
+                        + "failed=%d maxQueueDepth=%d callerRuns=%d",
+                getCaptureCount(), getMeanCaptureMillis(), getMaxCaptureMillis(), getWriteCount(),
+                getMeanWriteMillis(), getFailureCount(), getMaxQueueDepth(), getCallerRunsCount());
+    }
+}
@@ -0,0 +1,180 @@
+package com.mahadsiddiqui.screenshots;
+
+import com.mahadsiddiqui.artifacts.ArtifactStore;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Captures screenshots on the calling thread and writes them in the background
+ * The writer queue is bounded; when it is full the caller writes its own screenshot, which throttles capture
+ */
+public class ScreenshotPipeline {
+    
+    private static final Logger LOG = LoggerFactory.getLogger(ScreenshotPipeline.class);
+    
+    private final ThreadPoolExecutor writers;
+    private final ScreenshotMetrics metrics = new ScreenshotMetrics();
+    
+    public ScreenshotPipeline(int writerThreads, int queueCapacity) {
+        if (writerThreads < 1) {
+            throw new IllegalArgumentException("Screenshot writer threads must be at least 1: " + writerThreads);
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Screenshot queue capacity must be at least 1: " + queueCapacity);
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        this.writers = new ThreadPoolExecutor(writerThreads, writerThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "screenshot-writer-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, (runnable, executor) -> {
+                    if (executor.isShutdown()) {
+                        throw new RejectedExecutionException("Screenshot pipeline has been shut down");
+                    }
+                    metrics.recordCallerRuns();
+                    runnable.run();
+                });
+    }
+    
+    /**
+     * Capture a screenshot and queue it for writing, returning the file once it is on disk
+     */
+    public CompletableFuture<Path> capture(WebDriver driver, boolean fullPage, Path destination) {
+        String base64;
+        try {
+            base64 = captureTimed(driver, fullPage);
+        } catch (RuntimeException e) {
+            return failed(e);
+        }
+        return write(base64, destination);
+    }
+    
+    /**
+     * Capture a screenshot and queue it for the artifact store, returning its content key once stored
+     */
+    public CompletableFuture<String> capture(WebDriver driver, boolean fullPage, ArtifactStore store,
+                                             String runId, String name) {
+        String base64;
+        try {
+            base64 = captureTimed(driver, fullPage);
+        } catch (RuntimeException e) {
+            return failed(e);
+        }
+        return store(base64, store, runId, name);
+    }
+    
+    /**
+     * Queue an already captured base64 PNG for the artifact store under a name of the run
+     */
+    public CompletableFuture<String> store(String base64, ArtifactStore store, String runId, String name) {
+        return submit(() -> {
+            long start = System.nanoTime();
+            try {
+                String key = store.put(Base64.getMimeDecoder().decode(base64));
+                store.record(runId, name, key);
+                metrics.recordWrite((System.nanoTime() - start) / 1_000_000);
+                return key;
+            } catch (IOException e) {
+                metrics.recordFailure();
+                throw new UncheckedIOException("Failed to store screenshot " + name, e);
+            }
+        });
+    }
+    
+    private String captureTimed(WebDriver driver, boolean fullPage) {
+        long start = System.nanoTime();
+        try {
+            String base64 = ScreenshotCapture.capture(driver, fullPage);
+            metrics.recordCapture((System.nanoTime() - start) / 1_000_000);
+            return base64;
+        } catch (RuntimeException e) {
+            metrics.recordFailure();
+            throw e;
+        }
+    }
+    
+    private static <T> CompletableFuture<T> failed(Throwable error) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(error);
+        return future;
+    }
+    
+    /**
+     * Queue an already captured base64 PNG for writing
+     */
+    public CompletableFuture<Path> write(String base64, Path destination) {
+        return submit(() -> {
+            long start = System.nanoTime();
+            try {
+                Path parent = destination.toAbsolutePath().getParent();
+                if (parent != null) {
+                    Files.createDirectories(parent);
+                }
+                Files.write(destination, Base64.getMimeDecoder().decode(base64));
+                metrics.recordWrite((System.nanoTime() - start) / 1_000_000);
+                return destination;
+            } catch (IOException e) {
+                metrics.recordFailure();
+                throw new UncheckedIOException("Failed to write screenshot " + destination, e);
+            }
+        });
+    }
+    
+    /**
+     * Queue a write, failing the returned future rather than leaving it pending once the pipeline is shut down
+     */
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        CompletableFuture<T> future;
+        try {
+            future = CompletableFuture.supplyAsync(task, writers);
+        } catch (RejectedExecutionException e) {
+            metrics.recordFailure();
+            return failed(e);
+        }
+        metrics.recordQueueDepth(writers.getQueue().size());
+        return future;
+    }
+    
+    /**
+     * Get the number of screenshots waiting to be written
+     */
+    public int getQueueDepth() {
+        return writers.getQueue().size();
+    }
+    
+    /**
+     * Get pipeline metrics
+     */
+    public ScreenshotMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Finish pending writes and stop the writer threads
+     */
+    public void shutdown(long timeoutSeconds) {
+        writers.shutdown();
+        try {
+            if (!writers.awaitTermination(timeoutSeconds, TimeUnit.SECONDS)) {
+                LOG.warn("Screenshot writers did not finish within {} seconds", timeoutSeconds);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
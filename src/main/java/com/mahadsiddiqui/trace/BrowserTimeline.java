@@ -0,0 +1,190 @@
+package com.mahadsiddiqui.trace;
+
+import com.mahadsiddiqui.drivers.DevToolsSession;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Browser-side events for test timelines
+ * Network requests come from DevTools events and long tasks from an in-page PerformanceObserver,
+ * both converted to epoch microseconds to share the test clock
+ */
+final class BrowserTimeline {
+    
+    private static final Logger LOG = LoggerFactory.getLogger(BrowserTimeline.class);
+    private static final Map<WebDriver, BrowserTimeline> TIMELINES = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final String LONG_TASK_OBSERVER = "(function () {"
+            + "  if (window.__wtaLongTasks || !window.PerformanceObserver) { return; }"
+            + "  window.__wtaLongTasks = [];"
+            + "  try {"
+            + "    new PerformanceObserver(function (list) {"
+            + "      list.getEntries().forEach(function (e) {"
+            + "        window.__wtaLongTasks.push([performance.timeOrigin + e.startTime, e.duration, e.name]);"
+            + "      });"
+            + "    }).observe({type: 'longtask', buffered: true});"
+            + "  } catch (e) {}"
+            + "})();";
+    private static final String COLLECT_LONG_TASKS =
+            "var tasks = window.__wtaLongTasks || []; if (window.__wtaLongTasks) { window.__wtaLongTasks = []; }"
+            + "return tasks;";
+    
+    private final Map<Object, Request> requests = new ConcurrentHashMap<>();
+    private volatile TestTrace trace;
+    private volatile Object observerScript;
+    
+    private BrowserTimeline() {
+    }
+    
+    /**
+     * Route a session's browser events into a test trace
+     */
+    static void attach(WebDriver driver, TestTrace trace) {
+        if (!DevToolsSession.isSupported(driver)) {
+            return;
+        }
+        BrowserTimeline timeline;
+        synchronized (TIMELINES) {
+            timeline = TIMELINES.get(driver);
+            if (timeline == null) {
+                timeline = new BrowserTimeline();
+                try {
+                    timeline.listen(driver);
+                } catch (RuntimeException e) {
+                    LOG.debug("Browser timeline unavailable: {}", e.getMessage());
+                }
+                TIMELINES.put(driver, timeline);
+            }
+        }
+        timeline.requests.clear();
+        timeline.trace = trace;
+        timeline.installObserver(driver);
+        try {
+            ((JavascriptExecutor) driver).executeScript(LONG_TASK_OBSERVER);
+        } catch (RuntimeException e) {
+            // No document yet; the new-document script installs the observer on the first navigation
+        }
+    }
+    
+    /**
+     * Add the long tasks of the current document and stop routing events to the trace
+     * The long task observer is no longer installed in new documents, so a reused session runs untraced
+     */
+    @SuppressWarnings("unchecked")
+    static void collect(WebDriver driver, TestTrace trace) {
+        BrowserTimeline timeline = TIMELINES.get(driver);
+        if (timeline == null) {
+            return;
+        }
+        timeline.trace = null;
+        timeline.removeObserver(driver);
+        try {
+            Object tasks = ((JavascriptExecutor) driver).executeScript(COLLECT_LONG_TASKS);
+            for (Object entry : (List<Object>) tasks) {
+                List<Object> task = (List<Object>) entry;
+                long start = (long) (((Number) task.get(0)).doubleValue() * 1000);
+                long duration = (long) (((Number) task.get(1)).doubleValue() * 1000);
+                trace.complete("Long task", "longtask", start, duration, TestTrace.RENDERER_TID,
+                        Collections.singletonMap("attribution", task.get(2)));
+            }
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to collect long tasks: {}", e.getMessage());
+        }
+    }
+    
+    private void listen(WebDriver driver) {
+        DevToolsSession.addListener(driver, "Network.requestWillBeSent", this::requestStarted);
+        DevToolsSession.addListener(driver, "Network.loadingFinished", event -> requestEnded(event, null));
+        DevToolsSession.addListener(driver, "Network.loadingFailed",
+                event -> requestEnded(event, String.valueOf(event.get("errorText"))));
+        DevToolsSession.send(driver, "Network.enable");
+    }
+    
+    /**
+     * Install the long task observer in every new document until the test finishes
+     */
+    private void installObserver(WebDriver driver) {
+        if (observerScript != null) {
+            return;
+        }
+        try {
+            observerScript = DevToolsSession.send(driver, "Page.addScriptToEvaluateOnNewDocument",
+                    Collections.singletonMap("source", LONG_TASK_OBSERVER)).get("identifier");
+        } catch (RuntimeException e) {
+            LOG.debug("Long task observer unavailable: {}", e.getMessage());
+        }
+    }
+    
+    private void removeObserver(WebDriver driver) {
+        Object identifier = observerScript;
+        if (identifier == null) {
+            return;
+        }
+        observerScript = null;
+        try {
+            DevToolsSession.send(driver, "Page.removeScriptToEvaluateOnNewDocument",
+                    Collections.singletonMap("identifier", identifier));
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to remove long task observer: {}", e.getMessage());
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private void requestStarted(Map<String, Object> event) {
+        if (trace == null) {
+            return;
+        }
+        Map<String, Object> request = (Map<String, Object>) event.get("request");
+        double timestamp = ((Number) event.get("timestamp")).doubleValue();
+        double wallTime = ((Number) event.get("wallTime")).doubleValue();
+        // DevTools timestamps are monotonic seconds; wallTime anchors this request to the epoch
+        requests.put(event.get("requestId"), new Request(String.valueOf(request.get("method")),
+                String.valueOf(request.get("url")), timestamp, wallTime - timestamp));
+    }
+    
+    private void requestEnded(Map<String, Object> event, String error) {
+        TestTrace current = trace;
+        Request request = requests.remove(event.get("requestId"));
+        if (current == null || request == null) {
+            return;
+        }
+        double end = ((Number) event.get("timestamp")).doubleValue();
+        Map<String, Object> args = new LinkedHashMap<>();
+        args.put("url", request.url);
+        if (error != null) {
+            args.put("error", error);
+        } else if (event.get("encodedDataLength") instanceof Number) {
+            args.put("bytes", ((Number) event.get("encodedDataLength")).longValue());
+        }
+        String url = request.url.length() > 120 ? request.url.substring(0, 120) + "..." : request.url;
+        current.async(request.method + " " + url, "network", String.valueOf(event.get("requestId")),
+                (long) ((request.timestamp + request.clockOffset) * 1_000_000),
+                (long) ((end + request.clockOffset) * 1_000_000), args);
+    }
+    
+    /**
+     * Request in flight with its start time and clock offset
+     */
+    private static final class Request {
+        
+        private final String method;
+        private final String url;
+        private final double timestamp;
+        private final double clockOffset;
+        
+        private Request(String method, String url, double timestamp, double clockOffset) {
+            this.method = method;
+            this.url = url;
+            this.timestamp = timestamp;
+            this.clockOffset = clockOffset;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.mahadsiddiqui.trace;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Events of one test in Chrome Trace Event Format
+ * Timestamps are microseconds since the epoch so browser events line up with test-side events
+ */
+public class TestTrace {
+    
+    static final int PID = 1;
+    static final long NETWORK_TID = 1_000_000;
+    static final long RENDERER_TID = 1_000_001;
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final long EPOCH_MICROS = System.currentTimeMillis() * 1000;
+    private static final long EPOCH_NANOS = System.nanoTime();
+    
+    private final String name;
+    private final long startMicros;
+    private final List<Map<String, Object>> events = Collections.synchronizedList(new ArrayList<>());
+    
+    TestTrace(String name) {
+        this.name = name;
+        this.startMicros = nowMicros();
+    }
+    
+    /**
+     * Get the current time on the trace clock: wall-clock anchored, monotonic afterwards
+     */
+    public static long nowMicros() {
+        return toMicros(System.nanoTime());
+    }
+    
+    /**
+     * Convert a System.nanoTime reading to the trace clock
+     */
+    public static long toMicros(long nanoTime) {
+        return EPOCH_MICROS + (nanoTime - EPOCH_NANOS) / 1000;
+    }
+    
+    /**
+     * Add a complete event
+     */
+    void complete(String eventName, String category, long timestampMicros, long durationMicros, long threadId) {
+        complete(eventName, category, timestampMicros, durationMicros, threadId, null);
+    }
+    
+    /**
+     * Add a complete event with arguments shown in the viewer's detail pane
+     */
+    void complete(String eventName, String category, long timestampMicros, long durationMicros, long threadId,
+                  Map<String, Object> args) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("name", eventName);
+        event.put("cat", category);
+        event.put("ph", "X");
+        event.put("ts", timestampMicros);
+        event.put("dur", Math.max(0, durationMicros));
+        event.put("pid", PID);
+        event.put("tid", threadId);
+        if (args != null) {
+            event.put("args", args);
+        }
+        events.add(event);
+    }
+    
+    /**
+     * Add an async event pair, for work that overlaps on one track such as parallel requests
+     */
+    void async(String eventName, String category, String id, long startMicros, long endMicros,
+               Map<String, Object> args) {
+        Map<String, Object> begin = new LinkedHashMap<>();
+        begin.put("name", eventName);
+        begin.put("cat", category);
+        begin.put("ph", "b");
+        begin.put("id", id);
+        begin.put("ts", startMicros);
+        begin.put("pid", PID);
+        begin.put("tid", NETWORK_TID);
+        begin.put("args", args);
+        Map<String, Object> end = new LinkedHashMap<>(begin);
+        end.put("ph", "e");
+        end.put("ts", Math.max(startMicros, endMicros));
+        end.remove("args");
+        events.add(begin);
+        events.add(end);
+    }
+    
+    /**
+     * Write the trace with the test itself as the outermost event
+     */
+    Path write(Path file, long testThreadId) throws IOException {
+        complete(name, "test", startMicros, nowMicros() - startMicros, testThreadId);
+        List<Object> all = new ArrayList<>();
+        all.add(threadName(testThreadId, "test " + name));
+        all.add(threadName(NETWORK_TID, "browser network"));
+        all.add(threadName(RENDERER_TID, "browser main thread"));
+        synchronized (events) {
+            all.addAll(events);
+        }
+        Map<String, Object> trace = new LinkedHashMap<>();
+        trace.put("traceEvents", all);
+        trace.put("displayTimeUnit", "ms");
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        MAPPER.writeValue(file.toFile(), trace);
+        return file;
+    }
+    
+    private static Map<String, Object> threadName(long threadId, String threadName) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("name", "thread_name");
+        event.put("ph", "M");
+        event.put("pid", PID);
+        event.put("tid", threadId);
+        event.put("args", Collections.singletonMap("name", threadName));
+        return event;
+    }
+}
@@ -0,0 +1,36 @@
+package com.mahadsiddiqui.trace;
+
+/**
+ * Open span of a test timeline, recorded as a complete event when closed
+ */
+public class TraceSpan implements AutoCloseable {
+    
+    /**
+     * Span used when no trace is being recorded
+     */
+    public static final TraceSpan NONE = new TraceSpan(null, null, null, 0);
+    
+    private final TestTrace trace;
+    private final String name;
+    private final String category;
+    private final long startMicros;
+    
+    TraceSpan(TestTrace trace, String name, String category, long startMicros) {
+        this.trace = trace;
+        this.name = name;
+        this.category = category;
+        this.startMicros = startMicros;
+    }
+    
+    /**
+     * Record the span with its duration
+     */
+    @Override
+    public void close() {
+        if (trace != null) {
+            long end = TestTrace.nowMicros();
+            trace.complete(name, category, startMicros, end - startMicros, Thread.currentThread().getId());
+            Tracer.spanClosed(end);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.mahadsiddiqui.trace;
+
+import org.openqa.selenium.WebDriver;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Per-thread recorder of test timelines
+ * Nests test, page object method, page helper, WebDriver command and wait events on the test thread,
+ * with browser network and long-task events on their own tracks
+ */
+public final class Tracer {
+    
+    private static final ThreadLocal<State> STATE = new ThreadLocal<>();
+    
+    private Tracer() {
+    }
+    
+    /**
+     * Start a timeline for the test running on this thread
+     */
+    public static void startTest(String testName, WebDriver driver) {
+        TestTrace trace = new TestTrace(testName);
+        STATE.set(new State(trace));
+        if (driver != null) {
+            BrowserTimeline.attach(driver, trace);
+        }
+    }
+    
+    /**
+     * Check if a timeline is being recorded on this thread
+     */
+    public static boolean isActive() {
+        return STATE.get() != null;
+    }
+    
+    /**
+     * Open a span; close it to record it
+     */
+    public static TraceSpan span(String name, String category) {
+        State state = STATE.get();
+        if (state == null) {
+            return TraceSpan.NONE;
+        }
+        state.depth++;
+        return new TraceSpan(state.trace, name, category, TestTrace.nowMicros());
+    }
+    
+    /**
+     * Record an event that already finished, such as a timed WebDriver command
+     */
+    public static void complete(String name, String category, long startNanos, long endNanos) {
+        State state = STATE.get();
+        if (state == null) {
+            return;
+        }
+        long start = TestTrace.toMicros(startNanos);
+        state.trace.complete(name, category, start, TestTrace.toMicros(endNanos) - start,
+                Thread.currentThread().getId());
+    }
+    
+    /**
+     * Get the number of spans open on this thread
+     */
+    public static int depth() {
+        State state = STATE.get();
+        return state == null ? 0 : state.depth;
+    }
+    
+    /**
+     * Attribute the following spans to a page object method
+     * The method's event runs from its first span to the end of its last one; null ends it
+     */
+    public static void enterPageMethod(String pageMethod) {
+        State state = STATE.get();
+        if (state == null || Objects.equals(pageMethod, state.pageMethod)) {
+            return;
+        }
+        flushPageMethod(state);
+        state.pageMethod = pageMethod;
+        state.pageMethodStart = TestTrace.nowMicros();
+        state.pageMethodEnd = state.pageMethodStart;
+    }
+    
+    static void spanClosed(long endMicros) {
+        State state = STATE.get();
+        if (state == null) {
+            return;
+        }
+        state.depth--;
+        if (state.pageMethod != null) {
+            state.pageMethodEnd = endMicros;
+        }
+    }
+    
+    /**
+     * Finish the timeline of this thread's test and write it, returning the file
+     */
+    public static Path finishTest(WebDriver driver, Path file) throws IOException {
+        State state = STATE.get();
+        if (state == null) {
+            return null;
+        }
+        STATE.remove();
+        flushPageMethod(state);
+        if (driver != null) {
+            BrowserTimeline.collect(driver, state.trace);
+        }
+        return state.trace.write(file, Thread.currentThread().getId());
+    }
+    
+    private static void flushPageMethod(State state) {
+        if (state.pageMethod != null) {
+            state.trace.complete(state.pageMethod, "page", state.pageMethodStart,
+                    state.pageMethodEnd - state.pageMethodStart, Thread.currentThread().getId());
+            state.pageMethod = null;
+        }
+    }
+    
+    /**
+     * Trace and nesting state of one thread
+     */
+    private static final class State {
+        
+        private final TestTrace trace;
+        private int depth;
+        private String pageMethod;
+        private long pageMethodStart;
+        private long pageMethodEnd;
+        
+        private State(TestTrace trace) {
+            this.trace = trace;
+        }
+    }
+}
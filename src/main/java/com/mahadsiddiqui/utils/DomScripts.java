@@ -0,0 +1,78 @@
+package com.mahadsiddiqui.utils;
+
+import org.openqa.selenium.By;
+
+import java.util.Set;
+
+/**
+ * JavaScript building blocks for in-page element lookups
+ * Lets a single script resolve Selenium locators without extra WebDriver round trips
+ */
+public final class DomScripts {
+    
+    /**
+     * findAll(strategy, value) returns every element matching a locator described by {@link #describe(By)}
+     */
+    public static final String FIND_ALL_FUNCTION =
+            "function findAll(strategy, value) {"
+            + "  var list;"
+            + "  switch (strategy) {"
+            + "    case 'id': list = document.querySelectorAll('#' + CSS.escape(value)); break;"
+            + "    case 'name': list = document.querySelectorAll('[name=\"' + CSS.escape(value) + '\"]'); break;"
+            + "    case 'className': list = document.querySelectorAll('.' + CSS.escape(value)); break;"
+            + "    case 'tagName': list = document.getElementsByTagName(value); break;"
+            + "    case 'cssSelector': list = document.querySelectorAll(value); break;"
+            + "    case 'xpath':"
+            + "      var snapshot = document.evaluate(value, document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);"
+            + "      list = [];"
+            + "      for (var i = 0; i < snapshot.snapshotLength; i++) { list.push(snapshot.snapshotItem(i)); }"
+            + "      break;"
+            + "    case 'linkText':"
+            + "    case 'partialLinkText':"
+            + "      list = Array.prototype.filter.call(document.getElementsByTagName('a'), function (a) {"
+            + "        var text = (a.innerText || a.textContent || '').trim();"
+            + "        return strategy === 'linkText' ? text === value : text.indexOf(value) !== -1;"
+            + "      });"
+            + "      break;"
+            + "    default: throw new Error('Unsupported locator strategy: ' + strategy);"
+            + "  }"
+            + "  return Array.prototype.slice.call(list);"
+            + "}";
+    
+    /**
+     * isVisible(element) approximates WebElement.isDisplayed without leaving the page
+     */
+    public static final String IS_VISIBLE_FUNCTION =
+            "function isVisible(el) {"
+            + "  if (!el || !el.isConnected) { return false; }"
+            + "  for (var node = el; node && node.nodeType === 1; node = node.parentElement) {"
+            + "    var style = window.getComputedStyle(node);"
+            + "    if (style.display === 'none' || style.opacity === '0') { return false; }"
+            + "  }"
+            + "  var own = window.getComputedStyle(el);"
+            + "  if (own.visibility === 'hidden' || own.visibility === 'collapse') { return false; }"
+            + "  var rect = el.getBoundingClientRect();"
+            + "  return rect.width > 0 && rect.height > 0;"
+            + "}";
+    
+    private static final Set<String> STRATEGIES = Set.of("id", "name", "className", "tagName", "cssSelector",
+            "xpath", "linkText", "partialLinkText");
+    
+    private DomScripts() {
+    }
+    
+    /**
+     * Split a locator into the strategy and value understood by findAll
+     * Throws IllegalArgumentException for locators findAll cannot evaluate
+     */
+    public static String[] describe(By locator) {
+        String description = locator.toString();
+        int separator = description.indexOf(": ");
+        String strategy = description.startsWith("By.") && separator > 0 ? description.substring(3, separator) : "";
+        if (!STRATEGIES.contains(strategy)) {
+            // Chained, id-or-name and relative locators have no single strategy to hand to findAll
+            throw new IllegalArgumentException("Unsupported locator: " + description);
+        }
+        return new String[] {strategy, description.substring(separator + 2)};
+    }
+}
@@ -0,0 +1,177 @@
+package com.mahadsiddiqui.video;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Minimal Motion-JPEG AVI writer
+ * JPEG frames from the browser are stored as-is; a null frame repeats the previous one as an empty chunk
+ */
+public final class MjpegAviWriter {
+    
+    private static final int AVIF_HASINDEX = 0x10;
+    private static final int AVIIF_KEYFRAME = 0x10;
+    
+    private MjpegAviWriter() {
+    }
+    
+    /**
+     * Write frames at a constant frame rate to an AVI file
+     */
+    public static void write(Path file, List<byte[]> frames, int fps) throws IOException {
+        byte[] first = null;
+        int maxFrame = 0;
+        long moviSize = 4;
+        for (byte[] frame : frames) {
+            int length = frame == null ? 0 : frame.length;
+            if (first == null && frame != null) {
+                first = frame;
+            }
+            maxFrame = Math.max(maxFrame, length);
+            moviSize += 8 + length + (length & 1);
+        }
+        if (first == null) {
+            throw new IllegalArgumentException("No frames to write");
+        }
+        int[] size = jpegSize(first);
+        int width = size[0];
+        int height = size[1];
+        int count = frames.size();
+        long idxSize = 16L * count;
+        long riffSize = 4 + 200 + 8 + moviSize + 8 + idxSize;
+        
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            ByteBuffer header = buffer(12 + 200 + 12);
+            fourcc(header, "RIFF");
+            header.putInt((int) riffSize);
+            fourcc(header, "AVI ");
+            
+            fourcc(header, "LIST");
+            header.putInt(192);
+            fourcc(header, "hdrl");
+            
+            fourcc(header, "avih");
+            header.putInt(56);
+            header.putInt(1_000_000 / fps);
+            header.putInt(maxFrame * fps);
+            header.putInt(0);
+            header.putInt(AVIF_HASINDEX);
+            header.putInt(count);
+            header.putInt(0);
+            header.putInt(1);
+            header.putInt(maxFrame);
+            header.putInt(width);
+            header.putInt(height);
+            header.put(new byte[16]);
+            
+            fourcc(header, "LIST");
+            header.putInt(116);
+            fourcc(header, "strl");
+            
+            fourcc(header, "strh");
+            header.putInt(56);
+            fourcc(header, "vids");
+            fourcc(header, "MJPG");
+            header.putInt(0);
+            header.putShort((short) 0);
+            header.putShort((short) 0);
+            header.putInt(0);
+            header.putInt(1);
+            header.putInt(fps);
+            header.putInt(0);
+            header.putInt(count);
+            header.putInt(maxFrame);
+            header.putInt(-1);
+            header.putInt(0);
+            header.putShort((short) 0);
+            header.putShort((short) 0);
+            header.putShort((short) width);
+            header.putShort((short) height);
+            
+            fourcc(header, "strf");
+            header.putInt(40);
+            header.putInt(40);
+            header.putInt(width);
+            header.putInt(height);
+            header.putShort((short) 1);
+            header.putShort((short) 24);
+            fourcc(header, "MJPG");
+            header.putInt(width * height * 3);
+            header.putInt(0);
+            header.putInt(0);
+            header.putInt(0);
+            header.putInt(0);
+            
+            fourcc(header, "LIST");
+            header.putInt((int) moviSize);
+            fourcc(header, "movi");
+            out.write(header.array(), 0, header.position());
+            
+            ByteBuffer index = buffer(8 + (int) idxSize);
+            fourcc(index, "idx1");
+            index.putInt((int) idxSize);
+            int offset = 4;
+            ByteBuffer chunk = buffer(8);
+            for (byte[] frame : frames) {
+                int length = frame == null ? 0 : frame.length;
+                chunk.clear();
+                fourcc(chunk, "00dc");
+                chunk.putInt(length);
+                out.write(chunk.array());
+                if (length > 0) {
+                    out.write(frame);
+                    if ((length & 1) == 1) {
+                        out.write(0);
+                    }
+                }
+                fourcc(index, "00dc");
+                index.putInt(length > 0 ? AVIIF_KEYFRAME : 0);
+                index.putInt(offset);
+                index.putInt(length);
+                offset += 8 + length + (length & 1);
+            }
+            out.write(index.array());
+        }
+    }
+    
+    /**
+     * Read width and height from the start-of-frame marker of a JPEG
+     */
+    static int[] jpegSize(byte[] jpeg) {
+        int i = 2;
+        while (i + 9 < jpeg.length) {
+            if ((jpeg[i] & 0xFF) != 0xFF) {
+                i++;
+                continue;
+            }
+            int marker = jpeg[i + 1] & 0xFF;
+            int length = ((jpeg[i + 2] & 0xFF) << 8) | (jpeg[i + 3] & 0xFF);
+            if (marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC) {
+                int height = ((jpeg[i + 5] & 0xFF) << 8) | (jpeg[i + 6] & 0xFF);
+                int width = ((jpeg[i + 7] & 0xFF) << 8) | (jpeg[i + 8] & 0xFF);
+                return new int[] {width, height};
+            }
+            i += 2 + length;
+        }
+        throw new IllegalArgumentException("Frame is not a JPEG with a start-of-frame marker");
+    }
+    
+    private static ByteBuffer buffer(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+    
+    private static void fourcc(ByteBuffer buffer, String code) {
+        buffer.put(code.getBytes(StandardCharsets.US_ASCII));
+    }
+}
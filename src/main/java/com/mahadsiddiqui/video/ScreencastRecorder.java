@@ -0,0 +1,287 @@
+package com.mahadsiddiqui.video;
+
+import com.mahadsiddiqui.config.WebDriverConfig;
+import com.mahadsiddiqui.drivers.DevToolsSession;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.lang.ref.WeakReference;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rolling video of a session from the DevTools screencast
+ * Keeps the last few seconds of frames in memory and encodes them to MJPEG AVI only when asked
+ */
+public class ScreencastRecorder {
+    
+    private static final Logger LOG = LoggerFactory.getLogger(ScreencastRecorder.class);
+    private static final Map<WebDriver, ScreencastRecorder> RECORDERS =
+            Collections.synchronizedMap(new WeakHashMap<>());
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final ExecutorService ENCODER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "video-encoder");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final ExecutorService ACKS = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "screencast-ack");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final LongAdder FRAMES_RECEIVED = new LongAdder();
+    private static final LongAdder FRAMES_KEPT = new LongAdder();
+    private static final LongAdder FRAMES_DUPLICATE = new LongAdder();
+    private static final LongAdder FRAMES_MERGED = new LongAdder();
+    private static final LongAdder VIDEOS = new LongAdder();
+    private static final LongAdder HANDLER_CPU_NANOS = new LongAdder();
+    private static final LongAdder ENCODE_CPU_NANOS = new LongAdder();
+    private static final long START_PROCESS_CPU_NANOS = processCpuNanos();
+    
+    private final WeakReference<WebDriver> driver;
+    private final int fps;
+    private final long frameIntervalMillis;
+    private final long windowMillis;
+    private final Deque<Frame> frames = new ArrayDeque<>();
+    
+    private ScreencastRecorder(WebDriver driver, int fps, int windowSeconds) {
+        if (fps < 1) {
+            throw new IllegalArgumentException("Video frame rate must be at least 1: " + fps);
+        }
+        this.driver = new WeakReference<>(driver);
+        this.fps = fps;
+        this.frameIntervalMillis = 1000L / fps;
+        this.windowMillis = windowSeconds * 1000L;
+    }
+    
+    /**
+     * Get the recorder of a session, starting the screencast on first use
+     * Returns null when the browser does not expose DevTools
+     */
+    public static ScreencastRecorder of(WebDriver driver) {
+        synchronized (RECORDERS) {
+            if (RECORDERS.containsKey(driver)) {
+                return RECORDERS.get(driver);
+            }
+            ScreencastRecorder recorder = null;
+            if (DevToolsSession.isSupported(driver)) {
+                try {
+                    recorder = new ScreencastRecorder(driver,
+                            Integer.parseInt(WebDriverConfig.getProperty("video.fps", "5")),
+                            Integer.parseInt(WebDriverConfig.getProperty("video.window.seconds", "30")));
+                    recorder.start(driver);
+                } catch (RuntimeException e) {
+                    LOG.debug("Screencast recording unavailable: {}", e.getMessage());
+                    recorder = null;
+                }
+            }
+            RECORDERS.put(driver, recorder);
+            return recorder;
+        }
+    }
+    
+    /**
+     * Get the recorder of a session if one has been started
+     */
+    public static ScreencastRecorder find(WebDriver driver) {
+        return RECORDERS.get(driver);
+    }
+    
+    private void start(WebDriver driver) {
+        DevToolsSession.addListener(driver, "Page.screencastFrame", this::frameReceived);
+        Map<String, Object> params = new HashMap<>();
+        params.put("format", "jpeg");
+        params.put("quality", Integer.parseInt(WebDriverConfig.getProperty("video.quality", "40")));
+        params.put("maxWidth", Integer.parseInt(WebDriverConfig.getProperty("video.max.width", "1280")));
+        params.put("maxHeight", Integer.parseInt(WebDriverConfig.getProperty("video.max.height", "800")));
+        DevToolsSession.send(driver, "Page.startScreencast", params);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private void frameReceived(Map<String, Object> event) {
+        long cpuStart = THREADS.getCurrentThreadCpuTime();
+        FRAMES_RECEIVED.increment();
+        acknowledge(event.get("sessionId"));
+        
+        String data = (String) event.get("data");
+        Object metadata = event.get("metadata");
+        long timestamp = System.currentTimeMillis();
+        if (metadata instanceof Map && ((Map<String, Object>) metadata).get("timestamp") instanceof Number) {
+            timestamp = (long) (((Number) ((Map<String, Object>) metadata).get("timestamp")).doubleValue() * 1000);
+        }
+        synchronized (frames) {
+            Frame last = frames.peekLast();
+            if (last != null && last.data.equals(data)) {
+                FRAMES_DUPLICATE.increment();
+            } else if (last != null && timestamp - last.timestamp < frameIntervalMillis) {
+                // Faster than the target rate: the newest image replaces the one in the current slot
+                last.data = data;
+                FRAMES_MERGED.increment();
+            } else {
+                frames.addLast(new Frame(timestamp, data));
+                FRAMES_KEPT.increment();
+            }
+            trim(timestamp);
+        }
+        HANDLER_CPU_NANOS.add(THREADS.getCurrentThreadCpuTime() - cpuStart);
+    }
+    
+    private void acknowledge(Object sessionId) {
+        ACKS.execute(() -> {
+            WebDriver current = driver.get();
+            if (current == null) {
+                return;
+            }
+            try {
+                DevToolsSession.send(current, "Page.screencastFrameAck",
+                        Collections.singletonMap("sessionId", sessionId));
+            } catch (RuntimeException e) {
+                // Session is closing; the screencast stops with it
+            }
+        });
+    }
+    
+    /**
+     * Drop frames that fell out of the window, keeping the one still on screen at its start
+     */
+    private void trim(long now) {
+        long windowStart = now - windowMillis;
+        while (frames.size() > 1) {
+            Iterator<Frame> iterator = frames.iterator();
+            iterator.next();
+            if (iterator.next().timestamp > windowStart) {
+                break;
+            }
+            frames.pollFirst();
+        }
+    }
+    
+    /**
+     * Encode the frames in the window to an AVI file in the background
+     */
+    public CompletableFuture<Path> save(String name) {
+        List<Frame> recorded;
+        synchronized (frames) {
+            recorded = new ArrayList<>(frames.size());
+            for (Frame frame : frames) {
+                recorded.add(new Frame(frame.timestamp, frame.data));
+            }
+        }
+        Path file = Paths.get(WebDriverConfig.getProperty("video.path", "videos/"),
+                name.replaceAll("[^A-Za-z0-9._-]", "_") + "-" + System.currentTimeMillis() + ".avi");
+        long end = System.currentTimeMillis();
+        return CompletableFuture.supplyAsync(() -> {
+            long cpuStart = THREADS.getCurrentThreadCpuTime();
+            try {
+                MjpegAviWriter.write(file, toConstantRate(recorded, end), fps);
+                VIDEOS.increment();
+                return file;
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            } finally {
+                ENCODE_CPU_NANOS.add(THREADS.getCurrentThreadCpuTime() - cpuStart);
+            }
+        }, ENCODER);
+    }
+    
+    /**
+     * Lay frames out on a fixed frame-rate grid; slots without a new image repeat the previous one
+     */
+    private List<byte[]> toConstantRate(List<Frame> recorded, long end) {
+        List<byte[]> slots = new ArrayList<>();
+        if (recorded.isEmpty()) {
+            throw new IllegalStateException("No screencast frames recorded");
+        }
+        long start = Math.max(recorded.get(0).timestamp, end - windowMillis);
+        int next = 0;
+        Frame shown = null;
+        for (long slot = start; slot <= Math.max(start, end); slot += frameIntervalMillis) {
+            Frame latest = shown;
+            while (next < recorded.size() && recorded.get(next).timestamp <= slot) {
+                latest = recorded.get(next++);
+            }
+            if (latest == null) {
+                latest = recorded.get(0);
+            }
+            slots.add(latest == shown ? null : Base64.getDecoder().decode(latest.data));
+            shown = latest;
+        }
+        return slots;
+    }
+    
+    /**
+     * Drop all recorded frames, for example when a test passed
+     */
+    public void clear() {
+        synchronized (frames) {
+            frames.clear();
+        }
+    }
+    
+    /**
+     * Get the number of frames held in the window
+     */
+    public int getFrameCount() {
+        synchronized (frames) {
+            return frames.size();
+        }
+    }
+    
+    /**
+     * Get a summary of recording cost for the suite log
+     * The CPU share covers frame handling and encoding in this JVM; the browser's own encoding is not included
+     */
+    public static String summary() {
+        long recordingCpu = HANDLER_CPU_NANOS.sum() + ENCODE_CPU_NANOS.sum();
+        long processCpu = processCpuNanos() - START_PROCESS_CPU_NANOS;
+        double share = processCpu <= 0 ? 0 : 100.0 * recordingCpu / processCpu;
+        return String.format("Video: frames received=%d kept=%d duplicate=%d merged=%d videos=%d "
+                        + "handlerCpuMs=%d encodeCpuMs=%d cpuShare=%.1f%%",
+                FRAMES_RECEIVED.sum(), FRAMES_KEPT.sum(), FRAMES_DUPLICATE.sum(), FRAMES_MERGED.sum(), VIDEOS.sum(),
+                TimeUnit.NANOSECONDS.toMillis(HANDLER_CPU_NANOS.sum()),
+                TimeUnit.NANOSECONDS.toMillis(ENCODE_CPU_NANOS.sum()), share);
+    }
+    
+    private static long processCpuNanos() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        }
+        return -1;
+    }
+    
+    /**
+     * Screencast image with its capture time
+     */
+    private static final class Frame {
+        
+        private final long timestamp;
+        private String data;
+        
+        private Frame(long timestamp, String data) {
+            this.timestamp = timestamp;
+            this.data = data;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.mahadsiddiqui.visual;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * Screenshot pixels in a flat RGB array with per-tile hashes
+ * Baselines keep their tile hashes so unchanged tiles are recognised without reading baseline pixels again
+ */
+public final class TileImage {
+    
+    private final int width;
+    private final int height;
+    private final int[] pixels;
+    private int hashedTileSize;
+    private long[] tileHashes;
+    
+    private TileImage(int width, int height, int[] pixels) {
+        this.width = width;
+        this.height = height;
+        this.pixels = pixels;
+    }
+    
+    /**
+     * Wrap an image, converting it to packed RGB if needed
+     */
+    public static TileImage of(BufferedImage image) {
+        BufferedImage rgb = image;
+        if (image.getType() != BufferedImage.TYPE_INT_RGB && image.getType() != BufferedImage.TYPE_INT_ARGB) {
+            rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = rgb.createGraphics();
+            graphics.drawImage(image, 0, 0, null);
+            graphics.dispose();
+        }
+        int[] data = ((DataBufferInt) rgb.getRaster().getDataBuffer()).getData();
+        return new TileImage(rgb.getWidth(), rgb.getHeight(), data);
+    }
+    
+    /**
+     * Get width in pixels
+     */
+    public int getWidth() {
+        return width;
+    }
+    
+    /**
+     * Get height in pixels
+     */
+    public int getHeight() {
+        return height;
+    }
+    
+    /**
+     * Get RGB value of a pixel
+     */
+    public int rgb(int x, int y) {
+        return pixels[y * width + x] & 0xFFFFFF;
+    }
+    
+    /**
+     * Get hashes of all tiles, computed once per tile size
+     */
+    synchronized long[] tileHashes(int tileSize, int columns, int rows) {
+        if (tileHashes == null || hashedTileSize != tileSize) {
+            long[] hashes = new long[columns * rows];
+            for (int row = 0; row < rows; row++) {
+                for (int column = 0; column < columns; column++) {
+                    hashes[row * columns + column] = tileHash(column * tileSize, row * tileSize, tileSize);
+                }
+            }
+            tileHashes = hashes;
+            hashedTileSize = tileSize;
+        }
+        return tileHashes;
+    }
+    
+    /**
+     * Hash the pixels of one tile with FNV-1a over packed RGB values
+     */
+    long tileHash(int left, int top, int tileSize) {
+        int right = Math.min(left + tileSize, width);
+        int bottom = Math.min(top + tileSize, height);
+        long hash = 0xcbf29ce484222325L;
+        for (int y = top; y < bottom; y++) {
+            int offset = y * width;
+            for (int x = left; x < right; x++) {
+                hash ^= pixels[offset + x] & 0xFFFFFF;
+                hash *= 0x100000001b3L;
+            }
+        }
+        return hash;
+    }
+    
+    /**
+     * Convert back to an image for writing
+     */
+    public BufferedImage toImage() {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, width, height, pixels, 0, width);
+        return image;
+    }
+}
@@ -0,0 +1,209 @@
+package com.mahadsiddiqui.visual;
+
+import com.mahadsiddiqui.config.WebDriverConfig;
+import com.mahadsiddiqui.screenshots.ScreenshotCapture;
+import org.openqa.selenium.By;
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import javax.imageio.ImageIO;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Visual baseline checks for page objects
+ * Baselines are stored per page object, browser and viewport; decoded baselines stay in a small in-memory cache
+ */
+public final class VisualCheck {
+    
+    private static final String LAYOUT_SCRIPT =
+            "var elements = arguments[0], ratio = window.devicePixelRatio || 1, rects = [];"
+            + "for (var i = 0; i < elements.length; i++) {"
+            + "  var r = elements[i].getBoundingClientRect();"
+            + "  rects.push([r.left, r.top, r.width, r.height]);"
+            + "}"
+            + "return {width: window.innerWidth, height: window.innerHeight, ratio: ratio,"
+            + "  scrollX: window.pageXOffset, scrollY: window.pageYOffset, rects: rects};";
+    
+    private static final Map<Path, CachedBaseline> BASELINES =
+            new LinkedHashMap<Path, CachedBaseline>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Path, CachedBaseline> eldest) {
+                    return size() > Integer.parseInt(WebDriverConfig.getProperty("visual.cache.entries", "16"));
+                }
+            };
+    private static VisualComparator comparator;
+    
+    private VisualCheck() {
+    }
+    
+    /**
+     * Capture the page and compare it with the stored baseline, creating the baseline if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public static VisualDiffResult check(WebDriver driver, String pageName, String checkName, List<By> ignored) {
+        List<WebElement> ignoredElements = new ArrayList<>();
+        for (By locator : ignored) {
+            ignoredElements.addAll(driver.findElements(locator));
+        }
+        Map<String, Object> layout = (Map<String, Object>) ((JavascriptExecutor) driver)
+                .executeScript(LAYOUT_SCRIPT, ignoredElements);
+        boolean fullPage = Boolean.parseBoolean(WebDriverConfig.getProperty("screenshot.full.page", "true"));
+        BufferedImage image = decode(ScreenshotCapture.capture(driver, fullPage));
+        
+        String viewport = (int) number(layout, "width") + "x" + (int) number(layout, "height");
+        Path relative = Paths.get(sanitize(pageName), sanitize(browserName(driver)), viewport);
+        Path baselinePath = Paths.get(WebDriverConfig.getProperty("visual.baseline.path", "visual-baselines/"))
+                .resolve(relative).resolve(sanitize(checkName) + ".png");
+        TileImage actual = TileImage.of(image);
+        
+        try {
+            if (!Files.exists(baselinePath) || WebDriverConfig.getBooleanProperty("visual.update.baselines")) {
+                writeImage(image, baselinePath);
+                cache(baselinePath, actual);
+                VisualDiffResult created = new VisualDiffResult(true, "Baseline written to " + baselinePath,
+                        0, 0, new ArrayList<>(), 0, 0);
+                created.setBaselinePath(baselinePath);
+                return created;
+            }
+            TileImage baseline = loadBaseline(baselinePath);
+            List<Rectangle> ignoreRegions = ignoreRegions(layout, image.getHeight());
+            VisualComparator visualComparator = getComparator();
+            VisualDiffResult result = visualComparator.compare(baseline, actual, ignoreRegions);
+            result.setBaselinePath(baselinePath);
+            if (!result.isPassed()) {
+                Path diffDirectory = Paths.get(WebDriverConfig.getProperty("visual.diff.path", "target/visual-diffs/"))
+                        .resolve(relative);
+                writeImage(image, diffDirectory.resolve(sanitize(checkName) + "-actual.png"));
+                if (!result.getFailingTiles().isEmpty()) {
+                    Path diffPath = diffDirectory.resolve(sanitize(checkName) + "-diff.png");
+                    writeImage(visualComparator.renderDiffMask(baseline, actual, result, ignoreRegions), diffPath);
+                    result.setDiffPath(diffPath);
+                }
+            }
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Visual check failed for " + baselinePath, e);
+        }
+    }
+    
+    /**
+     * Get the comparator configured from visual.* properties
+     */
+    public static synchronized VisualComparator getComparator() {
+        if (comparator == null) {
+            comparator = new VisualComparator(
+                    Integer.parseInt(WebDriverConfig.getProperty("visual.tile.size", "64")),
+                    Integer.parseInt(WebDriverConfig.getProperty("visual.channel.tolerance", "16")),
+                    Double.parseDouble(WebDriverConfig.getProperty("visual.tile.tolerance", "0.001")),
+                    Integer.parseInt(WebDriverConfig.getProperty("visual.perceptual.threshold", "4")));
+        }
+        return comparator;
+    }
+    
+    private static TileImage loadBaseline(Path path) throws IOException {
+        long modified = Files.getLastModifiedTime(path).toMillis();
+        synchronized (BASELINES) {
+            CachedBaseline cached = BASELINES.get(path);
+            if (cached != null && cached.modified == modified) {
+                return cached.image;
+            }
+        }
+        BufferedImage image = ImageIO.read(path.toFile());
+        if (image == null) {
+            throw new IOException("Baseline is not a readable image: " + path);
+        }
+        TileImage baseline = TileImage.of(image);
+        synchronized (BASELINES) {
+            BASELINES.put(path, new CachedBaseline(baseline, modified));
+        }
+        return baseline;
+    }
+    
+    private static void cache(Path path, TileImage image) throws IOException {
+        synchronized (BASELINES) {
+            BASELINES.put(path, new CachedBaseline(image, Files.getLastModifiedTime(path).toMillis()));
+        }
+    }
+    
+    /**
+     * Convert element rectangles to image pixels; full-page captures are in document coordinates
+     */
+    @SuppressWarnings("unchecked")
+    private static List<Rectangle> ignoreRegions(Map<String, Object> layout, int imageHeight) {
+        double ratio = number(layout, "ratio");
+        boolean documentCoordinates = imageHeight > Math.ceil(number(layout, "height") * ratio);
+        double offsetX = documentCoordinates ? number(layout, "scrollX") : 0;
+        double offsetY = documentCoordinates ? number(layout, "scrollY") : 0;
+        List<Rectangle> regions = new ArrayList<>();
+        for (Object entry : (List<Object>) layout.get("rects")) {
+            List<Number> rect = (List<Number>) entry;
+            regions.add(new Rectangle(
+                    (int) Math.floor((rect.get(0).doubleValue() + offsetX) * ratio),
+                    (int) Math.floor((rect.get(1).doubleValue() + offsetY) * ratio),
+                    (int) Math.ceil(rect.get(2).doubleValue() * ratio) + 1,
+                    (int) Math.ceil(rect.get(3).doubleValue() * ratio) + 1));
+        }
+        return regions;
+    }
+    
+    private static BufferedImage decode(String base64) {
+        try {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(Base64.getMimeDecoder().decode(base64)));
+            if (image == null) {
+                throw new IllegalStateException("Screenshot could not be decoded");
+            }
+            return image;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Screenshot could not be decoded", e);
+        }
+    }
+    
+    private static void writeImage(BufferedImage image, Path path) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        ImageIO.write(image, "PNG", path.toFile());
+    }
+    
+    private static String browserName(WebDriver driver) {
+        if (driver instanceof HasCapabilities) {
+            return ((HasCapabilities) driver).getCapabilities().getBrowserName();
+        }
+        return WebDriverConfig.getProperty("browser.name", "unknown");
+    }
+    
+    private static double number(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        return value instanceof Number ? ((Number) value).doubleValue() : 0;
+    }
+    
+    private static String sanitize(String name) {
+        return name.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+    
+    /**
+     * Decoded baseline with the modification time it was read at
+     */
+    private static final class CachedBaseline {
+        
+        private final TileImage image;
+        private final long modified;
+        
+        private CachedBaseline(TileImage image, long modified) {
+            this.image = image;
+            this.modified = modified;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.mahadsiddiqui.visual;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tiled screenshot comparison
+ * Tiles with the same hash as the baseline are skipped; the rest are diffed per pixel in parallel.
+ * Tiles with only a few changed pixels must also differ in perceptual hash to fail, which filters
+ * anti-aliasing and font hinting noise without hiding flat colour changes the hash cannot see
+ */
+public class VisualComparator {
+    
+    private static final double PERCEPTUAL_MAX_SHARE = 0.01;
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final ExecutorService WORKERS = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), runnable -> {
+                Thread thread = new Thread(runnable, "visual-compare-" + THREAD_COUNT.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    
+    private final int tileSize;
+    private final int channelTolerance;
+    private final double tileTolerance;
+    private final int perceptualThreshold;
+    
+    /**
+     * Create a comparator
+     * channelTolerance is the per-channel delta below which pixels count as equal, tileTolerance the share of
+     * differing pixels a tile may have, and perceptualThreshold the dHash distance up to which a lightly
+     * changed tile still passes
+     */
+    public VisualComparator(int tileSize, int channelTolerance, double tileTolerance, int perceptualThreshold) {
+        if (tileSize < 8) {
+            throw new IllegalArgumentException("Tile size must be at least 8 pixels: " + tileSize);
+        }
+        this.tileSize = tileSize;
+        this.channelTolerance = channelTolerance;
+        this.tileTolerance = tileTolerance;
+        this.perceptualThreshold = perceptualThreshold;
+    }
+    
+    /**
+     * Compare a screenshot with its baseline, skipping pixels inside the ignore regions
+     */
+    public VisualDiffResult compare(TileImage baseline, TileImage actual, List<Rectangle> ignore) {
+        long start = System.nanoTime();
+        if (baseline.getWidth() != actual.getWidth() || baseline.getHeight() != actual.getHeight()) {
+            return new VisualDiffResult(false, String.format("Size changed from %dx%d to %dx%d",
+                    baseline.getWidth(), baseline.getHeight(), actual.getWidth(), actual.getHeight()),
+                    0, 0, Collections.emptyList(), 0, elapsedMillis(start));
+        }
+        int columns = (actual.getWidth() + tileSize - 1) / tileSize;
+        int rows = (actual.getHeight() + tileSize - 1) / tileSize;
+        long[] baselineHashes = baseline.tileHashes(tileSize, columns, rows);
+        AtomicInteger unchanged = new AtomicInteger();
+        
+        List<Callable<List<TileDiff>>> bands = new ArrayList<>(rows);
+        for (int row = 0; row < rows; row++) {
+            int bandRow = row;
+            bands.add(() -> {
+                List<TileDiff> failures = new ArrayList<>();
+                for (int column = 0; column < columns; column++) {
+                    Rectangle tile = tile(column, bandRow, actual);
+                    boolean ignored = intersectsAny(tile, ignore);
+                    if (!ignored && baselineHashes[bandRow * columns + column]
+                            == actual.tileHash(tile.x, tile.y, tileSize)) {
+                        unchanged.incrementAndGet();
+                        continue;
+                    }
+                    TileDiff diff = compareTile(baseline, actual, tile, ignore);
+                    if (diff != null) {
+                        failures.add(diff);
+                    }
+                }
+                return failures;
+            });
+        }
+        
+        List<Rectangle> failingTiles = new ArrayList<>();
+        long diffPixels = 0;
+        for (List<TileDiff> band : runAll(bands)) {
+            for (TileDiff diff : band) {
+                failingTiles.add(diff.tile);
+                diffPixels += diff.pixels;
+            }
+        }
+        int total = columns * rows;
+        boolean passed = failingTiles.isEmpty();
+        String message = passed
+                ? String.format("Matches baseline (%d of %d tiles unchanged)", unchanged.get(), total)
+                : String.format("%d of %d tiles differ from baseline (%d pixels)", failingTiles.size(), total,
+                diffPixels);
+        return new VisualDiffResult(passed, message, total, unchanged.get(), failingTiles, diffPixels,
+                elapsedMillis(start));
+    }
+    
+    /**
+     * Diff one tile, returning null if it is within tolerance
+     */
+    private TileDiff compareTile(TileImage baseline, TileImage actual, Rectangle tile, List<Rectangle> ignore) {
+        long differing = 0;
+        long compared = 0;
+        for (int y = tile.y; y < tile.y + tile.height; y++) {
+            for (int x = tile.x; x < tile.x + tile.width; x++) {
+                if (isIgnored(x, y, ignore)) {
+                    continue;
+                }
+                compared++;
+                if (differs(baseline.rgb(x, y), actual.rgb(x, y))) {
+                    differing++;
+                }
+            }
+        }
+        if (differing == 0 || differing <= compared * tileTolerance) {
+            return null;
+        }
+        if (differing <= compared * PERCEPTUAL_MAX_SHARE) {
+            long distance = Long.bitCount(dHash(baseline, tile, ignore) ^ dHash(actual, tile, ignore));
+            if (distance <= perceptualThreshold) {
+                return null;
+            }
+        }
+        return new TileDiff(tile, differing);
+    }
+    
+    /**
+     * Render a transparent mask marking differing pixels of the failing tiles only
+     */
+    public BufferedImage renderDiffMask(TileImage baseline, TileImage actual, VisualDiffResult result,
+                                        List<Rectangle> ignore) {
+        BufferedImage mask = new BufferedImage(actual.getWidth(), actual.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        int changed = 0xFFFF0000;
+        int outline = 0x80FF00FF;
+        for (Rectangle tile : result.getFailingTiles()) {
+            for (int y = tile.y; y < tile.y + tile.height; y++) {
+                for (int x = tile.x; x < tile.x + tile.width; x++) {
+                    boolean edge = x == tile.x || y == tile.y || x == tile.x + tile.width - 1
+                            || y == tile.y + tile.height - 1;
+                    if (!isIgnored(x, y, ignore) && differs(baseline.rgb(x, y), actual.rgb(x, y))) {
+                        mask.setRGB(x, y, changed);
+                    } else if (edge) {
+                        mask.setRGB(x, y, outline);
+                    }
+                }
+            }
+        }
+        return mask;
+    }
+    
+    private boolean differs(int expected, int actual) {
+        if (expected == actual) {
+            return false;
+        }
+        return Math.abs(((expected >> 16) & 0xFF) - ((actual >> 16) & 0xFF)) > channelTolerance
+                || Math.abs(((expected >> 8) & 0xFF) - ((actual >> 8) & 0xFF)) > channelTolerance
+                || Math.abs((expected & 0xFF) - (actual & 0xFF)) > channelTolerance;
+    }
+    
+    /**
+     * Difference hash of a tile: 9x8 grid of mean luminance, one bit per horizontal gradient
+     */
+    static long dHash(TileImage image, Rectangle tile, List<Rectangle> ignore) {
+        double[] cells = new double[9 * 8];
+        int[] counts = new int[9 * 8];
+        for (int y = tile.y; y < tile.y + tile.height; y++) {
+            int cellY = (y - tile.y) * 8 / tile.height;
+            for (int x = tile.x; x < tile.x + tile.width; x++) {
+                if (isIgnored(x, y, ignore)) {
+                    continue;
+                }
+                int rgb = image.rgb(x, y);
+                int cell = cellY * 9 + (x - tile.x) * 9 / tile.width;
+                cells[cell] += 0.299 * ((rgb >> 16) & 0xFF) + 0.587 * ((rgb >> 8) & 0xFF) + 0.114 * (rgb & 0xFF);
+                counts[cell]++;
+            }
+        }
+        long hash = 0;
+        for (int row = 0; row < 8; row++) {
+            for (int column = 0; column < 8; column++) {
+                int left = row * 9 + column;
+                double leftMean = counts[left] == 0 ? 0 : cells[left] / counts[left];
+                double rightMean = counts[left + 1] == 0 ? 0 : cells[left + 1] / counts[left + 1];
+                hash = (hash << 1) | (leftMean > rightMean ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+    
+    private Rectangle tile(int column, int row, TileImage image) {
+        int x = column * tileSize;
+        int y = row * tileSize;
+        return new Rectangle(x, y, Math.min(tileSize, image.getWidth() - x), Math.min(tileSize, image.getHeight() - y));
+    }
+    
+    private static boolean intersectsAny(Rectangle tile, List<Rectangle> regions) {
+        for (Rectangle region : regions) {
+            if (region.intersects(tile)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static boolean isIgnored(int x, int y, List<Rectangle> regions) {
+        for (Rectangle region : regions) {
+            if (region.contains(x, y)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static <T> List<T> runAll(List<Callable<T>> tasks) {
+        try {
+            List<T> results = new ArrayList<>(tasks.size());
+            for (Future<T> future : WORKERS.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during visual comparison", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Visual comparison failed", e.getCause());
+        }
+    }
+    
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+    
+    /**
+     * Failing tile with its number of differing pixels
+     */
+    private static final class TileDiff {
+        
+        private final Rectangle tile;
+        private final long pixels;
+        
+        private TileDiff(Rectangle tile, long pixels) {
+            this.tile = tile;
+            this.pixels = pixels;
+        }
+    }
+}
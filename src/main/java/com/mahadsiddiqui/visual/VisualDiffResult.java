@@ -0,0 +1,109 @@
+package com.mahadsiddiqui.visual;
+
+import java.awt.Rectangle;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of comparing a screenshot with its baseline
+ */
+public class VisualDiffResult {
+    
+    private final boolean passed;
+    private final String message;
+    private final int totalTiles;
+    private final int unchangedTiles;
+    private final List<Rectangle> failingTiles;
+    private final long diffPixels;
+    private final long elapsedMillis;
+    private Path baselinePath;
+    private Path diffPath;
+    
+    VisualDiffResult(boolean passed, String message, int totalTiles, int unchangedTiles,
+                     List<Rectangle> failingTiles, long diffPixels, long elapsedMillis) {
+        this.passed = passed;
+        this.message = message;
+        this.totalTiles = totalTiles;
+        this.unchangedTiles = unchangedTiles;
+        this.failingTiles = Collections.unmodifiableList(failingTiles);
+        this.diffPixels = diffPixels;
+        this.elapsedMillis = elapsedMillis;
+    }
+    
+    /**
+     * Check if the screenshot matches its baseline
+     */
+    public boolean isPassed() {
+        return passed;
+    }
+    
+    /**
+     * Get a readable description of the result
+     */
+    public String getMessage() {
+        return message;
+    }
+    
+    /**
+     * Get number of tiles compared
+     */
+    public int getTotalTiles() {
+        return totalTiles;
+    }
+    
+    /**
+     * Get number of tiles skipped because their hash matched the baseline
+     */
+    public int getUnchangedTiles() {
+        return unchangedTiles;
+    }
+    
+    /**
+     * Get the tiles that differ from the baseline
+     */
+    public List<Rectangle> getFailingTiles() {
+        return failingTiles;
+    }
+    
+    /**
+     * Get number of differing pixels inside failing tiles
+     */
+    public long getDiffPixels() {
+        return diffPixels;
+    }
+    
+    /**
+     * Get comparison time, excluding capture and image decoding
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+    
+    /**
+     * Get the baseline file, if the comparison used one
+     */
+    public Path getBaselinePath() {
+        return baselinePath;
+    }
+    
+    /**
+     * Get the diff mask file, written only when tiles failed
+     */
+    public Path getDiffPath() {
+        return diffPath;
+    }
+    
+    void setBaselinePath(Path baselinePath) {
+        this.baselinePath = baselinePath;
+    }
+    
+    void setDiffPath(Path diffPath) {
+        this.diffPath = diffPath;
+    }
+    
+    @Override
+    public String toString() {
+        return message;
+    }
+}
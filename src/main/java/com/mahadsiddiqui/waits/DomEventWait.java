@@ -0,0 +1,107 @@
+package com.mahadsiddiqui.waits;
+
+import com.mahadsiddiqui.utils.DomScripts;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Event-driven element waits resolved inside the page
+ * One async script watches DOM mutations and animation frames and returns as soon as the condition holds
+ */
+public class DomEventWait {
+    
+    /**
+     * Element state to wait for
+     */
+    public enum Condition {
+        PRESENT,
+        VISIBLE,
+        CLICKABLE
+    }
+    
+    private static final String WAIT_SCRIPT =
+            DomScripts.FIND_ALL_FUNCTION
+            + DomScripts.IS_VISIBLE_FUNCTION
+            + "var strategy = arguments[0], value = arguments[1], condition = arguments[2], timeout = arguments[3];"
+            + "var done = arguments[arguments.length - 1];"
+            + "function check() {"
+            + "  var found = findAll(strategy, value);"
+            + "  for (var i = 0; i < found.length; i++) {"
+            + "    var el = found[i];"
+            + "    if (condition === 'PRESENT') { return el; }"
+            + "    if (!isVisible(el)) { continue; }"
+            + "    if (condition === 'CLICKABLE' && el.disabled) { continue; }"
+            + "    return el;"
+            + "  }"
+            + "  return null;"
+            + "}"
+            + "var initial = check();"
+            + "if (initial) { done(initial); return; }"
+            + "var finished = false, scheduled = false, observer, timer, tick;"
+            + "function finish(result) {"
+            + "  if (finished) { return; } finished = true;"
+            + "  observer.disconnect(); clearTimeout(timer); clearInterval(tick);"
+            + "  done(result);"
+            + "}"
+            + "function recheck() {"
+            + "  scheduled = false;"
+            + "  var el = check();"
+            + "  if (el) { finish(el); }"
+            + "}"
+            + "observer = new MutationObserver(function () {"
+            + "  if (!scheduled) { scheduled = true; window.requestAnimationFrame(recheck); }"
+            + "});"
+            + "observer.observe(document, {childList: true, subtree: true, attributes: true, characterData: true});"
+            // Style changes from CSS transitions do not mutate the DOM, so also recheck on a slow tick
+            + "tick = setInterval(recheck, 100);"
+            + "timer = setTimeout(function () { finish(check()); }, timeout);";
+    
+    private static final LongAdder WAITS = new LongAdder();
+    private static final LongAdder FALLBACKS = new LongAdder();
+    private static final LongAdder TOTAL_MILLIS = new LongAdder();
+    
+    private final WebDriver driver;
+    
+    public DomEventWait(WebDriver driver) {
+        this.driver = driver;
+    }
+    
+    /**
+     * Wait for an element to reach a condition with a single WebDriver command
+     */
+    public WebElement until(By locator, Condition condition, Duration timeout) {
+        String[] described = DomScripts.describe(locator);
+        long start = System.nanoTime();
+        Object result = ((JavascriptExecutor) driver).executeAsyncScript(WAIT_SCRIPT,
+                described[0], described[1], condition.name(), timeout.toMillis());
+        WAITS.increment();
+        TOTAL_MILLIS.add((System.nanoTime() - start) / 1_000_000);
+        if (result instanceof WebElement) {
+            return (WebElement) result;
+        }
+        throw new TimeoutException("Expected condition failed: waiting for " + condition.name().toLowerCase()
+                + " element located by " + locator + " (tried for " + timeout.getSeconds() + " second(s))");
+    }
+    
+    /**
+     * Record that a wait fell back to ExpectedConditions polling
+     */
+    public static void recordFallback() {
+        FALLBACKS.increment();
+    }
+    
+    /**
+     * Get a summary of event-driven waits for the suite log
+     */
+    public static String summary() {
+        long waits = WAITS.sum();
+        return String.format("Event waits: count=%d meanMs=%d fallbacks=%d",
+                waits, waits == 0 ? 0 : TOTAL_MILLIS.sum() / waits, FALLBACKS.sum());
+    }
+}
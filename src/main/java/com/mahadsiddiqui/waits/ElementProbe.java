@@ -0,0 +1,106 @@
+package com.mahadsiddiqui.waits;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Fast element checks with their own time budget
+ * Answers absence as soon as the DOM stops changing instead of waiting out the explicit timeout
+ */
+public class ElementProbe {
+    
+    /**
+     * Resolves true once the DOM has had no mutations for the quiet window, false if the cap is hit first
+     */
+    private static final String DOM_SETTLED_SCRIPT =
+            "var quiet = arguments[0], cap = arguments[1], done = arguments[arguments.length - 1];"
+            + "var finished = false, timer, capTimer, observer;"
+            + "function finish(settled) {"
+            + "  if (finished) { return; } finished = true;"
+            + "  observer.disconnect(); clearTimeout(timer); clearTimeout(capTimer);"
+            + "  done(settled && document.readyState !== 'loading');"
+            + "}"
+            + "observer = new MutationObserver(function () {"
+            + "  clearTimeout(timer); timer = setTimeout(function () { finish(true); }, quiet);"
+            + "});"
+            + "observer.observe(document, {childList: true, subtree: true, attributes: true, characterData: true});"
+            + "timer = setTimeout(function () { finish(true); }, quiet);"
+            + "capTimer = setTimeout(function () { finish(false); }, cap);";
+    
+    private final WebDriver driver;
+    private final long settleMillis;
+    
+    public ElementProbe(WebDriver driver, long settleMillis) {
+        this.driver = driver;
+        this.settleMillis = settleMillis;
+    }
+    
+    /**
+     * Check if an element is in the DOM right now
+     */
+    public boolean isPresentNow(By locator) {
+        try (ImplicitWait.Scope ignored = ImplicitWait.suspend(driver)) {
+            return !driver.findElements(locator).isEmpty();
+        }
+    }
+    
+    /**
+     * Check if an element is displayed right now
+     */
+    public boolean isDisplayedNow(By locator) {
+        try (ImplicitWait.Scope ignored = ImplicitWait.suspend(driver)) {
+            return anyDisplayed(driver.findElements(locator));
+        }
+    }
+    
+    /**
+     * Check if an element is displayed, giving the page at most the budget to settle
+     * Returns as soon as the element shows up or the DOM has been quiet for the settle window
+     */
+    public boolean isDisplayedWithin(By locator, Duration budget) {
+        long deadline = System.nanoTime() + budget.toNanos();
+        try (ImplicitWait.Scope ignored = ImplicitWait.suspend(driver)) {
+            while (true) {
+                if (anyDisplayed(driver.findElements(locator))) {
+                    return true;
+                }
+                long remainingMillis = (deadline - System.nanoTime()) / 1_000_000;
+                if (remainingMillis <= 0) {
+                    return false;
+                }
+                boolean settled = waitForDomSettled(remainingMillis);
+                if (settled) {
+                    return anyDisplayed(driver.findElements(locator));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Wait until the DOM has been quiet for the settle window or the cap expires
+     */
+    public boolean waitForDomSettled(long capMillis) {
+        Object settled = ((JavascriptExecutor) driver).executeAsyncScript(DOM_SETTLED_SCRIPT,
+                Math.min(settleMillis, capMillis), capMillis);
+        return Boolean.TRUE.equals(settled);
+    }
+    
+    private static boolean anyDisplayed(List<WebElement> elements) {
+        for (WebElement element : elements) {
+            try {
+                if (element.isDisplayed()) {
+                    return true;
+                }
+            } catch (StaleElementReferenceException e) {
+                // Replaced while probing, check the next match
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,66 @@
+package com.mahadsiddiqui.waits;
+
+import org.openqa.selenium.WebDriver;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Tracks the implicit wait of each session so it can be suspended without extra round trips
+ * Explicit waits and probes run inside a suspended scope so the two never compound
+ */
+public final class ImplicitWait {
+    
+    private static final Map<WebDriver, Duration> CURRENT = Collections.synchronizedMap(new WeakHashMap<>());
+    
+    private ImplicitWait() {
+    }
+    
+    /**
+     * Set the implicit wait of a session, skipping the command if it is already set
+     */
+    public static void apply(WebDriver driver, Duration timeout) {
+        if (timeout.equals(CURRENT.get(driver))) {
+            return;
+        }
+        driver.manage().timeouts().implicitlyWait(timeout);
+        CURRENT.put(driver, timeout);
+    }
+    
+    /**
+     * Get the implicit wait last applied to a session, or null if it was never set here
+     */
+    public static Duration current(WebDriver driver) {
+        return CURRENT.get(driver);
+    }
+    
+    /**
+     * Disable the implicit wait until the returned scope is closed
+     * Costs no commands when the session already runs without an implicit wait
+     */
+    public static Scope suspend(WebDriver driver) {
+        Duration previous = CURRENT.get(driver);
+        if (Duration.ZERO.equals(previous)) {
+            return Scope.NONE;
+        }
+        apply(driver, Duration.ZERO);
+        return () -> {
+            if (previous != null) {
+                apply(driver, previous);
+            }
+        };
+    }
+    
+    /**
+     * Scope that restores the previous implicit wait when closed
+     */
+    public interface Scope extends AutoCloseable {
+        
+        Scope NONE = () -> { };
+        
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,152 @@
+package com.mahadsiddiqui.waits;
+
+import com.mahadsiddiqui.network.NetworkActivity;
+import org.openqa.selenium.JavascriptException;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.ScriptTimeoutException;
+import org.openqa.selenium.WebDriver;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Waits until a page is ready according to configurable signals
+ * In-page signals are resolved by one async script; network idle comes from DevTools events
+ */
+public class PageReadiness {
+    
+    /**
+     * Counts fetch and XHR calls that have not settled yet
+     */
+    private static final String PENDING_TRACKER_SCRIPT =
+            "if (!window.__wtaPending) {"
+            + "  var state = window.__wtaPending = {count: 0};"
+            + "  if (window.fetch) {"
+            + "    var originalFetch = window.fetch;"
+            + "    window.fetch = function () {"
+            + "      state.count++;"
+            + "      var settle = function () { state.count--; };"
+            + "      var promise = originalFetch.apply(this, arguments);"
+            + "      promise.then(settle, settle);"
+            + "      return promise;"
+            + "    };"
+            + "  }"
+            + "  var originalSend = XMLHttpRequest.prototype.send;"
+            + "  XMLHttpRequest.prototype.send = function () {"
+            + "    state.count++;"
+            + "    var settled = false;"
+            + "    this.addEventListener('loadend', function () { if (!settled) { settled = true; state.count--; } });"
+            + "    return originalSend.apply(this, arguments);"
+            + "  };"
+            + "}";
+    
+    /**
+     * Resolves once every requested in-page signal holds at the same time, reporting when each became true
+     */
+    private static final String IN_PAGE_SIGNALS_SCRIPT =
+            PENDING_TRACKER_SCRIPT
+            + "var wantReadyState = arguments[0], wantNoPending = arguments[1];"
+            + "var domStableMs = arguments[2], resourceIdleMs = arguments[3], timeout = arguments[4];"
+            + "var done = arguments[arguments.length - 1];"
+            + "var start = performance.now(), lastMutation = start, lastResource = start, since = {};"
+            + "var observer = new MutationObserver(function () { lastMutation = performance.now(); });"
+            + "observer.observe(document, {childList: true, subtree: true, attributes: true, characterData: true});"
+            + "var resources = null;"
+            + "try {"
+            + "  resources = new PerformanceObserver(function () { lastResource = performance.now(); });"
+            + "  resources.observe({type: 'resource'});"
+            + "} catch (e) { resources = null; }"
+            + "function track(name, holds, becameTrueAt) {"
+            + "  if (!holds) { delete since[name]; return false; }"
+            + "  if (since[name] === undefined) { since[name] = Math.max(0, Math.round(becameTrueAt - start)); }"
+            + "  return true;"
+            + "}"
+            + "function check() {"
+            + "  var now = performance.now(), all = true;"
+            + "  if (wantReadyState) { all = track('READY_STATE', document.readyState === 'complete', now) && all; }"
+            + "  if (wantNoPending) { all = track('NO_PENDING_REQUESTS', window.__wtaPending.count === 0, now) && all; }"
+            + "  if (domStableMs > 0) {"
+            + "    all = track('DOM_STABLE', now - lastMutation >= domStableMs, lastMutation + domStableMs) && all;"
+            + "  }"
+            + "  if (resourceIdleMs > 0) {"
+            + "    var idle = now - lastResource >= resourceIdleMs && window.__wtaPending.count === 0;"
+            + "    all = track('NETWORK_IDLE', idle, lastResource + resourceIdleMs) && all;"
+            + "  }"
+            + "  return all;"
+            + "}"
+            + "var tick, timer;"
+            + "function finish(ready) {"
+            + "  clearInterval(tick); clearTimeout(timer); observer.disconnect();"
+            + "  if (resources) { resources.disconnect(); }"
+            + "  done({ready: ready, fired: since});"
+            + "}"
+            + "if (check() && domStableMs === 0 && resourceIdleMs === 0) { finish(true); return; }"
+            + "tick = setInterval(function () { if (check()) { finish(true); } }, 25);"
+            + "timer = setTimeout(function () { finish(check()); }, timeout);";
+    
+    private final WebDriver driver;
+    private final Set<ReadinessSignal> signals;
+    private final long networkIdleMillis;
+    private final int maxInflight;
+    private final long domStableMillis;
+    private final NetworkActivity network;
+    
+    public PageReadiness(WebDriver driver, Set<ReadinessSignal> signals, long networkIdleMillis,
+                         int maxInflight, long domStableMillis) {
+        this.driver = driver;
+        this.signals = signals.isEmpty() ? EnumSet.noneOf(ReadinessSignal.class) : EnumSet.copyOf(signals);
+        this.networkIdleMillis = networkIdleMillis;
+        this.maxInflight = maxInflight;
+        this.domStableMillis = domStableMillis;
+        // Attach before the first navigation so its requests are counted
+        this.network = this.signals.contains(ReadinessSignal.NETWORK_IDLE) ? NetworkActivity.of(driver) : null;
+    }
+    
+    /**
+     * Wait until every configured signal holds or the timeout passes
+     */
+    @SuppressWarnings("unchecked")
+    public ReadinessReport await(Duration timeout) {
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+        Map<ReadinessSignal, Long> fired = new EnumMap<>(ReadinessSignal.class);
+        boolean ready = true;
+        
+        boolean networkInPage = signals.contains(ReadinessSignal.NETWORK_IDLE) && network == null;
+        if (signals.contains(ReadinessSignal.READY_STATE) || signals.contains(ReadinessSignal.NO_PENDING_REQUESTS)
+                || signals.contains(ReadinessSignal.DOM_STABLE) || networkInPage) {
+            try {
+                Object result = ((JavascriptExecutor) driver).executeAsyncScript(IN_PAGE_SIGNALS_SCRIPT,
+                        signals.contains(ReadinessSignal.READY_STATE),
+                        signals.contains(ReadinessSignal.NO_PENDING_REQUESTS),
+                        signals.contains(ReadinessSignal.DOM_STABLE) ? domStableMillis : 0,
+                        networkInPage ? networkIdleMillis : 0,
+                        Math.max(0, timeout.toMillis()));
+                Map<String, Object> outcome = (Map<String, Object>) result;
+                ready = Boolean.TRUE.equals(outcome.get("ready"));
+                Map<String, Object> since = (Map<String, Object>) outcome.get("fired");
+                for (Map.Entry<String, Object> entry : since.entrySet()) {
+                    fired.put(ReadinessSignal.valueOf(entry.getKey()), ((Number) entry.getValue()).longValue());
+                }
+            } catch (JavascriptException e) {
+                // Navigation replaced the document mid-wait; the next wait sees the new page
+                ready = false;
+            } catch (ScriptTimeoutException e) {
+                // Script timeout ran out before the page did; the signals still missing are reported unmet
+                ready = false;
+            }
+        }
+        
+        if (network != null) {
+            boolean idle = network.awaitIdle(networkIdleMillis, maxInflight, deadline);
+            if (idle) {
+                fired.put(ReadinessSignal.NETWORK_IDLE, (System.nanoTime() - start) / 1_000_000);
+            }
+            ready = ready && idle;
+        }
+        return new ReadinessReport(fired, ready, (System.nanoTime() - start) / 1_000_000);
+    }
+}
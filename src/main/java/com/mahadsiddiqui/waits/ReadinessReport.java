@@ -0,0 +1,72 @@
+package com.mahadsiddiqui.waits;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Outcome of a page readiness wait
+ * Records when each requested signal fired, relative to the start of the wait
+ */
+public class ReadinessReport {
+    
+    private final Map<ReadinessSignal, Long> firedMillis;
+    private final boolean ready;
+    private final long elapsedMillis;
+    
+    public ReadinessReport(Map<ReadinessSignal, Long> firedMillis, boolean ready, long elapsedMillis) {
+        this.firedMillis = Collections.unmodifiableMap(new EnumMap<>(firedMillis));
+        this.ready = ready;
+        this.elapsedMillis = elapsedMillis;
+    }
+    
+    /**
+     * Check if every requested signal fired before the timeout
+     */
+    public boolean isReady() {
+        return ready;
+    }
+    
+    /**
+     * Get total time spent waiting
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+    
+    /**
+     * Get when a signal fired, or -1 if it did not fire or was not requested
+     */
+    public long getFiredMillis(ReadinessSignal signal) {
+        Long fired = firedMillis.get(signal);
+        return fired == null ? -1 : fired;
+    }
+    
+    /**
+     * Get the signal that fired last, which is the one that gated readiness
+     */
+    public ReadinessSignal getGatingSignal() {
+        ReadinessSignal gating = null;
+        long latest = -1;
+        for (Map.Entry<ReadinessSignal, Long> entry : firedMillis.entrySet()) {
+            if (entry.getValue() > latest) {
+                latest = entry.getValue();
+                gating = entry.getKey();
+            }
+        }
+        return gating;
+    }
+    
+    /**
+     * Get fired times of all signals that fired
+     */
+    public Map<ReadinessSignal, Long> getFiredSignals() {
+        return firedMillis;
+    }
+    
+    @Override
+    public String toString() {
+        return "ReadinessReport{ready=" + ready + ", elapsedMs=" + elapsedMillis
+                + ", gatedBy=" + getGatingSignal() + ", fired=" + firedMillis + "}";
+    }
+}
@@ -0,0 +1,36 @@
+package com.mahadsiddiqui.waits;
+
+/**
+ * Signals that together decide when a page is ready for interaction
+ */
+public enum ReadinessSignal {
+    READY_STATE("readyState"),
+    NETWORK_IDLE("networkIdle"),
+    NO_PENDING_REQUESTS("noPendingRequests"),
+    DOM_STABLE("domStable");
+    
+    private final String configName;
+    
+    ReadinessSignal(String configName) {
+        this.configName = configName;
+    }
+    
+    /**
+     * Get the name used for this signal in config.properties
+     */
+    public String getConfigName() {
+        return configName;
+    }
+    
+    /**
+     * Look up a signal by its config.properties name
+     */
+    public static ReadinessSignal fromConfigName(String name) {
+        for (ReadinessSignal signal : values()) {
+            if (signal.configName.equalsIgnoreCase(name.trim())) {
+                return signal;
+            }
+        }
+        throw new IllegalArgumentException("Unknown page readiness strategy: " + name);
+    }
+}
@@ -0,0 +1,364 @@
+package com.mahadsiddiqui.listeners;
+
+import com.mahadsiddiqui.artifacts.ArtifactRecorder;
+import com.mahadsiddiqui.artifacts.ArtifactStore;
+import com.mahadsiddiqui.config.WebDriverConfig;
+import com.mahadsiddiqui.drivers.DriverBinaryResolver;
+import com.mahadsiddiqui.drivers.DriverPool;
+import com.mahadsiddiqui.drivers.LeaseStats;
+import com.mahadsiddiqui.metrics.CommandMetrics;
+import com.mahadsiddiqui.metrics.LatencyHistogram;
+import com.mahadsiddiqui.metrics.MetricsExporter;
+import com.mahadsiddiqui.network.RequestFilter;
+import com.mahadsiddiqui.pages.ElementCache;
+import com.mahadsiddiqui.performance.HistorySample;
+import com.mahadsiddiqui.performance.MetricsHistory;
+import com.mahadsiddiqui.performance.PageMetrics;
+import com.mahadsiddiqui.performance.PageMetricsCollector;
+import com.mahadsiddiqui.performance.Regression;
+import com.mahadsiddiqui.performance.Throttling;
+import com.mahadsiddiqui.performance.ThrottlingProfile;
+import com.mahadsiddiqui.screenshots.ScreenshotMetrics;
+import com.mahadsiddiqui.screenshots.ScreenshotPipeline;
+import com.mahadsiddiqui.trace.Tracer;
+import com.mahadsiddiqui.video.ScreencastRecorder;
+import com.mahadsiddiqui.waits.DomEventWait;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.IAlterSuiteListener;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestResult;
+import org.testng.xml.XmlSuite;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TestNG listener for suite-level framework setup
+ * Applies parallel settings from config.properties and manages the driver pool lifecycle
+ */
+public class TestListener implements IAlterSuiteListener, ISuiteListener, IInvokedMethodListener {
+    
+    private static final Logger LOG = LoggerFactory.getLogger(TestListener.class);
+    
+    /**
+     * Run test methods in parallel when parallel.execution is enabled
+     */
+    @Override
+    public void alter(List<XmlSuite> suites) {
+        if (!WebDriverConfig.getBooleanProperty("parallel.execution")) {
+            return;
+        }
+        int threadCount = WebDriverConfig.getDriverPoolSize();
+        for (XmlSuite suite : suites) {
+            suite.setParallel(XmlSuite.ParallelMode.METHODS);
+            suite.setThreadCount(threadCount);
+        }
+    }
+    
+    /**
+     * Report lease statistics and quit all pooled drivers once the suite is done
+     */
+    @Override
+    public void onFinish(ISuite suite) {
+        DriverPool pool = WebDriverConfig.findDriverPool();
+        if (pool != null) {
+            LOG.info("{}", pool.getStats().summary());
+        }
+        LOG.info("{}", DriverBinaryResolver.report());
+        LOG.info("{}", DomEventWait.summary());
+        LOG.info("{}", ElementCache.summary());
+        LOG.info("{}", ScreencastRecorder.summary());
+        LOG.info("{}", RequestFilter.summary());
+        ScreenshotPipeline screenshots = WebDriverConfig.findScreenshotPipeline();
+        WebDriverConfig.shutdownScreenshotPipeline();
+        if (screenshots != null) {
+            exportScreenshotMetrics(screenshots.getMetrics());
+        }
+        pruneArtifactStore();
+        exportCommandMetrics();
+        exportHttpCacheStats();
+        WebDriverConfig.closeNetworkArchive();
+        WebDriverConfig.shutdownDriverPool();
+        WebDriverConfig.shutdownCachingProxy();
+    }
+    
+    /**
+     * Apply the artifact store retention policy once this run's screenshots are stored
+     */
+    private void pruneArtifactStore() {
+        if (!WebDriverConfig.getBooleanProperty("artifacts.store.enabled")) {
+            return;
+        }
+        ArtifactStore store = WebDriverConfig.getArtifactStore();
+        LOG.info("{}", store.summary());
+        try {
+            int keepRuns = Integer.parseInt(WebDriverConfig.getProperty("artifacts.store.keep.runs", "20"));
+            long maxAgeDays = Long.parseLong(WebDriverConfig.getProperty("artifacts.store.max.age.days", "14"));
+            long reclaimed = store.prune(keepRuns, TimeUnit.DAYS.toMillis(maxAgeDays));
+            LOG.info("Artifact store: reclaimed {} bytes", reclaimed);
+        } catch (IOException e) {
+            LOG.warn("Failed to prune artifact store: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Write suite-wide command latency histograms as JSON and Prometheus text
+     */
+    private void exportCommandMetrics() {
+        Path directory = Paths.get(WebDriverConfig.getProperty("metrics.path", "target/metrics/"));
+        try {
+            MetricsExporter.writeJson(CommandMetrics.getSuiteHistograms(), directory.resolve("command-metrics.json"));
+            MetricsExporter.writePrometheus(CommandMetrics.getSuiteHistograms(),
+                    directory.resolve("command-metrics.prom"));
+        } catch (IOException e) {
+            LOG.warn("Failed to export command metrics: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Write screenshot capture times and writer queue depth as JSON and Prometheus text, once queued writes are done
+     */
+    private void exportScreenshotMetrics(ScreenshotMetrics metrics) {
+        LOG.info("{}", metrics.summary());
+        Path directory = Paths.get(WebDriverConfig.getProperty("metrics.path", "target/metrics/"));
+        try {
+            MetricsExporter.writeStatsJson(metrics.getStats(), directory.resolve("screenshots.json"));
+            MetricsExporter.writeStatsPrometheus("screenshots", metrics.getStats(),
+                    directory.resolve("screenshots.prom"));
+        } catch (IOException e) {
+            LOG.warn("Failed to export screenshot metrics: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Write HTTP cache hit ratio and bytes saved as JSON and Prometheus text when the cache is enabled
+     */
+    private void exportHttpCacheStats() {
+        if (!WebDriverConfig.getBooleanProperty("http.cache.enabled")
+                || !"off".equals(WebDriverConfig.getNetworkArchiveMode())) {
+            return;
+        }
+        Path directory = Paths.get(WebDriverConfig.getProperty("metrics.path", "target/metrics/"));
+        Map<String, Number> stats = WebDriverConfig.getCachingProxy().getStats();
+        try {
+            MetricsExporter.writeStatsJson(stats, directory.resolve("http-cache.json"));
+            MetricsExporter.writeStatsPrometheus("http_cache", stats, directory.resolve("http-cache.prom"));
+        } catch (IOException e) {
+            LOG.warn("Failed to export HTTP cache stats: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Select the throttling profile of a throttling.profile testng.xml parameter for the page objects the test
+     * and its configuration methods create, then start a fresh command latency breakdown and, when
+     * trace.enabled is set, a timeline for each test
+     */
+    @Override
+    public void beforeInvocation(IInvokedMethod method, ITestResult testResult) {
+        Throttling.select(testResult.getMethod()
+                .findMethodParameters(testResult.getTestContext().getCurrentXmlTest()).get("throttling.profile"));
+        if (!method.isTestMethod()) {
+            return;
+        }
+        CommandMetrics.startTest();
+        PageMetricsCollector.startTest();
+        WebDriver driver = currentDriver();
+        RequestFilter filter = driver == null ? null : RequestFilter.find(driver);
+        if (filter != null) {
+            filter.reset();
+        }
+        if (WebDriverConfig.getBooleanProperty("trace.enabled")) {
+            Tracer.startTest(testName(testResult), currentDriver());
+        }
+    }
+    
+    /**
+     * Attach the time the test waited for its browser to the test result and write failure artifacts
+     */
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (!method.isTestMethod()) {
+            return;
+        }
+        DriverPool pool = WebDriverConfig.findDriverPool();
+        if (pool != null) {
+            LeaseStats stats = pool.getStats();
+            testResult.setAttribute("driver.lease.source", stats.getLastLeaseSource());
+            testResult.setAttribute("driver.lease.ms", stats.getLastLeaseMillis());
+        }
+        testResult.setAttribute("command.metrics", CommandMetrics.testSummary());
+        recordRequestSavings(testResult);
+        recordPageMetrics(testResult);
+        recordHistory(testResult);
+        recordTrace(testResult);
+        recordArtifacts(testResult);
+        recordVideo(testResult);
+    }
+    
+    /**
+     * Attach the requests and estimated bytes the request filter saved during the test
+     */
+    private void recordRequestSavings(ITestResult testResult) {
+        WebDriver driver = currentDriver();
+        RequestFilter filter = driver == null ? null : RequestFilter.find(driver);
+        if (filter == null) {
+            return;
+        }
+        testResult.setAttribute("network.requests.saved", filter.getRequestsSaved());
+        testResult.setAttribute("network.bytes.saved", filter.getBytesSaved());
+    }
+    
+    /**
+     * Attach the page metrics the test collected to its result
+     */
+    private void recordPageMetrics(ITestResult testResult) {
+        List<PageMetrics> metrics = PageMetricsCollector.getTestMetrics();
+        if (metrics.isEmpty()) {
+            return;
+        }
+        testResult.setAttribute("page.metrics", metrics);
+        testResult.setAttribute("throttling.profile", metrics.get(metrics.size() - 1).getProfile());
+    }
+    
+    /**
+     * Compare the test's page metrics and command p50s with earlier runs, then append them to the history
+     * Page metric regressions fail the test when perf.regression.fail is set; command ones are only reported
+     */
+    private void recordHistory(ITestResult testResult) {
+        if (!WebDriverConfig.getBooleanProperty("perf.history.enabled")) {
+            return;
+        }
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (PageMetrics page : PageMetricsCollector.getTestMetrics()) {
+            // Throttled loads get their own series so they never count as regressions of unthrottled ones
+            String prefix = page.isThrottled() ? page.getPage() + "@" + page.getProfile() : page.getPage();
+            for (Map.Entry<String, Double> metric : page.getValues().entrySet()) {
+                values.put(prefix + "." + metric.getKey(), metric.getValue());
+            }
+        }
+        // Command latencies under throttling get their own series as well, or runs of one test under two profiles
+        // would alternate between two levels in a single series
+        WebDriver driver = currentDriver();
+        ThrottlingProfile profile = driver == null ? ThrottlingProfile.NONE : Throttling.current(driver);
+        String commandPrefix = ThrottlingProfile.NONE.getName().equals(profile.getName())
+                ? "command" : "command@" + profile.getName();
+        for (Map.Entry<String, LatencyHistogram> command : CommandMetrics.getTestHistograms().entrySet()) {
+            values.put(commandPrefix + "." + command.getKey() + ".p50",
+                    command.getValue().percentileMicros(50) / 1000.0);
+        }
+        if (values.isEmpty()) {
+            return;
+        }
+        String test = testName(testResult);
+        String browser = WebDriverConfig.getProperty("browser.name", "chrome");
+        String commit = WebDriverConfig.getCommit();
+        MetricsHistory history = WebDriverConfig.getMetricsHistory();
+        List<Regression> regressions = WebDriverConfig.getRegressionDetector()
+                .detect(history.getSamples(test, browser), values, commit);
+        try {
+            history.append(new HistorySample(System.currentTimeMillis(), test, browser, commit, values));
+        } catch (IOException e) {
+            LOG.warn("Failed to append metrics history: {}", e.getMessage());
+        }
+        if (regressions.isEmpty()) {
+            return;
+        }
+        testResult.setAttribute("performance.regressions", regressions);
+        List<Regression> pageRegressions = new ArrayList<>();
+        for (Regression regression : regressions) {
+            LOG.warn("Performance regression in {}: {}", testResult.getName(), regression);
+            if (!regression.getMetric().startsWith("command.") && !regression.getMetric().startsWith("command@")) {
+                pageRegressions.add(regression);
+            }
+        }
+        if (!pageRegressions.isEmpty() && testResult.getStatus() == ITestResult.SUCCESS
+                && WebDriverConfig.getBooleanProperty("perf.regression.fail")) {
+            testResult.setStatus(ITestResult.FAILURE);
+            testResult.setThrowable(new AssertionError("Page metrics regressed against history: " + pageRegressions));
+        }
+    }
+    
+    /**
+     * Write the test's timeline in Trace Event Format for Perfetto or chrome://tracing
+     */
+    private void recordTrace(ITestResult testResult) {
+        if (!Tracer.isActive()) {
+            return;
+        }
+        Path file = Paths.get(WebDriverConfig.getProperty("report.path", "reports/"), "traces",
+                testName(testResult) + ".json");
+        try {
+            Path written = Tracer.finishTest(currentDriver(), file);
+            testResult.setAttribute("trace.path", written.toString());
+        } catch (IOException e) {
+            LOG.warn("Failed to write test trace: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Get the driver leased to the current thread without creating the pool, or null if there is none
+     */
+    private static WebDriver currentDriver() {
+        DriverPool pool = WebDriverConfig.findDriverPool();
+        return pool == null ? null : pool.current();
+    }
+    
+    private static String testName(ITestResult testResult) {
+        return testResult.getTestClass().getRealClass().getSimpleName() + "." + testResult.getName();
+    }
+    
+    /**
+     * Flush the artifact trail of a failed test, or of a passed one when screenshot.on.pass is set
+     */
+    private void recordArtifacts(ITestResult testResult) {
+        WebDriver driver = currentDriver();
+        ArtifactRecorder recorder = driver == null ? null : ArtifactRecorder.find(driver);
+        if (recorder == null) {
+            return;
+        }
+        boolean failed = testResult.getStatus() == ITestResult.FAILURE;
+        boolean flush = failed ? WebDriverConfig.getBooleanProperty("screenshot.on.failure")
+                : WebDriverConfig.getBooleanProperty("screenshot.on.pass");
+        try {
+            if (flush) {
+                testResult.setAttribute("artifacts.path", recorder.flush(testName(testResult)).toString());
+            }
+        } catch (IOException e) {
+            LOG.warn("Failed to write test artifacts: {}", e.getMessage());
+        } finally {
+            recorder.clear();
+        }
+    }
+    
+    /**
+     * Encode the rolling screencast of a failed test in the background and drop it otherwise
+     */
+    private void recordVideo(ITestResult testResult) {
+        WebDriver driver = currentDriver();
+        ScreencastRecorder recorder = driver == null ? null : ScreencastRecorder.find(driver);
+        if (recorder == null) {
+            return;
+        }
+        if (testResult.getStatus() == ITestResult.FAILURE) {
+            recorder.save(testName(testResult)).whenComplete((path, error) -> {
+                if (error != null) {
+                    LOG.warn("Failed to write test video: {}", error.getMessage());
+                } else {
+                    LOG.debug("Test video written to {}", path);
+                }
+            });
+        }
+        recorder.clear();
+    }
+}
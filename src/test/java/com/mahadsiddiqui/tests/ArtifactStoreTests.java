@@ -0,0 +1,139 @@
+package com.mahadsiddiqui.tests;
+
+import com.mahadsiddiqui.artifacts.ArtifactStore;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Test class for the content-addressed artifact store
+ * Runs against a temporary directory, no browser needed
+ */
+public class ArtifactStoreTests {
+    
+    private Path root;
+    private ArtifactStore store;
+    
+    @BeforeMethod(groups = "unit")
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("artifact-store");
+        // No grace period, so unreferenced blobs are collected at once
+        store = new ArtifactStore(root, 1024, 4096, 0);
+    }
+    
+    @AfterMethod(groups = "unit", alwaysRun = true)
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+    
+    @Test(description = "Verify identical content is stored once under its hash", groups = "unit")
+    public void testDeduplication() throws IOException {
+        // When - Store the same bytes twice and different bytes once
+        String first = store.put(bytes("home page"));
+        String second = store.put(bytes("home page"));
+        String other = store.put(bytes("login page"));
+        
+        // Then - Verify keys and stored content
+        Assert.assertEquals(first, second, "Identical content should share a key");
+        Assert.assertNotEquals(first, other, "Different content should get its own key");
+        Assert.assertEquals(store.size(), 2, "Only two blobs should be stored");
+        Assert.assertEquals(store.get(first), bytes("home page"), "Content should read back unchanged");
+    }
+    
+    @Test(description = "Verify small blobs are packed and large blobs get their own file", groups = "unit")
+    public void testPackingAndReopen() throws IOException {
+        // Given - Small blobs spread over several segments and one large blob
+        byte[] large = new byte[5000];
+        Arrays.fill(large, (byte) 7);
+        String largeKey = store.put(large);
+        String[] smallKeys = new String[10];
+        for (int i = 0; i < smallKeys.length; i++) {
+            smallKeys[i] = store.put(new byte[900 + i]);
+        }
+        
+        // When - Reopen the store from disk
+        ArtifactStore reopened = new ArtifactStore(root, 1024, 4096);
+        
+        // Then - Verify the index survives and blobs read back
+        Assert.assertEquals(reopened.size(), 11, "Reopened store should index every blob");
+        Assert.assertEquals(reopened.get(largeKey), large, "Large blob should read back");
+        Assert.assertEquals(reopened.get(smallKeys[9]).length, 909, "Packed blob should read back");
+        try (Stream<Path> segments = Files.list(root.resolve("segments"))) {
+            Assert.assertTrue(segments.count() > 1, "Small blobs should roll over into several segments");
+        }
+    }
+    
+    @Test(description = "Verify retention removes old runs and their unreferenced blobs", groups = "unit")
+    public void testRetention() throws IOException, InterruptedException {
+        // Given - An old run and a newer run sharing one screenshot
+        String shared = store.put(bytes("header"));
+        String oldOnly = store.put(bytes("old footer"));
+        store.record("run-1", "header.png", shared);
+        store.record("run-1", "footer.png", oldOnly);
+        Files.setLastModifiedTime(root.resolve("runs/run-1.manifest"),
+                FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+        store.record("run-2", "header.png", shared);
+        
+        // When - Keep only the newest run
+        store.prune(1, 0);
+        
+        // Then - Verify the shared blob survives and the old one is gone
+        Assert.assertEquals(store.listRuns(), Arrays.asList("run-2"), "Only the newest run should remain");
+        Assert.assertTrue(store.contains(shared), "Blob still referenced should be kept");
+        Assert.assertFalse(store.contains(oldOnly), "Unreferenced blob should be removed");
+        Assert.assertEquals(store.readRun("run-2").get("header.png"), shared, "Manifest should map name to key");
+        Assert.assertEquals(new ArtifactStore(root, 1024, 4096).size(), 1, "Rewritten index should persist");
+    }
+    
+    @Test(description = "Verify stores sharing a directory see each other's blobs", groups = "unit")
+    public void testSharedStore() throws IOException {
+        // Given - A second store opened on the same directory before the first one writes
+        ArtifactStore other = new ArtifactStore(root, 1024, 4096);
+        String shared = store.put(bytes("checkout page"));
+        store.record("run-1", "checkout.png", shared);
+        
+        // When - The second store stores the same content and then collects garbage
+        String duplicate = other.put(bytes("checkout page"));
+        other.collectGarbage();
+        
+        // Then - Verify the blob was deduplicated and survived in the rewritten index
+        Assert.assertEquals(duplicate, shared, "Content stored by another store should be deduplicated");
+        Assert.assertEquals(other.size(), 1, "Blob should be stored only once");
+        Assert.assertEquals(new ArtifactStore(root, 1024, 4096).get(shared), bytes("checkout page"),
+                "Blob referenced by a run of another store should survive garbage collection");
+    }
+    
+    @Test(description = "Verify blobs not yet recorded by their run survive garbage collection", groups = "unit")
+    public void testGracePeriod() throws IOException {
+        // Given - A store with a grace period that has put content but not recorded it yet
+        ArtifactStore writer = new ArtifactStore(root, 1024, 4096, 60_000);
+        String pending = writer.put(bytes("cart page"));
+        
+        // When - Collect garbage within and past the grace period
+        long reclaimedWithin = writer.collectGarbage();
+        boolean keptWithin = writer.contains(pending);
+        long reclaimedPast = store.collectGarbage();
+        
+        // Then - Verify the pending blob is only collected once its grace period is over
+        Assert.assertEquals(reclaimedWithin, 0, "Nothing should be reclaimed within the grace period");
+        Assert.assertTrue(keptWithin, "Blob stored within the grace period should be kept");
+        Assert.assertFalse(store.contains(pending), "Unrecorded blob past its grace period should be collected");
+        Assert.assertTrue(reclaimedPast > 0, "Collected blob should be reclaimed");
+    }
+    
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
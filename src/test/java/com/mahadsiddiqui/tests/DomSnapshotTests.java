@@ -0,0 +1,66 @@
+package com.mahadsiddiqui.tests;
+
+import com.mahadsiddiqui.pages.DomSnapshot;
+import org.openqa.selenium.By;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Test class for DOM snapshot locator evaluation
+ * Runs against serialized markup, no browser needed
+ */
+public class DomSnapshotTests {
+    
+    private static final String MARKUP = "<!DOCTYPE html><html><head><title>Shop</title></head><body>"
+            + "<nav class=\"navbar-nav\" data-wta-visible=\"1\">"
+            + "<a href=\"/products\" data-wta-visible=\"1\">Products</a> "
+            + "<a href=\"/about\" data-wta-visible=\"1\">About us</a></nav>"
+            + "<input id=\"search\" placeholder=\"Search products\" data-wta-visible=\"1\">"
+            + "<div class=\"product-card\" data-wta-visible=\"1\">One</div>"
+            + "<div class=\"product-card\" data-wta-visible=\"1\">Two</div>"
+            + "<div class=\"newsletter-success\" data-wta-visible=\"0\">Thanks</div>"
+            + "<footer class=\"footer\" data-wta-visible=\"1\"><p data-wta-visible=\"1\">Contact</p>"
+            + "<p class=\"copyright\" data-wta-visible=\"1\">&copy; 2024 <b data-wta-visible=\"1\">Shop</b></p>"
+            + "<span data-wta-visible=\"0\">hidden note</span></footer>"
+            + "</body></html>";
+    
+    private DomSnapshot snapshot;
+    
+    @BeforeMethod(groups = "unit")
+    public void setUp() {
+        snapshot = DomSnapshot.parse(MARKUP, "https://example.com/");
+    }
+    
+    @Test(description = "Verify snapshot evaluates CSS, id and link text locators", groups = "unit")
+    public void testLocatorStrategies() {
+        // When - Evaluate locators locally
+        int productCount = snapshot.count(By.cssSelector(".product-card"));
+        String placeholder = snapshot.getAttribute(By.id("search"), "placeholder");
+        boolean productsLinkFound = snapshot.find(By.linkText("Products")) != null;
+        boolean aboutLinkFound = snapshot.find(By.partialLinkText("About")) != null;
+        
+        // Then - Verify locators resolve like they would in the browser
+        Assert.assertEquals(productCount, 2, "Should count both product cards");
+        Assert.assertEquals(placeholder, "Search products", "Should read placeholder attribute");
+        Assert.assertTrue(productsLinkFound, "Should find link by exact text");
+        Assert.assertTrue(aboutLinkFound, "Should find link by partial text");
+        Assert.assertEquals(snapshot.getTitle(), "Shop", "Should read page title");
+    }
+    
+    @Test(description = "Verify snapshot text skips hidden elements", groups = "unit")
+    public void testRenderedText() {
+        // When - Read text of visible and hidden elements
+        String copyright = snapshot.getText(By.cssSelector(".copyright"));
+        String footer = snapshot.getText(By.cssSelector(".footer"));
+        String hiddenMessage = snapshot.getText(By.cssSelector(".newsletter-success"));
+        
+        // Then - Verify text follows rendered visibility
+        Assert.assertEquals(copyright, "© 2024 Shop", "Inline children should join with spaces");
+        Assert.assertEquals(footer, "Contact\n© 2024 Shop", "Blocks should be separated by line breaks");
+        Assert.assertEquals(hiddenMessage, "", "Hidden element should have empty text");
+        Assert.assertFalse(snapshot.isDisplayed(By.cssSelector(".newsletter-success")),
+                "Hidden element should not be displayed");
+        Assert.assertNull(snapshot.getText(By.cssSelector(".missing")), "Missing element should have no text");
+    }
+}
@@ -0,0 +1,108 @@
+package com.mahadsiddiqui.tests;
+
+import com.mahadsiddiqui.config.WebDriverConfig;
+import com.mahadsiddiqui.pages.ElementQueryResult;
+import com.mahadsiddiqui.pages.HomePage;
+import io.qameta.allure.*;
+import org.openqa.selenium.WebDriver;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Test class for Home Page content that is present in the served HTML
+ * Runs on static sessions instead of browsers, so it can run at far higher parallelism than HomePageTests
+ */
+@Epic("E-commerce Website")
+@Feature("Home Page")
+public class HomePageStaticTests {
+    
+    private final ThreadLocal<WebDriver> driver = new ThreadLocal<>();
+    private final ThreadLocal<HomePage> homePage = new ThreadLocal<>();
+    
+    @BeforeMethod(groups = "static")
+    public void setUp() {
+        driver.set(WebDriverConfig.createStaticDriver());
+        homePage.set(new HomePage(driver.get()));
+        homePage().navigateToHomePage();
+    }
+    
+    @AfterMethod(alwaysRun = true, groups = "static")
+    public void tearDown() {
+        if (driver.get() != null) {
+            driver.get().quit();
+        }
+        driver.remove();
+        homePage.remove();
+    }
+    
+    private HomePage homePage() {
+        return homePage.get();
+    }
+    
+    @Test(description = "Verify home page title and header in served HTML", groups = {"smoke", "static"})
+    @Story("Page Loading")
+    @Severity(SeverityLevel.CRITICAL)
+    @Description("Test to verify that the served home page has a title, logo and navigation menu")
+    public void testHomePageHeader() {
+        // Given - Home page is loaded
+        
+        // When - Check header elements
+        ElementQueryResult headerState = homePage().getHeaderState();
+        String pageTitle = homePage().getPageTitle();
+        
+        // Then - Verify title, logo and navigation are present
+        Assert.assertNotNull(pageTitle, "Page title should not be null");
+        Assert.assertFalse(pageTitle.isEmpty(), "Page title should not be empty");
+        Assert.assertTrue(homePage().isLogoDisplayed(headerState), "Logo should be displayed");
+        Assert.assertTrue(homePage().isNavigationMenuDisplayed(headerState), "Navigation menu should be displayed");
+    }
+    
+    @Test(description = "Verify navigation links in served HTML", groups = {"smoke", "static"})
+    @Story("Navigation")
+    @Severity(SeverityLevel.NORMAL)
+    @Description("Test to verify that the products, about and contact links are on the home page")
+    public void testNavigationLinksPresent() {
+        // Given - Home page is loaded
+        
+        // When - Look up the navigation links
+        boolean linksPresent = homePage().areNavigationLinksPresent();
+        
+        // Then - Verify all links are there
+        Assert.assertTrue(linksPresent, "Products, about and contact links should be present");
+    }
+    
+    @Test(description = "Verify search box placeholder in served HTML", groups = {"smoke", "static"})
+    @Story("Search")
+    @Severity(SeverityLevel.MINOR)
+    @Description("Test to verify that the search box tells users what to search for")
+    public void testSearchBoxPlaceholder() {
+        // Given - Home page is loaded
+        
+        // When - Read the search box placeholder
+        String placeholder = homePage().getSearchBoxPlaceholder();
+        
+        // Then - Verify the placeholder is set
+        Assert.assertNotNull(placeholder, "Search box should have a placeholder");
+        Assert.assertFalse(placeholder.trim().isEmpty(), "Search box placeholder should not be empty");
+    }
+    
+    @Test(description = "Verify footer information in served HTML", groups = {"smoke", "static"})
+    @Story("Footer")
+    @Severity(SeverityLevel.MINOR)
+    @Description("Test to verify that the footer and copyright notice are in the served home page")
+    public void testFooterInformation() {
+        // Given - Home page is loaded
+        
+        // When - Read footer information
+        boolean footerDisplayed = homePage().isFooterDisplayed();
+        String footerText = homePage().getFooterText();
+        String copyrightText = homePage().getCopyrightText();
+        
+        // Then - Verify footer information
+        Assert.assertTrue(footerDisplayed, "Footer should be displayed");
+        Assert.assertFalse(footerText.isEmpty(), "Footer should have text");
+        Assert.assertNotNull(copyrightText, "Copyright text should not be null");
+    }
+}
@@ -1,7 +1,9 @@
 package com.mahadsiddiqui.tests;
 
 import com.mahadsiddiqui.config.WebDriverConfig;
+import com.mahadsiddiqui.pages.ElementQueryResult;
 import com.mahadsiddiqui.pages.HomePage;
+import com.mahadsiddiqui.performance.PageMetrics;
 import io.qameta.allure.*;
 import org.openqa.selenium.WebDriver;
 import org.testng.Assert;
@@ -9,6 +11,8 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.util.List;
+
 /**
  * Test class for Home Page functionality
  * Demonstrates comprehensive web testing scenarios
@@ -17,21 +21,23 @@ import org.testng.annotations.Test;
 @Feature("Home Page")
 public class HomePageTests {
     
-    private WebDriver driver;
-    private HomePage homePage;
+    private final ThreadLocal<HomePage> homePage = new ThreadLocal<>();
     
-    @BeforeMethod
+    @BeforeMethod(alwaysRun = true)
     public void setUp() {
-        driver = WebDriverConfig.initializeDriver();
-        homePage = new HomePage(driver);
-        homePage.navigateToHomePage();
+        WebDriver driver = WebDriverConfig.initializeDriver();
+        homePage.set(new HomePage(driver));
+        homePage().navigateToHomePage();
     }
     
-    @AfterMethod
+    @AfterMethod(alwaysRun = true)
     public void tearDown() {
-        if (driver != null) {
-            driver.quit();
-        }
+        WebDriverConfig.releaseDriver();
+        homePage.remove();
+    }
+    
+    private HomePage homePage() {
+        return homePage.get();
     }
     
     @Test(description = "Verify home page loads successfully")
@@ -41,10 +47,11 @@ public class HomePageTests {
     public void testHomePageLoadsSuccessfully() {
         // Given - Home page is loaded
         
-        // When - Check page elements
-        boolean logoDisplayed = homePage.isLogoDisplayed();
-        boolean navigationDisplayed = homePage.isNavigationMenuDisplayed();
-        String pageTitle = homePage.getHomePageTitle();
+        // When - Check page elements in a single round trip
+        ElementQueryResult headerState = homePage().getHeaderState();
+        boolean logoDisplayed = homePage().isLogoDisplayed(headerState);
+        boolean navigationDisplayed = homePage().isNavigationMenuDisplayed(headerState);
+        String pageTitle = homePage().getHomePageTitle();
         
         // Then - Verify all elements are present
         Assert.assertTrue(logoDisplayed, "Logo should be displayed");
@@ -61,16 +68,16 @@ public class HomePageTests {
         // Given - Home page is loaded
         
         // When - Click on different navigation links
-        homePage.clickProductsLink();
-        String productsPageTitle = homePage.getPageTitle();
+        homePage().clickProductsLink();
+        String productsPageTitle = homePage().getPageTitle();
         
-        homePage.navigateToHomePage();
-        homePage.clickAboutLink();
-        String aboutPageTitle = homePage.getPageTitle();
+        homePage().navigateToHomePage();
+        homePage().clickAboutLink();
+        String aboutPageTitle = homePage().getPageTitle();
         
-        homePage.navigateToHomePage();
-        homePage.clickContactLink();
-        String contactPageTitle = homePage.getPageTitle();
+        homePage().navigateToHomePage();
+        homePage().clickContactLink();
+        String contactPageTitle = homePage().getPageTitle();
         
         // Then - Verify navigation works
         Assert.assertNotNull(productsPageTitle, "Products page title should not be null");
@@ -87,10 +94,10 @@ public class HomePageTests {
         String searchTerm = "laptop";
         
         // When - Search for a product
-        homePage.searchProduct(searchTerm);
+        homePage().searchProduct(searchTerm);
         
         // Then - Verify search was performed
-        String currentUrl = homePage.getCurrentUrl();
+        String currentUrl = homePage().getCurrentUrl();
         Assert.assertTrue(currentUrl.contains("search") || currentUrl.contains("q="), 
                 "URL should contain search parameters");
     }
@@ -103,8 +110,8 @@ public class HomePageTests {
         // Given - Home page is loaded
         
         // When - Check featured products section
-        boolean featuredProductsDisplayed = homePage.isFeaturedProductsDisplayed();
-        int productCount = homePage.getProductCardsCount();
+        boolean featuredProductsDisplayed = homePage().isFeaturedProductsDisplayed();
+        int productCount = homePage().getProductCardsCount();
         
         // Then - Verify featured products are displayed
         Assert.assertTrue(featuredProductsDisplayed, "Featured products section should be displayed");
@@ -120,10 +127,10 @@ public class HomePageTests {
         String email = "test@example.com";
         
         // When - Subscribe to newsletter
-        homePage.subscribeToNewsletter(email);
+        homePage().subscribeToNewsletter(email);
         
         // Then - Verify subscription success
-        boolean successMessageDisplayed = homePage.isNewsletterSuccessMessageDisplayed();
+        boolean successMessageDisplayed = homePage().isNewsletterSuccessMessageDisplayed();
         Assert.assertTrue(successMessageDisplayed, "Newsletter success message should be displayed");
     }
     
@@ -135,7 +142,7 @@ public class HomePageTests {
         // Given - Home page is loaded
         
         // When - Check social media links
-        homePage.scrollToFooter();
+        homePage().scrollToFooter();
         
         // Then - Verify social media links are present
         // Note: In a real test, you would verify the links open in new tabs
@@ -151,9 +158,9 @@ public class HomePageTests {
         // Given - Home page is loaded
         
         // When - Scroll to footer and get information
-        homePage.scrollToFooter();
-        boolean footerDisplayed = homePage.isFooterDisplayed();
-        String copyrightText = homePage.getCopyrightText();
+        homePage().scrollToFooter();
+        boolean footerDisplayed = homePage().isFooterDisplayed();
+        String copyrightText = homePage().getCopyrightText();
         
         // Then - Verify footer information
         Assert.assertTrue(footerDisplayed, "Footer should be displayed");
@@ -168,31 +175,32 @@ public class HomePageTests {
         // Given - Home page is loaded
         
         // When - Check if elements are displayed at different screen sizes
-        boolean logoDisplayed = homePage.isLogoDisplayed();
-        boolean navigationDisplayed = homePage.isNavigationMenuDisplayed();
+        ElementQueryResult headerState = homePage().getHeaderState();
+        boolean logoDisplayed = homePage().isLogoDisplayed(headerState);
+        boolean navigationDisplayed = homePage().isNavigationMenuDisplayed(headerState);
         
         // Then - Verify responsive elements
         Assert.assertTrue(logoDisplayed, "Logo should be displayed on all screen sizes");
         Assert.assertTrue(navigationDisplayed, "Navigation should be displayed on all screen sizes");
     }
     
-    @Test(description = "Verify page load performance")
+    @Test(description = "Verify page load performance", groups = "performance")
     @Story("Performance")
     @Severity(SeverityLevel.NORMAL)
-    @Description("Test to verify that page loads within acceptable time")
+    @Description("Test to verify that page load metrics stay within the home page budget of the throttling profile")
     public void testPageLoadPerformance() {
-        // Given - Fresh browser session
-        
-        // When - Load home page and measure time
-        long startTime = System.currentTimeMillis();
-        homePage.navigateToHomePage();
-        homePage.waitForPageLoad();
-        long endTime = System.currentTimeMillis();
-        
-        long loadTime = endTime - startTime;
-        
-        // Then - Verify load time is acceptable (less than 5 seconds)
-        Assert.assertTrue(loadTime < 5000, "Page should load within 5 seconds. Actual: " + loadTime + "ms");
+        // Given - Fresh navigation to the home page
+        homePage().navigateToHomePage();
+        homePage().waitForPageLoad();
+        
+        // When - Collect the timings measured by the browser itself
+        PageMetrics metrics = homePage().collectPageMetrics();
+        List<String> violations = homePage().checkPerformanceBudget(metrics);
+        
+        // Then - Verify the page stays within the budget of the throttling profile it loaded under
+        Assert.assertTrue(metrics.has(PageMetrics.LOAD), "Navigation Timing should report the load event");
+        Assert.assertTrue(violations.isEmpty(), "Home page should stay within its " + metrics.getProfile()
+                + " performance budget: " + violations);
     }
     
     @Test(description = "Verify user authentication links")
@@ -203,7 +211,7 @@ public class HomePageTests {
         // Given - Home page is loaded
         
         // When - Check authentication links
-        homePage.clickUserIcon();
+        homePage().clickUserIcon();
         
         // Then - Verify login and register links are accessible
         // Note: In a real test, you would verify the links navigate to correct pages
@@ -218,10 +226,10 @@ public class HomePageTests {
         // Given - Home page is loaded
         
         // When - Click on cart icon
-        homePage.clickCartIcon();
+        homePage().clickCartIcon();
         
         // Then - Verify cart page loads
-        String currentUrl = homePage.getCurrentUrl();
+        String currentUrl = homePage().getCurrentUrl();
         Assert.assertTrue(currentUrl.contains("cart") || currentUrl.contains("basket"), 
                 "Should navigate to cart page");
     }
@@ -0,0 +1,110 @@
+package com.mahadsiddiqui.tests;
+
+import com.mahadsiddiqui.network.CachedResponse;
+import com.mahadsiddiqui.network.HttpCache;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Test class for the shared HTTP cache store and its freshness rules
+ * Runs against a temporary directory, no browser or network needed
+ */
+public class HttpCacheTests {
+    
+    private static final long NOW = 1_700_000_000_000L;
+    
+    @Test(description = "Verify the disk store evicts least recently used entries and survives reopening",
+            groups = "unit")
+    public void testLruEvictionAndReopen() throws IOException {
+        // Given - A cache with room for about two 1 KB responses
+        Path directory = Files.createTempDirectory("http-cache");
+        HttpCache cache = new HttpCache(directory, 2500);
+        cache.put(response("https://demoqa.com/a.js", "max-age=60", 1000));
+        cache.put(response("https://demoqa.com/b.js", "max-age=60", 1000));
+        
+        // When - Use the first entry, then store a third
+        Assert.assertNotNull(cache.get("https://demoqa.com/a.js"), "Stored response should be found");
+        cache.put(response("https://demoqa.com/c.js", "max-age=60", 1000));
+        
+        // Then - Verify the least recently used entry went and the rest reload from disk
+        Assert.assertNull(cache.get("https://demoqa.com/b.js"), "Least recently used entry should be evicted");
+        Assert.assertEquals(cache.getEvictions(), 1);
+        Assert.assertTrue(cache.getTotalBytes() <= 2500, "Cache should stay within its size bound");
+        HttpCache reopened = new HttpCache(directory, 2500);
+        Assert.assertEquals(reopened.size(), 2, "Entries should survive reopening");
+        CachedResponse loaded = reopened.get("https://demoqa.com/c.js");
+        Assert.assertNotNull(loaded);
+        Assert.assertEquals(loaded.getBody().length, 1000);
+        Assert.assertEquals(loaded.getHeaders().get("cache-control"), "max-age=60",
+                "Headers should be found by case-insensitive name");
+    }
+    
+    @Test(description = "Verify freshness follows max-age, Age, no-cache and the Last-Modified heuristic",
+            groups = "unit")
+    public void testFreshness() {
+        // Given - Responses received at NOW with different cache headers
+        CachedResponse maxAge = response("https://demoqa.com/a.js", "public, max-age=60", 10);
+        Map<String, String> aged = new HashMap<>(maxAge.getHeaders());
+        aged.put("Age", "50");
+        CachedResponse fromUpstream = new CachedResponse(maxAge.getUrl(), 200, aged, Collections.emptyMap(),
+                maxAge.getBody(), NOW, NOW);
+        CachedResponse noCache = response("https://demoqa.com/b.js", "no-cache", 10);
+        Map<String, String> heuristic = new HashMap<>();
+        heuristic.put("Date", "Tue, 14 Nov 2023 22:13:20 GMT");
+        heuristic.put("Last-Modified", "Sat, 04 Nov 2023 22:13:20 GMT");
+        CachedResponse lastModified = new CachedResponse("https://demoqa.com/logo.png", 200, heuristic,
+                Collections.emptyMap(), new byte[10], NOW, NOW);
+        
+        // Then - Verify each one's freshness over time
+        Assert.assertTrue(maxAge.isFresh(NOW + 59_000), "max-age=60 should be fresh for a minute");
+        Assert.assertFalse(maxAge.isFresh(NOW + 61_000), "max-age=60 should be stale after a minute");
+        Assert.assertFalse(fromUpstream.isFresh(NOW + 11_000), "Age from upstream caches should count");
+        Assert.assertFalse(noCache.isFresh(NOW), "no-cache should always revalidate");
+        Assert.assertTrue(noCache.hasValidators());
+        Assert.assertEquals(lastModified.getFreshnessLifetimeMillis(), 86_400_000L,
+                "Heuristic lifetime should be 10% of the time since Last-Modified");
+    }
+    
+    @Test(description = "Verify which responses a shared cache may store and which requests they vary on",
+            groups = "unit")
+    public void testStorabilityAndVary() {
+        Assert.assertTrue(CachedResponse.isStorable(200, headers("Cache-Control", "max-age=60"), false));
+        Assert.assertFalse(CachedResponse.isStorable(200, headers("Cache-Control", "no-store"), true));
+        Assert.assertFalse(CachedResponse.isStorable(200, headers("Cache-Control", "private, max-age=60"), true));
+        Assert.assertFalse(CachedResponse.isStorable(200, Collections.emptyMap(), false),
+                "Responses without lifetime or validators should only be stored in aggressive mode");
+        Assert.assertTrue(CachedResponse.isStorable(200, Collections.emptyMap(), true));
+        Assert.assertFalse(CachedResponse.isStorable(500, headers("ETag", "\"v1\""), true));
+        
+        // Given - A font that varies on Origin and Accept-Encoding
+        Map<String, String> fontHeaders = headers("Vary", "Origin, Accept-Encoding");
+        CachedResponse font = new CachedResponse("https://demoqa.com/font.woff2", 200, fontHeaders,
+                headers("Origin", "https://demoqa.com"), new byte[10], NOW, NOW);
+        
+        // Then - Verify only the Origin it was fetched for selects it
+        Assert.assertTrue(font.matches(headers("origin", "https://demoqa.com")));
+        Assert.assertFalse(font.matches(headers("Origin", "https://example.com")));
+    }
+    
+    private static CachedResponse response(String url, String cacheControl, int size) {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Cache-Control", cacheControl);
+        headers.put("ETag", "\"" + url.hashCode() + "\"");
+        byte[] body = new byte[size];
+        byte[] text = url.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(text, 0, body, 0, Math.min(size, text.length));
+        return new CachedResponse(url, 200, headers, Collections.emptyMap(), body, NOW, NOW);
+    }
+    
+    private static Map<String, String> headers(String name, String value) {
+        return Collections.singletonMap(name, value);
+    }
+}
@@ -0,0 +1,58 @@
+package com.mahadsiddiqui.tests;
+
+import com.mahadsiddiqui.metrics.LatencyHistogram;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Test class for the command latency histogram
+ * Runs on recorded values only, no browser needed
+ */
+public class LatencyHistogramTests {
+    
+    @Test(description = "Verify percentiles of a uniform distribution stay within bucket precision", groups = "unit")
+    public void testPercentiles() {
+        // Given - Durations of 1 to 1000 milliseconds
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 1000; millis++) {
+            histogram.recordNanos(millis * 1_000_000L);
+        }
+        
+        // When - Read the percentiles
+        double p50 = histogram.percentileMicros(50) / 1000.0;
+        double p95 = histogram.percentileMicros(95) / 1000.0;
+        double p99 = histogram.percentileMicros(99) / 1000.0;
+        
+        // Then - Verify each is within 12.5% of the exact value
+        Assert.assertEquals(histogram.getCount(), 1000, "Should count every duration");
+        Assert.assertEquals(p50, 500, 500 * 0.125, "p50 should be close to 500 ms");
+        Assert.assertEquals(p95, 950, 950 * 0.125, "p95 should be close to 950 ms");
+        Assert.assertEquals(p99, 990, 990 * 0.125, "p99 should be close to 990 ms");
+        Assert.assertEquals(histogram.getMaxMicros(), 1_000_000, "Max should be exact");
+    }
+    
+    @Test(description = "Verify small and empty histograms report exact values", groups = "unit")
+    public void testSmallValues() {
+        // Given - An empty histogram and one with sub-10 microsecond values
+        LatencyHistogram empty = new LatencyHistogram();
+        LatencyHistogram small = new LatencyHistogram();
+        small.recordNanos(3_000);
+        small.recordNanos(5_000);
+        
+        // Then - Verify values below the first power-of-two split are exact
+        Assert.assertEquals(empty.percentileMicros(99), 0, "Empty histogram should report zero");
+        Assert.assertEquals(small.percentileMicros(50), 3, "Median of two values should be the lower one");
+        Assert.assertEquals(small.percentileMicros(100), 5, "Top percentile should be the largest value");
+        Assert.assertEquals(small.getSumMicros(), 8, "Sum should be exact");
+    }
+    
+    @Test(description = "Verify percentiles never exceed the recorded maximum", groups = "unit")
+    public void testPercentileCappedAtMax() {
+        // Given - One long command
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordNanos(1_234_567_000L);
+        
+        // Then - Verify the bucket upper bound is capped at the real maximum
+        Assert.assertEquals(histogram.percentileMicros(99), 1_234_567, "p99 of one value should be that value");
+    }
+}
@@ -0,0 +1,125 @@
+package com.mahadsiddiqui.tests;
+
+import com.mahadsiddiqui.performance.HistorySample;
+import com.mahadsiddiqui.performance.MetricsHistory;
+import com.mahadsiddiqui.performance.Regression;
+import com.mahadsiddiqui.performance.RegressionDetector;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Test class for the metrics history store and regression detection
+ * Runs against a temporary file and generated runs, no browser needed
+ */
+public class MetricsHistoryTests {
+    
+    private static final String LCP = "HomePage.lcp";
+    
+    private final RegressionDetector detector = new RegressionDetector(10, 5, 0.15, 3);
+    
+    @Test(description = "Verify runs survive a reload and are indexed by test, browser and commit", groups = "unit")
+    public void testAppendAndReload() throws IOException {
+        // Given - Runs of two tests appended to a fresh history
+        Path file = Files.createTempDirectory("metrics-history").resolve("history.tsv");
+        MetricsHistory history = new MetricsHistory(file);
+        history.append(sample("HomePageTests.testA", "abc", 1200.5));
+        history.append(sample("HomePageTests.testA", "def", 1300));
+        history.append(sample("HomePageTests.testB", "def", 900));
+        
+        // When - Reload it from disk
+        MetricsHistory reloaded = new MetricsHistory(file);
+        
+        // Then - Verify the runs come back in order with their values
+        List<HistorySample> samples = reloaded.getSamples("HomePageTests.testA", "chrome");
+        Assert.assertEquals(reloaded.size(), 3, "All runs should be reloaded");
+        Assert.assertEquals(samples.size(), 2, "Runs should be indexed by test");
+        Assert.assertEquals(samples.get(0).get(LCP).doubleValue(), 1200.5, 0.0001,
+                "Values should read back unchanged");
+        Assert.assertEquals(reloaded.getSamples("HomePageTests.testA", "chrome", "def").size(), 1,
+                "Runs should be selectable by commit");
+        Assert.assertTrue(reloaded.getSamples("HomePageTests.testA", "firefox").isEmpty(),
+                "Runs should be indexed by browser");
+    }
+    
+    @Test(description = "Verify noisy runs pass and a clear slowdown is flagged", groups = "unit")
+    public void testSlowdownAgainstNoise() {
+        // Given - Ten runs jittering around 1000 ms
+        List<Double> previous = Arrays.asList(980.0, 1010.0, 995.0, 1030.0, 990.0,
+                1005.0, 970.0, 1020.0, 1000.0, 1015.0);
+        
+        // Then - Verify a run within the noise passes and a 30% slower one is flagged
+        Assert.assertNull(detector.slowdown(LCP, previous, 1040), "Run within the noise should pass");
+        Regression regression = detector.slowdown(LCP, previous, 1300);
+        Assert.assertNotNull(regression, "Clearly slower run should be flagged");
+        Assert.assertEquals(regression.getKind(), Regression.Kind.SLOWDOWN);
+        Assert.assertEquals(regression.getBaseline(), 1002.5, 0.001, "Baseline should be the median");
+        Assert.assertNull(detector.slowdown(LCP, previous.subList(0, 3), 5000),
+                "Too few runs should not be judged");
+    }
+    
+    @Test(description = "Verify a step the rolling median has absorbed is still found at its commit", groups = "unit")
+    public void testChangePoint() {
+        // Given - Five commits around 1000 ms followed by five around 1250 ms
+        List<HistorySample> history = new ArrayList<>();
+        double[] medians = {1000, 1010, 990, 1005, 995, 1250, 1240, 1260, 1235, 1255};
+        for (int commit = 0; commit < medians.length; commit++) {
+            history.add(sample("HomePageTests.testA", "c" + commit, medians[commit]));
+        }
+        List<Double> previous = new ArrayList<>();
+        for (double median : medians) {
+            previous.add(median);
+        }
+        
+        // When - A run on the next commit continues the slower level
+        List<Regression> regressions = detector.detect(history, Collections.singletonMap(LCP, 1245.0), "c10");
+        
+        // Then - Verify only the change point flags it, naming the commit where the step started
+        Assert.assertNull(detector.slowdown(LCP, previous, 1245), "Half-slow window should hide the step");
+        Assert.assertEquals(regressions.size(), 1, "The step should be reported once");
+        Assert.assertEquals(regressions.get(0).getKind(), Regression.Kind.CHANGE_POINT);
+        Assert.assertEquals(regressions.get(0).getCommit(), "c5", "Change point should name commit c5");
+        Assert.assertEquals(RegressionDetector.changePoint(Arrays.asList(1000.0, 1010.0, 990.0, 1005.0)), -1,
+                "Flat series should have no change point");
+    }
+    
+    @Test(description = "Verify flat and zero baselines, count metrics and accepted commits are not flagged",
+            groups = "unit")
+    public void testNoiseFloorAndAcceptance() {
+        // Given - A detector with minimum deltas, an excluded count metric and an accepted commit
+        RegressionDetector floored = new RegressionDetector(10, 5, 0.15, 3,
+                Collections.singletonMap("cls", 0.05), Collections.singleton("resourceCount"),
+                Collections.singleton("c5"));
+        List<Double> zeros = Arrays.asList(0.0, 0.0, 0.0, 0.0, 0.0);
+        List<HistorySample> history = new ArrayList<>();
+        double[] medians = {1000, 1010, 990, 1005, 995, 1250, 1240, 1260, 1235, 1255};
+        for (int commit = 0; commit < medians.length; commit++) {
+            history.add(sample("HomePageTests.testA", "c" + commit, medians[commit]));
+        }
+        
+        // Then - Verify tiny shifts off zero pass, real ones fail, counts are skipped and the accepted step is quiet
+        Assert.assertNull(floored.slowdown("HomePage.cls", zeros, 0.001), "Tiny shift off zero should pass");
+        Assert.assertNotNull(floored.slowdown("HomePage.cls", zeros, 0.2), "Large shift off zero should be flagged");
+        Assert.assertTrue(floored.detect(history, Collections.singletonMap("HomePage.resourceCount", 9000.0), "c10")
+                .isEmpty(), "Count metrics should not be judged");
+        Assert.assertTrue(floored.detect(history, Collections.singletonMap(LCP, 1245.0), "c10").isEmpty(),
+                "Runs before the accepted commit should be ignored");
+        Assert.assertEquals(floored.detect(history, Collections.singletonMap(LCP, 1600.0), "c10").size(), 1,
+                "Slowdowns against the accepted level should still be flagged");
+        Assert.assertFalse(new Regression(LCP, Regression.Kind.SLOWDOWN, 0, 50, null).toString()
+                .contains("Infinity"), "Zero baselines should be reported as an absolute change");
+    }
+    
+    private static HistorySample sample(String test, String commit, double lcp) {
+        Map<String, Double> values = Collections.singletonMap(LCP, lcp);
+        return new HistorySample(System.currentTimeMillis(), test, "chrome", commit, values);
+    }
+}
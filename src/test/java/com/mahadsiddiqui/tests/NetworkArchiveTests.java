@@ -0,0 +1,115 @@
+package com.mahadsiddiqui.tests;
+
+import com.mahadsiddiqui.network.ArchiveEntry;
+import com.mahadsiddiqui.network.NetworkArchive;
+import com.mahadsiddiqui.network.ReplayServer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Test class for the network archive and its replay server
+ * Runs against a temporary file and a loopback server, no browser needed
+ */
+public class NetworkArchiveTests {
+    
+    private static final Map<String, String> HTML = Collections.singletonMap("Content-Type", "text/html");
+    
+    @Test(description = "Verify an archive reads back and replays repeated URLs in recorded order", groups = "unit")
+    public void testSaveLoadAndSequence() throws IOException {
+        // Given - Two responses for one URL and a cache-busted script
+        NetworkArchive archive = new NetworkArchive();
+        archive.add(entry("https://demoqa.com/api/cart", 200, "first"));
+        archive.add(entry("https://demoqa.com/api/cart", 200, "second"));
+        archive.add(entry("https://demoqa.com/app.js?v=123", 200, "script"));
+        Path file = Files.createTempDirectory("network-archive").resolve("run.archive");
+        
+        // When - Save and load it again
+        archive.save(file);
+        NetworkArchive loaded = NetworkArchive.load(file);
+        
+        // Then - Verify order, repetition of the last response and the query fallback
+        Assert.assertEquals(loaded.size(), 3, "All responses should be stored");
+        Assert.assertEquals(body(loaded.find("GET", "https://demoqa.com/api/cart")), "first");
+        Assert.assertEquals(body(loaded.find("GET", "https://demoqa.com/api/cart")), "second");
+        Assert.assertEquals(body(loaded.find("GET", "https://demoqa.com/api/cart#top")), "second",
+                "Last response should repeat and fragments should be ignored");
+        Assert.assertEquals(body(loaded.find("GET", "https://demoqa.com/app.js?v=456")), "script",
+                "Changed query should fall back to the recorded path");
+        Assert.assertNull(loaded.find("POST", "https://demoqa.com/api/cart"), "Method should be part of the key");
+    }
+    
+    @Test(description = "Verify the replay server serves the recorded origin locally", groups = "unit")
+    public void testReplayServer() throws IOException {
+        // Given - A home page that redirects to its canonical path
+        NetworkArchive archive = new NetworkArchive();
+        archive.add(new ArchiveEntry("GET", "https://demoqa.com/", 301,
+                Collections.singletonMap("Location", "https://demoqa.com/home"), new byte[0]));
+        archive.add(entry("https://demoqa.com/home", 200, "<h1>Home</h1>"));
+        
+        try (ReplayServer server = ReplayServer.start(archive, "https://demoqa.com")) {
+            // When - Request the local equivalents
+            HttpURLConnection root = open(server.localUrl("https://demoqa.com/"));
+            root.setInstanceFollowRedirects(false);
+            HttpURLConnection home = open(server.localUrl("https://demoqa.com/home"));
+            HttpURLConnection missing = open(server.localUrl("https://demoqa.com/missing"));
+            
+            // Then - Verify redirects stay local, bodies are served and unrecorded paths fail
+            Assert.assertEquals(root.getResponseCode(), 301);
+            Assert.assertEquals(root.getHeaderField("Location"), server.localUrl("https://demoqa.com/home"),
+                    "Redirect should point at the local server");
+            Assert.assertEquals(home.getResponseCode(), 200);
+            try (InputStream in = home.getInputStream()) {
+                Assert.assertEquals(new String(in.readAllBytes(), StandardCharsets.UTF_8), "<h1>Home</h1>");
+            }
+            Assert.assertEquals(missing.getResponseCode(), 404, "Unrecorded path should not be served");
+            Assert.assertEquals(server.getMisses(), 1, "Miss should be counted");
+        }
+    }
+    
+    @Test(description = "Verify pages from other recorded origins resolve their links against that origin",
+            groups = "unit")
+    public void testReplayServerForeignOrigin() throws IOException {
+        // Given - A page on a second origin with relative and root-relative subresources
+        NetworkArchive archive = new NetworkArchive();
+        archive.add(entry("https://demoqa.com/home", 200, "<h1>Home</h1>"));
+        archive.add(entry("https://cdn.example.com/docs/page", 200, "<link href=\"css/site.css\">"));
+        archive.add(entry("https://cdn.example.com/docs/css/site.css", 200, "body{}"));
+        archive.add(entry("https://cdn.example.com/img/logo.svg", 200, "<svg/>"));
+        
+        try (ReplayServer server = ReplayServer.start(archive, "https://demoqa.com")) {
+            // When - Resolve the subresources against the local page URL as a browser would
+            URL page = new URL(server.localUrl("https://cdn.example.com/docs/page"));
+            HttpURLConnection relative = open(new URL(page, "css/site.css").toString());
+            HttpURLConnection rootRelative = open(new URL(page, "/img/logo.svg").toString());
+            
+            // Then - Verify both are served from the foreign origin and the primary origin is untouched
+            Assert.assertEquals(relative.getResponseCode(), 200, "Relative link should stay on its origin");
+            Assert.assertEquals(rootRelative.getResponseCode(), 200, "Root-relative link should stay on its origin");
+            Assert.assertNotEquals(page.getPort(), new URL(server.localUrl("https://demoqa.com/home")).getPort(),
+                    "Each recorded origin should get its own port");
+            Assert.assertEquals(server.getMisses(), 0);
+        }
+    }
+    
+    private static ArchiveEntry entry(String url, int status, String body) {
+        return new ArchiveEntry("GET", url, status, HTML, body.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static String body(ArchiveEntry entry) {
+        return new String(entry.getBody(), StandardCharsets.UTF_8);
+    }
+    
+    private static HttpURLConnection open(String url) throws IOException {
+        return (HttpURLConnection) new URL(url).openConnection();
+    }
+}
@@ -0,0 +1,52 @@
+package com.mahadsiddiqui.tests;
+
+import com.mahadsiddiqui.performance.PageMetrics;
+import com.mahadsiddiqui.performance.PerformanceBudget;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Test class for page performance budgets
+ * Runs on constructed metrics only, no browser needed
+ */
+public class PerformanceBudgetTests {
+    
+    @Test(description = "Verify exceeded limits are reported and met limits are not", groups = "unit")
+    public void testViolations() {
+        // Given - A budget and metrics that exceed one of its limits
+        PerformanceBudget budget = new PerformanceBudget()
+                .limit(PageMetrics.LARGEST_CONTENTFUL_PAINT, 2500)
+                .limit(PageMetrics.CUMULATIVE_LAYOUT_SHIFT, 0.1);
+        Map<String, Double> values = new HashMap<>();
+        values.put(PageMetrics.LARGEST_CONTENTFUL_PAINT, 3100.0);
+        values.put(PageMetrics.CUMULATIVE_LAYOUT_SHIFT, 0.02);
+        
+        // When - Check the metrics
+        List<String> violations = budget.check(metrics(values));
+        
+        // Then - Verify only the exceeded limit is reported
+        Assert.assertEquals(violations.size(), 1, "Only LCP should exceed its budget");
+        Assert.assertTrue(violations.get(0).contains("lcp"), "Violation should name the metric");
+    }
+    
+    @Test(description = "Verify metrics the browser did not report are not checked", groups = "unit")
+    public void testMissingMetricsSkipped() {
+        // Given - A budget on INP and metrics without interactions
+        PerformanceBudget budget = new PerformanceBudget().limit(PageMetrics.INTERACTION_TO_NEXT_PAINT, 200);
+        PageMetrics metrics = metrics(Collections.singletonMap(PageMetrics.LOAD, 900.0));
+        
+        // Then - Verify the missing metric is neither reported nor treated as a violation
+        Assert.assertFalse(metrics.has(PageMetrics.INTERACTION_TO_NEXT_PAINT), "INP should be absent");
+        Assert.assertTrue(Double.isNaN(metrics.get(PageMetrics.INTERACTION_TO_NEXT_PAINT)), "Absent metric is NaN");
+        Assert.assertTrue(budget.check(metrics).isEmpty(), "Absent metric should not violate the budget");
+    }
+    
+    private static PageMetrics metrics(Map<String, Double> values) {
+        return new PageMetrics("HomePage", "https://example.test/", values, Collections.emptyMap());
+    }
+}
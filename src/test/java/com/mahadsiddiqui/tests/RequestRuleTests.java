@@ -0,0 +1,69 @@
+package com.mahadsiddiqui.tests;
+
+import com.mahadsiddiqui.network.RequestRule;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Test class for request filtering rules
+ */
+public class RequestRuleTests {
+    
+    @Test(description = "Verify rules parse into actions and selectors", groups = "unit")
+    public void testParseAll() {
+        // Given - Three rules with extra whitespace and an empty entry
+        String rules = " block type:Media,Font ;; stub third-party type:Script; short-circuit url:*doubleclick.net* ";
+        
+        // When - Parse them
+        List<RequestRule> parsed = RequestRule.parseAll(rules);
+        
+        // Then - Verify each rule and its action
+        Assert.assertEquals(parsed.size(), 3, "Empty entries should be skipped");
+        Assert.assertEquals(parsed.get(0).getAction(), RequestRule.Action.BLOCK);
+        Assert.assertEquals(parsed.get(1).getAction(), RequestRule.Action.STUB);
+        Assert.assertEquals(parsed.get(2).getAction(), RequestRule.Action.SHORT_CIRCUIT);
+        Assert.assertTrue(RequestRule.parseAll(null).isEmpty(), "Missing rules should parse to none");
+    }
+    
+    @Test(description = "Verify a request must match every selector of a rule", groups = "unit")
+    public void testMatches() {
+        // Given - A third-party script rule and a URL glob rule
+        RequestRule thirdPartyScripts = RequestRule.parse("stub third-party type:Script");
+        RequestRule tracker = RequestRule.parse("short-circuit url:*doubleclick.net*");
+        
+        // Then - Verify type, party and glob matching
+        Assert.assertTrue(thirdPartyScripts.matches("https://cdn.example.com/a.js", "script", true),
+                "Resource types should match case-insensitively");
+        Assert.assertFalse(thirdPartyScripts.matches("https://demoqa.com/a.js", "Script", false),
+                "First-party scripts should not match");
+        Assert.assertFalse(thirdPartyScripts.matches("https://cdn.example.com/a.css", "Stylesheet", true),
+                "Other resource types should not match");
+        Assert.assertTrue(tracker.matches("https://ad.DoubleClick.net/pixel?id=1", "Image", true),
+                "URL globs should match case-insensitively");
+        Assert.assertFalse(tracker.matches("https://demoqa.com/doubleclick", "Image", false));
+    }
+    
+    @Test(description = "Verify malformed rules are rejected", groups = "unit")
+    public void testInvalidRules() {
+        Assert.assertThrows(IllegalArgumentException.class, () -> RequestRule.parse("drop type:Image"));
+        Assert.assertThrows(IllegalArgumentException.class, () -> RequestRule.parse("block size:large"));
+        Assert.assertThrows(IllegalArgumentException.class, () -> RequestRule.parse("block"));
+        Assert.assertThrows(IllegalArgumentException.class, () -> RequestRule.parse("block type:Images"));
+    }
+    
+    @Test(description = "Verify rules only pause the requests they could match", groups = "unit")
+    public void testFetchPatterns() {
+        // Given - A typed rule and a URL glob rule
+        RequestRule media = RequestRule.parse("block type:media,Font");
+        RequestRule tracker = RequestRule.parse("short-circuit url:*doubleclick.net*");
+        
+        // Then - Verify types become DevTools resource types and globs become URL patterns
+        Assert.assertEquals(media.getFetchPatterns(), List.of(
+                Map.of("urlPattern", "*", "resourceType", "Media"),
+                Map.of("urlPattern", "*", "resourceType", "Font")));
+        Assert.assertEquals(tracker.getFetchPatterns(), List.of(Map.of("urlPattern", "*doubleclick.net*")));
+    }
+}
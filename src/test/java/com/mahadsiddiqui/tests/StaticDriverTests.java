@@ -0,0 +1,141 @@
+package com.mahadsiddiqui.tests;
+
+import com.mahadsiddiqui.config.WebDriverConfig;
+import com.mahadsiddiqui.network.ArchiveEntry;
+import com.mahadsiddiqui.network.NetworkArchive;
+import com.mahadsiddiqui.network.ReplayServer;
+import com.mahadsiddiqui.pages.ElementQueryResult;
+import com.mahadsiddiqui.pages.HomePage;
+import org.openqa.selenium.By;
+import org.openqa.selenium.InvalidSelectorException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+/**
+ * Test class for static sessions and page objects in static mode
+ * Runs against a loopback replay server, no browser needed
+ */
+public class StaticDriverTests {
+    
+    private static final String HOME = "<!DOCTYPE html><html><head><title>Shop</title>"
+            + "<style>.footer { color: gray; }</style></head><body>"
+            + "<div class=\"logo\">Shop</div>"
+            + "<ul class=\"navbar-nav\"><li><a href=\"/products\">Products</a></li>"
+            + "<li><a href=\"/about\">About</a></li>"
+            + "<li><a href=\"/contact\">Contact</a></li></ul>"
+            + "<input id=\"search\" placeholder=\"Search products\">"
+            + "<div class=\"user-menu\" style=\"display: none\"><a href=\"/login\">Login</a>"
+            + "<a href=\"/register\">Register</a></div>"
+            + "<div class=\"newsletter-success\" hidden>Thanks</div>"
+            + "<footer class=\"footer\"><p>Contact us</p><p class=\"copyright\">&copy; 2024 Shop</p>"
+            + "<script>var tracking = true;</script></footer>"
+            + "</body></html>";
+    private static final String PRODUCTS = "<html><head><title>Products</title></head><body>"
+            + "<div class=\"product-card\">One</div><div class=\"product-card\">Two</div></body></html>";
+    
+    private ReplayServer server;
+    
+    @BeforeClass(groups = "unit")
+    public void startServer() throws IOException {
+        NetworkArchive archive = new NetworkArchive();
+        archive.add(page("https://shop.example/", HOME));
+        archive.add(page("https://shop.example/products", PRODUCTS));
+        server = ReplayServer.start(archive, "https://shop.example");
+    }
+    
+    @AfterClass(alwaysRun = true, groups = "unit")
+    public void stopServer() {
+        server.close();
+    }
+    
+    @Test(description = "Verify page objects read static content from served HTML", groups = "unit")
+    public void testStaticContentChecks() {
+        // Given - The home page on a static session
+        HomePage homePage = new HomePage(WebDriverConfig.createStaticDriver());
+        homePage.navigateTo(server.localUrl("https://shop.example/"));
+        
+        // When - Run the usual content checks
+        ElementQueryResult headerState = homePage.getHeaderState();
+        String placeholder = homePage.getSearchBoxPlaceholder();
+        String copyright = homePage.getCopyrightText();
+        String footer = homePage.getFooterText();
+        
+        // Then - Verify they resolve like in a browser, with markup-hidden elements not displayed
+        Assert.assertTrue(homePage.isStaticMode(), "Page object should run in static mode");
+        Assert.assertEquals(homePage.getPageTitle(), "Shop");
+        Assert.assertEquals(headerState.getTitle(), "Shop", "Batched query should read the title locally");
+        Assert.assertTrue(homePage.isLogoDisplayed(headerState), "Logo should be displayed");
+        Assert.assertTrue(homePage.isNavigationMenuDisplayed(headerState), "Navigation should be displayed");
+        Assert.assertEquals(placeholder, "Search products");
+        Assert.assertEquals(copyright, "© 2024 Shop");
+        Assert.assertEquals(footer, "Contact us\n© 2024 Shop", "Script text should not be part of the footer");
+        Assert.assertTrue(homePage.areNavigationLinksPresent(), "Navigation links should be present");
+        Assert.assertFalse(homePage.areAuthenticationLinksPresent(),
+                "Links inside a display:none menu have no rendered text, as in a browser");
+        Assert.assertFalse(homePage.isNewsletterSuccessMessageDisplayed(),
+                "Element with the hidden attribute should not be displayed");
+    }
+    
+    @Test(description = "Verify links navigate and elements of the previous page go stale", groups = "unit")
+    public void testNavigation() {
+        // Given - A static session on the home page
+        WebDriver driver = WebDriverConfig.createStaticDriver();
+        driver.get(server.localUrl("https://shop.example/"));
+        WebElement productsLink = driver.findElement(By.linkText("Products"));
+        Assert.assertEquals(productsLink.getAttribute("href"), server.localUrl("https://shop.example/products"),
+                "Link URLs should be absolute");
+        
+        // When - Follow the link and go back
+        productsLink.click();
+        String productsTitle = driver.getTitle();
+        int productCount = driver.findElements(By.cssSelector(".product-card")).size();
+        driver.navigate().back();
+        
+        // Then - Verify navigation, history and stale references
+        Assert.assertEquals(productsTitle, "Products");
+        Assert.assertEquals(productCount, 2);
+        Assert.assertEquals(driver.getTitle(), "Shop", "Back should return to the home page");
+        Assert.assertThrows(StaleElementReferenceException.class, productsLink::getText);
+    }
+    
+    @Test(description = "Verify browser-only helpers fail fast in static mode", groups = "unit")
+    public void testBrowserOnlyHelpers() {
+        // Given - The home page on a static session
+        HomePage homePage = new HomePage(WebDriverConfig.createStaticDriver());
+        homePage.navigateTo(server.localUrl("https://shop.example/"));
+        
+        // When/Then - Verify script and input helpers are refused and missing elements time out at once
+        Assert.assertThrows(UnsupportedOperationException.class, homePage::scrollToFooter);
+        Assert.assertThrows(UnsupportedOperationException.class, () -> homePage.searchProduct("laptop"));
+        long start = System.nanoTime();
+        Assert.assertThrows(TimeoutException.class, homePage::clickCartIcon);
+        Assert.assertTrue(System.nanoTime() - start < 1_000_000_000L, "Missing element should not be polled for");
+    }
+    
+    @Test(description = "Verify selectors that do not parse are reported as invalid", groups = "unit")
+    public void testInvalidSelector() {
+        // Given - A static session on the home page
+        WebDriver driver = WebDriverConfig.createStaticDriver();
+        driver.get(server.localUrl("https://shop.example/"));
+        WebElement footer = driver.findElement(By.cssSelector(".footer"));
+        
+        // When/Then - Verify a malformed selector fails like it would in a browser, on the page and in an element
+        Assert.assertThrows(InvalidSelectorException.class, () -> driver.findElements(By.cssSelector("div[")));
+        Assert.assertThrows(InvalidSelectorException.class, () -> footer.findElement(By.cssSelector("p[")));
+    }
+    
+    private static ArchiveEntry page(String url, String html) {
+        return new ArchiveEntry("GET", url, 200, Collections.singletonMap("Content-Type", "text/html; charset=utf-8"),
+                html.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,71 @@
+package com.mahadsiddiqui.tests;
+
+import com.mahadsiddiqui.performance.PageMetrics;
+import com.mahadsiddiqui.performance.ThrottlingProfile;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Test class for throttling profile resolution
+ */
+public class ThrottlingProfileTests {
+    
+    @Test(description = "Verify built-in profiles match the DevTools network presets", groups = "unit")
+    public void testBuiltInProfiles() {
+        // When - Resolve built-in profiles without custom definitions
+        ThrottlingProfile slow3g = ThrottlingProfile.resolve("slow-3g", name -> null);
+        ThrottlingProfile none = ThrottlingProfile.resolve("", name -> null);
+        
+        // Then - Verify their conditions
+        Assert.assertEquals(slow3g.getDownloadBytesPerSecond(), 50_000L);
+        Assert.assertEquals(slow3g.getUploadBytesPerSecond(), 50_000L);
+        Assert.assertEquals(slow3g.getLatencyMillis(), 2000.0, 0.001);
+        Assert.assertFalse(slow3g.isCpuThrottled());
+        Assert.assertSame(none, ThrottlingProfile.NONE, "An empty name should mean no throttling");
+        Assert.assertFalse(none.isNetworkThrottled());
+    }
+    
+    @Test(description = "Verify profiles combine with '+' and custom definitions take precedence", groups = "unit")
+    public void testCombinedAndCustomProfiles() {
+        // Given - A custom office profile and one overriding a built-in name
+        Map<String, String> custom = Collections.singletonMap("office", "download=5000, upload=1000, latency=120");
+        
+        // When - Resolve combinations
+        ThrottlingProfile combined = ThrottlingProfile.resolve("fast-4g+cpu-4x", custom::get);
+        ThrottlingProfile office = ThrottlingProfile.resolve("Office+cpu-2x", custom::get);
+        
+        // Then - Verify network from the network profile and the CPU slowdown from the CPU one
+        Assert.assertEquals(combined.getName(), "fast-4g+cpu-4x");
+        Assert.assertEquals(combined.getDownloadBytesPerSecond(), 1_012_500L);
+        Assert.assertEquals(combined.getLatencyMillis(), 165.0, 0.001);
+        Assert.assertEquals(combined.getCpuSlowdown(), 4.0, 0.001);
+        Assert.assertEquals(office.getDownloadBytesPerSecond(), 625_000L, "kbit/s should convert to bytes/s");
+        Assert.assertEquals(office.getLatencyMillis(), 120.0, 0.001);
+        Assert.assertEquals(office.getCpuSlowdown(), 2.0, 0.001);
+        Assert.assertTrue(ThrottlingProfile.resolve("mobile", name -> null)
+                .sameConditions(ThrottlingProfile.resolve("slow-4g+cpu-4x", name -> null)));
+    }
+    
+    @Test(description = "Verify unknown profiles and settings are rejected", groups = "unit")
+    public void testInvalidProfiles() {
+        Assert.assertThrows(IllegalArgumentException.class, () -> ThrottlingProfile.resolve("2g", name -> null));
+        Assert.assertThrows(IllegalArgumentException.class, () -> ThrottlingProfile.parse("x", "jitter=5"));
+        Assert.assertThrows(IllegalArgumentException.class, () -> ThrottlingProfile.parse("x", "latency"));
+    }
+    
+    @Test(description = "Verify page metrics report the profile they were measured under", groups = "unit")
+    public void testMetricsProfile() {
+        PageMetrics throttled = new PageMetrics("HomePage", "https://demoqa.com/", "slow-3g",
+                Collections.singletonMap(PageMetrics.LOAD, 9000.0), Collections.emptyMap());
+        PageMetrics unthrottled = new PageMetrics("HomePage", "https://demoqa.com/",
+                Collections.singletonMap(PageMetrics.LOAD, 900.0), Collections.emptyMap());
+        
+        Assert.assertTrue(throttled.isThrottled());
+        Assert.assertEquals(throttled.summary(), "HomePage@slow-3g load=9000");
+        Assert.assertFalse(unthrottled.isThrottled());
+        Assert.assertEquals(unthrottled.summary(), "HomePage load=900");
+    }
+}
@@ -0,0 +1,77 @@
+package com.mahadsiddiqui.tests;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mahadsiddiqui.trace.TraceSpan;
+import com.mahadsiddiqui.trace.Tracer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Test class for per-thread test timelines
+ * Records spans without a browser and reads the written trace back
+ */
+public class TracerTests {
+    
+    @Test(description = "Verify spans nest under their page object method in the written trace", groups = "unit")
+    public void testSpansAndPageMethods() throws IOException {
+        // Given - A trace with a page object method wrapping a wait and a command
+        Tracer.startTest("TracerTests.checkout", null);
+        Tracer.enterPageMethod("HomePage.searchProduct");
+        try (TraceSpan action = Tracer.span("sendKeys By.id: search", "page")) {
+            try (TraceSpan wait = Tracer.span("wait.visible By.id: search", "wait")) {
+                Assert.assertEquals(Tracer.depth(), 2, "Nested spans should be counted");
+            }
+            Tracer.complete("sendKeysToElement", "webdriver", System.nanoTime() - 1_000_000, System.nanoTime());
+        }
+        Tracer.enterPageMethod(null);
+        
+        // When - Finish the test and read the trace file
+        Path file = Files.createTempDirectory("trace").resolve("checkout.json");
+        Path written = Tracer.finishTest(null, file);
+        JsonNode events = new ObjectMapper().readTree(written.toFile()).get("traceEvents");
+        
+        // Then - Verify every span became a complete event enclosed by the test event
+        Map<String, JsonNode> byName = new HashMap<>();
+        for (JsonNode event : events) {
+            if ("X".equals(event.get("ph").asText())) {
+                byName.put(event.get("name").asText(), event);
+            }
+        }
+        Assert.assertEquals(byName.keySet().size(), 5, "Test, page method, two spans and one command expected");
+        JsonNode test = byName.get("TracerTests.checkout");
+        JsonNode method = byName.get("HomePage.searchProduct");
+        JsonNode wait = byName.get("wait.visible By.id: search");
+        Assert.assertEquals(method.get("cat").asText(), "page");
+        Assert.assertEquals(byName.get("sendKeysToElement").get("cat").asText(), "webdriver");
+        Assert.assertTrue(method.get("ts").asLong() <= wait.get("ts").asLong(),
+                "Page method should start no later than its first span");
+        Assert.assertTrue(test.get("ts").asLong() + test.get("dur").asLong()
+                        >= method.get("ts").asLong() + method.get("dur").asLong(),
+                "Test event should enclose the page method");
+        Assert.assertEquals(Tracer.depth(), 0, "No spans should be left open");
+    }
+    
+    @Test(description = "Verify no events are recorded on a thread without a trace", groups = "unit")
+    public void testInactive() throws IOException {
+        // Given - A thread whose trace has finished
+        Tracer.startTest("TracerTests.inactive", null);
+        Tracer.finishTest(null, Files.createTempDirectory("trace").resolve("inactive.json"));
+        
+        // When - Open a span and finish again
+        TraceSpan span = Tracer.span("getText By.id: footer", "page");
+        span.close();
+        
+        // Then - Verify the shared no-op span is handed out and nothing is written
+        Assert.assertFalse(Tracer.isActive(), "Trace should be inactive after finishing");
+        Assert.assertSame(span, TraceSpan.NONE, "Inactive trace should hand out the no-op span");
+        Assert.assertNull(Tracer.finishTest(null, Files.createTempDirectory("trace").resolve("none.json")),
+                "Finishing without a trace should write nothing");
+    }
+}
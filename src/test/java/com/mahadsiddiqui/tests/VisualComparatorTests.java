@@ -0,0 +1,109 @@
+package com.mahadsiddiqui.tests;
+
+import com.mahadsiddiqui.visual.TileImage;
+import com.mahadsiddiqui.visual.VisualComparator;
+import com.mahadsiddiqui.visual.VisualDiffResult;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+
+/**
+ * Test class for tiled visual comparison
+ * Runs against generated images, no browser needed
+ */
+public class VisualComparatorTests {
+    
+    private VisualComparator comparator;
+    private BufferedImage baseline;
+    
+    @BeforeMethod(groups = "unit")
+    public void setUp() {
+        comparator = new VisualComparator(64, 16, 0.001, 4);
+        baseline = new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = baseline.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, 640, 480);
+        graphics.setColor(Color.DARK_GRAY);
+        for (int row = 0; row < 20; row++) {
+            graphics.fillRect(20, 20 + row * 22, 300 + (row % 5) * 40, 12);
+        }
+        graphics.dispose();
+    }
+    
+    @Test(description = "Verify identical screenshots pass on tile hashes alone", groups = "unit")
+    public void testIdenticalImages() {
+        // When - Compare the baseline with an exact copy
+        VisualDiffResult result = comparator.compare(TileImage.of(baseline), TileImage.of(copy(baseline)),
+                Collections.emptyList());
+        
+        // Then - Verify every tile short-circuits on its hash
+        Assert.assertTrue(result.isPassed(), "Identical images should match");
+        Assert.assertEquals(result.getTotalTiles(), 80, "640x480 should split into 10x8 tiles");
+        Assert.assertEquals(result.getUnchangedTiles(), result.getTotalTiles(), "All tiles should be unchanged");
+    }
+    
+    @Test(description = "Verify a changed region fails only the tiles it covers", groups = "unit")
+    public void testChangedRegion() {
+        // Given - A red block spanning four tiles
+        BufferedImage changed = copy(baseline);
+        paint(changed, new Rectangle(100, 100, 60, 60), Color.RED);
+        
+        // When - Compare with the baseline
+        VisualDiffResult result = comparator.compare(TileImage.of(baseline), TileImage.of(changed),
+                Collections.emptyList());
+        
+        // Then - Verify the failing tiles match the changed area
+        Assert.assertFalse(result.isPassed(), "Changed image should not match");
+        Assert.assertEquals(result.getFailingTiles().size(), 4, "Block at 100..160 should fail four tiles");
+        Assert.assertEquals(result.getDiffPixels(), 3600, "Every pixel of the block should differ");
+        Assert.assertEquals(result.getUnchangedTiles(), 76, "Other tiles should short-circuit on their hash");
+    }
+    
+    @Test(description = "Verify ignore regions and rendering noise do not fail the comparison", groups = "unit")
+    public void testIgnoredRegionAndNoise() {
+        // Given - A changed block inside an ignore region and a few single-pixel rendering differences
+        BufferedImage changed = copy(baseline);
+        paint(changed, new Rectangle(400, 300, 50, 50), Color.BLUE);
+        changed.setRGB(30, 25, 0x505050);
+        changed.setRGB(200, 300, 0xFAFAFA);
+        
+        // When - Compare while ignoring the block
+        VisualDiffResult result = comparator.compare(TileImage.of(baseline), TileImage.of(changed),
+                Collections.singletonList(new Rectangle(390, 290, 70, 70)));
+        
+        // Then - Verify the comparison passes
+        Assert.assertTrue(result.isPassed(), "Ignored block and noise should not fail: " + result.getMessage());
+    }
+    
+    @Test(description = "Verify a size change fails without tile comparison", groups = "unit")
+    public void testSizeMismatch() {
+        // When - Compare with a taller screenshot
+        VisualDiffResult result = comparator.compare(TileImage.of(baseline),
+                TileImage.of(new BufferedImage(640, 520, BufferedImage.TYPE_INT_RGB)), Collections.emptyList());
+        
+        // Then - Verify the size change is reported
+        Assert.assertFalse(result.isPassed(), "Different sizes should not match");
+        Assert.assertTrue(result.getMessage().contains("640x520"), "Message should name the new size");
+    }
+    
+    private static BufferedImage copy(BufferedImage image) {
+        BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = copy.createGraphics();
+        graphics.drawImage(image, 0, 0, null);
+        graphics.dispose();
+        return copy;
+    }
+    
+    private static void paint(BufferedImage image, Rectangle area, Color color) {
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(color);
+        graphics.fill(area);
+        graphics.dispose();
+    }
+}